@@ -0,0 +1,235 @@
+package net.irisshaders.batchedentityrendering.impl.ordering;
+
+import com.mojang.blaze3d.vertex.DefaultVertexFormat;
+import com.mojang.blaze3d.vertex.VertexFormat;
+import de.odysseus.ithaka.digraph.Digraph;
+import de.odysseus.ithaka.digraph.Digraphs;
+import de.odysseus.ithaka.digraph.MapDigraph;
+import de.odysseus.ithaka.digraph.util.fas.FeedbackArcSet;
+import de.odysseus.ithaka.digraph.util.fas.FeedbackArcSetPolicy;
+import de.odysseus.ithaka.digraph.util.fas.FeedbackArcSetProvider;
+import de.odysseus.ithaka.digraph.util.fas.SimpleFeedbackArcSetProvider;
+import net.minecraft.client.renderer.RenderType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Stream;
+
+public class RenderTypeGraphTest {
+	private static final FeedbackArcSetProvider FEEDBACK_ARC_SET_PROVIDER = new SimpleFeedbackArcSetProvider();
+
+	private static RenderType renderType(String name) {
+		return new RenderType(name, DefaultVertexFormat.POSITION, VertexFormat.Mode.QUADS, 256, false, true, () -> {}, () -> {}) {
+			@Override
+			public String toString() {
+				return name;
+			}
+		};
+	}
+
+	private static List<RenderType> renderTypes(int count) {
+		List<RenderType> types = new ArrayList<>();
+
+		for (int i = 0; i < count; i++) {
+			types.add(renderType("type" + i));
+		}
+
+		return types;
+	}
+
+	private static int[] edge(int source, int target) {
+		return new int[] { source, target };
+	}
+
+	/**
+	 * Each case is the order the vertices are added in, followed by the edges in the order they're added in.
+	 */
+	static Stream<Arguments> acyclicGraphs() {
+		return Stream.of(
+			Arguments.of("single vertex", new int[] { 0 }, new int[][] {}),
+			Arguments.of("no edges", new int[] { 2, 0, 1 }, new int[][] {}),
+			Arguments.of("chain", new int[] { 0, 1, 2, 3 }, new int[][] { edge(0, 1), edge(1, 2), edge(2, 3) }),
+			Arguments.of("chain added backwards", new int[] { 3, 2, 1, 0 }, new int[][] { edge(2, 3), edge(1, 2), edge(0, 1) }),
+			Arguments.of("diamond", new int[] { 0, 1, 2, 3 }, new int[][] { edge(0, 1), edge(0, 2), edge(1, 3), edge(2, 3) }),
+			Arguments.of("repeated edges", new int[] { 0, 1, 2 }, new int[][] { edge(0, 1), edge(0, 1), edge(1, 2), edge(0, 1) }),
+			Arguments.of("self loop", new int[] { 0, 1 }, new int[][] { edge(0, 0), edge(0, 1), edge(1, 1) }),
+			Arguments.of("two components", new int[] { 0, 1, 2, 3, 4 }, new int[][] { edge(3, 4), edge(0, 2), edge(2, 1) }),
+			Arguments.of("shortcut", new int[] { 0, 1, 2, 3 }, new int[][] { edge(0, 3), edge(0, 1), edge(1, 2), edge(2, 3) }),
+			Arguments.of("entity layers", new int[] { 0, 1, 2, 3, 4, 5 },
+				new int[][] { edge(0, 1), edge(1, 2), edge(0, 3), edge(3, 2), edge(4, 5), edge(5, 2), edge(0, 4) })
+		);
+	}
+
+	static Stream<Arguments> cyclicGraphs() {
+		return Stream.of(
+			Arguments.of("two cycle", new int[] { 0, 1 }, new int[][] { edge(0, 1), edge(1, 0), edge(0, 1) }),
+			Arguments.of("three cycle", new int[] { 0, 1, 2 }, new int[][] { edge(0, 1), edge(1, 2), edge(2, 0) }),
+			Arguments.of("cycle with a tail", new int[] { 0, 1, 2, 3 },
+				new int[][] { edge(3, 0), edge(0, 1), edge(1, 2), edge(2, 1), edge(1, 2) })
+		);
+	}
+
+	private static RenderTypeGraph build(List<RenderType> types, int[] vertices, int[][] edges) {
+		RenderTypeGraph graph = new RenderTypeGraph();
+		int[] indices = new int[types.size()];
+
+		for (int vertex : vertices) {
+			indices[vertex] = graph.add(types.get(vertex));
+		}
+
+		for (int[] edge : edges) {
+			graph.addEdge(indices[edge[0]], indices[edge[1]]);
+		}
+
+		return graph;
+	}
+
+	private static List<RenderType> sort(RenderTypeGraph graph) {
+		List<RenderType> order = new ArrayList<>();
+		graph.appendRenderOrder(order, FEEDBACK_ARC_SET_PROVIDER);
+		return order;
+	}
+
+	/**
+	 * Sorts the same graph the way the render order manager did before it had its own graph.
+	 */
+	private static List<RenderType> referenceSort(List<RenderType> types, int[] vertices, int[][] edges) {
+		Digraph<RenderType> graph = new MapDigraph<>();
+
+		for (int vertex : vertices) {
+			graph.add(types.get(vertex));
+		}
+
+		for (int[] edge : edges) {
+			RenderType source = types.get(edge[0]);
+			RenderType target = types.get(edge[1]);
+
+			if (source != target) {
+				graph.put(source, target, graph.get(source, target).orElse(0) + 1);
+			}
+		}
+
+		FeedbackArcSet<RenderType> arcSet =
+			FEEDBACK_ARC_SET_PROVIDER.getFeedbackArcSet(graph, graph, FeedbackArcSetPolicy.MIN_WEIGHT);
+
+		for (RenderType source : arcSet.vertices()) {
+			for (RenderType target : arcSet.targets(source)) {
+				graph.remove(source, target);
+			}
+		}
+
+		return new ArrayList<>(Digraphs.toposort(graph, false));
+	}
+
+	private static void assertContainsEachOnce(List<RenderType> types, int[] vertices, List<RenderType> order) {
+		Assertions.assertEquals(vertices.length, order.size(), "order: " + order);
+		Assertions.assertEquals(vertices.length, new HashSet<>(order).size(), "order: " + order);
+
+		for (int vertex : vertices) {
+			Assertions.assertTrue(order.contains(types.get(vertex)), "missing " + types.get(vertex) + " in " + order);
+		}
+	}
+
+	@ParameterizedTest(name = "{0}")
+	@MethodSource("acyclicGraphs")
+	void sortsTopologically(String name, int[] vertices, int[][] edges) {
+		List<RenderType> types = renderTypes(vertices.length);
+		List<RenderType> order = sort(build(types, vertices, edges));
+
+		assertContainsEachOnce(types, vertices, order);
+
+		for (int[] edge : edges) {
+			if (edge[0] != edge[1]) {
+				Assertions.assertTrue(order.indexOf(types.get(edge[0])) < order.indexOf(types.get(edge[1])),
+					types.get(edge[0]) + " must come before " + types.get(edge[1]) + " in " + order);
+			}
+		}
+
+		Assertions.assertEquals(referenceSort(types, vertices, edges), order);
+	}
+
+	@ParameterizedTest(name = "{0}")
+	@MethodSource("cyclicGraphs")
+	void breaksCyclesLikeTheDigraph(String name, int[] vertices, int[][] edges) {
+		List<RenderType> types = renderTypes(vertices.length);
+		List<RenderType> order = sort(build(types, vertices, edges));
+
+		assertContainsEachOnce(types, vertices, order);
+		Assertions.assertEquals(referenceSort(types, vertices, edges), order);
+	}
+
+	@Test
+	void keepsTheHeavierEdgeOfACycle() {
+		List<RenderType> types = renderTypes(2);
+		int[] vertices = { 0, 1 };
+
+		Assertions.assertEquals(List.of(types.get(0), types.get(1)),
+			sort(build(types, vertices, new int[][] { edge(0, 1), edge(1, 0), edge(0, 1) })));
+		Assertions.assertEquals(List.of(types.get(1), types.get(0)),
+			sort(build(types, vertices, new int[][] { edge(1, 0), edge(0, 1), edge(1, 0) })));
+	}
+
+	@Test
+	void resortsWhenTheGraphChangesAfterClear() {
+		List<RenderType> types = renderTypes(3);
+		RenderTypeGraph graph = new RenderTypeGraph();
+
+		int a = graph.add(types.get(0));
+		int b = graph.add(types.get(1));
+		int c = graph.add(types.get(2));
+		graph.addEdge(a, b);
+		graph.addEdge(b, c);
+
+		Assertions.assertEquals(List.of(types.get(0), types.get(1), types.get(2)), sort(graph));
+		// the same graph again reuses the previous order
+		Assertions.assertEquals(List.of(types.get(0), types.get(1), types.get(2)), sort(graph));
+
+		graph.clear();
+		Assertions.assertEquals(0, graph.getVertexCount());
+		Assertions.assertEquals(List.of(), sort(graph));
+
+		// the interned indices stay the same, but the edges are reversed
+		c = graph.add(types.get(2));
+		b = graph.add(types.get(1));
+		a = graph.add(types.get(0));
+		graph.addEdge(c, b);
+		graph.addEdge(b, a);
+
+		Assertions.assertEquals(List.of(types.get(2), types.get(1), types.get(0)), sort(graph));
+
+		graph.clear();
+		graph.add(types.get(1));
+
+		Assertions.assertEquals(List.of(types.get(1)), sort(graph));
+	}
+
+	@Test
+	void resortsWhenOnlyCycleWeightsChange() {
+		List<RenderType> types = renderTypes(2);
+		RenderTypeGraph graph = new RenderTypeGraph();
+
+		int a = graph.add(types.get(0));
+		int b = graph.add(types.get(1));
+		graph.addEdge(a, b);
+		graph.addEdge(b, a);
+		graph.addEdge(a, b);
+
+		Assertions.assertEquals(List.of(types.get(0), types.get(1)), sort(graph));
+
+		// same vertices and edges, but now the other edge is heavier
+		graph.clear();
+		a = graph.add(types.get(0));
+		b = graph.add(types.get(1));
+		graph.addEdge(a, b);
+		graph.addEdge(b, a);
+		graph.addEdge(b, a);
+
+		Assertions.assertEquals(List.of(types.get(1), types.get(0)), sort(graph));
+	}
+}
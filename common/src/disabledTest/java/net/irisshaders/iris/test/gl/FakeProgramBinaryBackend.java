@@ -0,0 +1,93 @@
+package net.irisshaders.iris.test.gl;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.ints.IntSet;
+import net.irisshaders.iris.gl.shader.ProgramBinary;
+import net.irisshaders.iris.gl.shader.ProgramBinaryBackend;
+
+/**
+ * A driver that "links" a program by handing out a binary chosen by the test, and only accepts binaries it produced
+ * itself.
+ */
+public class FakeProgramBinaryBackend implements ProgramBinaryBackend {
+	private final Int2ObjectMap<ProgramBinary> linked = new Int2ObjectOpenHashMap<>();
+	private final IntSet retrievable = new IntOpenHashSet();
+	private final IntSet live = new IntOpenHashSet();
+	private String driverIdentity = "fake;driver;1.0";
+	private int format = 1;
+	private int nextProgram = 1;
+	public int loadCalls;
+
+	public void setDriverIdentity(String driverIdentity) {
+		this.driverIdentity = driverIdentity;
+	}
+
+	/**
+	 * Changes the binary format, so that every binary produced before is rejected like after a driver update.
+	 */
+	public void setFormat(int format) {
+		this.format = format;
+	}
+
+	/**
+	 * Pretends to link the program from source.
+	 */
+	public void link(int program, byte[] data) {
+		linked.put(program, new ProgramBinary(format, data));
+	}
+
+	public ProgramBinary getLinked(int program) {
+		return linked.get(program);
+	}
+
+	public boolean isLive(int program) {
+		return live.contains(program);
+	}
+
+	@Override
+	public boolean isSupported() {
+		return true;
+	}
+
+	@Override
+	public String getDriverIdentity() {
+		return driverIdentity;
+	}
+
+	@Override
+	public void markRetrievable(int program) {
+		retrievable.add(program);
+	}
+
+	@Override
+	public ProgramBinary getBinary(int program) {
+		return retrievable.contains(program) ? linked.get(program) : null;
+	}
+
+	@Override
+	public int createProgram() {
+		int program = nextProgram++;
+		live.add(program);
+		return program;
+	}
+
+	@Override
+	public boolean loadBinary(int program, ProgramBinary binary) {
+		loadCalls++;
+
+		if (binary.format() != format) {
+			return false;
+		}
+
+		linked.put(program, binary);
+		return true;
+	}
+
+	@Override
+	public void deleteProgram(int program) {
+		live.remove(program);
+		linked.remove(program);
+	}
+}
@@ -0,0 +1,167 @@
+package net.irisshaders.iris.test.gl;
+
+import net.irisshaders.iris.gl.state.GlStateTracker;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.lwjgl.opengl.GL30C;
+
+import java.util.List;
+
+public class GlStateTrackerTest {
+	private RecordingStateBackend backend;
+	private GlStateTracker tracker;
+
+	@BeforeEach
+	void createTracker() {
+		backend = new RecordingStateBackend();
+		tracker = new GlStateTracker(backend);
+	}
+
+	@Test
+	void testEverythingPassesThroughOutsideScope() {
+		tracker.bindFramebuffer(1);
+		tracker.bindFramebuffer(1);
+		tracker.useProgram(2);
+		tracker.useProgram(2);
+		tracker.viewport(0, 0, 16, 16);
+		tracker.viewport(0, 0, 16, 16);
+
+		Assertions.assertEquals(List.of("bindFramebuffer 1", "bindFramebuffer 1", "useProgram 2", "useProgram 2",
+			"viewport 0 0 16 16", "viewport 0 0 16 16"), backend.take());
+	}
+
+	@Test
+	void testRedundantChangesAreDroppedInScope() {
+		tracker.beginScope();
+		tracker.bindFramebuffer(1);
+		tracker.bindFramebuffer(1);
+		tracker.useProgram(2);
+		tracker.useProgram(2);
+		tracker.viewport(0, 0, 16, 16);
+		tracker.viewport(0, 0, 16, 16);
+		tracker.viewport(0, 0, 16, 8);
+		tracker.endScope();
+
+		Assertions.assertEquals(List.of("bindFramebuffer 1", "useProgram 2", "viewport 0 0 16 16", "viewport 0 0 16 8"),
+			backend.take());
+	}
+
+	@Test
+	void testScopeStartsWithUnknownState() {
+		tracker.bindFramebuffer(1);
+		tracker.beginScope();
+		tracker.bindFramebuffer(1);
+
+		Assertions.assertEquals(List.of("bindFramebuffer 1", "bindFramebuffer 1"), backend.take());
+	}
+
+	@Test
+	void testInvalidateForgetsState() {
+		tracker.beginScope();
+		tracker.bindFramebuffer(1);
+		tracker.useProgram(2);
+		tracker.invalidate();
+		tracker.bindFramebuffer(1);
+		tracker.useProgram(2);
+
+		Assertions.assertEquals(List.of("bindFramebuffer 1", "useProgram 2", "bindFramebuffer 1", "useProgram 2"), backend.take());
+	}
+
+	@Test
+	void testChangesMadeElsewhereAreTracked() {
+		tracker.beginScope();
+		tracker.bindFramebuffer(1);
+		tracker.useProgram(2);
+		tracker.viewport(0, 0, 16, 16);
+		backend.take();
+
+		// vanilla binds something else through GlStateManager
+		tracker.onFramebufferBound(GL30C.GL_FRAMEBUFFER, 0);
+		tracker.onProgramUsed(0);
+		tracker.onViewport(0, 0, 32, 32);
+
+		tracker.bindFramebuffer(1);
+		tracker.useProgram(2);
+		tracker.viewport(0, 0, 16, 16);
+
+		Assertions.assertEquals(List.of("bindFramebuffer 1", "useProgram 2", "viewport 0 0 16 16"), backend.take());
+	}
+
+	@Test
+	void testChangesMadeElsewhereCanMakeCallsRedundant() {
+		tracker.beginScope();
+		tracker.onFramebufferBound(GL30C.GL_FRAMEBUFFER, 3);
+		tracker.onProgramUsed(4);
+
+		tracker.bindFramebuffer(3);
+		tracker.useProgram(4);
+
+		Assertions.assertEquals(List.of(), backend.take());
+	}
+
+	@Test
+	void testHalfBindingMakesFramebufferUnknown() {
+		tracker.beginScope();
+		tracker.bindFramebuffer(1);
+		tracker.onFramebufferBound(GL30C.GL_READ_FRAMEBUFFER, 1);
+		tracker.bindFramebuffer(1);
+
+		Assertions.assertEquals(List.of("bindFramebuffer 1", "bindFramebuffer 1"), backend.take());
+	}
+
+	@Test
+	void testNestedScopesKeepTracking() {
+		// the composite passes run inside the gbuffer pass
+		tracker.beginScope();
+		tracker.beginScope();
+		tracker.useProgram(2);
+		tracker.endScope();
+		tracker.useProgram(5);
+		tracker.useProgram(5);
+		tracker.endScope();
+		tracker.useProgram(5);
+
+		Assertions.assertEquals(List.of("useProgram 2", "useProgram 5", "useProgram 5"), backend.take());
+	}
+
+	@Test
+	void testUnbalancedEndScopeIsIgnored() {
+		tracker.endScope();
+		tracker.beginScope();
+		tracker.useProgram(2);
+		tracker.useProgram(2);
+
+		Assertions.assertEquals(List.of("useProgram 2"), backend.take());
+	}
+
+	@Test
+	void testEndFrameClosesLeakedScopes() {
+		tracker.beginScope();
+		tracker.endFrame();
+		tracker.useProgram(2);
+		tracker.useProgram(2);
+
+		Assertions.assertEquals(List.of("useProgram 2", "useProgram 2"), backend.take());
+	}
+
+	@Test
+	void testCountsPerFrame() {
+		tracker.beginScope();
+		tracker.useProgram(2);
+		tracker.useProgram(2);
+		tracker.useProgram(2);
+		tracker.countStateChange(true);
+		tracker.countStateChange(false);
+		tracker.endScope();
+		tracker.endFrame();
+
+		Assertions.assertEquals(2, tracker.getLastFrameIssued());
+		Assertions.assertEquals(3, tracker.getLastFrameSkipped());
+
+		tracker.endFrame();
+
+		Assertions.assertEquals(0, tracker.getLastFrameIssued());
+		Assertions.assertEquals(0, tracker.getLastFrameSkipped());
+	}
+}
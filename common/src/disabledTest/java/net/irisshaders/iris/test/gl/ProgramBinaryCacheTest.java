@@ -0,0 +1,160 @@
+package net.irisshaders.iris.test.gl;
+
+import net.irisshaders.iris.gl.shader.ProgramBinaryCache;
+import net.irisshaders.iris.gl.shader.ProgramBinaryCache.AttributeBinding;
+import net.irisshaders.iris.gl.shader.ShaderType;
+import net.irisshaders.iris.helpers.BoundedFileCache;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ProgramBinaryCacheTest {
+	private static final byte[] BINARY = {1, 2, 3, 4};
+	private static final List<AttributeBinding> BINDINGS = List.of(new AttributeBinding(0, "Position"));
+
+	@TempDir
+	Path directory;
+
+	private FakeProgramBinaryBackend backend;
+	private ProgramBinaryCache cache;
+
+	private static Map<ShaderType, String> sources(String vertex, String fragment) {
+		Map<ShaderType, String> sources = new LinkedHashMap<>();
+		sources.put(ShaderType.VERTEX, vertex);
+		sources.put(ShaderType.FRAGMENT, fragment);
+		return sources;
+	}
+
+	@BeforeEach
+	void createCache() {
+		backend = new FakeProgramBinaryBackend();
+		cache = new ProgramBinaryCache(backend, new BoundedFileCache(directory, Long.MAX_VALUE));
+	}
+
+	private String storeLinked(String key) {
+		int program = backend.createProgram();
+		cache.prepareForStore(program);
+		backend.link(program, BINARY);
+		cache.store(key, program);
+		return key;
+	}
+
+	@Test
+	void testMissWithoutEntry() {
+		Assertions.assertEquals(-1, cache.tryLoad(cache.computeKey(sources("v", "f"), BINDINGS)));
+		Assertions.assertEquals(0, backend.loadCalls);
+	}
+
+	@Test
+	void testStoredProgramLoads() {
+		String key = storeLinked(cache.computeKey(sources("v", "f"), BINDINGS));
+
+		int program = cache.tryLoad(key);
+
+		Assertions.assertNotEquals(-1, program);
+		Assertions.assertArrayEquals(BINARY, backend.getLinked(program).data());
+	}
+
+	@Test
+	void testStoredProgramLoadsIntoExistingProgram() {
+		String key = storeLinked(cache.computeKey(sources("v", "f"), BINDINGS));
+		int program = backend.createProgram();
+
+		Assertions.assertTrue(cache.tryLoadInto(key, program));
+		Assertions.assertArrayEquals(BINARY, backend.getLinked(program).data());
+	}
+
+	@Test
+	void testNothingStoredWithoutRetrievableHint() {
+		String key = cache.computeKey(sources("v", "f"), BINDINGS);
+		int program = backend.createProgram();
+		backend.link(program, BINARY);
+		cache.store(key, program);
+
+		Assertions.assertEquals(-1, cache.tryLoad(key));
+	}
+
+	@Test
+	void testRejectedBinaryIsRemoved() {
+		String key = storeLinked(cache.computeKey(sources("v", "f"), BINDINGS));
+		backend.setFormat(2);
+
+		Assertions.assertEquals(-1, cache.tryLoad(key));
+		Assertions.assertEquals(1, backend.loadCalls);
+
+		// the entry is gone, so the driver isn't asked again
+		Assertions.assertEquals(-1, cache.tryLoad(key));
+		Assertions.assertEquals(1, backend.loadCalls);
+	}
+
+	@Test
+	void testRejectedBinaryDeletesCreatedProgram() {
+		String key = storeLinked(cache.computeKey(sources("v", "f"), BINDINGS));
+		backend.setFormat(2);
+		int next = backend.createProgram() + 1;
+
+		Assertions.assertEquals(-1, cache.tryLoad(key));
+		Assertions.assertFalse(backend.isLive(next));
+	}
+
+	@Test
+	void testRejectedBinaryKeepsExistingProgram() {
+		String key = storeLinked(cache.computeKey(sources("v", "f"), BINDINGS));
+		backend.setFormat(2);
+		int program = backend.createProgram();
+
+		Assertions.assertFalse(cache.tryLoadInto(key, program));
+		Assertions.assertTrue(backend.isLive(program));
+	}
+
+	@Test
+	void testCorruptEntryIsRemoved() throws IOException {
+		String key = storeLinked(cache.computeKey(sources("v", "f"), BINDINGS));
+
+		try (var files = Files.list(directory)) {
+			for (Path file : files.toList()) {
+				Files.write(file, new byte[]{9, 9});
+			}
+		}
+
+		Assertions.assertEquals(-1, cache.tryLoad(key));
+		Assertions.assertEquals(0, backend.loadCalls);
+
+		try (var files = Files.list(directory)) {
+			Assertions.assertEquals(0, files.count());
+		}
+	}
+
+	@Test
+	void testKeyDependsOnSources() {
+		Assertions.assertEquals(cache.computeKey(sources("v", "f"), BINDINGS), cache.computeKey(sources("v", "f"), BINDINGS));
+		Assertions.assertNotEquals(cache.computeKey(sources("v", "f"), BINDINGS), cache.computeKey(sources("v", "f2"), BINDINGS));
+		// the values are length-prefixed, so moving text between shaders changes the key
+		Assertions.assertNotEquals(cache.computeKey(sources("vf", ""), BINDINGS), cache.computeKey(sources("v", "f"), BINDINGS));
+	}
+
+	@Test
+	void testKeyDependsOnAttributeBindings() {
+		Assertions.assertNotEquals(cache.computeKey(sources("v", "f"), BINDINGS),
+			cache.computeKey(sources("v", "f"), List.of(new AttributeBinding(1, "Position"))));
+	}
+
+	@Test
+	void testKeyDependsOnDriver() {
+		String key = cache.computeKey(sources("v", "f"), BINDINGS);
+
+		FakeProgramBinaryBackend otherDriver = new FakeProgramBinaryBackend();
+		otherDriver.setDriverIdentity("other;driver;2.0");
+		ProgramBinaryCache otherCache = new ProgramBinaryCache(otherDriver, new BoundedFileCache(directory, Long.MAX_VALUE));
+
+		Assertions.assertNotEquals(key, otherCache.computeKey(sources("v", "f"), BINDINGS));
+	}
+}
@@ -0,0 +1,37 @@
+package net.irisshaders.iris.test.gl;
+
+import net.irisshaders.iris.gl.state.GlStateTracker;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records the calls that reach OpenGL instead of making them.
+ */
+public class RecordingStateBackend implements GlStateTracker.Backend {
+	public final List<String> calls = new ArrayList<>();
+
+	@Override
+	public void bindFramebuffer(int framebuffer) {
+		calls.add("bindFramebuffer " + framebuffer);
+	}
+
+	@Override
+	public void useProgram(int program) {
+		calls.add("useProgram " + program);
+	}
+
+	@Override
+	public void viewport(int x, int y, int width, int height) {
+		calls.add("viewport " + x + " " + y + " " + width + " " + height);
+	}
+
+	/**
+	 * Returns the calls recorded so far and forgets them.
+	 */
+	public List<String> take() {
+		List<String> taken = List.copyOf(calls);
+		calls.clear();
+		return taken;
+	}
+}
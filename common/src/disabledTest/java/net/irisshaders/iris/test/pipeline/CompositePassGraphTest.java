@@ -0,0 +1,137 @@
+package net.irisshaders.iris.test.pipeline;
+
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.ints.IntSet;
+import net.irisshaders.iris.pipeline.CompositePassGraph;
+import net.irisshaders.iris.pipeline.CompositePassGraph.BarrierPlan;
+import net.irisshaders.iris.pipeline.CompositePassGraph.Node;
+import net.irisshaders.iris.pipeline.CompositePassGraph.Stage;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.lwjgl.opengl.GL43C;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+public class CompositePassGraphTest {
+	private static final int IMAGE = GL43C.GL_SHADER_IMAGE_ACCESS_BARRIER_BIT;
+	private static final int TEXTURE = GL43C.GL_TEXTURE_FETCH_BARRIER_BIT;
+	private static final int STORAGE = GL43C.GL_SHADER_STORAGE_BARRIER_BIT;
+	private static final int ALL = CompositePassGraph.ALL_BARRIER_BITS;
+	private static final Stage[] NO_COMPUTES = new Stage[0];
+
+	private static IntSet buffers(int... buffers) {
+		return new IntOpenHashSet(buffers);
+	}
+
+	private static Stage sampling(int... reads) {
+		return new Stage(buffers(reads), TEXTURE, false);
+	}
+
+	private static Stage imageWriting(int... reads) {
+		return new Stage(buffers(reads), IMAGE, true);
+	}
+
+	private static Node draw(int[] drawBuffers, Stage stage) {
+		return new Node(NO_COMPUTES, stage, drawBuffers, false);
+	}
+
+	private static Node keptDraw(int[] drawBuffers, Stage stage) {
+		return new Node(NO_COMPUTES, stage, drawBuffers, true);
+	}
+
+	private static Node computes(Stage... computes) {
+		return new Node(computes, null, new int[0], false);
+	}
+
+	private static int[] to(int... buffers) {
+		return buffers;
+	}
+
+	private static boolean[] live(boolean... live) {
+		return live;
+	}
+
+	static Stream<Arguments> liveDrawCases() {
+		return Stream.of(
+			Arguments.of("draw whose output is never read",
+				List.of(draw(to(0), sampling())), buffers(1), live(false)),
+			Arguments.of("draw read afterwards",
+				List.of(draw(to(0), sampling())), buffers(0), live(true)),
+			Arguments.of("draw read by a live draw",
+				List.of(draw(to(1), sampling()), draw(to(0), sampling(1))), buffers(0), live(true, true)),
+			Arguments.of("draw only read by a dead draw",
+				List.of(draw(to(1), sampling()), draw(to(2), sampling(1))), buffers(0), live(false, false)),
+			Arguments.of("later write does not hide an earlier one",
+				List.of(draw(to(0), sampling()), draw(to(0), sampling())), buffers(0), live(true, true)),
+			Arguments.of("draw reading only its own buffer",
+				List.of(draw(to(0), sampling(0))), buffers(), live(false)),
+			Arguments.of("draw with a read buffer among several",
+				List.of(draw(to(3, 4, 5), sampling())), buffers(4), live(true)),
+			Arguments.of("kept alive",
+				List.of(keptDraw(to(3), sampling())), buffers(0), live(true)),
+			Arguments.of("draw writing images",
+				List.of(draw(to(3), imageWriting())), buffers(0), live(true)),
+			Arguments.of("draw read by a compute program",
+				List.of(draw(to(2), sampling()), computes(sampling(2))), buffers(), live(true, false)),
+			Arguments.of("reads of a dead draw keep nothing alive",
+				List.of(draw(to(1), sampling()), draw(to(2), sampling(1)), draw(to(0), sampling())), buffers(0), live(false, false, true)),
+			Arguments.of("anything may be read afterwards",
+				List.of(draw(to(1), sampling()), computes(sampling()), draw(to(2), sampling())), null, live(true, false, true))
+		);
+	}
+
+	@ParameterizedTest(name = "{0}")
+	@MethodSource("liveDrawCases")
+	void testFindLiveDraws(String name, List<Node> nodes, IntSet readAfterwards, boolean[] expected) {
+		Assertions.assertArrayEquals(expected, new CompositePassGraph(nodes).findLiveDraws(readAfterwards));
+	}
+
+	static Stream<Arguments> barrierCases() {
+		return Stream.of(
+			Arguments.of("first program waits for unknown writes",
+				List.of(draw(to(0), sampling())), live(true), false,
+				new int[][]{{}}, new int[]{TEXTURE}, IMAGE | STORAGE),
+			Arguments.of("no second barrier without writes",
+				List.of(draw(to(0), sampling()), draw(to(1), sampling())), live(true, true), false,
+				new int[][]{{}, {}}, new int[]{TEXTURE, 0}, IMAGE | STORAGE),
+			Arguments.of("image writes make the next program wait",
+				List.of(new Node(new Stage[]{imageWriting()}, sampling(), to(0), false)), live(true), false,
+				new int[][]{{IMAGE}}, new int[]{TEXTURE}, IMAGE | STORAGE),
+			Arguments.of("writing draw leaves everything pending",
+				List.of(draw(to(0), imageWriting()), draw(to(1), sampling())), live(true, true), false,
+				new int[][]{{}, {}}, new int[]{IMAGE, TEXTURE}, IMAGE | STORAGE),
+			Arguments.of("dead draw gets no barrier",
+				List.of(draw(to(0), imageWriting())), live(false), false,
+				new int[][]{{}}, new int[]{0}, 0),
+			Arguments.of("dead draw's writes are not pending",
+				List.of(draw(to(0), sampling()), draw(to(1), imageWriting()), draw(to(2), sampling())), live(true, false, true), false,
+				new int[][]{{}, {}, {}}, new int[]{TEXTURE, 0, 0}, IMAGE | STORAGE),
+			Arguments.of("computes of a pass in sequence",
+				List.of(computes(imageWriting(), imageWriting())), live(false), false,
+				new int[][]{{IMAGE, IMAGE}}, new int[]{0}, ALL),
+			Arguments.of("computes of a pass concurrently",
+				List.of(computes(imageWriting(), imageWriting())), live(false), true,
+				new int[][]{{IMAGE, 0}}, new int[]{0}, ALL),
+			Arguments.of("concurrent computes still wait before the draw",
+				List.of(new Node(new Stage[]{imageWriting(), imageWriting()}, imageWriting(), to(0), false)), live(true), true,
+				new int[][]{{IMAGE, 0}}, new int[]{IMAGE}, ALL),
+			Arguments.of("missing compute programs",
+				List.of(computes(null, imageWriting())), live(false), false,
+				new int[][]{{0, IMAGE}}, new int[]{0}, ALL)
+		);
+	}
+
+	@ParameterizedTest(name = "{0}")
+	@MethodSource("barrierCases")
+	void testPlanBarriers(String name, List<Node> nodes, boolean[] liveDraws, boolean concurrentCompute,
+						  int[][] computeBarriers, int[] drawBarriers, int trailingBarrier) {
+		BarrierPlan plan = new CompositePassGraph(nodes).planBarriers(liveDraws, concurrentCompute);
+
+		Assertions.assertArrayEquals(computeBarriers, plan.computeBarriers(), "compute barriers");
+		Assertions.assertArrayEquals(drawBarriers, plan.drawBarriers(), "draw barriers");
+		Assertions.assertEquals(trailingBarrier, plan.trailingBarrier(), "trailing barrier");
+	}
+}
@@ -0,0 +1,170 @@
+package net.irisshaders.iris.test.shadows;
+
+import net.irisshaders.iris.shadows.frustum.BoxCuller;
+import net.irisshaders.iris.shadows.frustum.advanced.AdvancedShadowCullingFrustum;
+import net.irisshaders.iris.shadows.frustum.advanced.ReversedAdvancedShadowCullingFrustum;
+import net.minecraft.world.phys.AABB;
+import org.joml.Matrix4f;
+import org.joml.Vector3f;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Checks that the batched corner visibility test of {@link AdvancedShadowCullingFrustum} gives exactly the same
+ * result as the single-box test for every box.
+ */
+public class ShadowCullingBatchTest {
+	private static final int RANDOM_BOXES = 4096;
+
+	static Stream<Arguments> views() {
+		return Stream.of(
+			// looking at the horizon, sun overhead
+			Arguments.of(new Vector3f(0.0F, 0.0F, -1.0F), new Vector3f(0.0F, 1.0F, 0.0F)),
+			// looking straight at the sun
+			Arguments.of(new Vector3f(0.3F, 0.8F, -0.5F), new Vector3f(0.3F, 0.8F, -0.5F)),
+			// sun behind the player
+			Arguments.of(new Vector3f(1.0F, -0.2F, 0.0F), new Vector3f(-0.7F, 0.6F, 0.1F)),
+			// looking straight down, low sun
+			Arguments.of(new Vector3f(0.0F, -1.0F, 0.001F), new Vector3f(0.9F, 0.1F, 0.4F)),
+			// a light vector that lies in one of the frustum planes
+			Arguments.of(new Vector3f(0.0F, 0.0F, -1.0F), new Vector3f(1.0F, 0.0F, 0.0F))
+		);
+	}
+
+	private static Matrix4f modelViewProjection(Vector3f look) {
+		Vector3f up = Math.abs(look.y) > 0.99F ? new Vector3f(0.0F, 0.0F, -1.0F) : new Vector3f(0.0F, 1.0F, 0.0F);
+
+		return new Matrix4f()
+			.perspective((float) Math.toRadians(70.0), 16.0F / 9.0F, 0.05F, 512.0F)
+			.lookAt(new Vector3f(), look, up);
+	}
+
+	private static Vector3f normalized(Vector3f vector) {
+		return new Vector3f(vector).normalize();
+	}
+
+	private static List<AABB> boxes(long seed, double centerX, double centerY, double centerZ) {
+		Random random = new Random(seed);
+		List<AABB> boxes = new ArrayList<>();
+
+		for (int i = 0; i < RANDOM_BOXES; i++) {
+			double x = centerX + (random.nextDouble() - 0.5) * 512.0;
+			double y = centerY + (random.nextDouble() - 0.5) * 256.0;
+			double z = centerZ + (random.nextDouble() - 0.5) * 512.0;
+			double size = random.nextInt(4) == 0 ? 16.0 : random.nextDouble() * 4.0;
+
+			boxes.add(new AABB(x, y, z, x + size, y + size, z + size));
+		}
+
+		// empty boxes, the box around the camera, and boxes much larger than the frustum
+		boxes.add(new AABB(centerX, centerY, centerZ, centerX, centerY, centerZ));
+		boxes.add(new AABB(centerX + 10.0, centerY, centerZ, centerX + 10.0, centerY, centerZ));
+		boxes.add(new AABB(centerX - 1.0, centerY - 1.0, centerZ - 1.0, centerX + 1.0, centerY + 1.0, centerZ + 1.0));
+		boxes.add(new AABB(centerX - 1000.0, centerY - 1000.0, centerZ - 1000.0, centerX + 1000.0, centerY + 1000.0, centerZ + 1000.0));
+		boxes.add(new AABB(centerX - 1000.0, centerY - 1.0, centerZ + 2.0, centerX + 1000.0, centerY + 1.0, centerZ + 3.0));
+
+		return boxes;
+	}
+
+	@ParameterizedTest
+	@MethodSource("views")
+	void batchedCornerVisibilityMatchesSingleBox(Vector3f look, Vector3f light) {
+		AdvancedShadowCullingFrustum frustum = new AdvancedShadowCullingFrustum(modelViewProjection(look), new Matrix4f(),
+			normalized(light), null);
+		frustum.prepare(0.0, 0.0, 0.0);
+
+		List<AABB> boxes = boxes(look.hashCode() * 31L + light.hashCode(), 0.0, 0.0, 0.0);
+		int count = boxes.size();
+		float[] minX = new float[count];
+		float[] minY = new float[count];
+		float[] minZ = new float[count];
+		float[] maxX = new float[count];
+		float[] maxY = new float[count];
+		float[] maxZ = new float[count];
+
+		for (int i = 0; i < count; i++) {
+			AABB box = boxes.get(i);
+			minX[i] = (float) box.minX;
+			minY[i] = (float) box.minY;
+			minZ[i] = (float) box.minZ;
+			maxX[i] = (float) box.maxX;
+			maxY[i] = (float) box.maxY;
+			maxZ[i] = (float) box.maxZ;
+		}
+
+		// one extra slot, to check that the batch doesn't write past the count
+		byte[] results = new byte[count + 1];
+		results[count] = 42;
+
+		frustum.checkCornerVisibility(minX, minY, minZ, maxX, maxY, maxZ, count, results);
+
+		int[] seen = new int[3];
+
+		for (int i = 0; i < count; i++) {
+			// without a box culler and at the origin, this is exactly the single-box corner test
+			int expected = frustum.fastAabbTest(minX[i], minY[i], minZ[i], maxX[i], maxY[i], maxZ[i]);
+
+			Assertions.assertEquals(expected, results[i], "box " + i + ": " + boxes.get(i));
+			seen[expected]++;
+		}
+
+		Assertions.assertEquals(42, results[count]);
+		// make sure the boxes actually cover all three outcomes
+		Assertions.assertTrue(seen[0] > 0 && seen[1] > 0 && seen[2] > 0, "culled, inside, partial: " + seen[0] + ", " + seen[1] + ", " + seen[2]);
+	}
+
+	@ParameterizedTest
+	@MethodSource("views")
+	void batchedIsVisibleMatchesSingleBox(Vector3f look, Vector3f light) {
+		double cameraX = 1234.5;
+		double cameraY = 70.25;
+		double cameraZ = -987.75;
+
+		AdvancedShadowCullingFrustum advanced = new AdvancedShadowCullingFrustum(modelViewProjection(look), new Matrix4f(),
+			normalized(light), new BoxCuller(160.0));
+		ReversedAdvancedShadowCullingFrustum reversed = new ReversedAdvancedShadowCullingFrustum(modelViewProjection(look),
+			new Matrix4f(), normalized(light), new BoxCuller(32.0), new BoxCuller(200.0));
+
+		List<AABB> boxes = boxes(light.hashCode() * 31L + look.hashCode(), cameraX, cameraY, cameraZ);
+
+		for (AdvancedShadowCullingFrustum frustum : List.of(advanced, reversed)) {
+			frustum.prepare(cameraX, cameraY, cameraZ);
+
+			boolean[] visible = new boolean[boxes.size()];
+			frustum.isVisible(boxes, visible);
+
+			for (int i = 0; i < boxes.size(); i++) {
+				Assertions.assertEquals(frustum.isVisible(boxes.get(i)), visible[i],
+					frustum.getClass().getSimpleName() + ", box " + i + ": " + boxes.get(i));
+			}
+		}
+	}
+
+	@ParameterizedTest
+	@MethodSource("views")
+	void batchReusesScratchSpaceAcrossSizes(Vector3f look, Vector3f light) {
+		AdvancedShadowCullingFrustum frustum = new AdvancedShadowCullingFrustum(modelViewProjection(look), new Matrix4f(),
+			normalized(light), null);
+		frustum.prepare(0.0, 0.0, 0.0);
+
+		List<AABB> boxes = boxes(7L, 0.0, 0.0, 0.0);
+
+		// growing and then shrinking batches must not leak results from earlier, larger batches
+		for (int size : new int[] { 1, 17, boxes.size(), 3, 0, 100 }) {
+			List<AABB> batch = boxes.subList(boxes.size() - size, boxes.size());
+			boolean[] visible = new boolean[size];
+			frustum.isVisible(batch, visible);
+
+			for (int i = 0; i < size; i++) {
+				Assertions.assertEquals(frustum.isVisible(batch.get(i)), visible[i], "batch of " + size + ", box " + i);
+			}
+		}
+	}
+}
@@ -0,0 +1,259 @@
+package net.irisshaders.iris.test.uniforms;
+
+import net.irisshaders.iris.gl.state.ValueUpdateNotifier;
+import net.irisshaders.iris.gl.uniform.DynamicUniformHolder;
+import net.irisshaders.iris.gl.uniform.FloatSupplier;
+import net.irisshaders.iris.gl.uniform.UniformHolder;
+import net.irisshaders.iris.gl.uniform.UniformType;
+import net.irisshaders.iris.gl.uniform.UniformUpdateFrequency;
+import org.joml.Matrix4f;
+import org.joml.Matrix4fc;
+import org.joml.Vector2f;
+import org.joml.Vector2i;
+import org.joml.Vector3d;
+import org.joml.Vector3f;
+import org.joml.Vector3i;
+import org.joml.Vector4f;
+import org.joml.Vector4i;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleSupplier;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Checks that the {@link net.irisshaders.iris.gl.uniform.ValueWriter} overloads of the uniform holders hand the
+ * uniform the same object on every update, and don't allocate while doing so.
+ */
+public class ValueWriterAllocationTest {
+	private static final ValueUpdateNotifier NOTIFIER = listener -> {
+	};
+	private static final int WARMUP = 20_000;
+	private static final int ITERATIONS = 100_000;
+	// Far less than one vector per update, but leaves room for the odd allocation by the JIT or the test harness.
+	private static final long ALLOCATION_LIMIT = 64 * 1024;
+
+	private static CapturingUniformHolder registerAll() {
+		CapturingUniformHolder holder = new CapturingUniformHolder();
+		UniformUpdateFrequency frequency = UniformUpdateFrequency.PER_FRAME;
+
+		holder.uniform2f(frequency, "vec2", dest -> dest.set(1, 2))
+			.uniform2i(frequency, "ivec2", dest -> dest.set(1, 2))
+			.uniform3f(frequency, "vec3", dest -> dest.set(1, 2, 3))
+			.uniform3i(frequency, "ivec3", dest -> dest.set(1, 2, 3))
+			.uniform3d(frequency, "dvec3", dest -> dest.set(1, 2, 3))
+			.uniform4f(frequency, "vec4", dest -> dest.set(1, 2, 3, 4))
+			.uniformMatrix(frequency, "mat4", dest -> dest.identity().translate(1, 2, 3));
+
+		holder.uniform2i("dynamicIvec2", dest -> dest.set(1, 2), NOTIFIER)
+			.uniform3f("dynamicVec3", dest -> dest.set(1, 2, 3), NOTIFIER)
+			.uniform4f("dynamicVec4", dest -> dest.set(1, 2, 3, 4), NOTIFIER)
+			.uniform4i("dynamicIvec4", dest -> dest.set(1, 2, 3, 4), NOTIFIER);
+
+		return holder;
+	}
+
+	private static void updateAll(CapturingUniformHolder holder, Supplier<?>[] suppliers, int times) {
+		// an array rather than the map, since iterating the map allocates an iterator
+		for (int i = 0; i < times; i++) {
+			for (Supplier<?> supplier : suppliers) {
+				holder.sink = supplier.get();
+			}
+		}
+	}
+
+	@Test
+	void testWritersReuseTheirValue() {
+		CapturingUniformHolder holder = registerAll();
+
+		Assertions.assertEquals(11, holder.suppliers.size());
+
+		holder.suppliers.forEach((name, supplier) -> {
+			Object first = supplier.get();
+			Assertions.assertSame(first, supplier.get(), name);
+		});
+	}
+
+	@Test
+	void testWritersWriteTheValue() {
+		CapturingUniformHolder holder = registerAll();
+
+		Assertions.assertEquals(new Vector3f(1, 2, 3), holder.suppliers.get("vec3").get());
+		Assertions.assertEquals(new Vector4i(1, 2, 3, 4), holder.suppliers.get("dynamicIvec4").get());
+		Assertions.assertEquals(new Matrix4f().translation(1, 2, 3), holder.suppliers.get("mat4").get());
+	}
+
+	@Test
+	void testUpdatesDoNotAllocate() {
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		Assumptions.assumeTrue(threads.isThreadAllocatedMemorySupported(), "allocation counting is not supported by this JVM");
+		threads.setThreadAllocatedMemoryEnabled(true);
+
+		CapturingUniformHolder holder = registerAll();
+		Supplier<?>[] suppliers = holder.suppliers.values().toArray(Supplier<?>[]::new);
+		updateAll(holder, suppliers, WARMUP);
+
+		long threadId = Thread.currentThread().getId();
+		long before = threads.getThreadAllocatedBytes(threadId);
+		updateAll(holder, suppliers, ITERATIONS);
+		long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+		Assertions.assertTrue(allocated < ALLOCATION_LIMIT,
+			"updating " + holder.suppliers.size() + " uniforms " + ITERATIONS + " times allocated " + allocated + " bytes");
+	}
+
+	/**
+	 * Keeps the supplier of every vector and matrix uniform, instead of creating GL uniforms.
+	 */
+	private static class CapturingUniformHolder implements DynamicUniformHolder {
+		private final Map<String, Supplier<?>> suppliers = new HashMap<>();
+		// keeps the results reachable, so that the calls can't be optimized away
+		private Object sink;
+
+		private CapturingUniformHolder capture(String name, Supplier<?> supplier) {
+			suppliers.put(name, supplier);
+			return this;
+		}
+
+		@Override
+		public UniformHolder uniform1f(UniformUpdateFrequency updateFrequency, String name, FloatSupplier value) {
+			return this;
+		}
+
+		@Override
+		public UniformHolder uniform1f(UniformUpdateFrequency updateFrequency, String name, IntSupplier value) {
+			return this;
+		}
+
+		@Override
+		public UniformHolder uniform1f(UniformUpdateFrequency updateFrequency, String name, DoubleSupplier value) {
+			return this;
+		}
+
+		@Override
+		public UniformHolder uniform1i(UniformUpdateFrequency updateFrequency, String name, IntSupplier value) {
+			return this;
+		}
+
+		@Override
+		public UniformHolder uniform1b(UniformUpdateFrequency updateFrequency, String name, BooleanSupplier value) {
+			return this;
+		}
+
+		@Override
+		public UniformHolder uniform2f(UniformUpdateFrequency updateFrequency, String name, Supplier<Vector2f> value) {
+			return capture(name, value);
+		}
+
+		@Override
+		public UniformHolder uniform2i(UniformUpdateFrequency updateFrequency, String name, Supplier<Vector2i> value) {
+			return capture(name, value);
+		}
+
+		@Override
+		public UniformHolder uniform3f(UniformUpdateFrequency updateFrequency, String name, Supplier<Vector3f> value) {
+			return capture(name, value);
+		}
+
+		@Override
+		public UniformHolder uniform3i(UniformUpdateFrequency updateFrequency, String name, Supplier<Vector3i> value) {
+			return capture(name, value);
+		}
+
+		@Override
+		public UniformHolder uniformTruncated3f(UniformUpdateFrequency updateFrequency, String name, Supplier<Vector4f> value) {
+			return capture(name, value);
+		}
+
+		@Override
+		public UniformHolder uniform3d(UniformUpdateFrequency updateFrequency, String name, Supplier<Vector3d> value) {
+			return capture(name, value);
+		}
+
+		@Override
+		public UniformHolder uniform4f(UniformUpdateFrequency updateFrequency, String name, Supplier<Vector4f> value) {
+			return capture(name, value);
+		}
+
+		@Override
+		public UniformHolder uniform4fArray(UniformUpdateFrequency updateFrequency, String name, Supplier<float[]> value) {
+			return this;
+		}
+
+		@Override
+		public UniformHolder uniformMatrix(UniformUpdateFrequency updateFrequency, String name, Supplier<Matrix4fc> value) {
+			return capture(name, value);
+		}
+
+		@Override
+		public UniformHolder uniformMatrixFromArray(UniformUpdateFrequency updateFrequency, String name, Supplier<float[]> value) {
+			return this;
+		}
+
+		@Override
+		public UniformHolder externallyManagedUniform(String name, UniformType type) {
+			return this;
+		}
+
+		@Override
+		public DynamicUniformHolder uniform1f(String name, FloatSupplier value, ValueUpdateNotifier notifier) {
+			return this;
+		}
+
+		@Override
+		public DynamicUniformHolder uniform1f(String name, IntSupplier value, ValueUpdateNotifier notifier) {
+			return this;
+		}
+
+		@Override
+		public DynamicUniformHolder uniform1f(String name, DoubleSupplier value, ValueUpdateNotifier notifier) {
+			return this;
+		}
+
+		@Override
+		public DynamicUniformHolder uniform1i(String name, IntSupplier value, ValueUpdateNotifier notifier) {
+			return this;
+		}
+
+		@Override
+		public DynamicUniformHolder uniform2f(String name, Supplier<Vector2f> value, ValueUpdateNotifier notifier) {
+			return capture(name, value);
+		}
+
+		@Override
+		public DynamicUniformHolder uniform2i(String name, Supplier<Vector2i> value, ValueUpdateNotifier notifier) {
+			return capture(name, value);
+		}
+
+		@Override
+		public DynamicUniformHolder uniform3f(String name, Supplier<Vector3f> value, ValueUpdateNotifier notifier) {
+			return capture(name, value);
+		}
+
+		@Override
+		public DynamicUniformHolder uniform4f(String name, Supplier<Vector4f> value, ValueUpdateNotifier notifier) {
+			return capture(name, value);
+		}
+
+		@Override
+		public DynamicUniformHolder uniform4fArray(String name, Supplier<float[]> value, ValueUpdateNotifier notifier) {
+			return this;
+		}
+
+		@Override
+		public DynamicUniformHolder uniform4i(String name, Supplier<Vector4i> value, ValueUpdateNotifier notifier) {
+			return capture(name, value);
+		}
+
+		@Override
+		public DynamicUniformHolder uniformMatrix(String name, Supplier<Matrix4fc> value, ValueUpdateNotifier notifier) {
+			return capture(name, value);
+		}
+	}
+}
@@ -0,0 +1,224 @@
+package kroppeb.stareval.expression;
+
+import kroppeb.stareval.function.B2BFunction;
+import kroppeb.stareval.function.BB2BFunction;
+import kroppeb.stareval.function.F2FFunction;
+import kroppeb.stareval.function.F2IFunction;
+import kroppeb.stareval.function.FF2BFunction;
+import kroppeb.stareval.function.FF2FFunction;
+import kroppeb.stareval.function.FFF2BFunction;
+import kroppeb.stareval.function.FFF2FFunction;
+import kroppeb.stareval.function.FunctionContext;
+import kroppeb.stareval.function.FunctionReturn;
+import kroppeb.stareval.function.I2FFunction;
+import kroppeb.stareval.function.I2IFunction;
+import kroppeb.stareval.function.II2BFunction;
+import kroppeb.stareval.function.II2IFunction;
+import kroppeb.stareval.function.III2BFunction;
+import kroppeb.stareval.function.III2IFunction;
+import kroppeb.stareval.function.Type;
+import kroppeb.stareval.function.TypedFunction;
+import kroppeb.stareval.function.V2FFunction;
+import kroppeb.stareval.function.V2IFunction;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compiles a resolved expression of a primitive type into a {@link MethodHandle} taking no arguments and returning
+ * that primitive directly.
+ * <p>
+ * Calls to the primitive function interfaces ({@link F2FFunction}, {@link II2BFunction}, ...) are composed directly
+ * out of their {@code eval} methods, constants become constant handles, and variables are bound to the expression
+ * they refer to, so that no name lookups happen during evaluation. Once a handle is invoked often enough, the JVM
+ * customizes it into straight-line bytecode for that specific tree, without any boxing or allocation.
+ * <p>
+ * Anything else (casts, {@code if}, {@code smooth}, vector functions, ...) is kept as an interpreted leaf that calls
+ * {@link Expression#evaluateTo}, although its primitive arguments are still compiled. Arguments are always evaluated
+ * left to right, the same order the interpreter uses, so impure functions behave the same.
+ */
+public final class ExpressionCompiler {
+	private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+	private static final Map<Class<?>, MethodHandle> EVAL_METHODS = new LinkedHashMap<>();
+	private static final MethodHandle READ_BOOLEAN;
+	private static final MethodHandle READ_INT;
+	private static final MethodHandle READ_FLOAT;
+
+	static {
+		try {
+			addEval(B2BFunction.class, boolean.class, boolean.class);
+			addEval(BB2BFunction.class, boolean.class, boolean.class, boolean.class);
+			addEval(F2FFunction.class, float.class, float.class);
+			addEval(F2IFunction.class, int.class, float.class);
+			addEval(FF2BFunction.class, boolean.class, float.class, float.class);
+			addEval(FF2FFunction.class, float.class, float.class, float.class);
+			addEval(FFF2BFunction.class, boolean.class, float.class, float.class, float.class);
+			addEval(FFF2FFunction.class, float.class, float.class, float.class, float.class);
+			addEval(I2FFunction.class, float.class, int.class);
+			addEval(I2IFunction.class, int.class, int.class);
+			addEval(II2BFunction.class, boolean.class, int.class, int.class);
+			addEval(II2IFunction.class, int.class, int.class, int.class);
+			addEval(III2BFunction.class, boolean.class, int.class, int.class, int.class);
+			addEval(III2IFunction.class, int.class, int.class, int.class, int.class);
+			addEval(V2FFunction.class, float.class);
+			addEval(V2IFunction.class, int.class);
+
+			MethodType readType = MethodType.methodType(void.class, Expression.class, FunctionContext.class, FunctionReturn.class);
+			READ_BOOLEAN = LOOKUP.findStatic(ExpressionCompiler.class, "readBoolean", readType.changeReturnType(boolean.class));
+			READ_INT = LOOKUP.findStatic(ExpressionCompiler.class, "readInt", readType.changeReturnType(int.class));
+			READ_FLOAT = LOOKUP.findStatic(ExpressionCompiler.class, "readFloat", readType.changeReturnType(float.class));
+		} catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	private ExpressionCompiler() {
+	}
+
+	private static void addEval(Class<?> functionInterface, Class<?> returnType, Class<?>... parameterTypes) throws ReflectiveOperationException {
+		EVAL_METHODS.put(functionInterface, LOOKUP.findVirtual(functionInterface, "eval", MethodType.methodType(returnType, parameterTypes)));
+	}
+
+	/**
+	 * Compiles the expression. All variables that the expression refers to must already be known to the context.
+	 *
+	 * @return a handle of type {@code ()boolean}, {@code ()int} or {@code ()float}, or null if the type isn't a
+	 * primitive
+	 */
+	public static MethodHandle compile(Expression expression, Type type, FunctionContext context) {
+		if (!(type instanceof Type.Primitive)) {
+			return null;
+		}
+
+		return compileNode(expression, type, context, new FunctionReturn());
+	}
+
+	private static MethodHandle compileNode(Expression expression, Type type, FunctionContext context, FunctionReturn held) {
+		if (expression instanceof ConstantExpression) {
+			expression.evaluateTo(context, held);
+
+			if (type == Type.Boolean) {
+				return MethodHandles.constant(boolean.class, held.booleanReturn);
+			} else if (type == Type.Int) {
+				return MethodHandles.constant(int.class, held.intReturn);
+			} else {
+				return MethodHandles.constant(float.class, held.floatReturn);
+			}
+		}
+
+		if (expression instanceof VariableExpression) {
+			// resolves the variable to the uniform it refers to, so that it doesn't have to be looked up every time
+			return interpret(expression.partialEval(context, held), type, context, held);
+		}
+
+		if (expression instanceof CallExpression call) {
+			TypedFunction function = call.getFunction();
+			Expression[] arguments = call.getArguments();
+			MethodHandle eval = findEval(function);
+
+			if (eval != null) {
+				MethodHandle handle = eval.bindTo(function);
+
+				// insert the arguments from right to left, so that they end up being evaluated from left to right
+				for (int i = arguments.length - 1; i >= 0; i--) {
+					handle = MethodHandles.collectArguments(handle, i,
+						compileNode(arguments[i], function.getParameters()[i].type(), context, held));
+				}
+
+				return handle;
+			}
+
+			return interpret(new CallExpression(function, compileArguments(function, arguments, context)), type, context, held);
+		}
+
+		return interpret(expression, type, context, held);
+	}
+
+	private static Expression[] compileArguments(TypedFunction function, Expression[] arguments, FunctionContext context) {
+		Expression[] compiled = new Expression[arguments.length];
+		TypedFunction.Parameter[] parameters = function.getParameters();
+
+		for (int i = 0; i < arguments.length; i++) {
+			Type type = parameters[i].type();
+
+			if (arguments[i] instanceof CallExpression && type instanceof Type.Primitive) {
+				compiled[i] = new CompiledExpression(compileNode(arguments[i], type, context, new FunctionReturn()), type);
+			} else if (arguments[i] instanceof VariableExpression) {
+				compiled[i] = arguments[i].partialEval(context, new FunctionReturn());
+			} else {
+				compiled[i] = arguments[i];
+			}
+		}
+
+		return compiled;
+	}
+
+	private static MethodHandle findEval(TypedFunction function) {
+		for (Map.Entry<Class<?>, MethodHandle> entry : EVAL_METHODS.entrySet()) {
+			if (entry.getKey().isInstance(function)) {
+				return entry.getValue();
+			}
+		}
+
+		return null;
+	}
+
+	private static MethodHandle interpret(Expression expression, Type type, FunctionContext context, FunctionReturn held) {
+		MethodHandle read;
+
+		if (type == Type.Boolean) {
+			read = READ_BOOLEAN;
+		} else if (type == Type.Int) {
+			read = READ_INT;
+		} else {
+			read = READ_FLOAT;
+		}
+
+		return MethodHandles.insertArguments(read, 0, expression, context, held);
+	}
+
+	private static boolean readBoolean(Expression expression, FunctionContext context, FunctionReturn held) {
+		expression.evaluateTo(context, held);
+		return held.booleanReturn;
+	}
+
+	private static int readInt(Expression expression, FunctionContext context, FunctionReturn held) {
+		expression.evaluateTo(context, held);
+		return held.intReturn;
+	}
+
+	private static float readFloat(Expression expression, FunctionContext context, FunctionReturn held) {
+		expression.evaluateTo(context, held);
+		return held.floatReturn;
+	}
+
+	/**
+	 * Lets an interpreted function evaluate a compiled argument.
+	 */
+	private record CompiledExpression(MethodHandle handle, Type type) implements Expression {
+		@Override
+		public void evaluateTo(FunctionContext context, FunctionReturn functionReturn) {
+			try {
+				if (type == Type.Boolean) {
+					functionReturn.booleanReturn = (boolean) handle.invokeExact();
+				} else if (type == Type.Int) {
+					functionReturn.intReturn = (int) handle.invokeExact();
+				} else {
+					functionReturn.floatReturn = (float) handle.invokeExact();
+				}
+			} catch (RuntimeException | Error e) {
+				throw e;
+			} catch (Throwable t) {
+				throw new IllegalStateException(t);
+			}
+		}
+
+		@Override
+		public void listVariables(Collection<? super VariableExpression> variables) {
+		}
+	}
+}
@@ -0,0 +1,164 @@
+package net.irisshaders.batchedentityrendering.impl;
+
+import com.mojang.blaze3d.vertex.ByteBufferBuilder;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import net.minecraft.client.renderer.RenderType;
+
+import java.util.ArrayDeque;
+
+/**
+ * A pool of native vertex buffers shared between all of the {@link SegmentedBufferBuilder}s of a
+ * {@link FullyBufferedMultiBufferSource}.
+ * <p>
+ * Buffers are kept in power of two size classes, and a buffer is always at least as large as its class, since
+ * {@link ByteBufferBuilder} may grow a buffer to any size. New buffers for a render type are sized for the most vertex
+ * data that render type has recently needed, and buffers that sit in the pool for too many frames are freed.
+ */
+public class ByteBufferPool implements MemoryTrackingBuffer {
+	private static final int MIN_CLASS_SHIFT = 16;
+	private static final int MAX_CLASS_SHIFT = 30;
+	private static final int DEFAULT_CAPACITY = 512 * 2024;
+	/**
+	 * Some mods create render types on the fly, so forget about the recorded sizes once there are this many.
+	 */
+	private static final int MAX_TRACKED_TYPES = 4096;
+
+	private final ArrayDeque<PooledBuffer>[] classes;
+	private final Object2IntMap<RenderType> highWaterMarks;
+	private long pooledSize;
+	private int pooledCount;
+	private int frame;
+
+	@SuppressWarnings("unchecked")
+	public ByteBufferPool() {
+		this.classes = new ArrayDeque[MAX_CLASS_SHIFT - MIN_CLASS_SHIFT + 1];
+
+		for (int i = 0; i < classes.length; i++) {
+			classes[i] = new ArrayDeque<>();
+		}
+
+		this.highWaterMarks = new Object2IntOpenHashMap<>();
+		this.highWaterMarks.defaultReturnValue(DEFAULT_CAPACITY);
+	}
+
+	private static int ceilShift(int capacity) {
+		int shift = 32 - Integer.numberOfLeadingZeros(capacity - 1);
+		return Math.min(Math.max(shift, MIN_CLASS_SHIFT), MAX_CLASS_SHIFT);
+	}
+
+	private static int floorShift(int capacity) {
+		return Math.min(31 - Integer.numberOfLeadingZeros(capacity), MAX_CLASS_SHIFT);
+	}
+
+	/**
+	 * Takes a buffer for the given render type out of the pool, or allocates one if there is no buffer large enough.
+	 */
+	public ByteBufferBuilder acquire(RenderType renderType) {
+		int shift = ceilShift(highWaterMarks.getInt(renderType));
+
+		for (int i = shift; i <= MAX_CLASS_SHIFT; i++) {
+			PooledBuffer pooled = classes[i - MIN_CLASS_SHIFT].pollFirst();
+
+			if (pooled != null) {
+				pooledSize -= pooled.capacity();
+				pooledCount--;
+
+				return pooled.buffer();
+			}
+		}
+
+		return new ByteBufferBuilder(1 << shift);
+	}
+
+	/**
+	 * Records how much of the buffer the render type used, then clears the buffer and returns it to the pool. The
+	 * vertex data in the buffer must no longer be needed.
+	 *
+	 * @param used the most bytes the buffer held while it was in use, measured before its vertex data was drawn
+	 */
+	public void release(RenderType renderType, ByteBufferBuilder buffer, int used) {
+		int capacity = (int) ((MemoryTrackingBuffer) buffer).getAllocatedSize();
+
+		// Let the size decay slowly, so that a single busy frame doesn't keep the buffers large forever.
+		int previous = highWaterMarks.getInt(renderType);
+		int highWaterMark = Math.max(used, previous - (previous >> 4));
+
+		if (highWaterMarks.size() >= MAX_TRACKED_TYPES && !highWaterMarks.containsKey(renderType)) {
+			highWaterMarks.clear();
+		}
+
+		highWaterMarks.put(renderType, highWaterMark);
+
+		buffer.clear();
+
+		if (capacity < (1 << MIN_CLASS_SHIFT)) {
+			buffer.close();
+			return;
+		}
+
+		classes[floorShift(capacity) - MIN_CLASS_SHIFT].addFirst(new PooledBuffer(buffer, capacity, frame));
+		pooledSize += capacity;
+		pooledCount++;
+	}
+
+	/**
+	 * Starts a new frame, freeing the buffers that have been in the pool for more than the given number of frames.
+	 */
+	public void advanceFrame(int maxIdleFrames) {
+		frame++;
+
+		for (ArrayDeque<PooledBuffer> pooledClass : classes) {
+			// The oldest buffers are at the end of each class.
+			PooledBuffer pooled;
+
+			while ((pooled = pooledClass.peekLast()) != null && frame - pooled.releasedFrame() > maxIdleFrames) {
+				pooledClass.pollLast();
+				free(pooled);
+			}
+		}
+	}
+
+	/**
+	 * Frees every buffer in the pool.
+	 */
+	public void freeIdle() {
+		for (ArrayDeque<PooledBuffer> pooledClass : classes) {
+			PooledBuffer pooled;
+
+			while ((pooled = pooledClass.pollLast()) != null) {
+				free(pooled);
+			}
+		}
+	}
+
+	private void free(PooledBuffer pooled) {
+		pooled.buffer().close();
+		pooledSize -= pooled.capacity();
+		pooledCount--;
+	}
+
+	public int getPooledCount() {
+		return pooledCount;
+	}
+
+	@Override
+	public long getAllocatedSize() {
+		return pooledSize;
+	}
+
+	@Override
+	public long getUsedSize() {
+		// Buffers are cleared before they're returned to the pool.
+		return 0;
+	}
+
+	@Override
+	public void freeAndDeleteBuffer() {
+		freeIdle();
+		highWaterMarks.clear();
+	}
+
+	private record PooledBuffer(ByteBufferBuilder buffer, int capacity, int releasedFrame) {
+	}
+}
@@ -5,6 +5,7 @@ import com.mojang.blaze3d.vertex.VertexConsumer;
 import it.unimi.dsi.fastutil.objects.Object2ObjectSortedMaps;
 import net.irisshaders.batchedentityrendering.impl.ordering.GraphTranslucencyRenderOrderManager;
 import net.irisshaders.batchedentityrendering.impl.ordering.RenderOrderManager;
+import net.irisshaders.iris.Iris;
 import net.irisshaders.iris.layer.WrappingMultiBufferSource;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.renderer.MultiBufferSource;
@@ -25,6 +26,7 @@ public class FullyBufferedMultiBufferSource extends MultiBufferSource.BufferSour
 
 	private final RenderOrderManager renderOrderManager;
 	private final SegmentedBufferBuilder[] builders;
+	private final ByteBufferPool pool;
 	/**
 	 * An LRU cache mapping RenderType objects to a relevant buffer.
 	 */
@@ -44,9 +46,10 @@ public class FullyBufferedMultiBufferSource extends MultiBufferSource.BufferSour
 
 		this.renderOrderManager = new GraphTranslucencyRenderOrderManager();
 		this.builders = new SegmentedBufferBuilder[NUM_BUFFERS];
+		this.pool = new ByteBufferPool();
 
 		for (int i = 0; i < this.builders.length; i++) {
-			this.builders[i] = new SegmentedBufferBuilder(this);
+			this.builders[i] = new SegmentedBufferBuilder(this, pool);
 		}
 
 		// use accessOrder=true so our LinkedHashMap works as an LRU cache.
@@ -150,10 +153,8 @@ public class FullyBufferedMultiBufferSource extends MultiBufferSource.BufferSour
 			type.clearRenderState();
 		}
 
-		int targetClearTime = getTargetClearTime();
-
 		for (SegmentedBufferBuilder builder : builders) {
-			builder.clearBuffers(targetClearTime);
+			builder.releaseBuffers();
 		}
 
 		profiler.popPush("reset");
@@ -200,18 +201,30 @@ public class FullyBufferedMultiBufferSource extends MultiBufferSource.BufferSour
 		profiler.pop();
 	}
 
-	private int getTargetClearTime() {
+	/**
+	 * Frees the pooled buffers that have gone unused for too long. Called once at the start of every frame.
+	 */
+	public void advanceFrame() {
+		pool.advanceFrame(getMaxIdleFrames());
+	}
+
+	private int getMaxIdleFrames() {
+		int idleFrames = Iris.getIrisConfig().getEntityBufferIdleFrames();
 		long sizeInMiB = toMib(getAllocatedSize());
 
 		if (sizeInMiB > 5000) { // Over 5GB of RAM used.
-			return 1000; // Be extremely aggressive; 1 second per buffer.
+			return 0; // Be extremely aggressive; free everything that wasn't used last frame.
 		} else if (sizeInMiB > 1000) { // Over 1GB of RAM used.
-			return 5000; // Wait 5 seconds.
+			return idleFrames / 2;
 		} else {
-			return 10000; // we chillin; 10 seconds.
+			return idleFrames; // we chillin
 		}
 	}
 
+	public long getPooledSize() {
+		return pool.getAllocatedSize();
+	}
+
 	public int getDrawCalls() {
 		return drawCalls;
 	}
@@ -242,7 +255,7 @@ public class FullyBufferedMultiBufferSource extends MultiBufferSource.BufferSour
 			size += builder.getAllocatedSize();
 		}
 
-		return size;
+		return size + pool.getAllocatedSize();
 	}
 
 	@Override
@@ -261,6 +274,8 @@ public class FullyBufferedMultiBufferSource extends MultiBufferSource.BufferSour
 		for (SegmentedBufferBuilder builder : builders) {
 			builder.freeAndDeleteBuffer();
 		}
+
+		pool.freeAndDeleteBuffer();
 	}
 
 	@Override
@@ -304,9 +319,8 @@ public class FullyBufferedMultiBufferSource extends MultiBufferSource.BufferSour
 	}
 
 	public void weAreOutOfMemory() {
-		for (SegmentedBufferBuilder builder : builders) {
-			builder.lastDitchAttempt();
-		}
+		// Buffers that are in use still hold vertex data for this frame, so only the pooled ones can go.
+		pool.freeIdle();
 	}
 
 	/**
@@ -3,6 +3,8 @@ package net.irisshaders.batchedentityrendering.impl;
 public interface MemoryTrackingRenderBuffers {
 	long getEntityBufferAllocatedSize();
 
+	long getEntityBufferPooledSize();
+
 	long getMiscBufferAllocatedSize();
 
 	int getMaxBegins();
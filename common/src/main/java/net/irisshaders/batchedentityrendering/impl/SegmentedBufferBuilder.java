@@ -5,6 +5,8 @@ import com.mojang.blaze3d.vertex.BufferBuilder;
 import com.mojang.blaze3d.vertex.ByteBufferBuilder;
 import com.mojang.blaze3d.vertex.MeshData;
 import com.mojang.blaze3d.vertex.VertexConsumer;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
 import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
 import net.irisshaders.batchedentityrendering.mixin.RenderTypeAccessor;
 import net.minecraft.client.renderer.RenderType;
@@ -14,17 +16,24 @@ import java.util.List;
 import java.util.Map;
 
 public class SegmentedBufferBuilder implements MemoryTrackingBuffer {
-	private final Map<RenderType, ByteBufferBuilderHolder> buffers;
+	private final Map<RenderType, ByteBufferBuilder> buffers;
 	private final Map<RenderType, BufferBuilder> builders;
 	private final List<BufferSegment> segments;
+	/**
+	 * The most vertex data each buffer held since it was acquired. The buffers are already empty again by the time
+	 * they're released, since drawing the vertex data frees it.
+	 */
+	private final Object2IntMap<RenderType> usedSizes;
 	private final FullyBufferedMultiBufferSource parent;
+	private final ByteBufferPool pool;
 
-	public SegmentedBufferBuilder(FullyBufferedMultiBufferSource parent) {
-		// 2 MB initial allocation
+	public SegmentedBufferBuilder(FullyBufferedMultiBufferSource parent, ByteBufferPool pool) {
 		this.parent = parent;
+		this.pool = pool;
 		this.buffers = new Object2ObjectOpenHashMap<>();
 		this.builders = new Object2ObjectOpenHashMap<>();
 		this.segments = new ArrayList<>();
+		this.usedSizes = new Object2IntOpenHashMap<>();
 	}
 
 	private static boolean shouldSortOnUpload(RenderType type) {
@@ -33,10 +42,9 @@ public class SegmentedBufferBuilder implements MemoryTrackingBuffer {
 
 	public VertexConsumer getBuffer(RenderType renderType) {
 		try {
-			ByteBufferBuilderHolder buffer = buffers.computeIfAbsent(renderType, (r) -> new ByteBufferBuilderHolder(new ByteBufferBuilder(512 * 2024)));
+			ByteBufferBuilder buffer = buffers.computeIfAbsent(renderType, pool::acquire);
 
-			buffer.wasUsed();
-			BufferBuilder builder = builders.computeIfAbsent(renderType, (t) -> new BufferBuilder(buffer.getBuffer(), renderType.mode(), renderType.format()));
+			BufferBuilder builder = builders.computeIfAbsent(renderType, (t) -> new BufferBuilder(buffer, renderType.mode(), renderType.format()));
 
 			// Use duplicate vertices to break up triangle strips
 			// https://developer.apple.com/library/archive/documentation/3DDrawing/Conceptual/OpenGLES_ProgrammingGuide/Art/degenerate_triangle_strip_2x.png
@@ -66,10 +74,14 @@ public class SegmentedBufferBuilder implements MemoryTrackingBuffer {
 
 				if (meshData == null) return;
 
+				ByteBufferBuilder buffer = buffers.get(renderType);
+
 				if (shouldSortOnUpload(renderType)) {
-					meshData.sortQuads(buffers.get(renderType).getBuffer(), RenderSystem.getVertexSorting());
+					meshData.sortQuads(buffer, RenderSystem.getVertexSorting());
 				}
 
+				usedSizes.mergeInt(renderType, (int) ((MemoryTrackingBuffer) buffer).getUsedSize(), Math::max);
+
 				segments.add(new BufferSegment(meshData, renderType));
 			} catch (OutOfMemoryError e) {
 				// we're fucked. try to clear memory for the next one, but don't bother about this one.
@@ -90,7 +102,7 @@ public class SegmentedBufferBuilder implements MemoryTrackingBuffer {
 	@Override
 	public long getAllocatedSize() {
 		long usedSize = 0;
-		for (ByteBufferBuilderHolder buffer : buffers.values()) {
+		for (ByteBufferBuilder buffer : buffers.values()) {
 			usedSize += ((MemoryTrackingBuffer) buffer).getAllocatedSize();
 		}
 
@@ -100,7 +112,7 @@ public class SegmentedBufferBuilder implements MemoryTrackingBuffer {
 	@Override
 	public long getUsedSize() {
 		long usedSize = 0;
-		for (ByteBufferBuilderHolder buffer : buffers.values()) {
+		for (ByteBufferBuilder buffer : buffers.values()) {
 			usedSize += ((MemoryTrackingBuffer) buffer).getUsedSize();
 		}
 
@@ -109,19 +121,20 @@ public class SegmentedBufferBuilder implements MemoryTrackingBuffer {
 
 	@Override
 	public void freeAndDeleteBuffer() {
-		for (ByteBufferBuilderHolder buffer : buffers.values()) {
-			buffer.forceDelete();
+		for (ByteBufferBuilder buffer : buffers.values()) {
+			buffer.close();
 		}
 
 		buffers.clear();
+		usedSizes.clear();
 	}
 
-	public void clearBuffers(int clearTime) {
-		buffers.values().removeIf(b -> b.deleteOrClear(clearTime));
-	}
-
-	public void lastDitchAttempt() {
-		// JUST REMOVE ANYTHING UNDER 500MS
-		buffers.values().removeIf(b -> b.delete(500));
+	/**
+	 * Returns every buffer to the pool once the vertex data in them has been drawn.
+	 */
+	public void releaseBuffers() {
+		buffers.forEach((renderType, buffer) -> pool.release(renderType, buffer, usedSizes.getInt(renderType)));
+		buffers.clear();
+		usedSizes.clear();
 	}
 }
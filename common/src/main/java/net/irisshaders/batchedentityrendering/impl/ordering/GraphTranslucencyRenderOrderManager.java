@@ -1,10 +1,5 @@
 package net.irisshaders.batchedentityrendering.impl.ordering;
 
-import de.odysseus.ithaka.digraph.Digraph;
-import de.odysseus.ithaka.digraph.Digraphs;
-import de.odysseus.ithaka.digraph.MapDigraph;
-import de.odysseus.ithaka.digraph.util.fas.FeedbackArcSet;
-import de.odysseus.ithaka.digraph.util.fas.FeedbackArcSetPolicy;
 import de.odysseus.ithaka.digraph.util.fas.FeedbackArcSetProvider;
 import de.odysseus.ithaka.digraph.util.fas.SimpleFeedbackArcSetProvider;
 import net.irisshaders.batchedentityrendering.impl.BlendingStateHolder;
@@ -13,23 +8,27 @@ import net.irisshaders.batchedentityrendering.impl.WrappableRenderType;
 import net.minecraft.client.renderer.RenderType;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.EnumMap;
 import java.util.List;
 
 public class GraphTranslucencyRenderOrderManager implements RenderOrderManager {
 	private final FeedbackArcSetProvider feedbackArcSetProvider;
-	private final EnumMap<TransparencyType, Digraph<RenderType>> types;
-	private final EnumMap<TransparencyType, RenderType> currentTypes;
+	private final EnumMap<TransparencyType, RenderTypeGraph> types;
+	// The index of the last render type of every transparency type in the current group, or -1
+	private final int[] currentTypes;
 	private boolean inGroup = false;
 
 	public GraphTranslucencyRenderOrderManager() {
 		feedbackArcSetProvider = new SimpleFeedbackArcSetProvider();
 		types = new EnumMap<>(TransparencyType.class);
-		currentTypes = new EnumMap<>(TransparencyType.class);
+		currentTypes = new int[TransparencyType.values().length];
 
 		for (TransparencyType type : TransparencyType.values()) {
-			types.put(type, new MapDigraph<>());
+			types.put(type, new RenderTypeGraph());
 		}
+
+		Arrays.fill(currentTypes, -1);
 	}
 
 	private static TransparencyType getTransparencyType(RenderType type) {
@@ -47,19 +46,18 @@ public class GraphTranslucencyRenderOrderManager implements RenderOrderManager {
 
 	public void begin(RenderType renderType) {
 		TransparencyType transparencyType = getTransparencyType(renderType);
-		Digraph<RenderType> graph = types.get(transparencyType);
-		graph.add(renderType);
+		RenderTypeGraph graph = types.get(transparencyType);
+		int index = graph.add(renderType);
 
 		if (inGroup) {
-			RenderType previous = currentTypes.put(transparencyType, renderType);
+			int previous = currentTypes[transparencyType.ordinal()];
+			currentTypes[transparencyType.ordinal()] = index;
 
-			if (previous == null) {
+			if (previous == -1) {
 				return;
 			}
 
-			int weight = graph.get(previous, renderType).orElse(0);
-			weight += 1;
-			graph.put(previous, renderType, weight);
+			graph.addEdge(previous, index);
 		}
 	}
 
@@ -68,7 +66,7 @@ public class GraphTranslucencyRenderOrderManager implements RenderOrderManager {
 			throw new IllegalStateException("Already in a group");
 		}
 
-		currentTypes.clear();
+		Arrays.fill(currentTypes, -1);
 		inGroup = true;
 	}
 
@@ -77,7 +75,7 @@ public class GraphTranslucencyRenderOrderManager implements RenderOrderManager {
 			return false;
 		}
 
-		currentTypes.clear();
+		Arrays.fill(currentTypes, -1);
 		inGroup = true;
 		return true;
 	}
@@ -92,57 +90,36 @@ public class GraphTranslucencyRenderOrderManager implements RenderOrderManager {
 			throw new IllegalStateException("Not in a group");
 		}
 
-		currentTypes.clear();
+		Arrays.fill(currentTypes, -1);
 		inGroup = false;
 	}
 
 	@Override
 	public void reset() {
-		// TODO: Is reallocation efficient?
-		types.clear();
-
-		for (TransparencyType type : TransparencyType.values()) {
-			types.put(type, new MapDigraph<>());
+		for (RenderTypeGraph graph : types.values()) {
+			graph.clear();
 		}
 	}
 
 	@Override
 	public void resetType(TransparencyType type) {
-		// TODO: Is reallocation efficient?
-		types.put(type, new MapDigraph<>());
+		types.get(type).clear();
 	}
 
 	public List<RenderType> getRenderOrder() {
 		int layerCount = 0;
 
-		for (Digraph<RenderType> graph : types.values()) {
+		for (RenderTypeGraph graph : types.values()) {
 			layerCount += graph.getVertexCount();
 		}
 
 		List<RenderType> allLayers = new ArrayList<>(layerCount);
 
-		for (Digraph<RenderType> graph : types.values()) {
+		for (RenderTypeGraph graph : types.values()) {
 			// TODO: Make sure that FAS can't become a bottleneck!
 			// Running NP-hard algorithms in a real time rendering loop might not be an amazing idea.
-			// This shouldn't be necessary in sane scenes, though, and if there aren't cycles,
-			// then this *should* be relatively inexpensive, since it'll bail out and return an empty set.
-			FeedbackArcSet<RenderType> arcSet =
-				feedbackArcSetProvider.getFeedbackArcSet(graph, graph, FeedbackArcSetPolicy.MIN_WEIGHT);
-
-			if (arcSet.getEdgeCount() > 0) {
-				// This means that our dependency graph had cycles!!!
-				// This is very weird and isn't expected - but we try to handle it gracefully anyways.
-
-				// Our feedback arc set algorithm finds some dependency links that can be removed hopefully
-				// without disrupting the overall order too much. Hopefully it isn't too slow!
-				for (RenderType source : arcSet.vertices()) {
-					for (RenderType target : arcSet.targets(source)) {
-						graph.remove(source, target);
-					}
-				}
-			}
-
-			allLayers.addAll(Digraphs.toposort(graph, false));
+			// This shouldn't be necessary in sane scenes, though, since it only runs if there are cycles.
+			graph.appendRenderOrder(allLayers, feedbackArcSetProvider);
 		}
 
 		return allLayers;
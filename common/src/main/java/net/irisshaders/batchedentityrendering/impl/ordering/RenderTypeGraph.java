@@ -0,0 +1,273 @@
+package net.irisshaders.batchedentityrendering.impl.ordering;
+
+import de.odysseus.ithaka.digraph.Digraph;
+import de.odysseus.ithaka.digraph.Digraphs;
+import de.odysseus.ithaka.digraph.MapDigraph;
+import de.odysseus.ithaka.digraph.util.fas.FeedbackArcSet;
+import de.odysseus.ithaka.digraph.util.fas.FeedbackArcSetPolicy;
+import de.odysseus.ithaka.digraph.util.fas.FeedbackArcSetProvider;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import net.minecraft.client.renderer.RenderType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * The order in which render types were drawn during a frame, as a directed graph stored in primitive collections that
+ * are cleared in place instead of being reallocated every frame. Render types are interned to indices that are kept
+ * across frames.
+ * <p>
+ * Vertices and edges are kept in the order they were first added, so that sorting gives the same result as
+ * {@link Digraphs#toposort} on an equivalent {@link MapDigraph}. If the vertices and edges are the same as the last
+ * time the graph was sorted, the previous order is reused.
+ */
+final class RenderTypeGraph {
+	/**
+	 * Some mods create render types on the fly, so forget about interned render types once there are this many.
+	 */
+	private static final int MAX_INTERNED = 4096;
+
+	private final Object2IntMap<RenderType> indices;
+	private final List<RenderType> renderTypes;
+
+	private final BitSet present;
+	private final IntArrayList vertices;
+	private final LongArrayList edges;
+	private final Long2IntOpenHashMap weights;
+
+	private final IntArrayList sortedVertices;
+	private final LongArrayList sortedEdges;
+	private final Long2IntOpenHashMap sortedWeights;
+	private final List<RenderType> sortedOrder;
+	private boolean hasSortedOrder;
+	private boolean sortedHadCycle;
+
+	private int[] edgeOffsets = new int[0];
+	private int[] edgeTargets = new int[0];
+	private byte[] visitState = new byte[0];
+	private final IntArrayList finished;
+
+	RenderTypeGraph() {
+		this.indices = new Object2IntOpenHashMap<>();
+		this.indices.defaultReturnValue(-1);
+		this.renderTypes = new ArrayList<>();
+		this.present = new BitSet();
+		this.vertices = new IntArrayList();
+		this.edges = new LongArrayList();
+		this.weights = new Long2IntOpenHashMap();
+		this.sortedVertices = new IntArrayList();
+		this.sortedEdges = new LongArrayList();
+		this.sortedWeights = new Long2IntOpenHashMap();
+		this.sortedOrder = new ArrayList<>();
+		this.finished = new IntArrayList();
+	}
+
+	private static long edge(int source, int target) {
+		return ((long) source << 32) | (target & 0xFFFFFFFFL);
+	}
+
+	private static int source(long edge) {
+		return (int) (edge >>> 32);
+	}
+
+	private static int target(long edge) {
+		return (int) edge;
+	}
+
+	/**
+	 * Adds a vertex for the given render type if there isn't one yet, and returns its index.
+	 */
+	int add(RenderType renderType) {
+		int index = indices.getInt(renderType);
+
+		if (index == -1) {
+			index = renderTypes.size();
+			renderTypes.add(renderType);
+			indices.put(renderType, index);
+		}
+
+		if (!present.get(index)) {
+			present.set(index);
+			vertices.add(index);
+		}
+
+		return index;
+	}
+
+	/**
+	 * Adds one to the weight of the edge between two vertices returned by {@link #add}.
+	 */
+	void addEdge(int source, int target) {
+		if (source == target) {
+			// Self loops never affect the order.
+			return;
+		}
+
+		long edge = edge(source, target);
+
+		if (weights.addTo(edge, 1) == 0) {
+			edges.add(edge);
+		}
+	}
+
+	int getVertexCount() {
+		return vertices.size();
+	}
+
+	void clear() {
+		for (int i = 0; i < vertices.size(); i++) {
+			present.clear(vertices.getInt(i));
+		}
+
+		vertices.clear();
+		edges.clear();
+		weights.clear();
+
+		if (renderTypes.size() > MAX_INTERNED) {
+			indices.clear();
+			renderTypes.clear();
+			hasSortedOrder = false;
+		}
+	}
+
+	/**
+	 * Adds the render types in this graph to the given list, in an order that respects as many edges as possible.
+	 */
+	void appendRenderOrder(List<RenderType> renderOrder, FeedbackArcSetProvider feedbackArcSetProvider) {
+		if (!isSameAsSorted()) {
+			sort(feedbackArcSetProvider);
+		}
+
+		renderOrder.addAll(sortedOrder);
+	}
+
+	private boolean isSameAsSorted() {
+		// Edge weights only matter when there are cycles to break.
+		return hasSortedOrder && vertices.equals(sortedVertices) && edges.equals(sortedEdges)
+			&& (!sortedHadCycle || weights.equals(sortedWeights));
+	}
+
+	private void sort(FeedbackArcSetProvider feedbackArcSetProvider) {
+		sortedOrder.clear();
+		sortedHadCycle = !toposort();
+
+		if (sortedHadCycle) {
+			sortWithCycles(feedbackArcSetProvider);
+			sortedWeights.clear();
+			sortedWeights.putAll(weights);
+		} else {
+			for (int i = finished.size() - 1; i >= 0; i--) {
+				sortedOrder.add(renderTypes.get(finished.getInt(i)));
+			}
+		}
+
+		sortedVertices.clear();
+		sortedVertices.addAll(vertices);
+		sortedEdges.clear();
+		sortedEdges.addAll(edges);
+		hasSortedOrder = true;
+	}
+
+	/**
+	 * Runs a depth first search like {@link Digraphs#toposort}, leaving the vertices in {@link #finished} in reverse
+	 * order.
+	 *
+	 * @return false if the graph turned out to have a cycle
+	 */
+	private boolean toposort() {
+		int count = renderTypes.size();
+
+		if (edgeOffsets.length < count + 1) {
+			edgeOffsets = new int[count + 1];
+			visitState = new byte[count];
+		}
+
+		if (edgeTargets.length < edges.size()) {
+			edgeTargets = new int[edges.size()];
+		}
+
+		// Group the edges by their source, keeping the order they were added in.
+		Arrays.fill(edgeOffsets, 0, count + 1, 0);
+
+		for (int i = 0; i < edges.size(); i++) {
+			edgeOffsets[source(edges.getLong(i)) + 1]++;
+		}
+
+		for (int i = 0; i < count; i++) {
+			edgeOffsets[i + 1] += edgeOffsets[i];
+		}
+
+		int[] next = Arrays.copyOf(edgeOffsets, count);
+
+		for (int i = 0; i < edges.size(); i++) {
+			long edge = edges.getLong(i);
+			edgeTargets[next[source(edge)]++] = target(edge);
+		}
+
+		Arrays.fill(visitState, 0, count, (byte) 0);
+		finished.clear();
+
+		for (int i = 0; i < vertices.size(); i++) {
+			int vertex = vertices.getInt(i);
+
+			if (visitState[vertex] == 0 && !visit(vertex)) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private boolean visit(int vertex) {
+		visitState[vertex] = 1;
+
+		for (int i = edgeOffsets[vertex]; i < edgeOffsets[vertex + 1]; i++) {
+			int target = edgeTargets[i];
+
+			if (visitState[target] == 1) {
+				return false;
+			} else if (visitState[target] == 0 && !visit(target)) {
+				return false;
+			}
+		}
+
+		visitState[vertex] = 2;
+		finished.add(vertex);
+
+		return true;
+	}
+
+	private void sortWithCycles(FeedbackArcSetProvider feedbackArcSetProvider) {
+		// This means that our dependency graph had cycles!!!
+		// This is very weird and isn't expected - but we try to handle it gracefully anyways.
+		Digraph<RenderType> graph = new MapDigraph<>();
+
+		for (int i = 0; i < vertices.size(); i++) {
+			graph.add(renderTypes.get(vertices.getInt(i)));
+		}
+
+		for (int i = 0; i < edges.size(); i++) {
+			long edge = edges.getLong(i);
+			graph.put(renderTypes.get(source(edge)), renderTypes.get(target(edge)), weights.get(edge));
+		}
+
+		// Our feedback arc set algorithm finds some dependency links that can be removed hopefully
+		// without disrupting the overall order too much. Hopefully it isn't too slow!
+		FeedbackArcSet<RenderType> arcSet =
+			feedbackArcSetProvider.getFeedbackArcSet(graph, graph, FeedbackArcSetPolicy.MIN_WEIGHT);
+
+		for (RenderType source : arcSet.vertices()) {
+			for (RenderType target : arcSet.targets(source)) {
+				graph.remove(source, target);
+			}
+		}
+
+		sortedOrder.addAll(Digraphs.toposort(graph, false));
+	}
+}
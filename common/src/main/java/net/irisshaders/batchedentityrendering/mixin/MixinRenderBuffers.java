@@ -79,6 +79,7 @@ public class MixinRenderBuffers implements RenderBuffersExt, MemoryTrackingRende
 	public void beginLevelRendering() {
 		if (begins == 0) {
 			buffered.assertWrapStackEmpty();
+			buffered.advanceFrame();
 		}
 
 		begins += 1;
@@ -100,6 +101,11 @@ public class MixinRenderBuffers implements RenderBuffersExt, MemoryTrackingRende
 		return ((MemoryTrackingBuffer) buffered).getAllocatedSize();
 	}
 
+	@Override
+	public long getEntityBufferPooledSize() {
+		return buffered.getPooledSize();
+	}
+
 	@Override
 	public long getMiscBufferAllocatedSize() {
 		return ((MemoryTrackingBuffer) bufferSource).getAllocatedSize();
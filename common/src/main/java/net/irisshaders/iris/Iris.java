@@ -19,9 +19,11 @@ import net.irisshaders.iris.pipeline.IrisRenderingPipeline;
 import net.irisshaders.iris.pipeline.PipelineManager;
 import net.irisshaders.iris.pipeline.VanillaRenderingPipeline;
 import net.irisshaders.iris.pipeline.WorldRenderingPipeline;
+import net.irisshaders.iris.pipeline.transform.TransformPatcher;
 import net.irisshaders.iris.platform.IrisPlatformHelpers;
 import net.irisshaders.iris.shaderpack.DimensionId;
 import net.irisshaders.iris.shaderpack.ShaderPack;
+import net.irisshaders.iris.shaderpack.ShaderPackSourceCache;
 import net.irisshaders.iris.shaderpack.discovery.ShaderpackDirectoryManager;
 import net.irisshaders.iris.shaderpack.materialmap.NamespacedId;
 import net.irisshaders.iris.shaderpack.option.OptionSet;
@@ -387,6 +389,7 @@ public class Iris {
 
 	private static void setShadersDisabled() {
 		currentPack = null;
+		ShaderPackSourceCache.clear();
 		fallback = false;
 		currentPackName = "(off)";
 	}
@@ -575,6 +578,7 @@ public class Iris {
 		currentPack = null;
 
 		getPipelineManager().destroyPipeline();
+		TransformPatcher.clearFailures();
 
 		// Close the zip filesystem that the shaderpack was loaded from
 		//
@@ -2,6 +2,7 @@ package net.irisshaders.iris.compat.dh;
 
 import com.seibel.distanthorizons.api.interfaces.override.rendering.IDhApiFramebuffer;
 import net.irisshaders.iris.gl.framebuffer.GlFramebuffer;
+import net.irisshaders.iris.gl.state.GlStateTracker;
 import org.lwjgl.opengl.GL32;
 
 public class DhFrameBufferWrapper implements IDhApiFramebuffer {
@@ -20,6 +21,8 @@ public class DhFrameBufferWrapper implements IDhApiFramebuffer {
 
 	@Override
 	public void bind() {
+		// Distant Horizons binds its own framebuffers with raw GL calls, so the tracked binding can't be trusted here
+		GlStateTracker.INSTANCE.invalidate();
 		this.framebuffer.bind();
 	}
 
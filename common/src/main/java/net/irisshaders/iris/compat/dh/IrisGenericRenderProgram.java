@@ -22,6 +22,7 @@ import net.irisshaders.iris.gl.program.ProgramUniforms;
 import net.irisshaders.iris.gl.shader.GlShader;
 import net.irisshaders.iris.gl.shader.ShaderType;
 import net.irisshaders.iris.gl.state.FogMode;
+import net.irisshaders.iris.gl.state.GlStateTracker;
 import net.irisshaders.iris.gl.texture.TextureType;
 import net.irisshaders.iris.pipeline.IrisRenderingPipeline;
 import net.irisshaders.iris.pipeline.transform.PatchShaderType;
@@ -228,6 +229,8 @@ public class IrisGenericRenderProgram implements IDhApiGenericObjectShaderProgra
 	public void bind(DhApiRenderParam renderParam) {
 		GlStateManager._glBindVertexArray(va);
 		GL32C.glUseProgram(id);
+		// raw call, the tracked program is stale now
+		GlStateTracker.INSTANCE.invalidate();
 		if (blend != null) blend.apply();
 
 		for (BufferBlendOverride override : bufferBlendOverrides) {
@@ -254,6 +257,7 @@ public class IrisGenericRenderProgram implements IDhApiGenericObjectShaderProgra
 	public void unbind() {
 		GlStateManager._glBindVertexArray(0);
 		GL43C.glUseProgram(0);
+		GlStateTracker.INSTANCE.invalidate();
 		ProgramUniforms.clearActiveUniforms();
 		ProgramSamplers.clearActiveSamplers();
 		BlendModeOverride.restore();
@@ -13,6 +13,7 @@ import net.irisshaders.iris.gl.program.ProgramUniforms;
 import net.irisshaders.iris.gl.shader.GlShader;
 import net.irisshaders.iris.gl.shader.ShaderType;
 import net.irisshaders.iris.gl.state.FogMode;
+import net.irisshaders.iris.gl.state.GlStateTracker;
 import net.irisshaders.iris.gl.texture.TextureType;
 import net.irisshaders.iris.pipeline.IrisRenderingPipeline;
 import net.irisshaders.iris.pipeline.transform.PatchShaderType;
@@ -198,6 +199,8 @@ public class IrisLodRenderProgram {
 	// Override ShaderProgram.bind()
 	public void bind() {
 		GL43C.glUseProgram(id);
+		// raw call, the tracked program is stale now
+		GlStateTracker.INSTANCE.invalidate();
 		if (blend != null) blend.apply();
 
 		for (BufferBlendOverride override : bufferBlendOverrides) {
@@ -207,6 +210,7 @@ public class IrisLodRenderProgram {
 
 	public void unbind() {
 		GL43C.glUseProgram(0);
+		GlStateTracker.INSTANCE.invalidate();
 		ProgramUniforms.clearActiveUniforms();
 		ProgramSamplers.clearActiveSamplers();
 		BlendModeOverride.restore();
@@ -218,6 +222,7 @@ public class IrisLodRenderProgram {
 
 	public void fillUniformData(Matrix4fc projection, Matrix4fc modelView, int worldYOffset, float partialTicks) {
 		GL43C.glUseProgram(id);
+		GlStateTracker.INSTANCE.invalidate();
 
 		Minecraft.getInstance().gameRenderer.lightTexture().turnOnLightLayer();
 		IrisRenderSystem.bindTextureToUnit(TextureType.TEXTURE_2D.getGlType(), IrisSamplers.LIGHTMAP_TEXTURE_UNIT, RenderSystem.getShaderTexture(2));
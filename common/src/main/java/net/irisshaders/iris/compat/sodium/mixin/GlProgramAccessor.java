@@ -0,0 +1,19 @@
+package net.irisshaders.iris.compat.sodium.mixin;
+
+import net.caffeinemc.mods.sodium.client.gl.shader.GlProgram;
+import net.caffeinemc.mods.sodium.client.gl.shader.ShaderBindingContext;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.gen.Invoker;
+
+import java.util.function.Function;
+
+@Mixin(value = GlProgram.class, remap = false)
+public interface GlProgramAccessor {
+	/**
+	 * Wraps an already linked program, which {@link GlProgram.Builder} can't do.
+	 */
+	@Invoker(value = "<init>")
+	static <T> GlProgram<T> iris$create(int program, Function<ShaderBindingContext, T> interfaceFactory) {
+		throw new AssertionError();
+	}
+}
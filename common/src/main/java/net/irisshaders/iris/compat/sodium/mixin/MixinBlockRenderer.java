@@ -22,7 +22,7 @@ public class MixinBlockRenderer {
 
 	@Inject(method = "renderModel", at = @At("HEAD"))
 	private void iris$renderModelHead(BakedModel model, BlockState state, BlockPos pos, BlockPos origin, CallbackInfo ci) {
-		if (WorldRenderingSettings.INSTANCE.getBlockTypeIds().containsKey(state.getBlock())) {
+		if (WorldRenderingSettings.INSTANCE.getBlockType(state) != null) {
 			hasOverride = true;
 		}
 	}
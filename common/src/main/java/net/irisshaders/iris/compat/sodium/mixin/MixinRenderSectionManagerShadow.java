@@ -7,6 +7,7 @@ import net.caffeinemc.mods.sodium.client.render.chunk.RenderSectionManager;
 import net.caffeinemc.mods.sodium.client.render.chunk.lists.SortedRenderLists;
 import net.caffeinemc.mods.sodium.client.render.viewport.Viewport;
 import net.irisshaders.iris.shadows.ShadowRenderingState;
+import net.irisshaders.iris.shadows.ShadowTerrainCache;
 import net.minecraft.client.Camera;
 import net.minecraft.client.multiplayer.ClientLevel;
 import org.jetbrains.annotations.NotNull;
@@ -83,6 +84,11 @@ public class MixinRenderSectionManagerShadow {
 		if (ShadowRenderingState.areShadowsCurrentlyBeingRendered()) ci.cancel();
 	}
 
+	@Inject(method = {"processChunkBuildResults", "onSectionRemoved"}, at = @At("HEAD"), remap = false)
+	private void iris$markShadowTerrainChanged(CallbackInfo ci) {
+		ShadowTerrainCache.markTerrainChanged();
+	}
+
 	@Redirect(method = {
 		"resetRenderLists",
 		"submitSectionTasks(Lnet/caffeinemc/mods/sodium/client/render/chunk/compile/executor/ChunkJobCollector;Lnet/caffeinemc/mods/sodium/client/render/chunk/compile/executor/ChunkJobCollector;Lnet/caffeinemc/mods/sodium/client/render/chunk/compile/executor/ChunkJobCollector;)V"
@@ -6,12 +6,15 @@ import net.caffeinemc.mods.sodium.client.render.chunk.shader.ChunkShaderInterfac
 import net.caffeinemc.mods.sodium.client.render.chunk.shader.ChunkShaderOptions;
 import net.caffeinemc.mods.sodium.client.render.chunk.terrain.TerrainRenderPass;
 import net.irisshaders.iris.Iris;
+import net.irisshaders.iris.gl.state.GlStateTracker;
 import net.irisshaders.iris.pipeline.IrisRenderingPipeline;
 import net.irisshaders.iris.pipeline.WorldRenderingPipeline;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Shadow;
 import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.Redirect;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 
 @Mixin(value = ShaderChunkRenderer.class, remap = false)
 public abstract class MixinShaderChunkRenderer {
@@ -35,4 +38,10 @@ public abstract class MixinShaderChunkRenderer {
 
 		return program;
 	}
+
+	@Inject(method = {"begin", "end"}, at = @At("TAIL"))
+	private void iris$forgetTrackedState(CallbackInfo ci) {
+		// Sodium binds and unbinds its programs with raw GL calls
+		GlStateTracker.INSTANCE.invalidate();
+	}
 }
@@ -35,12 +35,37 @@ public class IrisConfig {
 	 * If the update notification should be disabled or not.
 	 */
 	private boolean disableUpdateMessage;
+	/**
+	 * If transformed shader sources and linked program binaries should be cached on disk between game launches.
+	 */
+	private boolean enableShaderCache;
+	/**
+	 * If gbuffer shaders should only be created once they are first used, instead of when the pipeline is built.
+	 */
+	private boolean lazyShaderCreation;
+	/**
+	 * If the per-frame built-in uniforms should be shared between all programs through a single uniform buffer.
+	 */
+	private boolean useFrameUniformBuffer;
+	/**
+	 * How many frames a pooled entity vertex buffer may go unused before its memory is freed.
+	 */
+	private int entityBufferIdleFrames;
+	/**
+	 * If the opaque terrain in the shadow map should be kept and reused for as long as it doesn't change.
+	 */
+	private boolean cacheShadowTerrain;
 
 	public IrisConfig(Path propertiesPath) {
 		shaderPackName = null;
 		enableShaders = true;
 		enableDebugOptions = false;
 		disableUpdateMessage = false;
+		enableShaderCache = true;
+		lazyShaderCreation = false;
+		useFrameUniformBuffer = false;
+		entityBufferIdleFrames = 600;
+		cacheShadowTerrain = false;
 		this.propertiesPath = propertiesPath;
 	}
 
@@ -102,6 +127,26 @@ public class IrisConfig {
 		return disableUpdateMessage;
 	}
 
+	public boolean isShaderCacheEnabled() {
+		return enableShaderCache;
+	}
+
+	public boolean shouldCreateShadersLazily() {
+		return lazyShaderCreation;
+	}
+
+	public boolean shouldUseFrameUniformBuffer() {
+		return useFrameUniformBuffer;
+	}
+
+	public int getEntityBufferIdleFrames() {
+		return entityBufferIdleFrames;
+	}
+
+	public boolean shouldCacheShadowTerrain() {
+		return cacheShadowTerrain;
+	}
+
 	public void setDebugEnabled(boolean enabled) {
 		enableDebugOptions = enabled;
 	}
@@ -133,6 +178,16 @@ public class IrisConfig {
 		enableShaders = !"false".equals(properties.getProperty("enableShaders"));
 		enableDebugOptions = "true".equals(properties.getProperty("enableDebugOptions"));
 		disableUpdateMessage = "true".equals(properties.getProperty("disableUpdateMessage"));
+		enableShaderCache = !"false".equals(properties.getProperty("enableShaderCache"));
+		lazyShaderCreation = "true".equals(properties.getProperty("lazyShaderCreation"));
+		useFrameUniformBuffer = "true".equals(properties.getProperty("useFrameUniformBuffer"));
+		cacheShadowTerrain = "true".equals(properties.getProperty("cacheShadowTerrain"));
+		try {
+			entityBufferIdleFrames = Math.max(0, Integer.parseInt(properties.getProperty("entityBufferIdleFrames", "600")));
+		} catch (NumberFormatException e) {
+			Iris.logger.error("Entity buffer idle frames setting reset; value is invalid.");
+			entityBufferIdleFrames = 600;
+		}
 		try {
 			IrisVideoSettings.shadowDistance = Integer.parseInt(properties.getProperty("maxShadowRenderDistance", "32"));
 			IrisVideoSettings.colorSpace = ColorSpace.valueOf(properties.getProperty("colorSpace", "SRGB"));
@@ -161,6 +216,11 @@ public class IrisConfig {
 		properties.setProperty("enableShaders", enableShaders ? "true" : "false");
 		properties.setProperty("enableDebugOptions", enableDebugOptions ? "true" : "false");
 		properties.setProperty("disableUpdateMessage", disableUpdateMessage ? "true" : "false");
+		properties.setProperty("enableShaderCache", enableShaderCache ? "true" : "false");
+		properties.setProperty("lazyShaderCreation", lazyShaderCreation ? "true" : "false");
+		properties.setProperty("useFrameUniformBuffer", useFrameUniformBuffer ? "true" : "false");
+		properties.setProperty("entityBufferIdleFrames", String.valueOf(entityBufferIdleFrames));
+		properties.setProperty("cacheShadowTerrain", cacheShadowTerrain ? "true" : "false");
 		properties.setProperty("maxShadowRenderDistance", String.valueOf(IrisVideoSettings.shadowDistance));
 		properties.setProperty("colorSpace", IrisVideoSettings.colorSpace.name());
 		// NB: This uses ISO-8859-1 with unicode escapes as the encoding
@@ -5,6 +5,7 @@ import com.mojang.blaze3d.systems.RenderSystem;
 import com.mojang.blaze3d.vertex.VertexSorting;
 import net.irisshaders.iris.Iris;
 import net.irisshaders.iris.gl.sampler.SamplerLimits;
+import net.irisshaders.iris.gl.state.GlStateTracker;
 import net.irisshaders.iris.mixin.GlStateManagerAccessor;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.gui.screens.Screen;
@@ -266,6 +267,18 @@ public class IrisRenderSystem {
 		return GL.getCapabilities().OpenGL44 || (GL.getCapabilities().GL_ARB_shader_storage_buffer_object && GL.getCapabilities().GL_ARB_buffer_storage);
 	}
 
+	/**
+	 * Returns the number of shader storage blocks that are active in the given program, or zero if SSBOs aren't
+	 * supported.
+	 */
+	public static int getActiveShaderStorageBlocks(int program) {
+		if (!supportsSSBO()) {
+			return 0;
+		}
+
+		return GL43C.glGetProgramInterfacei(program, GL43C.GL_SHADER_STORAGE_BLOCK, GL43C.GL_ACTIVE_RESOURCES);
+	}
+
 	public static boolean supportsImageLoadStore() {
 		return GL.getCapabilities().glBindImageTexture != 0L || GL.getCapabilities().OpenGL42 || ((GL.getCapabilities().GL_ARB_shader_image_load_store || GL.getCapabilities().GL_EXT_shader_image_load_store) && GL.getCapabilities().GL_ARB_buffer_storage);
 	}
@@ -379,9 +392,11 @@ public class IrisRenderSystem {
 
 	public static void bindSamplerToUnit(int unit, int sampler) {
 		if (samplers[unit] == sampler) {
+			GlStateTracker.INSTANCE.countStateChange(true);
 			return;
 		}
 
+		GlStateTracker.INSTANCE.countStateChange(false);
 		GL33C.glBindSampler(unit, sampler);
 
 		samplers[unit] = sampler;
@@ -428,6 +443,8 @@ public class IrisRenderSystem {
 	}
 
 	public static void setPolygonMode(int mode) {
+		GlStateTracker.INSTANCE.countStateChange(mode == polygonMode);
+
 		if (mode != polygonMode) {
 			polygonMode = mode;
 			GL43C.glPolygonMode(GL43C.GL_FRONT_AND_BACK, mode);
@@ -549,9 +566,11 @@ public class IrisRenderSystem {
 		@Override
 		public void bindTextureToUnit(int target, int unit, int texture) {
 			if (GlStateManagerAccessor.getTEXTURES()[unit].binding == texture) {
+				GlStateTracker.INSTANCE.countStateChange(true);
 				return;
 			}
 
+			GlStateTracker.INSTANCE.countStateChange(false);
 			ARBDirectStateAccess.glBindTextureUnit(unit, texture);
 
 			// Manually fix GLStateManager bindings...
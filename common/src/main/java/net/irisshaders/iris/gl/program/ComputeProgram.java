@@ -1,10 +1,10 @@
 package net.irisshaders.iris.gl.program;
 
 import com.mojang.blaze3d.platform.GlStateManager;
-import com.mojang.blaze3d.shaders.ProgramManager;
 import net.irisshaders.iris.Iris;
 import net.irisshaders.iris.gl.GlResource;
 import net.irisshaders.iris.gl.IrisRenderSystem;
+import net.irisshaders.iris.gl.state.GlStateTracker;
 import net.irisshaders.iris.pipeline.WorldRenderingPipeline;
 import net.irisshaders.iris.shaderpack.FilledIndirectPointer;
 import org.joml.Vector2f;
@@ -36,7 +36,7 @@ public final class ComputeProgram extends GlResource {
 
 	public static void unbind() {
 		ProgramUniforms.clearActiveUniforms();
-		ProgramManager.glUseProgram(0);
+		GlStateTracker.INSTANCE.useProgram(0);
 	}
 
 	public void setWorkGroupInfo(Vector2f relativeWorkGroups, Vector3i absoluteWorkGroups, FilledIndirectPointer indirectPointer) {
@@ -65,7 +65,7 @@ public final class ComputeProgram extends GlResource {
 	}
 
 	public void use() {
-		ProgramManager.glUseProgram(getGlId());
+		GlStateTracker.INSTANCE.useProgram(getGlId());
 
 		uniforms.update();
 		samplers.update();
@@ -74,7 +74,18 @@ public final class ComputeProgram extends GlResource {
 
 	public void dispatch(float width, float height) {
 		if (!Iris.getPipelineManager().getPipeline().map(WorldRenderingPipeline::allowConcurrentCompute).orElse(false)) {
-			IrisRenderSystem.memoryBarrier(GL43C.GL_SHADER_IMAGE_ACCESS_BARRIER_BIT | GL43C.GL_TEXTURE_FETCH_BARRIER_BIT | GL43C.GL_SHADER_STORAGE_BARRIER_BIT);
+			dispatch(width, height, GL43C.GL_SHADER_IMAGE_ACCESS_BARRIER_BIT | GL43C.GL_TEXTURE_FETCH_BARRIER_BIT | GL43C.GL_SHADER_STORAGE_BARRIER_BIT);
+		} else {
+			dispatch(width, height, 0);
+		}
+	}
+
+	/**
+	 * Dispatches this program, issuing a memory barrier with the given bits first unless they are zero.
+	 */
+	public void dispatch(float width, float height, int memoryBarrierBits) {
+		if (memoryBarrierBits != 0) {
+			IrisRenderSystem.memoryBarrier(memoryBarrierBits);
 		}
 
 		if (indirectPointer != null) {
@@ -1,9 +1,9 @@
 package net.irisshaders.iris.gl.program;
 
 import com.mojang.blaze3d.platform.GlStateManager;
-import com.mojang.blaze3d.shaders.ProgramManager;
 import net.irisshaders.iris.gl.GlResource;
 import net.irisshaders.iris.gl.IrisRenderSystem;
+import net.irisshaders.iris.gl.state.GlStateTracker;
 import org.lwjgl.opengl.GL43C;
 
 public final class Program extends GlResource {
@@ -22,12 +22,22 @@ public final class Program extends GlResource {
 	public static void unbind() {
 		ProgramUniforms.clearActiveUniforms();
 		ProgramSamplers.clearActiveSamplers();
-		ProgramManager.glUseProgram(0);
+		GlStateTracker.INSTANCE.useProgram(0);
 	}
 
 	public void use() {
-		IrisRenderSystem.memoryBarrier(GL43C.GL_SHADER_IMAGE_ACCESS_BARRIER_BIT | GL43C.GL_TEXTURE_FETCH_BARRIER_BIT | GL43C.GL_SHADER_STORAGE_BARRIER_BIT);
-		ProgramManager.glUseProgram(getGlId());
+		use(GL43C.GL_SHADER_IMAGE_ACCESS_BARRIER_BIT | GL43C.GL_TEXTURE_FETCH_BARRIER_BIT | GL43C.GL_SHADER_STORAGE_BARRIER_BIT);
+	}
+
+	/**
+	 * Binds this program, issuing a memory barrier with the given bits first unless they are zero.
+	 */
+	public void use(int memoryBarrierBits) {
+		if (memoryBarrierBits != 0) {
+			IrisRenderSystem.memoryBarrier(memoryBarrierBits);
+		}
+
+		GlStateTracker.INSTANCE.useProgram(getGlId());
 
 		uniforms.update();
 		samplers.update();
@@ -15,6 +15,8 @@ import net.irisshaders.iris.gl.texture.InternalTextureFormat;
 import net.irisshaders.iris.gl.texture.TextureType;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.function.IntSupplier;
 
 public class ProgramBuilder extends ProgramUniforms.Builder implements SamplerHolder, ImageHolder {
@@ -34,35 +36,16 @@ public class ProgramBuilder extends ProgramUniforms.Builder implements SamplerHo
 									   @Nullable String fragmentSource, ImmutableSet<Integer> reservedTextureUnits) {
 		RenderSystem.assertOnRenderThread();
 
-		GlShader vertex;
-		GlShader geometry;
-		GlShader fragment;
-
-		vertex = buildShader(ShaderType.VERTEX, name + ".vsh", vertexSource);
+		Map<ShaderType, String> sources = new LinkedHashMap<>();
+		sources.put(ShaderType.VERTEX, vertexSource);
 
 		if (geometrySource != null) {
-			geometry = buildShader(ShaderType.GEOMETRY, name + ".gsh", geometrySource);
-		} else {
-			geometry = null;
-		}
-
-		fragment = buildShader(ShaderType.FRAGMENT, name + ".fsh", fragmentSource);
-
-		int programId;
-
-		if (geometry != null) {
-			programId = ProgramCreator.create(name, vertex, geometry, fragment);
-		} else {
-			programId = ProgramCreator.create(name, vertex, fragment);
+			sources.put(ShaderType.GEOMETRY, geometrySource);
 		}
 
-		vertex.destroy();
+		sources.put(ShaderType.FRAGMENT, fragmentSource);
 
-		if (geometry != null) {
-			geometry.destroy();
-		}
-
-		fragment.destroy();
+		int programId = ProgramCreator.create(name, sources, (type, source) -> buildShader(type, name + getExtension(type), source));
 
 		return new ProgramBuilder(name, programId, reservedTextureUnits);
 	}
@@ -74,15 +57,20 @@ public class ProgramBuilder extends ProgramUniforms.Builder implements SamplerHo
 			throw new IllegalStateException("This PC does not support compute shaders, but it's attempting to be used???");
 		}
 
-		GlShader compute = buildShader(ShaderType.COMPUTE, name + ".csh", source);
-
-		int programId = ProgramCreator.create(name, compute);
-
-		compute.destroy();
+		int programId = ProgramCreator.create(name, Map.of(ShaderType.COMPUTE, source), (type, computeSource) -> buildShader(type, name + ".csh", computeSource));
 
 		return new ProgramBuilder(name, programId, reservedTextureUnits);
 	}
 
+	private static String getExtension(ShaderType type) {
+		return switch (type) {
+			case VERTEX -> ".vsh";
+			case GEOMETRY -> ".gsh";
+			case FRAGMENT -> ".fsh";
+			default -> throw new IllegalArgumentException("Unexpected shader type " + type);
+		};
+	}
+
 	private static GlShader buildShader(ShaderType shaderType, String name, @Nullable String source) {
 		try {
 			return new GlShader(shaderType, name, source);
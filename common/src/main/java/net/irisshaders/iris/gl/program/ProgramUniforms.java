@@ -6,6 +6,7 @@ import net.irisshaders.iris.Iris;
 import net.irisshaders.iris.gl.IrisRenderSystem;
 import net.irisshaders.iris.gl.state.ValueUpdateNotifier;
 import net.irisshaders.iris.gl.uniform.DynamicLocationalUniformHolder;
+import net.irisshaders.iris.gl.uniform.FrameUniformBuffer;
 import net.irisshaders.iris.gl.uniform.Uniform;
 import net.irisshaders.iris.gl.uniform.UniformHolder;
 import net.irisshaders.iris.gl.uniform.UniformType;
@@ -268,6 +269,8 @@ public class ProgramUniforms {
 			uniformNames = new HashMap<>();
 			externalUniformNames = new HashMap<>();
 			notifiersToReset = new ArrayList<>();
+
+			FrameUniformBuffer.bindBlock(program);
 		}
 
 		@Override
@@ -0,0 +1,91 @@
+package net.irisshaders.iris.gl.shader;
+
+import com.mojang.blaze3d.platform.GlStateManager;
+import org.jetbrains.annotations.Nullable;
+import org.lwjgl.opengl.ARBGetProgramBinary;
+import org.lwjgl.opengl.GL;
+import org.lwjgl.opengl.GL20C;
+import org.lwjgl.opengl.GL41C;
+import org.lwjgl.opengl.GLCapabilities;
+import org.lwjgl.system.MemoryStack;
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+
+public class GlProgramBinaryBackend implements ProgramBinaryBackend {
+	private Boolean supported;
+
+	@Override
+	public boolean isSupported() {
+		if (supported == null) {
+			GLCapabilities capabilities = GL.getCapabilities();
+
+			// Some drivers expose the extension but don't support any formats, which makes it useless.
+			supported = (capabilities.OpenGL41 || capabilities.GL_ARB_get_program_binary)
+				&& GlStateManager._getInteger(GL41C.GL_NUM_PROGRAM_BINARY_FORMATS) > 0;
+		}
+
+		return supported;
+	}
+
+	@Override
+	public String getDriverIdentity() {
+		return GlStateManager._getString(GL20C.GL_VENDOR) + ";" + GlStateManager._getString(GL20C.GL_RENDERER) + ";"
+			+ GlStateManager._getString(GL20C.GL_VERSION);
+	}
+
+	@Override
+	public void markRetrievable(int program) {
+		ARBGetProgramBinary.glProgramParameteri(program, GL41C.GL_PROGRAM_BINARY_RETRIEVABLE_HINT, GL20C.GL_TRUE);
+	}
+
+	@Override
+	public @Nullable ProgramBinary getBinary(int program) {
+		int length = GlStateManager.glGetProgrami(program, GL41C.GL_PROGRAM_BINARY_LENGTH);
+
+		if (length <= 0) {
+			return null;
+		}
+
+		ByteBuffer buffer = MemoryUtil.memAlloc(length);
+
+		try (MemoryStack stack = MemoryStack.stackPush()) {
+			IntBuffer writtenLength = stack.mallocInt(1);
+			IntBuffer format = stack.mallocInt(1);
+
+			ARBGetProgramBinary.glGetProgramBinary(program, writtenLength, format, buffer);
+
+			byte[] data = new byte[writtenLength.get(0)];
+			buffer.get(0, data);
+
+			return new ProgramBinary(format.get(0), data);
+		} finally {
+			MemoryUtil.memFree(buffer);
+		}
+	}
+
+	@Override
+	public int createProgram() {
+		return GlStateManager.glCreateProgram();
+	}
+
+	@Override
+	public boolean loadBinary(int program, ProgramBinary binary) {
+		ByteBuffer buffer = MemoryUtil.memAlloc(binary.data().length);
+
+		try {
+			buffer.put(0, binary.data());
+			ARBGetProgramBinary.glProgramBinary(program, binary.format(), buffer);
+		} finally {
+			MemoryUtil.memFree(buffer);
+		}
+
+		return GlStateManager.glGetProgrami(program, GL20C.GL_LINK_STATUS) == GL20C.GL_TRUE;
+	}
+
+	@Override
+	public void deleteProgram(int program) {
+		GlStateManager.glDeleteProgram(program);
+	}
+}
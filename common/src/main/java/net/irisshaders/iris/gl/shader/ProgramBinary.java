@@ -0,0 +1,57 @@
+package net.irisshaders.iris.gl.shader;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * A linked program as returned by {@code glGetProgramBinary}, together with the driver-specific binary format.
+ */
+public record ProgramBinary(int format, byte[] data) {
+	private static final int MAGIC = 0x49504231; // "IPB1"
+
+	public byte[] serialize() {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(data.length + 12);
+
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeInt(MAGIC);
+			out.writeInt(format);
+			out.writeInt(data.length);
+			out.write(data);
+		} catch (IOException e) {
+			// ByteArrayOutputStream never throws
+			throw new IllegalStateException(e);
+		}
+
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Reads a binary that was written by {@link #serialize()}.
+	 *
+	 * @return the binary, or null if the data is truncated or not a program binary
+	 */
+	public static ProgramBinary deserialize(byte[] serialized) {
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(serialized))) {
+			if (in.readInt() != MAGIC) {
+				return null;
+			}
+
+			int format = in.readInt();
+			int length = in.readInt();
+
+			if (length < 0 || length != serialized.length - 12) {
+				return null;
+			}
+
+			byte[] data = new byte[length];
+			in.readFully(data);
+
+			return new ProgramBinary(format, data);
+		} catch (IOException e) {
+			return null;
+		}
+	}
+}
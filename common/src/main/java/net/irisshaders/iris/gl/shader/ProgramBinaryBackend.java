@@ -0,0 +1,38 @@
+package net.irisshaders.iris.gl.shader;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The OpenGL operations needed by {@link ProgramBinaryCache}. This only exists so that the cache can be tested
+ * without an OpenGL context.
+ */
+public interface ProgramBinaryBackend {
+	/**
+	 * @return whether the driver supports retrieving and loading program binaries in at least one format
+	 */
+	boolean isSupported();
+
+	/**
+	 * @return a string identifying the driver, binaries from a different driver are never loaded
+	 */
+	String getDriverIdentity();
+
+	/**
+	 * Asks the driver to keep the binary around, must be called before the program is linked.
+	 */
+	void markRetrievable(int program);
+
+	@Nullable
+	ProgramBinary getBinary(int program);
+
+	int createProgram();
+
+	/**
+	 * Loads a binary into the program.
+	 *
+	 * @return whether the driver accepted the binary and the program is now linked
+	 */
+	boolean loadBinary(int program, ProgramBinary binary);
+
+	void deleteProgram(int program);
+}
@@ -0,0 +1,138 @@
+package net.irisshaders.iris.gl.shader;
+
+import net.irisshaders.iris.Iris;
+import net.irisshaders.iris.helpers.BoundedFileCache;
+import net.irisshaders.iris.platform.IrisPlatformHelpers;
+
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stores linked programs on disk using {@code glGetProgramBinary}, so that programs whose final sources did not
+ * change since the last pipeline build or game launch don't need to be compiled and linked again.
+ * <p>
+ * Binaries are keyed on the final (transformed) sources, the attribute bindings and the driver identity, so
+ * updating the driver or changing the shader pack simply results in new entries. Drivers are still free to reject
+ * a binary, in which case the entry is removed and the caller falls back to compiling the program from source.
+ */
+public class ProgramBinaryCache {
+	private static final long MAX_CACHE_SIZE = 256L * 1024 * 1024;
+	private static ProgramBinaryCache instance;
+
+	private final ProgramBinaryBackend backend;
+	private final BoundedFileCache storage;
+	private String driverIdentity;
+
+	public ProgramBinaryCache(ProgramBinaryBackend backend, BoundedFileCache storage) {
+		this.backend = backend;
+		this.storage = storage;
+	}
+
+	/**
+	 * @return the shared cache, or null if program binaries are disabled or unsupported
+	 */
+	public static ProgramBinaryCache getInstance() {
+		if (Iris.getIrisConfig() == null || !Iris.getIrisConfig().isShaderCacheEnabled()) {
+			return null;
+		}
+
+		if (instance == null) {
+			instance = new ProgramBinaryCache(new GlProgramBinaryBackend(),
+				new BoundedFileCache(IrisPlatformHelpers.getInstance().getGameDir().resolve("iris_cache").resolve("program"), MAX_CACHE_SIZE));
+		}
+
+		return instance.backend.isSupported() ? instance : null;
+	}
+
+	/**
+	 * Computes the key of a program.
+	 *
+	 * @param sources           the final sources of each attached shader, in attachment order
+	 * @param attributeBindings the attribute locations bound before linking
+	 */
+	public String computeKey(Map<ShaderType, String> sources, List<AttributeBinding> attributeBindings) {
+		if (driverIdentity == null) {
+			driverIdentity = backend.getDriverIdentity();
+		}
+
+		MessageDigest digest = BoundedFileCache.createDigest();
+		BoundedFileCache.update(digest, driverIdentity);
+
+		for (AttributeBinding binding : attributeBindings) {
+			BoundedFileCache.update(digest, binding.index() + "=" + binding.name());
+		}
+
+		sources.forEach((type, source) -> {
+			BoundedFileCache.update(digest, type.name());
+			BoundedFileCache.update(digest, source);
+		});
+
+		return BoundedFileCache.toKey(digest);
+	}
+
+	/**
+	 * Creates a program from a stored binary.
+	 *
+	 * @return the linked program, or -1 if there is no usable binary for the key
+	 */
+	public int tryLoad(String key) {
+		byte[] data = storage.read(key);
+
+		if (data == null) {
+			return -1;
+		}
+
+		int program = backend.createProgram();
+
+		if (!loadInto(key, program, data)) {
+			backend.deleteProgram(program);
+			return -1;
+		}
+
+		return program;
+	}
+
+	/**
+	 * Loads a stored binary into a program that was created elsewhere. If this fails the program is left unlinked,
+	 * and can still be linked from source as usual.
+	 *
+	 * @return whether the program is now linked
+	 */
+	public boolean tryLoadInto(String key, int program) {
+		byte[] data = storage.read(key);
+
+		return data != null && loadInto(key, program, data);
+	}
+
+	private boolean loadInto(String key, int program, byte[] data) {
+		ProgramBinary binary = ProgramBinary.deserialize(data);
+
+		if (binary == null || !backend.loadBinary(program, binary)) {
+			// The driver can reject a binary at any time, for example after an update that did not change the
+			// version string. The entry will be replaced once the program has been compiled again.
+			storage.remove(key);
+			return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Must be called before linking a program that will be passed to {@link #store}.
+	 */
+	public void prepareForStore(int program) {
+		backend.markRetrievable(program);
+	}
+
+	public void store(String key, int program) {
+		ProgramBinary binary = backend.getBinary(program);
+
+		if (binary != null) {
+			storage.write(key, binary.serialize());
+		}
+	}
+
+	public record AttributeBinding(int index, String name) {
+	}
+}
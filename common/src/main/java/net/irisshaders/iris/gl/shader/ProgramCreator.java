@@ -5,25 +5,125 @@ package net.irisshaders.iris.gl.shader;
 import com.mojang.blaze3d.platform.GlStateManager;
 import net.irisshaders.iris.gl.GLDebug;
 import net.irisshaders.iris.gl.IrisRenderSystem;
+import net.irisshaders.iris.gl.shader.ProgramBinaryCache.AttributeBinding;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.Nullable;
 import org.lwjgl.opengl.GL20C;
 import org.lwjgl.opengl.KHRDebug;
 
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+
 public class ProgramCreator {
 	private static final Logger LOGGER = LogManager.getLogger(ProgramCreator.class);
+	private static final List<AttributeBinding> ATTRIBUTE_BINDINGS = List.of(
+		new AttributeBinding(11, "iris_Entity"),
+		new AttributeBinding(11, "mc_Entity"),
+		new AttributeBinding(12, "mc_midTexCoord"),
+		new AttributeBinding(13, "at_tangent"),
+		new AttributeBinding(14, "at_midBlock"),
+		new AttributeBinding(0, "Position"),
+		new AttributeBinding(1, "UV0")
+	);
 
 	public static int create(String name, GlShader... shaders) {
-		int program = GlStateManager.glCreateProgram();
+		return link(name, null, ATTRIBUTE_BINDINGS, shaders);
+	}
+
+	/**
+	 * Creates a program from sources, loading it from the {@link ProgramBinaryCache} instead of compiling it if
+	 * possible.
+	 *
+	 * @param sources  the sources of each shader, in attachment order
+	 * @param compiler compiles a single shader if the program was not cached
+	 */
+	public static int create(String name, Map<ShaderType, String> sources, BiFunction<ShaderType, String, GlShader> compiler) {
+		return create(name, sources, ATTRIBUTE_BINDINGS, compiler);
+	}
+
+	/**
+	 * Like {@link #create(String, Map, BiFunction)}, but with the given attribute locations instead of the ones Iris
+	 * uses for its own programs.
+	 */
+	public static int create(String name, Map<ShaderType, String> sources, List<AttributeBinding> attributeBindings,
+							 BiFunction<ShaderType, String, GlShader> compiler) {
+		ProgramBinaryCache cache = ProgramBinaryCache.getInstance();
+		String key = null;
+
+		if (cache != null) {
+			key = cache.computeKey(sources, attributeBindings);
+			int program = cache.tryLoad(key);
+
+			if (program != -1) {
+				GLDebug.nameObject(KHRDebug.GL_PROGRAM, program, name);
+				return program;
+			}
+		}
 
-		GlStateManager._glBindAttribLocation(program, 11, "iris_Entity");
-		GlStateManager._glBindAttribLocation(program, 11, "mc_Entity");
-		GlStateManager._glBindAttribLocation(program, 12, "mc_midTexCoord");
-		GlStateManager._glBindAttribLocation(program, 13, "at_tangent");
-		GlStateManager._glBindAttribLocation(program, 14, "at_midBlock");
+		GlShader[] shaders = new GlShader[sources.size()];
+		int index = 0;
 
-		GlStateManager._glBindAttribLocation(program, 0, "Position");
-		GlStateManager._glBindAttribLocation(program, 1, "UV0");
+		try {
+			for (Map.Entry<ShaderType, String> source : sources.entrySet()) {
+				shaders[index++] = compiler.apply(source.getKey(), source.getValue());
+			}
+
+			int program = link(name, cache, attributeBindings, shaders);
+
+			if (cache != null) {
+				cache.store(key, program);
+			}
+
+			return program;
+		} finally {
+			for (GlShader shader : shaders) {
+				if (shader != null) {
+					shader.destroy();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Links a program whose shaders are compiled and attached by other code, such as vanilla's ShaderInstance,
+	 * loading it from the {@link ProgramBinaryCache} instead if possible.
+	 *
+	 * @param sources           the sources of each shader that {@code link} attaches
+	 * @param attributeBindings the attribute locations that were bound to the program
+	 * @param link              attaches the shaders and links the program, only called if the program was not cached
+	 */
+	public static void linkCached(int program, Map<ShaderType, String> sources, List<AttributeBinding> attributeBindings,
+								  Runnable link) {
+		ProgramBinaryCache cache = ProgramBinaryCache.getInstance();
+
+		if (cache == null) {
+			link.run();
+			return;
+		}
+
+		String key = cache.computeKey(sources, attributeBindings);
+
+		if (cache.tryLoadInto(key, program)) {
+			return;
+		}
+
+		cache.prepareForStore(program);
+		link.run();
+
+		if (GlStateManager.glGetProgrami(program, GL20C.GL_LINK_STATUS) == GL20C.GL_TRUE) {
+			cache.store(key, program);
+		}
+	}
+
+	private static int link(String name, @Nullable ProgramBinaryCache cache, List<AttributeBinding> attributeBindings,
+							GlShader... shaders) {
+		int program = GlStateManager.glCreateProgram();
+
+		for (AttributeBinding binding : attributeBindings) {
+			GlStateManager._glBindAttribLocation(program, binding.index(), binding.name());
+		}
 
 		for (GlShader shader : shaders) {
 			GLDebug.nameObject(KHRDebug.GL_SHADER, shader.getHandle(), shader.getName());
@@ -31,6 +131,10 @@ public class ProgramCreator {
 			GlStateManager.glAttachShader(program, shader.getHandle());
 		}
 
+		if (cache != null) {
+			cache.prepareForStore(program);
+		}
+
 		GlStateManager.glLinkProgram(program);
 
 		GLDebug.nameObject(KHRDebug.GL_PROGRAM, program, name);
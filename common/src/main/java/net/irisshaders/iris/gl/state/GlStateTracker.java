@@ -0,0 +1,205 @@
+package net.irisshaders.iris.gl.state;
+
+import com.mojang.blaze3d.platform.GlStateManager;
+import com.mojang.blaze3d.shaders.ProgramManager;
+import com.mojang.blaze3d.systems.RenderSystem;
+import org.lwjgl.opengl.GL30C;
+
+/**
+ * Keeps a shadow copy of the framebuffer, program, and viewport bindings so that redundant changes can be dropped, and
+ * counts how many state changes were issued and skipped every frame.
+ * <p>
+ * The shadow copy is only trusted inside a scope, such as the gbuffer and shadow passes and the full screen passes of
+ * the composite renderers. Vanilla and most mods change this state through {@link GlStateManager}, which reports
+ * every change back through the {@code on*} methods, so their changes keep the shadow copy correct. Code that makes
+ * raw GL calls, like Sodium's terrain renderer and Distant Horizons, has to be followed by {@link #invalidate()}.
+ * Outside of a scope, every call is passed on to OpenGL.
+ */
+public final class GlStateTracker {
+	public static final GlStateTracker INSTANCE = new GlStateTracker(new Backend() {
+		@Override
+		public void bindFramebuffer(int framebuffer) {
+			GlStateManager._glBindFramebuffer(GL30C.GL_FRAMEBUFFER, framebuffer);
+		}
+
+		@Override
+		public void useProgram(int program) {
+			ProgramManager.glUseProgram(program);
+		}
+
+		@Override
+		public void viewport(int x, int y, int width, int height) {
+			RenderSystem.viewport(x, y, width, height);
+		}
+	});
+
+	private static final int UNKNOWN = -1;
+
+	private final Backend backend;
+	private int scopeDepth;
+	private int framebuffer = UNKNOWN;
+	private int program = UNKNOWN;
+	private int viewportX;
+	private int viewportY;
+	private int viewportWidth = UNKNOWN;
+	private int viewportHeight = UNKNOWN;
+
+	private int issued;
+	private int skipped;
+	private int lastFrameIssued;
+	private int lastFrameSkipped;
+
+	public GlStateTracker(Backend backend) {
+		this.backend = backend;
+	}
+
+	/**
+	 * Starts trusting the shadow state until the matching {@link #endScope()}. Scopes nest, since the composite passes
+	 * run in the middle of the gbuffer pass.
+	 */
+	public void beginScope() {
+		invalidate();
+		scopeDepth++;
+	}
+
+	public void endScope() {
+		if (scopeDepth > 0) {
+			scopeDepth--;
+		}
+
+		invalidate();
+	}
+
+	private boolean inScope() {
+		return scopeDepth > 0;
+	}
+
+	/**
+	 * Forgets the shadow state, for example because something else may have changed it.
+	 */
+	public void invalidate() {
+		framebuffer = UNKNOWN;
+		program = UNKNOWN;
+		viewportWidth = UNKNOWN;
+		viewportHeight = UNKNOWN;
+	}
+
+	public void bindFramebuffer(int framebuffer) {
+		if (inScope() && this.framebuffer == framebuffer) {
+			skipped++;
+			return;
+		}
+
+		issued++;
+		backend.bindFramebuffer(framebuffer);
+
+		if (inScope()) {
+			this.framebuffer = framebuffer;
+		}
+	}
+
+	public void useProgram(int program) {
+		if (inScope() && this.program == program) {
+			skipped++;
+			return;
+		}
+
+		issued++;
+		backend.useProgram(program);
+
+		if (inScope()) {
+			this.program = program;
+		}
+	}
+
+	public void viewport(int x, int y, int width, int height) {
+		if (inScope() && viewportX == x && viewportY == y && viewportWidth == width && viewportHeight == height) {
+			skipped++;
+			return;
+		}
+
+		issued++;
+		backend.viewport(x, y, width, height);
+
+		if (inScope()) {
+			viewportX = x;
+			viewportY = y;
+			viewportWidth = width;
+			viewportHeight = height;
+		}
+	}
+
+	/**
+	 * Records a framebuffer binding made through {@link GlStateManager}.
+	 */
+	public void onFramebufferBound(int target, int framebuffer) {
+		// a read or draw only binding leaves the other half unknown
+		this.framebuffer = target == GL30C.GL_FRAMEBUFFER ? framebuffer : UNKNOWN;
+	}
+
+	/**
+	 * Records a program change made through {@link GlStateManager}.
+	 */
+	public void onProgramUsed(int program) {
+		this.program = program;
+	}
+
+	/**
+	 * Records a viewport change made through {@link GlStateManager}.
+	 */
+	public void onViewport(int x, int y, int width, int height) {
+		viewportX = x;
+		viewportY = y;
+		viewportWidth = width;
+		viewportHeight = height;
+	}
+
+	/**
+	 * Counts a state change that was checked against a cache kept elsewhere, such as the texture bindings of
+	 * {@link GlStateManager}.
+	 */
+	public void countStateChange(boolean redundant) {
+		if (redundant) {
+			skipped++;
+		} else {
+			issued++;
+		}
+	}
+
+	/**
+	 * Makes the counts of the frame that just finished available through {@link #getLastFrameIssued()} and
+	 * {@link #getLastFrameSkipped()}, and starts counting again.
+	 */
+	public void endFrame() {
+		if (scopeDepth != 0) {
+			// A scope was left without being ended, most likely by an exception. Don't keep trusting the state forever.
+			scopeDepth = 0;
+			invalidate();
+		}
+
+		lastFrameIssued = issued;
+		lastFrameSkipped = skipped;
+		issued = 0;
+		skipped = 0;
+	}
+
+	public int getLastFrameIssued() {
+		return lastFrameIssued;
+	}
+
+	public int getLastFrameSkipped() {
+		return lastFrameSkipped;
+	}
+
+	/**
+	 * The calls that are made when a state change isn't redundant. Replaced in tests with a backend that records the
+	 * calls instead of making them.
+	 */
+	public interface Backend {
+		void bindFramebuffer(int framebuffer);
+
+		void useProgram(int program);
+
+		void viewport(int x, int y, int width, int height);
+	}
+}
@@ -83,6 +83,14 @@ public class ShaderAttributeInputs {
 		return glint;
 	}
 
+	/**
+	 * Returns a representation of these inputs that stays the same across game launches, for use in persistent cache keys.
+	 */
+	public String toStableKey() {
+		return "" + (color ? 'c' : '-') + (tex ? 't' : '-') + (overlay ? 'o' : '-') + (light ? 'l' : '-')
+			+ (normal ? 'n' : '-') + (newLines ? 'L' : '-') + (glint ? 'g' : '-') + (text ? 'T' : '-') + (ie ? 'i' : '-');
+	}
+
 	@Override
 	public int hashCode() {
 		final int prime = 31;
@@ -8,7 +8,6 @@ import org.lwjgl.opengl.GL11C;
 import org.lwjgl.opengl.GL13C;
 import org.lwjgl.opengl.GL20C;
 import org.lwjgl.opengl.GL30C;
-import org.lwjgl.system.MemoryUtil;
 
 import java.nio.ByteBuffer;
 import java.util.function.IntSupplier;
@@ -16,17 +15,14 @@ import java.util.function.IntSupplier;
 public class GlTexture extends GlResource implements TextureAccess {
 	private final TextureType target;
 
-	public GlTexture(TextureType target, int sizeX, int sizeY, int sizeZ, int internalFormat, int format, int pixelType, byte[] pixels, TextureFilteringData filteringData) {
+	public GlTexture(TextureType target, int sizeX, int sizeY, int sizeZ, int internalFormat, int format, int pixelType, ByteBuffer pixels, TextureFilteringData filteringData) {
 		super(GlStateManager._genTexture());
 		IrisRenderSystem.bindTextureForSetup(target.getGlType(), getGlId());
 
 		TextureUploadHelper.resetTextureUploadState();
 
-		ByteBuffer buffer = MemoryUtil.memAlloc(pixels.length);
-		buffer.put(pixels);
-		buffer.flip();
-		target.apply(this.getGlId(), sizeX, sizeY, sizeZ, internalFormat, format, pixelType, buffer);
-		MemoryUtil.memFree(buffer);
+		// The pixels are already in a direct buffer, so they can be uploaded without another copy.
+		target.apply(this.getGlId(), sizeX, sizeY, sizeZ, internalFormat, format, pixelType, pixels);
 
 		int texture = this.getGlId();
 
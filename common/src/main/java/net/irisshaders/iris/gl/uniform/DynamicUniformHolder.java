@@ -35,4 +35,35 @@ public interface DynamicUniformHolder extends UniformHolder {
 
 	DynamicUniformHolder uniformMatrix(String name, Supplier<Matrix4fc> value, ValueUpdateNotifier notifier);
 
+	default DynamicUniformHolder uniform2i(String name, ValueWriter<Vector2i> value, ValueUpdateNotifier notifier) {
+		Vector2i held = new Vector2i();
+		return uniform2i(name, () -> {
+			value.write(held);
+			return held;
+		}, notifier);
+	}
+
+	default DynamicUniformHolder uniform3f(String name, ValueWriter<Vector3f> value, ValueUpdateNotifier notifier) {
+		Vector3f held = new Vector3f();
+		return uniform3f(name, () -> {
+			value.write(held);
+			return held;
+		}, notifier);
+	}
+
+	default DynamicUniformHolder uniform4f(String name, ValueWriter<Vector4f> value, ValueUpdateNotifier notifier) {
+		Vector4f held = new Vector4f();
+		return uniform4f(name, () -> {
+			value.write(held);
+			return held;
+		}, notifier);
+	}
+
+	default DynamicUniformHolder uniform4i(String name, ValueWriter<Vector4i> value, ValueUpdateNotifier notifier) {
+		Vector4i held = new Vector4i();
+		return uniform4i(name, () -> {
+			value.write(held);
+			return held;
+		}, notifier);
+	}
 }
@@ -0,0 +1,330 @@
+package net.irisshaders.iris.gl.uniform;
+
+import com.mojang.blaze3d.platform.GlStateManager;
+import net.irisshaders.iris.Iris;
+import net.irisshaders.iris.gl.GLDebug;
+import net.irisshaders.iris.gl.IrisRenderSystem;
+import org.joml.Matrix4fc;
+import org.joml.Vector2f;
+import org.joml.Vector2i;
+import org.joml.Vector3d;
+import org.joml.Vector3f;
+import org.joml.Vector3i;
+import org.joml.Vector4f;
+import org.lwjgl.opengl.GL32C;
+import org.lwjgl.opengl.GL43C;
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleSupplier;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+/**
+ * A std140 uniform block holding the built-in uniforms that only change once per frame, so that they can be
+ * uploaded once and shared by every program instead of being set on each program separately.
+ * <p>
+ * The layout is fixed. The transform patcher moves matching {@code uniform} declarations of a program into the
+ * block (see {@link #getBlockDeclaration()}), and programs are pointed at {@link #BINDING} once they are linked.
+ * Registrations that don't fit the layout are ignored here, so the regular per-program uniforms still cover them.
+ */
+public final class FrameUniformBuffer implements UniformHolder {
+	public static final String BLOCK_NAME = "iris_FrameUniforms";
+	public static final String MEMBER_PREFIX = "iris_frame_";
+	public static final int BINDING = 15;
+
+	private static final Map<String, Member> MEMBERS = new LinkedHashMap<>();
+	private static final int SIZE;
+
+	static {
+		int offset = 0;
+
+		for (String name : new String[]{"gbufferModelView", "gbufferModelViewInverse", "gbufferPreviousModelView",
+			"gbufferProjection", "gbufferProjectionInverse", "gbufferPreviousProjection",
+			"dhProjection", "dhProjectionInverse", "dhPreviousProjection",
+			"shadowModelView", "shadowModelViewInverse", "shadowProjection", "shadowProjectionInverse"}) {
+			offset = addMember(name, UniformType.MAT4, offset);
+		}
+
+		for (String name : new String[]{"cameraPosition", "previousCameraPosition", "cameraPositionFract",
+			"previousCameraPositionFract", "sunPosition", "moonPosition", "shadowLightPosition", "upPosition", "skyColor"}) {
+			offset = addMember(name, UniformType.VEC3, offset);
+		}
+
+		offset = addMember("cameraPositionInt", UniformType.VEC3I, offset);
+		offset = addMember("previousCameraPositionInt", UniformType.VEC3I, offset);
+		offset = addMember("eyeBrightness", UniformType.VEC2I, offset);
+		offset = addMember("eyeBrightnessSmooth", UniformType.VEC2I, offset);
+
+		for (String name : new String[]{"far", "eyeAltitude", "sunAngle", "shadowAngle", "frameTime", "frameTimeCounter",
+			"viewHeight", "viewWidth", "aspectRatio", "blindness", "darknessFactor", "darknessLightFactor", "nightVision",
+			"screenBrightness", "dhFarPlane", "dhNearPlane"}) {
+			offset = addMember(name, UniformType.FLOAT, offset);
+		}
+
+		for (String name : new String[]{"frameCounter", "isEyeInWater", "dhRenderDistance"}) {
+			offset = addMember(name, UniformType.INT, offset);
+		}
+
+		// the size of a block is rounded up to the alignment of a vec4
+		SIZE = align(offset, 16);
+	}
+
+	private final ByteBuffer data;
+	private final List<Runnable> writers;
+	private final int buffer;
+
+	public FrameUniformBuffer() {
+		this.data = MemoryUtil.memCalloc(SIZE);
+		this.writers = new ArrayList<>();
+		this.buffer = IrisRenderSystem.createBuffers();
+
+		GLDebug.nameObject(GL43C.GL_BUFFER, buffer, "Iris frame uniforms");
+		GlStateManager._glBindBuffer(GL32C.GL_UNIFORM_BUFFER, buffer);
+		GL32C.glBufferData(GL32C.GL_UNIFORM_BUFFER, data, GL32C.GL_DYNAMIC_DRAW);
+		GlStateManager._glBindBuffer(GL32C.GL_UNIFORM_BUFFER, 0);
+	}
+
+	/**
+	 * Whether the block is used at all. This is read once per launch, since the transformed sources that are cached
+	 * in memory and on disk depend on it.
+	 */
+	public static boolean isEnabled() {
+		return Enabled.VALUE;
+	}
+
+	/**
+	 * @return the names and types of all members of the block, in declaration order
+	 */
+	public static Map<String, UniformType> getMembers() {
+		Map<String, UniformType> members = new LinkedHashMap<>();
+		MEMBERS.forEach((name, member) -> members.put(name, member.type()));
+		return Collections.unmodifiableMap(members);
+	}
+
+	/**
+	 * @return the GLSL type that a member of the given type is declared with
+	 */
+	public static String getGlslType(UniformType type) {
+		return switch (type) {
+			case INT -> "int";
+			case FLOAT -> "float";
+			case VEC2I -> "ivec2";
+			case VEC3 -> "vec3";
+			case VEC3I -> "ivec3";
+			case MAT4 -> "mat4";
+			default -> throw new IllegalArgumentException("Unsupported frame uniform type " + type);
+		};
+	}
+
+	/**
+	 * Returns the declaration of the whole block. Every stage has to declare all members with the same names for the
+	 * block to link, so the members are always declared with {@link #MEMBER_PREFIX} in front of the uniform name.
+	 */
+	public static String getBlockDeclaration() {
+		StringBuilder declaration = new StringBuilder("layout(std140) uniform ").append(BLOCK_NAME).append(" {");
+
+		MEMBERS.forEach((name, member) ->
+			declaration.append(' ').append(getGlslType(member.type())).append(' ').append(MEMBER_PREFIX).append(name).append(';'));
+
+		return declaration.append(" };").toString();
+	}
+
+	/**
+	 * Points the block of a linked program at the shared binding, if the program uses the block. The binding can't
+	 * be declared in the shader itself since {@code layout(binding)} needs GLSL 420.
+	 */
+	public static void bindBlock(int program) {
+		if (!isEnabled()) {
+			return;
+		}
+
+		int index = IrisRenderSystem.getUniformBlockIndex(program, BLOCK_NAME);
+
+		if (index != GL32C.GL_INVALID_INDEX) {
+			IrisRenderSystem.uniformBlockBinding(program, index, BINDING);
+		}
+	}
+
+	private static int addMember(String name, UniformType type, int offset) {
+		int alignment = switch (type) {
+			case INT, FLOAT -> 4;
+			case VEC2I -> 8;
+			default -> 16;
+		};
+
+		int size = switch (type) {
+			case INT, FLOAT -> 4;
+			case VEC2I -> 8;
+			case VEC3, VEC3I -> 12;
+			case MAT4 -> 64;
+			default -> throw new IllegalArgumentException("Unsupported frame uniform type " + type);
+		};
+
+		offset = align(offset, alignment);
+		MEMBERS.put(name, new Member(type, offset));
+
+		return offset + size;
+	}
+
+	private static int align(int offset, int alignment) {
+		return (offset + alignment - 1) & -alignment;
+	}
+
+	/**
+	 * Reads all registered uniforms and uploads them. Needs to be called once per frame before any program is used.
+	 */
+	public void update() {
+		for (Runnable writer : writers) {
+			writer.run();
+		}
+
+		GlStateManager._glBindBuffer(GL32C.GL_UNIFORM_BUFFER, buffer);
+		GL32C.glBufferSubData(GL32C.GL_UNIFORM_BUFFER, 0, data);
+		IrisRenderSystem.bindBufferBase(GL32C.GL_UNIFORM_BUFFER, BINDING, buffer);
+	}
+
+	public void destroy() {
+		IrisRenderSystem.bindBufferBase(GL32C.GL_UNIFORM_BUFFER, BINDING, 0);
+		IrisRenderSystem.deleteBuffers(buffer);
+		MemoryUtil.memFree(data);
+	}
+
+	private int offsetOf(UniformUpdateFrequency updateFrequency, String name, UniformType type) {
+		Member member = MEMBERS.get(name);
+
+		if (updateFrequency != UniformUpdateFrequency.PER_FRAME || member == null || member.type() != type) {
+			return -1;
+		}
+
+		return member.offset();
+	}
+
+	private void addWriter(UniformUpdateFrequency updateFrequency, String name, UniformType type, Writer writer) {
+		int offset = offsetOf(updateFrequency, name, type);
+
+		if (offset != -1) {
+			writers.add(() -> writer.write(offset));
+		}
+	}
+
+	@Override
+	public FrameUniformBuffer uniform1f(UniformUpdateFrequency updateFrequency, String name, FloatSupplier value) {
+		addWriter(updateFrequency, name, UniformType.FLOAT, offset -> data.putFloat(offset, value.getAsFloat()));
+		return this;
+	}
+
+	@Override
+	public FrameUniformBuffer uniform1f(UniformUpdateFrequency updateFrequency, String name, IntSupplier value) {
+		addWriter(updateFrequency, name, UniformType.FLOAT, offset -> data.putFloat(offset, value.getAsInt()));
+		return this;
+	}
+
+	@Override
+	public FrameUniformBuffer uniform1f(UniformUpdateFrequency updateFrequency, String name, DoubleSupplier value) {
+		addWriter(updateFrequency, name, UniformType.FLOAT, offset -> data.putFloat(offset, (float) value.getAsDouble()));
+		return this;
+	}
+
+	@Override
+	public FrameUniformBuffer uniform1i(UniformUpdateFrequency updateFrequency, String name, IntSupplier value) {
+		addWriter(updateFrequency, name, UniformType.INT, offset -> data.putInt(offset, value.getAsInt()));
+		return this;
+	}
+
+	@Override
+	public FrameUniformBuffer uniform1b(UniformUpdateFrequency updateFrequency, String name, BooleanSupplier value) {
+		// booleans aren't part of the block
+		return this;
+	}
+
+	@Override
+	public FrameUniformBuffer uniform2f(UniformUpdateFrequency updateFrequency, String name, Supplier<Vector2f> value) {
+		return this;
+	}
+
+	@Override
+	public FrameUniformBuffer uniform2i(UniformUpdateFrequency updateFrequency, String name, Supplier<Vector2i> value) {
+		addWriter(updateFrequency, name, UniformType.VEC2I, offset -> value.get().get(offset, data));
+		return this;
+	}
+
+	@Override
+	public FrameUniformBuffer uniform3f(UniformUpdateFrequency updateFrequency, String name, Supplier<Vector3f> value) {
+		addWriter(updateFrequency, name, UniformType.VEC3, offset -> value.get().get(offset, data));
+		return this;
+	}
+
+	@Override
+	public FrameUniformBuffer uniform3i(UniformUpdateFrequency updateFrequency, String name, Supplier<Vector3i> value) {
+		addWriter(updateFrequency, name, UniformType.VEC3I, offset -> value.get().get(offset, data));
+		return this;
+	}
+
+	@Override
+	public FrameUniformBuffer uniformTruncated3f(UniformUpdateFrequency updateFrequency, String name, Supplier<Vector4f> value) {
+		addWriter(updateFrequency, name, UniformType.VEC3, offset -> {
+			Vector4f vector = value.get();
+
+			data.putFloat(offset, vector.x);
+			data.putFloat(offset + 4, vector.y);
+			data.putFloat(offset + 8, vector.z);
+		});
+		return this;
+	}
+
+	@Override
+	public FrameUniformBuffer uniform3d(UniformUpdateFrequency updateFrequency, String name, Supplier<Vector3d> value) {
+		addWriter(updateFrequency, name, UniformType.VEC3, offset -> {
+			Vector3d vector = value.get();
+
+			data.putFloat(offset, (float) vector.x);
+			data.putFloat(offset + 4, (float) vector.y);
+			data.putFloat(offset + 8, (float) vector.z);
+		});
+		return this;
+	}
+
+	@Override
+	public FrameUniformBuffer uniform4f(UniformUpdateFrequency updateFrequency, String name, Supplier<Vector4f> value) {
+		return this;
+	}
+
+	@Override
+	public FrameUniformBuffer uniform4fArray(UniformUpdateFrequency updateFrequency, String name, Supplier<float[]> value) {
+		return this;
+	}
+
+	@Override
+	public FrameUniformBuffer uniformMatrix(UniformUpdateFrequency updateFrequency, String name, Supplier<Matrix4fc> value) {
+		addWriter(updateFrequency, name, UniformType.MAT4, offset -> value.get().get(offset, data));
+		return this;
+	}
+
+	@Override
+	public FrameUniformBuffer uniformMatrixFromArray(UniformUpdateFrequency updateFrequency, String name, Supplier<float[]> value) {
+		return this;
+	}
+
+	@Override
+	public FrameUniformBuffer externallyManagedUniform(String name, UniformType type) {
+		return this;
+	}
+
+	private interface Writer {
+		void write(int offset);
+	}
+
+	private record Member(UniformType type, int offset) {
+	}
+
+	private static final class Enabled {
+		private static final boolean VALUE = Iris.getIrisConfig() != null && Iris.getIrisConfig().shouldUseFrameUniformBuffer();
+	}
+}
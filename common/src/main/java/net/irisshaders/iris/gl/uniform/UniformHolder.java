@@ -1,5 +1,6 @@
 package net.irisshaders.iris.gl.uniform;
 
+import org.joml.Matrix4f;
 import org.joml.Matrix4fc;
 import org.joml.Vector2f;
 import org.joml.Vector2i;
@@ -45,4 +46,60 @@ public interface UniformHolder {
 	UniformHolder uniformMatrixFromArray(UniformUpdateFrequency updateFrequency, String name, Supplier<float[]> value);
 
 	UniformHolder externallyManagedUniform(String name, UniformType type);
+
+	default UniformHolder uniform2f(UniformUpdateFrequency updateFrequency, String name, ValueWriter<Vector2f> value) {
+		Vector2f held = new Vector2f();
+		return uniform2f(updateFrequency, name, () -> {
+			value.write(held);
+			return held;
+		});
+	}
+
+	default UniformHolder uniform2i(UniformUpdateFrequency updateFrequency, String name, ValueWriter<Vector2i> value) {
+		Vector2i held = new Vector2i();
+		return uniform2i(updateFrequency, name, () -> {
+			value.write(held);
+			return held;
+		});
+	}
+
+	default UniformHolder uniform3f(UniformUpdateFrequency updateFrequency, String name, ValueWriter<Vector3f> value) {
+		Vector3f held = new Vector3f();
+		return uniform3f(updateFrequency, name, () -> {
+			value.write(held);
+			return held;
+		});
+	}
+
+	default UniformHolder uniform3i(UniformUpdateFrequency updateFrequency, String name, ValueWriter<Vector3i> value) {
+		Vector3i held = new Vector3i();
+		return uniform3i(updateFrequency, name, () -> {
+			value.write(held);
+			return held;
+		});
+	}
+
+	default UniformHolder uniform3d(UniformUpdateFrequency updateFrequency, String name, ValueWriter<Vector3d> value) {
+		Vector3d held = new Vector3d();
+		return uniform3d(updateFrequency, name, () -> {
+			value.write(held);
+			return held;
+		});
+	}
+
+	default UniformHolder uniform4f(UniformUpdateFrequency updateFrequency, String name, ValueWriter<Vector4f> value) {
+		Vector4f held = new Vector4f();
+		return uniform4f(updateFrequency, name, () -> {
+			value.write(held);
+			return held;
+		});
+	}
+
+	default UniformHolder uniformMatrix(UniformUpdateFrequency updateFrequency, String name, ValueWriter<Matrix4f> value) {
+		Matrix4f held = new Matrix4f();
+		return uniformMatrix(updateFrequency, name, () -> {
+			value.write(held);
+			return held;
+		});
+	}
 }
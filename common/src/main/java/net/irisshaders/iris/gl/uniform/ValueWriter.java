@@ -0,0 +1,10 @@
+package net.irisshaders.iris.gl.uniform;
+
+/**
+ * Supplies the value of a uniform by writing it into an object owned by the uniform, rather than returning an object.
+ * Unlike a {@link java.util.function.Supplier}, this never needs to allocate a new vector or matrix for every update.
+ */
+@FunctionalInterface
+public interface ValueWriter<T> {
+	void write(T dest);
+}
@@ -34,7 +34,13 @@ public class Vector2IntegerJomlUniform extends Uniform {
 		Vector2i newValue = value.get();
 
 		if (!newValue.equals(cachedValue)) {
-			cachedValue = newValue;
+			// Copy the value, since suppliers may reuse the same object for every update.
+			if (cachedValue == null) {
+				cachedValue = new Vector2i(newValue);
+			} else {
+				cachedValue.set(newValue);
+			}
+
 			IrisRenderSystem.uniform2i(this.location, newValue.x, newValue.y);
 		}
 	}
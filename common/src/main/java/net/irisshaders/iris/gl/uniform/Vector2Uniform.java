@@ -38,7 +38,13 @@ public class Vector2Uniform extends Uniform {
 		Vector2f newValue = value.get();
 
 		if (!newValue.equals(cachedValue)) {
-			cachedValue = newValue;
+			// Copy the value, since suppliers may reuse the same object for every update.
+			if (cachedValue == null) {
+				cachedValue = new Vector2f(newValue);
+			} else {
+				cachedValue.set(newValue);
+			}
+
 			IrisRenderSystem.uniform2f(this.location, newValue.x, newValue.y);
 		}
 	}
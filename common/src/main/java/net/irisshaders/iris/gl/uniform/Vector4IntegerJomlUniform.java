@@ -34,7 +34,13 @@ public class Vector4IntegerJomlUniform extends Uniform {
 		Vector4i newValue = value.get();
 
 		if (!newValue.equals(cachedValue)) {
-			cachedValue = newValue;
+			// Copy the value, since suppliers may reuse the same object for every update.
+			if (cachedValue == null) {
+				cachedValue = new Vector4i(newValue);
+			} else {
+				cachedValue.set(newValue);
+			}
+
 			IrisRenderSystem.uniform4i(this.location, newValue.x, newValue.y, newValue.z, newValue.w);
 		}
 	}
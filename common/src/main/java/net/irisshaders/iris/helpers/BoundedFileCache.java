@@ -0,0 +1,194 @@
+package net.irisshaders.iris.helpers;
+
+import net.irisshaders.iris.Iris;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * A directory of cache entries keyed by a hex string, with a bound on the total size of all entries.
+ * <p>
+ * Once the total size grows past the maximum, the least recently used entries are evicted, using the file
+ * modification time that is refreshed on every read. All methods are safe to call from multiple threads, and any
+ * I/O error is treated as a cache miss.
+ */
+public class BoundedFileCache {
+	private static final String EXTENSION = ".bin";
+
+	private final Path directory;
+	private final long maxSize;
+	private final Object lock = new Object();
+	private long currentSize = -1;
+
+	public BoundedFileCache(Path directory, long maxSize) {
+		this.directory = directory;
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * Creates a SHA-256 digest for computing cache keys.
+	 */
+	public static MessageDigest createDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+	}
+
+	/**
+	 * Adds a length-prefixed string to the digest, so that adjacent values can't be confused with each other.
+	 */
+	public static void update(MessageDigest digest, String value) {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		digest.update(new byte[]{(byte) (bytes.length >>> 24), (byte) (bytes.length >>> 16), (byte) (bytes.length >>> 8), (byte) bytes.length});
+		digest.update(bytes);
+	}
+
+	public static String toKey(MessageDigest digest) {
+		return HexFormat.of().formatHex(digest.digest());
+	}
+
+	/**
+	 * Returns the contents of the entry with the given key, or null if there is none.
+	 */
+	public byte[] read(String key) {
+		Path file = directory.resolve(key + EXTENSION);
+
+		try {
+			byte[] data = Files.readAllBytes(file);
+
+			try {
+				// used as the "last used" time for eviction
+				Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+			} catch (IOException ignored) {
+				// not important, it will just be evicted earlier
+			}
+
+			return data;
+		} catch (NoSuchFileException e) {
+			return null;
+		} catch (IOException e) {
+			Iris.logger.warn("Failed to read cache entry " + file, e);
+			return null;
+		}
+	}
+
+	/**
+	 * Stores an entry under the given key, evicting old entries if the cache grows too large.
+	 */
+	public void write(String key, byte[] data) {
+		synchronized (lock) {
+			try {
+				Files.createDirectories(directory);
+
+				if (currentSize < 0) {
+					currentSize = computeSize();
+				}
+
+				Path file = directory.resolve(key + EXTENSION);
+				Path temp = Files.createTempFile(directory, key, ".tmp");
+
+				try {
+					Files.write(temp, data);
+					long previousSize = Files.exists(file) ? Files.size(file) : 0;
+
+					try {
+						Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+					} catch (AtomicMoveNotSupportedException e) {
+						Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+					}
+
+					currentSize += data.length - previousSize;
+				} finally {
+					Files.deleteIfExists(temp);
+				}
+
+				if (currentSize > maxSize) {
+					evict();
+				}
+			} catch (IOException e) {
+				Iris.logger.warn("Failed to write cache entry " + key + " in " + directory, e);
+			}
+		}
+	}
+
+	/**
+	 * Removes the entry with the given key, for example because it turned out to be invalid.
+	 */
+	public void remove(String key) {
+		synchronized (lock) {
+			Path file = directory.resolve(key + EXTENSION);
+
+			try {
+				long size = Files.exists(file) ? Files.size(file) : 0;
+
+				if (Files.deleteIfExists(file) && currentSize >= 0) {
+					currentSize -= size;
+				}
+			} catch (IOException e) {
+				Iris.logger.warn("Failed to remove cache entry " + file, e);
+			}
+		}
+	}
+
+	private long computeSize() throws IOException {
+		long size = 0;
+
+		for (Path file : listEntries()) {
+			size += Files.size(file);
+		}
+
+		return size;
+	}
+
+	private List<Path> listEntries() throws IOException {
+		try (Stream<Path> stream = Files.list(directory)) {
+			return new ArrayList<>(stream.filter(path -> path.getFileName().toString().endsWith(EXTENSION)).toList());
+		}
+	}
+
+	private void evict() throws IOException {
+		List<Path> entries = listEntries();
+		Map<Path, FileTime> times = new HashMap<>();
+
+		for (Path entry : entries) {
+			times.put(entry, Files.getLastModifiedTime(entry));
+		}
+
+		entries.sort(Comparator.comparing(times::get));
+
+		// evict down to 3/4 of the maximum size so that we don't need to evict on every write
+		long target = maxSize - maxSize / 4;
+
+		for (Path entry : entries) {
+			if (currentSize <= target) {
+				break;
+			}
+
+			long size = Files.size(entry);
+
+			try {
+				Files.deleteIfExists(entry);
+				currentSize -= size;
+			} catch (IOException e) {
+				Iris.logger.warn("Failed to evict cache entry " + entry, e);
+			}
+		}
+	}
+}
@@ -2,12 +2,15 @@ package net.irisshaders.iris.mixin;
 
 import com.mojang.blaze3d.vertex.PoseStack;
 import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
 import net.minecraft.client.Camera;
 import net.minecraft.client.multiplayer.ClientLevel;
 import net.minecraft.client.renderer.LevelRenderer;
 import net.minecraft.client.renderer.MultiBufferSource;
 import net.minecraft.client.renderer.RenderBuffers;
 import net.minecraft.client.renderer.RenderType;
+import net.minecraft.client.renderer.ViewArea;
+import net.minecraft.client.renderer.chunk.SectionRenderDispatcher;
 import net.minecraft.client.renderer.culling.Frustum;
 import net.minecraft.client.renderer.entity.EntityRenderDispatcher;
 import net.minecraft.server.level.BlockDestructionProgress;
@@ -36,6 +39,12 @@ public interface LevelRendererAccessor {
 	@Accessor("level")
 	ClientLevel getLevel();
 
+	@Accessor("viewArea")
+	ViewArea getViewArea();
+
+	@Accessor("visibleSections")
+	ObjectArrayList<SectionRenderDispatcher.RenderSection> getVisibleSections();
+
 	@Accessor("renderBuffers")
 	RenderBuffers getRenderBuffers();
 
@@ -1,5 +1,6 @@
 package net.irisshaders.iris.mixin;
 
+import net.irisshaders.iris.mixinterface.BlockStateInterface;
 import net.irisshaders.iris.shaderpack.materialmap.WorldRenderingSettings;
 import net.minecraft.core.BlockPos;
 import net.minecraft.world.level.BlockGetter;
@@ -8,6 +9,7 @@ import net.minecraft.world.level.block.state.BlockBehaviour;
 import net.minecraft.world.level.block.state.BlockState;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.Unique;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
@@ -28,15 +30,34 @@ import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
  *     <li>Content mods: Most content mods override the method in BlockBehavior, which doesn't cause issues with
  *         this method. </li>
  * </ul>
+ *
+ * <p>It also caches the registry index of each state, so that per-state lookup tables can be indexed without a
+ * hash lookup.</p>
  */
 @Mixin(value = BlockBehaviour.BlockStateBase.class, priority = 990)
-public abstract class MixinBlockStateBehavior {
+public abstract class MixinBlockStateBehavior implements BlockStateInterface {
+	@Unique
+	private int iris$stateIndex = -1;
+
 	@Shadow
 	public abstract Block getBlock();
 
 	@Shadow
 	protected abstract BlockState asState();
 
+	@Override
+	public int iris$getStateIndex() {
+		int index = iris$stateIndex;
+
+		// Racing threads all compute the same value, so this doesn't need any synchronization.
+		if (index == -1) {
+			index = Block.getId(asState());
+			iris$stateIndex = index;
+		}
+
+		return index;
+	}
+
 	/**
 	 * @author IMS
 	 * @reason ambientOcclusionLevel support. Semantically, we're completely changing the meaning of the method.
@@ -0,0 +1,30 @@
+package net.irisshaders.iris.mixin;
+
+import com.mojang.blaze3d.platform.GlStateManager;
+import net.irisshaders.iris.gl.state.GlStateTracker;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+/**
+ * Reports every binding change made through GlStateManager to the {@link GlStateTracker}, so that changes made by
+ * vanilla and other mods in the middle of a pass don't leave it with stale state.
+ */
+@Mixin(GlStateManager.class)
+public class MixinGlStateManager_StateTracker {
+	@Inject(method = "_glBindFramebuffer(II)V", at = @At("HEAD"), remap = false)
+	private static void iris$trackFramebuffer(int target, int framebuffer, CallbackInfo ci) {
+		GlStateTracker.INSTANCE.onFramebufferBound(target, framebuffer);
+	}
+
+	@Inject(method = "_glUseProgram", at = @At("HEAD"), remap = false)
+	private static void iris$trackProgram(int program, CallbackInfo ci) {
+		GlStateTracker.INSTANCE.onProgramUsed(program);
+	}
+
+	@Inject(method = "_viewport", at = @At("HEAD"), remap = false)
+	private static void iris$trackViewport(int x, int y, int width, int height, CallbackInfo ci) {
+		GlStateTracker.INSTANCE.onViewport(x, y, width, height);
+	}
+}
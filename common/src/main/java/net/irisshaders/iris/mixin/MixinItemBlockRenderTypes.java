@@ -26,7 +26,7 @@ public class MixinItemBlockRenderTypes {
 
 	@Inject(method = "getChunkRenderType", at = @At("HEAD"), cancellable = true)
 	private static void iris$setCustomRenderType(BlockState arg, CallbackInfoReturnable<RenderType> cir) {
-		BlockRenderType type = WorldRenderingSettings.INSTANCE.getBlockTypeIds().get(arg.getBlock());
+		BlockRenderType type = WorldRenderingSettings.INSTANCE.getBlockType(arg);
 		if (type != null) {
 			cir.setReturnValue(LAYER_SET_VANILLA[type.ordinal()]);
 		}
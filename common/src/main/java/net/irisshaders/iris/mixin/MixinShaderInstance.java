@@ -1,7 +1,11 @@
 package net.irisshaders.iris.mixin;
 
 import com.google.common.collect.ImmutableSet;
+import com.llamalad7.mixinextras.injector.wrapoperation.Operation;
+import com.llamalad7.mixinextras.injector.wrapoperation.WrapOperation;
+import com.llamalad7.mixinextras.sugar.Local;
 import com.mojang.blaze3d.shaders.Program;
+import com.mojang.blaze3d.shaders.Shader;
 import com.mojang.blaze3d.shaders.Uniform;
 import com.mojang.blaze3d.vertex.VertexFormat;
 import net.irisshaders.iris.Iris;
@@ -113,8 +117,19 @@ public abstract class MixinShaderInstance implements ShaderInstanceInterface {
 		this.iris$createExtraShaders(resourceProvider, string);
 	}
 
+	@WrapOperation(method = "<init>", at = @At(value = "INVOKE", target = "Lcom/mojang/blaze3d/shaders/ProgramManager;linkShader(Lcom/mojang/blaze3d/shaders/Shader;)V"))
+	private void iris$linkProgram(Shader shader, Operation<Void> original, @Local(argsOnly = true) ResourceProvider resourceProvider) {
+		this.iris$linkProgram(resourceProvider, () -> original.call(shader));
+	}
+
 	@Override
 	public void iris$createExtraShaders(ResourceProvider provider, String name) {
 		//no-op, used for ExtendedShader to call before the super constructor
 	}
+
+	@Override
+	public void iris$linkProgram(ResourceProvider provider, Runnable link) {
+		// overridden by ExtendedShader to go through the program binary cache
+		link.run();
+	}
 }
@@ -50,7 +50,7 @@ public class MixinBlockEntityRenderDispatcher {
 			return bufferSource;
 		}
 
-		int intId = blockStateIds.getOrDefault(state, -1);
+		int intId = WorldRenderingSettings.INSTANCE.getBlockStateId(state);
 
 		CapturedRenderingState.INSTANCE.setCurrentBlockEntity(intId);
 
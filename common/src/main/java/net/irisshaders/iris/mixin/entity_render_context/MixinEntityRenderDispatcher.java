@@ -2,8 +2,6 @@ package net.irisshaders.iris.mixin.entity_render_context;
 
 import com.mojang.blaze3d.vertex.PoseStack;
 import it.unimi.dsi.fastutil.objects.Object2IntFunction;
-import it.unimi.dsi.fastutil.objects.Object2ObjectMap;
-import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
 import net.irisshaders.iris.layer.BufferSourceWrapper;
 import net.irisshaders.iris.layer.EntityRenderStateShard;
 import net.irisshaders.iris.layer.OuterWrappedRenderType;
@@ -15,10 +13,7 @@ import net.minecraft.client.Minecraft;
 import net.minecraft.client.player.AbstractClientPlayer;
 import net.minecraft.client.renderer.MultiBufferSource;
 import net.minecraft.client.renderer.entity.EntityRenderDispatcher;
-import net.minecraft.core.registries.BuiltInRegistries;
-import net.minecraft.resources.ResourceLocation;
 import net.minecraft.world.entity.Entity;
-import net.minecraft.world.entity.EntityType;
 import net.minecraft.world.entity.monster.ZombieVillager;
 import net.minecraft.world.entity.player.Player;
 import org.spongepowered.asm.mixin.Mixin;
@@ -41,9 +36,6 @@ public class MixinEntityRenderDispatcher {
 	@Unique
 	private static final NamespacedId CONVERTING_VILLAGER = new NamespacedId("minecraft", "zombie_villager_converting");
 
-	@Unique
-	private static final Object2ObjectMap<EntityType<?>, NamespacedId> ENTITY_IDS = new Object2ObjectOpenHashMap<>();
-
 	// Inject after MatrixStack#push since at this point we know that most cancellation checks have already passed.
 	@ModifyVariable(method = "render", at = @At(value = "INVOKE", target = "Lcom/mojang/blaze3d/vertex/PoseStack;pushPose()V", shift = At.Shift.AFTER),
 		allow = 1, require = 1, argsOnly = true)
@@ -62,16 +54,10 @@ public class MixinEntityRenderDispatcher {
 			if (entityIds.containsKey(CURRENT_PLAYER)) {
 				intId = entityIds.getInt(CURRENT_PLAYER);
 			} else {
-				intId = entityIds.applyAsInt(ENTITY_IDS.computeIfAbsent(entity.getType(), k -> {
-					ResourceLocation entityId = BuiltInRegistries.ENTITY_TYPE.getKey(entity.getType());
-					return new NamespacedId(entityId.getNamespace(), entityId.getPath());
-				}));
+				intId = WorldRenderingSettings.INSTANCE.getEntityTypeId(entity.getType());
 			}
 		} else {
-			intId = entityIds.applyAsInt(ENTITY_IDS.computeIfAbsent(entity.getType(), k -> {
-				ResourceLocation entityId = BuiltInRegistries.ENTITY_TYPE.getKey(entity.getType());
-				return new NamespacedId(entityId.getNamespace(), entityId.getPath());
-			}));
+			intId = WorldRenderingSettings.INSTANCE.getEntityTypeId(entity.getType());
 		}
 
 		CapturedRenderingState.INSTANCE.setCurrentEntity(intId);
@@ -4,6 +4,7 @@ import com.mojang.blaze3d.platform.GlStateManager;
 import net.irisshaders.iris.pbr.TextureInfoCache;
 import net.irisshaders.iris.pbr.TextureTracker;
 import net.irisshaders.iris.pbr.texture.PBRTextureManager;
+import net.irisshaders.iris.pipeline.programs.ExtendedShader;
 import org.jetbrains.annotations.Nullable;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Unique;
@@ -38,5 +39,6 @@ public class MixinGlStateManager {
 		TextureTracker.INSTANCE.onDeleteTexture(id);
 		TextureInfoCache.INSTANCE.onDeleteTexture(id);
 		PBRTextureManager.INSTANCE.onDeleteTexture(id);
+		ExtendedShader.onDeleteTexture(id);
 	}
 }
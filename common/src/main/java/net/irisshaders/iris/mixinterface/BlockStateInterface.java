@@ -0,0 +1,8 @@
+package net.irisshaders.iris.mixinterface;
+
+public interface BlockStateInterface {
+	/**
+	 * @return the index of this state in {@code Block.BLOCK_STATE_REGISTRY}, or -1 if it isn't registered
+	 */
+	int iris$getStateIndex();
+}
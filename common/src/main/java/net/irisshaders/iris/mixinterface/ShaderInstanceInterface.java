@@ -6,4 +6,9 @@ import java.io.IOException;
 
 public interface ShaderInstanceInterface {
 	void iris$createExtraShaders(ResourceProvider factory, String name) throws IOException;
+
+	/**
+	 * Links the program while it is being constructed, {@code link} runs vanilla's attaching and linking.
+	 */
+	void iris$linkProgram(ResourceProvider factory, Runnable link);
 }
@@ -32,7 +32,10 @@ import org.joml.Vector4f;
 import org.joml.Vector4i;
 
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Random;
+import java.util.Set;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
@@ -74,6 +77,11 @@ import java.util.function.Consumer;
 public class IrisFunctions {
 	public static final FunctionResolver functions;
 	static final FunctionResolver.Builder builder = new FunctionResolver.Builder();
+	/**
+	 * Functions that may return something different on every call, even with the same arguments.
+	 */
+	private static final Set<String> NON_DETERMINISTIC = Set.of("random", "randomInt");
+	private static final Set<TypedFunction> deterministicFunctions = Collections.newSetFromMap(new IdentityHashMap<>());
 
 	static {
 		{
@@ -1072,7 +1080,7 @@ public class IrisFunctions {
 	}
 
 	static <T> void addUnaryOpJOML(String name, VectorType.JOMLVector<T> type, BiConsumer<T, T> function) {
-		builder.add(name, new AbstractTypedFunction(
+		add(name, new AbstractTypedFunction(
 			type,
 			new Type[]{type}
 		) {
@@ -1091,7 +1099,7 @@ public class IrisFunctions {
 	}
 
 	static <T> void addBinaryOpJOML(String name, VectorType.JOMLVector<T> type, TriConsumer<T, T, T> function) {
-		builder.add(name, new AbstractTypedFunction(
+		add(name, new AbstractTypedFunction(
 			type,
 			new Type[]{type, type}
 		) {
@@ -1113,7 +1121,7 @@ public class IrisFunctions {
 	}
 
 	static <T> void addTernaryOpJOML(String name, VectorType.JOMLVector<T> type, QuadConsumer<T, T, T, T> function) {
-		builder.add(name, new AbstractTypedFunction(
+		add(name, new AbstractTypedFunction(
 			type,
 			new Type[]{type, type, type}
 		) {
@@ -1142,7 +1150,7 @@ public class IrisFunctions {
 		VectorType.JOMLVector<T> type,
 		boolean inverted,
 		ObjectObject2BooleanFunction<T, T> function) {
-		builder.add(name, new AbstractTypedFunction(
+		add(name, new AbstractTypedFunction(
 			type,
 			new Type[]{type, type}
 		) {
@@ -1162,6 +1170,18 @@ public class IrisFunctions {
 
 	static <T extends TypedFunction> void add(String name, T function) {
 		builder.add(name, function);
+
+		if (!NON_DETERMINISTIC.contains(name)) {
+			deterministicFunctions.add(function);
+		}
+	}
+
+	/**
+	 * Returns whether the function always returns the same value for the same arguments. Functions that weren't
+	 * registered here, like the dynamic {@code smooth} functions, never do.
+	 */
+	public static boolean isDeterministic(TypedFunction function) {
+		return deterministicFunctions.contains(function);
 	}
 
 	static void addCast(final String name, final Type from, final Type to, final Consumer<FunctionReturn> function) {
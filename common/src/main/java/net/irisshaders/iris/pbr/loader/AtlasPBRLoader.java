@@ -14,6 +14,7 @@ import net.irisshaders.iris.pbr.texture.PBRSpriteHolder;
 import net.irisshaders.iris.pbr.texture.PBRType;
 import net.irisshaders.iris.pbr.texture.SpriteContentsExtension;
 import net.irisshaders.iris.pbr.util.ImageManipulationUtil;
+import net.minecraft.Util;
 import net.minecraft.client.renderer.texture.SpriteContents;
 import net.minecraft.client.renderer.texture.TextureAtlas;
 import net.minecraft.client.renderer.texture.TextureAtlasSprite;
@@ -28,7 +29,12 @@ import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 public class AtlasPBRLoader implements PBRTextureLoader<TextureAtlas> {
 	public static final ChannelMipmapGenerator LINEAR_MIPMAP_GENERATOR = new ChannelMipmapGenerator(
@@ -40,16 +46,47 @@ public class AtlasPBRLoader implements PBRTextureLoader<TextureAtlas> {
 
 	@Override
 	public void load(TextureAtlas atlas, ResourceManager resourceManager, PBRTextureConsumer pbrTextureConsumer) {
+		long startTime = System.nanoTime();
+
 		TextureAtlasAccessor atlasAccessor = (TextureAtlasAccessor) atlas;
 		int atlasWidth = atlasAccessor.callGetWidth();
 		int atlasHeight = atlasAccessor.callGetHeight();
 		int mipLevel = atlasAccessor.getMipLevel();
 
+		// Finding, decoding, and rescaling the images of each sprite doesn't depend on any other sprite, and is by far
+		// the slowest part of loading high resolution packs. Do that on the worker threads, and only stitch and upload
+		// the atlases here.
+		List<TextureAtlasSprite> sprites = List.copyOf(atlasAccessor.getTexturesByName().values());
+		List<CompletableFuture<PBRTextureAtlasSprite>> normalFutures = new ArrayList<>(sprites.size());
+		List<CompletableFuture<PBRTextureAtlasSprite>> specularFutures = new ArrayList<>(sprites.size());
+		Executor executor = Util.backgroundExecutor();
+
+		for (TextureAtlasSprite sprite : sprites) {
+			normalFutures.add(CompletableFuture.supplyAsync(() -> createPBRSprite(sprite, resourceManager, atlas, atlasWidth, atlasHeight, mipLevel, PBRType.NORMAL), executor));
+			specularFutures.add(CompletableFuture.supplyAsync(() -> createPBRSprite(sprite, resourceManager, atlas, atlasWidth, atlasHeight, mipLevel, PBRType.SPECULAR), executor));
+		}
+
+		PBRTextureAtlasSprite[] normalSprites = new PBRTextureAtlasSprite[sprites.size()];
+		PBRTextureAtlasSprite[] specularSprites = new PBRTextureAtlasSprite[sprites.size()];
+		RuntimeException normalFailure = awaitSprites(normalFutures, normalSprites);
+		RuntimeException specularFailure = awaitSprites(specularFutures, specularSprites);
+
+		if (normalFailure != null || specularFailure != null) {
+			closeSprites(normalSprites);
+			closeSprites(specularSprites);
+			throw normalFailure != null ? normalFailure : specularFailure;
+		}
+
+		long stitchStartTime = System.nanoTime();
+
 		PBRAtlasTexture normalAtlas = null;
 		PBRAtlasTexture specularAtlas = null;
-		for (TextureAtlasSprite sprite : ((TextureAtlasAccessor) atlas).getTexturesByName().values()) {
-			PBRTextureAtlasSprite normalSprite = createPBRSprite(sprite, resourceManager, atlas, atlasWidth, atlasHeight, mipLevel, PBRType.NORMAL);
-			PBRTextureAtlasSprite specularSprite = createPBRSprite(sprite, resourceManager, atlas, atlasWidth, atlasHeight, mipLevel, PBRType.SPECULAR);
+		int normalCount = 0;
+		int specularCount = 0;
+		for (int i = 0; i < sprites.size(); i++) {
+			TextureAtlasSprite sprite = sprites.get(i);
+			PBRTextureAtlasSprite normalSprite = normalSprites[i];
+			PBRTextureAtlasSprite specularSprite = specularSprites[i];
 			if (normalSprite != null) {
 				if (normalAtlas == null) {
 					normalAtlas = new PBRAtlasTexture(atlas, PBRType.NORMAL);
@@ -57,6 +94,7 @@ public class AtlasPBRLoader implements PBRTextureLoader<TextureAtlas> {
 				normalAtlas.addSprite(normalSprite);
 				PBRSpriteHolder pbrSpriteHolder = ((SpriteContentsExtension) sprite.contents()).getOrCreatePBRHolder();
 				pbrSpriteHolder.setNormalSprite(normalSprite);
+				normalCount++;
 			}
 			if (specularSprite != null) {
 				if (specularAtlas == null) {
@@ -65,6 +103,7 @@ public class AtlasPBRLoader implements PBRTextureLoader<TextureAtlas> {
 				specularAtlas.addSprite(specularSprite);
 				PBRSpriteHolder pbrSpriteHolder = ((SpriteContentsExtension) sprite.contents()).getOrCreatePBRHolder();
 				pbrSpriteHolder.setSpecularSprite(specularSprite);
+				specularCount++;
 			}
 		}
 
@@ -78,6 +117,44 @@ public class AtlasPBRLoader implements PBRTextureLoader<TextureAtlas> {
 				pbrTextureConsumer.acceptSpecularTexture(specularAtlas);
 			}
 		}
+
+		long endTime = System.nanoTime();
+
+		if (normalCount > 0 || specularCount > 0) {
+			Iris.logger.info("Loaded {} normal and {} specular sprites for {} in {} ms ({} ms loading, {} ms stitching and uploading)",
+				normalCount, specularCount, atlas.location(), (endTime - startTime) / 1_000_000,
+				(stitchStartTime - startTime) / 1_000_000, (endTime - stitchStartTime) / 1_000_000);
+		}
+	}
+
+	/**
+	 * Waits for all sprites to finish loading, storing them in the given array.
+	 *
+	 * @return the first failure, or null if every sprite loaded (or was skipped) without throwing
+	 */
+	@Nullable
+	private static RuntimeException awaitSprites(List<CompletableFuture<PBRTextureAtlasSprite>> futures, PBRTextureAtlasSprite[] sprites) {
+		RuntimeException failure = null;
+
+		for (int i = 0; i < sprites.length; i++) {
+			try {
+				sprites[i] = futures.get(i).join();
+			} catch (CompletionException e) {
+				if (failure == null) {
+					failure = e.getCause() instanceof RuntimeException cause ? cause : e;
+				}
+			}
+		}
+
+		return failure;
+	}
+
+	private static void closeSprites(PBRTextureAtlasSprite[] sprites) {
+		for (PBRTextureAtlasSprite sprite : sprites) {
+			if (sprite != null) {
+				sprite.contents().close();
+			}
+		}
 	}
 
 	@Nullable
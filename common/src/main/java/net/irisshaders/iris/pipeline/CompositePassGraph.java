@@ -0,0 +1,163 @@
+package net.irisshaders.iris.pipeline;
+
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.ints.IntSet;
+import org.jetbrains.annotations.Nullable;
+import org.lwjgl.opengl.GL43C;
+
+import java.util.List;
+
+/**
+ * The dependencies between the passes of a {@link CompositeRenderer}, built from the buffers each pass draws to
+ * ({@code DRAWBUFFERS} / {@code RENDERTARGETS}), the buffers its programs sample or access as images, and whether it
+ * does anything besides drawing.
+ * <p>
+ * This class doesn't touch OpenGL. The renderer describes its compiled programs as nodes, and uses the result to skip
+ * draws whose output is never read, and to only issue the memory barrier bits that the following programs need.
+ */
+public final class CompositePassGraph {
+	public static final int ALL_BARRIER_BITS = GL43C.GL_SHADER_IMAGE_ACCESS_BARRIER_BIT | GL43C.GL_TEXTURE_FETCH_BARRIER_BIT | GL43C.GL_SHADER_STORAGE_BARRIER_BIT;
+
+	private final List<Node> nodes;
+
+	public CompositePassGraph(List<Node> nodes) {
+		this.nodes = nodes;
+	}
+
+	/**
+	 * Finds the draws that have to run. A draw is live if it has side effects, or if one of its draw buffers is read
+	 * by a later live program or by whatever runs after the renderer. Compute programs are always live.
+	 * <p>
+	 * A later write to a buffer never hides an earlier one from readers, since a program may discard fragments or only
+	 * cover part of the buffer, and buffer flips mean that the two writes may not even go to the same texture.
+	 *
+	 * @param readAfterwards the buffers that may be read after the renderer, or null if any buffer may be
+	 */
+	public boolean[] findLiveDraws(@Nullable IntSet readAfterwards) {
+		boolean[] live = new boolean[nodes.size()];
+
+		if (readAfterwards == null) {
+			for (int i = 0; i < live.length; i++) {
+				live[i] = nodes.get(i).draw() != null;
+			}
+
+			return live;
+		}
+
+		IntSet read = new IntOpenHashSet(readAfterwards);
+
+		for (int i = nodes.size() - 1; i >= 0; i--) {
+			Node node = nodes.get(i);
+			Stage draw = node.draw();
+
+			if (draw != null && (node.keepAlive() || draw.writesMemory() || readsAny(read, node.drawBuffers()))) {
+				live[i] = true;
+				read.addAll(draw.reads());
+			}
+
+			for (Stage compute : node.computes()) {
+				read.addAll(compute.reads());
+			}
+		}
+
+		return live;
+	}
+
+	/**
+	 * Works out the memory barrier to issue before every program that runs. Writes from image stores and storage
+	 * buffers stay pending until a barrier covers them, and a barrier only needs the bits for the ways that the next
+	 * program accesses memory. Writes from before the renderer are treated as pending, since they're unknown.
+	 *
+	 * @param liveDraws         the result of {@link #findLiveDraws}
+	 * @param concurrentCompute whether the compute programs of a single pass may run without barriers between them
+	 */
+	public BarrierPlan planBarriers(boolean[] liveDraws, boolean concurrentCompute) {
+		int[][] computeBarriers = new int[nodes.size()][];
+		int[] drawBarriers = new int[nodes.size()];
+		int pending = ALL_BARRIER_BITS;
+		boolean ranAnything = false;
+
+		for (int i = 0; i < nodes.size(); i++) {
+			Node node = nodes.get(i);
+			Stage[] computes = node.computes();
+			computeBarriers[i] = new int[computes.length];
+
+			boolean groupWrites = false;
+
+			for (int j = 0; j < computes.length; j++) {
+				Stage compute = computes[j];
+
+				if (compute == null) {
+					continue;
+				}
+
+				int bits = pending & compute.accesses();
+				computeBarriers[i][j] = bits;
+				pending &= ~bits;
+				ranAnything = true;
+
+				if (compute.writesMemory()) {
+					if (concurrentCompute) {
+						groupWrites = true;
+					} else {
+						pending = ALL_BARRIER_BITS;
+					}
+				}
+			}
+
+			if (groupWrites) {
+				pending = ALL_BARRIER_BITS;
+			}
+
+			Stage draw = node.draw();
+
+			if (draw != null && liveDraws[i]) {
+				int bits = pending & draw.accesses();
+				drawBarriers[i] = bits;
+				pending &= ~bits;
+				ranAnything = true;
+
+				if (draw.writesMemory()) {
+					pending = ALL_BARRIER_BITS;
+				}
+			}
+		}
+
+		// Whatever runs after the renderer expects to see everything that was written by it.
+		return new BarrierPlan(computeBarriers, drawBarriers, ranAnything ? pending : 0);
+	}
+
+	private static boolean readsAny(IntSet read, int[] buffers) {
+		for (int buffer : buffers) {
+			if (read.contains(buffer)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * A single program of a pass.
+	 *
+	 * @param reads        the buffers the program samples or accesses as images
+	 * @param accesses     the memory barrier bits for the ways the program reads memory
+	 * @param writesMemory whether the program writes to images or storage buffers
+	 */
+	public record Stage(IntSet reads, int accesses, boolean writesMemory) {
+	}
+
+	/**
+	 * A pass of the renderer, consisting of compute programs (entries may be null) followed by an optional draw.
+	 *
+	 * @param keepAlive whether the draw has to run regardless of what reads its output
+	 */
+	public record Node(Stage[] computes, @Nullable Stage draw, int[] drawBuffers, boolean keepAlive) {
+	}
+
+	/**
+	 * The memory barrier bits to issue before each compute program and draw of every pass, and after the last one.
+	 */
+	public record BarrierPlan(int[][] computeBarriers, int[] drawBarriers, int trailingBarrier) {
+	}
+}
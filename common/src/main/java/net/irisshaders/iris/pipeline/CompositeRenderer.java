@@ -5,7 +5,12 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.mojang.blaze3d.platform.GlStateManager;
 import com.mojang.blaze3d.systems.RenderSystem;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.ints.IntSet;
 import it.unimi.dsi.fastutil.objects.Object2ObjectMap;
+import net.irisshaders.iris.Iris;
 import net.irisshaders.iris.features.FeatureFlags;
 import net.irisshaders.iris.gl.IrisRenderSystem;
 import net.irisshaders.iris.gl.blending.BlendModeOverride;
@@ -21,6 +26,7 @@ import net.irisshaders.iris.gl.program.ProgramUniforms;
 import net.irisshaders.iris.gl.sampler.SamplerLimits;
 import net.irisshaders.iris.gl.shader.ShaderCompileException;
 import net.irisshaders.iris.gl.state.FogMode;
+import net.irisshaders.iris.gl.state.GlStateTracker;
 import net.irisshaders.iris.gl.texture.TextureAccess;
 import net.irisshaders.iris.mixin.GlStateManagerAccessor;
 import net.irisshaders.iris.pathways.CenterDepthSampler;
@@ -45,12 +51,17 @@ import net.irisshaders.iris.uniforms.CommonUniforms;
 import net.irisshaders.iris.uniforms.FrameUpdateNotifier;
 import net.irisshaders.iris.uniforms.custom.CustomUniforms;
 import net.minecraft.client.Minecraft;
+import org.jetbrains.annotations.Nullable;
 import org.lwjgl.opengl.GL15C;
 import org.lwjgl.opengl.GL20C;
 import org.lwjgl.opengl.GL30C;
 import org.lwjgl.opengl.GL43C;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
@@ -69,6 +80,8 @@ public class CompositeRenderer {
 	private final Set<GlImage> customImages;
 	private final TextureStage textureStage;
 	private final WorldRenderingPipeline pipeline;
+	private final CompositePassGraph graph;
+	private int trailingBarrier;
 
 	public CompositeRenderer(WorldRenderingPipeline pipeline, PackDirectives packDirectives, ProgramSource[] sources, ComputeSource[][] computes, RenderTargets renderTargets, ShaderStorageBufferHolder holder,
 							 TextureAccess noiseTexture, FrameUpdateNotifier updateNotifier,
@@ -92,6 +105,7 @@ public class CompositeRenderer {
 
 		final ImmutableList.Builder<Pass> passes = ImmutableList.builder();
 		final ImmutableSet.Builder<Integer> flippedAtLeastOnce = new ImmutableSet.Builder<>();
+		final Map<FramebufferKey, GlFramebuffer> framebuffers = new HashMap<>();
 
 		explicitPreFlips.forEach((buffer, shouldFlip) -> {
 			if (shouldFlip) {
@@ -118,6 +132,7 @@ public class CompositeRenderer {
 			Pass pass = new Pass();
 			ProgramDirectives directives = source.getDirectives();
 
+			pass.name = source.getName();
 			pass.program = createProgram(source, flipped, flippedAtLeastOnceSnapshot, shadowTargetsSupplier);
 			pass.blendModeOverride = source.getDirectives().getBlendModeOverride().orElse(null);
 			pass.computes = createComputes(computes[i], flipped, flippedAtLeastOnceSnapshot, shadowTargetsSupplier, holder);
@@ -128,7 +143,7 @@ public class CompositeRenderer {
 			// Flip the buffers that this shader wrote to, and set pass width and height
 			ImmutableMap<Integer, Boolean> explicitFlips = directives.getExplicitFlips();
 
-			GlFramebuffer framebuffer = renderTargets.createColorFramebuffer(flipped, drawBuffers);
+			GlFramebuffer framebuffer = getOrCreateFramebuffer(framebuffers, flipped, drawBuffers);
 
 			for (int buffer : drawBuffers) {
 				RenderTarget target = renderTargets.get(buffer);
@@ -168,10 +183,141 @@ public class CompositeRenderer {
 
 		this.passes = passes.build();
 		this.flippedAtLeastOnceFinal = flippedAtLeastOnce.build();
+		this.graph = createGraph();
+
+		planPasses(null);
 
 		GlStateManager._glBindFramebuffer(GL30C.GL_READ_FRAMEBUFFER, 0);
 	}
 
+	/**
+	 * Finds the color buffers that a program samples or accesses as images. colortex0 is always included, since it is
+	 * bound to texture unit 0, which any sampler without a unit of its own reads from.
+	 */
+	static IntSet findReadBuffers(int programId, RenderTargets renderTargets) {
+		IntSet reads = new IntOpenHashSet();
+		reads.add(0);
+
+		for (int i = 1; i < renderTargets.getRenderTargetCount(); i++) {
+			boolean read = isActiveUniform(programId, "colortex" + i) || isActiveUniform(programId, "colorimg" + i);
+
+			if (!read && i < PackRenderTargetDirectives.LEGACY_RENDER_TARGETS.size()) {
+				read = isActiveUniform(programId, PackRenderTargetDirectives.LEGACY_RENDER_TARGETS.get(i));
+			}
+
+			if (read) {
+				reads.add(i);
+			}
+		}
+
+		return reads;
+	}
+
+	private static boolean isActiveUniform(int programId, String name) {
+		return GlStateManager._glGetUniformLocation(programId, name) != -1;
+	}
+
+	private CompositePassGraph.Stage describeProgram(int programId, int activeImages, boolean isCompute) {
+		IntSet reads = findReadBuffers(programId, renderTargets);
+		boolean usesStorageBuffers = IrisRenderSystem.getActiveShaderStorageBlocks(programId) > 0;
+		int accesses = GL43C.GL_TEXTURE_FETCH_BARRIER_BIT;
+
+		if (activeImages > 0) {
+			accesses |= GL43C.GL_SHADER_IMAGE_ACCESS_BARRIER_BIT;
+		}
+
+		if (usesStorageBuffers) {
+			accesses |= GL43C.GL_SHADER_STORAGE_BARRIER_BIT;
+		}
+
+		return new CompositePassGraph.Stage(reads, accesses, isCompute || activeImages > 0 || usesStorageBuffers);
+	}
+
+	private CompositePassGraph createGraph() {
+		List<CompositePassGraph.Node> nodes = new ArrayList<>();
+
+		for (Pass pass : passes) {
+			CompositePassGraph.Stage[] computes = new CompositePassGraph.Stage[pass.computes.length];
+
+			for (int i = 0; i < computes.length; i++) {
+				ComputeProgram compute = pass.computes[i];
+
+				if (compute != null) {
+					computes[i] = describeProgram(compute.getProgramId(), compute.getActiveImages(), true);
+				}
+			}
+
+			if (pass instanceof ComputeOnlyPass) {
+				nodes.add(new CompositePassGraph.Node(computes, null, new int[0], false));
+				continue;
+			}
+
+			CompositePassGraph.Stage draw = describeProgram(pass.program.getProgramId(), pass.program.getActiveImages(), false);
+
+			if (pass.blendModeOverride != null && pass.blendModeOverride != BlendModeOverride.OFF) {
+				// Blending reads the previous contents of the buffers being drawn to.
+				for (int buffer : pass.drawBuffers) {
+					draw.reads().add(buffer);
+				}
+			}
+
+			// Generating mipmaps changes how later passes sample the buffer, so it has to happen either way.
+			nodes.add(new CompositePassGraph.Node(computes, draw, pass.drawBuffers, !pass.mipmappedBuffers.isEmpty()));
+		}
+
+		return new CompositePassGraph(nodes);
+	}
+
+	private void planPasses(@Nullable IntSet readAfterwards) {
+		boolean[] live = graph.findLiveDraws(readAfterwards);
+		CompositePassGraph.BarrierPlan barriers = graph.planBarriers(live, pipeline.allowConcurrentCompute());
+
+		for (int i = 0; i < passes.size(); i++) {
+			Pass pass = passes.get(i);
+
+			pass.live = live[i];
+			pass.computeBarriers = barriers.computeBarriers()[i];
+			pass.drawBarrier = barriers.drawBarriers()[i];
+		}
+
+		this.trailingBarrier = barriers.trailingBarrier();
+	}
+
+	/**
+	 * Skips the passes whose output can't be seen, now that it is known which buffers are read after this renderer.
+	 * Compute programs and passes with other side effects always run.
+	 */
+	public void skipUnreadPasses(IntSet readAfterwards) {
+		planPasses(readAfterwards);
+
+		Set<String> skipped = new LinkedHashSet<>();
+
+		for (Pass pass : passes) {
+			if (!(pass instanceof ComputeOnlyPass) && !pass.live) {
+				skipped.add(pass.name);
+			}
+		}
+
+		if (!skipped.isEmpty()) {
+			Iris.logger.info("Skipping {} composite passes whose output is never read: {}", skipped.size(), skipped);
+		}
+	}
+
+	private GlFramebuffer getOrCreateFramebuffer(Map<FramebufferKey, GlFramebuffer> framebuffers, ImmutableSet<Integer> stageReadsFromAlt, int[] drawBuffers) {
+		IntList drawBufferList = IntArrayList.wrap(drawBuffers);
+		ImmutableSet.Builder<Integer> flippedDrawBuffers = ImmutableSet.builder();
+
+		for (int buffer : drawBuffers) {
+			if (stageReadsFromAlt.contains(buffer)) {
+				flippedDrawBuffers.add(buffer);
+			}
+		}
+
+		// Consecutive passes that draw to the same textures share a framebuffer, so that it doesn't have to be rebound.
+		return framebuffers.computeIfAbsent(new FramebufferKey(drawBufferList, flippedDrawBuffers.build()),
+			key -> renderTargets.createColorFramebuffer(stageReadsFromAlt, drawBuffers));
+	}
+
 	private static void setupMipmapping(net.irisshaders.iris.targets.RenderTarget target, boolean readFromAlt) {
 		if (target == null) return;
 
@@ -203,6 +349,9 @@ public class CompositeRenderer {
 	}
 
 	public void recalculateSizes() {
+		Set<GlFramebuffer> oldFramebuffers = new LinkedHashSet<>();
+		Map<FramebufferKey, GlFramebuffer> framebuffers = new HashMap<>();
+
 		for (Pass pass : passes) {
 			if (pass instanceof ComputeOnlyPass) {
 				continue;
@@ -216,11 +365,13 @@ public class CompositeRenderer {
 				passWidth = target.getWidth();
 				passHeight = target.getHeight();
 			}
-			renderTargets.destroyFramebuffer(pass.framebuffer);
-			pass.framebuffer = renderTargets.createColorFramebuffer(pass.stageReadsFromAlt, pass.drawBuffers);
+			oldFramebuffers.add(pass.framebuffer);
+			pass.framebuffer = getOrCreateFramebuffer(framebuffers, pass.stageReadsFromAlt, pass.drawBuffers);
 			pass.viewWidth = passWidth;
 			pass.viewHeight = passHeight;
 		}
+
+		oldFramebuffers.forEach(renderTargets::destroyFramebuffer);
 	}
 
 	public void renderAll() {
@@ -229,27 +380,30 @@ public class CompositeRenderer {
 		FullScreenQuadRenderer.INSTANCE.begin();
 		com.mojang.blaze3d.pipeline.RenderTarget main = Minecraft.getInstance().getMainRenderTarget();
 
+		// Nothing else runs between the passes, so framebuffer, program, and viewport changes can be tracked.
+		GlStateTracker.INSTANCE.beginScope();
+
 		for (Pass renderPass : passes) {
-			boolean ranCompute = false;
-			for (ComputeProgram computeProgram : renderPass.computes) {
+			for (int i = 0; i < renderPass.computes.length; i++) {
+				ComputeProgram computeProgram = renderPass.computes[i];
+
 				if (computeProgram != null) {
-					ranCompute = true;
 					computeProgram.use();
 					this.customUniforms.push(computeProgram);
-					computeProgram.dispatch(main.width, main.height);
+					computeProgram.dispatch(main.width, main.height, renderPass.computeBarriers[i]);
 				}
 			}
 
-			if (ranCompute) {
-				IrisRenderSystem.memoryBarrier(GL43C.GL_SHADER_IMAGE_ACCESS_BARRIER_BIT | GL43C.GL_TEXTURE_FETCH_BARRIER_BIT | GL43C.GL_SHADER_STORAGE_BARRIER_BIT);
-			}
-
 			Program.unbind();
 
-			if (renderPass instanceof ComputeOnlyPass) {
+			if (renderPass instanceof ComputeOnlyPass || !renderPass.live) {
 				continue;
 			}
 
+			if (renderPass.drawBarrier != 0) {
+				IrisRenderSystem.memoryBarrier(renderPass.drawBarrier);
+			}
+
 			if (!renderPass.mipmappedBuffers.isEmpty()) {
 				RenderSystem.activeTexture(GL15C.GL_TEXTURE0);
 
@@ -262,10 +416,12 @@ public class CompositeRenderer {
 			float scaledHeight = renderPass.viewHeight * renderPass.viewportScale.scale();
 			int beginWidth = (int) (renderPass.viewWidth * renderPass.viewportScale.viewportX());
 			int beginHeight = (int) (renderPass.viewHeight * renderPass.viewportScale.viewportY());
-			RenderSystem.viewport(beginWidth, beginHeight, (int) scaledWidth, (int) scaledHeight);
+			GlStateTracker.INSTANCE.viewport(beginWidth, beginHeight, (int) scaledWidth, (int) scaledHeight);
 
 			renderPass.framebuffer.bind();
-			renderPass.program.use();
+
+			// The memory barrier was issued above, before generating mipmaps.
+			renderPass.program.use(0);
 			if (renderPass.blendModeOverride != null) {
 				renderPass.blendModeOverride.apply();
 			} else {
@@ -281,6 +437,11 @@ public class CompositeRenderer {
 		}
 
 		FullScreenQuadRenderer.INSTANCE.end();
+		GlStateTracker.INSTANCE.endScope();
+
+		if (trailingBarrier != 0) {
+			IrisRenderSystem.memoryBarrier(trailingBarrier);
+		}
 
 		// Make sure to reset the viewport to how it was before... Otherwise weird issues could occur.
 		// Also bind the "main" framebuffer if it isn't already bound.
@@ -429,6 +590,10 @@ public class CompositeRenderer {
 	}
 
 	private static class Pass {
+		String name;
+		boolean live = true;
+		int[] computeBarriers;
+		int drawBarrier;
 		int[] drawBuffers;
 		int viewWidth;
 		int viewHeight;
@@ -451,6 +616,9 @@ public class CompositeRenderer {
 		}
 	}
 
+	private record FramebufferKey(IntList drawBuffers, ImmutableSet<Integer> flippedDrawBuffers) {
+	}
+
 	private static class ComputeOnlyPass extends Pass {
 		@Override
 		protected void destroy() {
@@ -5,6 +5,8 @@ import com.google.common.collect.ImmutableSet;
 import com.mojang.blaze3d.platform.GlStateManager;
 import com.mojang.blaze3d.systems.RenderSystem;
 import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.ints.IntSet;
 import it.unimi.dsi.fastutil.objects.Object2ObjectMap;
 import net.irisshaders.iris.features.FeatureFlags;
 import net.irisshaders.iris.gl.IrisRenderSystem;
@@ -308,6 +310,28 @@ public class FinalPassRenderer {
 		RenderSystem.activeTexture(GL15C.GL_TEXTURE0);
 	}
 
+	/**
+	 * Returns the color buffers that the final pass reads from. Without a final program, colortex0 is copied to the
+	 * screen directly.
+	 */
+	public IntSet getReadBuffers() {
+		IntSet reads = new IntOpenHashSet();
+		reads.add(0);
+
+		if (finalPass != null) {
+			reads.addAll(CompositeRenderer.findReadBuffers(finalPass.program.getProgramId(), renderTargets));
+			reads.addAll(finalPass.mipmappedBuffers);
+
+			for (ComputeProgram compute : finalPass.computes) {
+				if (compute != null) {
+					reads.addAll(CompositeRenderer.findReadBuffers(compute.getProgramId(), renderTargets));
+				}
+			}
+		}
+
+		return reads;
+	}
+
 	public void recalculateSwapPassSize() {
 		for (SwapPass swapPass : swapPasses) {
 			RenderTarget target = renderTargets.get(swapPass.target);
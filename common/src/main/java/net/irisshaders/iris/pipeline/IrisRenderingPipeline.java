@@ -5,14 +5,15 @@ import com.google.common.collect.ImmutableSet;
 import com.mojang.blaze3d.pipeline.RenderTarget;
 import com.mojang.blaze3d.platform.GlStateManager;
 import com.mojang.blaze3d.systems.RenderSystem;
-import com.mojang.blaze3d.vertex.VertexFormat;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.ints.IntSet;
 import it.unimi.dsi.fastutil.objects.Object2ObjectMap;
 import it.unimi.dsi.fastutil.objects.Object2ObjectMaps;
+import net.irisshaders.iris.Iris;
 import net.irisshaders.iris.compat.dh.DHCompat;
 import net.irisshaders.iris.features.FeatureFlags;
 import net.irisshaders.iris.gl.GLDebug;
 import net.irisshaders.iris.gl.IrisRenderSystem;
-import net.irisshaders.iris.gl.blending.AlphaTest;
 import net.irisshaders.iris.gl.blending.BlendModeOverride;
 import net.irisshaders.iris.gl.buffer.ShaderStorageBufferHolder;
 import net.irisshaders.iris.gl.framebuffer.GlFramebuffer;
@@ -26,9 +27,10 @@ import net.irisshaders.iris.gl.sampler.SamplerHolder;
 import net.irisshaders.iris.gl.sampler.SamplerLimits;
 import net.irisshaders.iris.gl.shader.ShaderCompileException;
 import net.irisshaders.iris.gl.state.FogMode;
-import net.irisshaders.iris.gl.state.ShaderAttributeInputs;
+import net.irisshaders.iris.gl.state.GlStateTracker;
 import net.irisshaders.iris.gl.texture.DepthBufferFormat;
 import net.irisshaders.iris.gl.texture.TextureType;
+import net.irisshaders.iris.gl.uniform.FrameUniformBuffer;
 import net.irisshaders.iris.gui.option.IrisVideoSettings;
 import net.irisshaders.iris.helpers.FakeChainedJsonException;
 import net.irisshaders.iris.helpers.OptionalBoolean;
@@ -48,10 +50,13 @@ import net.irisshaders.iris.pbr.texture.PBRTextureManager;
 import net.irisshaders.iris.pbr.texture.PBRType;
 import net.irisshaders.iris.pipeline.programs.ExtendedShader;
 import net.irisshaders.iris.pipeline.programs.FallbackShader;
+import net.irisshaders.iris.pipeline.programs.GbufferPatch;
 import net.irisshaders.iris.pipeline.programs.ShaderCreator;
 import net.irisshaders.iris.pipeline.programs.ShaderKey;
+import net.irisshaders.iris.pipeline.programs.ShaderKeyUsage;
 import net.irisshaders.iris.pipeline.programs.ShaderMap;
 import net.irisshaders.iris.pipeline.programs.SodiumPrograms;
+import net.irisshaders.iris.pipeline.transform.ParallelTransformStage;
 import net.irisshaders.iris.pipeline.transform.PatchShaderType;
 import net.irisshaders.iris.pipeline.transform.ShaderPrinter;
 import net.irisshaders.iris.pipeline.transform.TransformPatcher;
@@ -70,6 +75,7 @@ import net.irisshaders.iris.shaderpack.programs.ProgramSet;
 import net.irisshaders.iris.shaderpack.programs.ProgramSource;
 import net.irisshaders.iris.shaderpack.properties.CloudSetting;
 import net.irisshaders.iris.shaderpack.properties.PackDirectives;
+import net.irisshaders.iris.shaderpack.properties.PackRenderTargetDirectives;
 import net.irisshaders.iris.shaderpack.properties.PackShadowDirectives;
 import net.irisshaders.iris.shaderpack.properties.ParticleRenderingSettings;
 import net.irisshaders.iris.shaderpack.texture.TextureStage;
@@ -105,20 +111,32 @@ import org.lwjgl.opengl.GL30C;
 import org.lwjgl.opengl.GL43C;
 
 import java.io.IOException;
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.OptionalInt;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.function.IntFunction;
 import java.util.function.Supplier;
 
 public class IrisRenderingPipeline implements WorldRenderingPipeline, ShaderRenderingPipeline {
+	/**
+	 * How long each frame may spend creating shaders ahead of time, which keeps prewarming from causing stutters.
+	 */
+	private static final long PREWARM_BUDGET_NANOS = 2_000_000;
+
 	private final RenderTargets renderTargets;
 	private final ShaderMap shaderMap;
+	@Nullable
+	private final ShaderKeyUsage shaderKeyUsage;
 	private final CustomUniforms customUniforms;
+	@Nullable
+	private final FrameUniformBuffer frameUniformBuffer;
 	private final ShadowCompositeRenderer shadowCompositeRenderer;
 	private final Object2ObjectMap<Tri<String, TextureType, TextureStage>, String> customTextureMap;
 	private final ComputeProgram[] setup;
@@ -191,6 +209,16 @@ public class IrisRenderingPipeline implements WorldRenderingPipeline, ShaderRend
 	public IrisRenderingPipeline(ProgramSet programSet) {
 		ShaderPrinter.resetPrintState();
 
+		// Only the shaders used in the last session with this pack are created up front when they're created lazily.
+		this.shaderKeyUsage = Iris.getIrisConfig().shouldCreateShadersLazily()
+			? new ShaderKeyUsage(Iris.getCurrentPackName(), programSet.getPack().getShaderPackOptions().getOptionValues(), Iris.getCurrentDimension())
+			: null;
+		Set<ShaderKey> initialShaderKeys = shaderKeyUsage != null ? shaderKeyUsage.load() : EnumSet.allOf(ShaderKey.class);
+
+		// Start patching the programs on worker threads while the render thread sets up everything else and compiles
+		// the programs that are already patched.
+		ParallelTransformStage.prepatch(programSet, initialShaderKeys);
+
 		this.shouldRenderUnderwaterOverlay = programSet.getPackDirectives().underwaterOverlay();
 		this.shouldRenderVignette = programSet.getPackDirectives().vignette();
 		this.shouldWriteRainAndSnowToDepthBuffer = programSet.getPackDirectives().rainDepth();
@@ -273,6 +301,13 @@ public class IrisRenderingPipeline implements WorldRenderingPipeline, ShaderRend
 			holder -> CommonUniforms.addNonDynamicUniforms(holder, programSet.getPack().getIdMap(), programSet.getPackDirectives(), this.updateNotifier)
 		);
 
+		if (FrameUniformBuffer.isEnabled()) {
+			this.frameUniformBuffer = new FrameUniformBuffer();
+			CommonUniforms.addNonDynamicUniforms(frameUniformBuffer, programSet.getPack().getIdMap(), programSet.getPackDirectives(), this.updateNotifier);
+		} else {
+			this.frameUniformBuffer = null;
+		}
+
 		// Don't clobber anything in texture unit 0. It probably won't cause issues, but we're just being cautious here.
 		GlStateManager._activeTexture(GL20C.GL_TEXTURE2);
 
@@ -332,6 +367,21 @@ public class IrisRenderingPipeline implements WorldRenderingPipeline, ShaderRend
 			customTextureManager.getCustomTextureIdMap().getOrDefault(TextureStage.COMPOSITE_AND_FINAL, Object2ObjectMaps.emptyMap()), customTextureManager.getIrisCustomTextures(), customImages,
 			this.compositeRenderer.getFlippedAtLeastOnceFinal(), customUniforms);
 
+		// Composite passes only need to run if the final pass, or the next frame, can see what they draw.
+		IntSet readAfterComposite = new IntOpenHashSet(finalPassRenderer.getReadBuffers());
+		Map<Integer, PackRenderTargetDirectives.RenderTargetSettings> renderTargetSettings =
+			programSet.getPackDirectives().getRenderTargetDirectives().getRenderTargetSettings();
+
+		for (int i = 0; i < renderTargets.getRenderTargetCount(); i++) {
+			PackRenderTargetDirectives.RenderTargetSettings settings = renderTargetSettings.get(i);
+
+			if (settings == null || !settings.shouldClear()) {
+				readAfterComposite.add(i);
+			}
+		}
+
+		this.compositeRenderer.skipUnreadPasses(readAfterComposite);
+
 		Supplier<ImmutableSet<Integer>> flipped =
 			() -> isBeforeTranslucent ? flippedAfterPrepare : flippedAfterTranslucent;
 
@@ -381,7 +431,7 @@ public class IrisRenderingPipeline implements WorldRenderingPipeline, ShaderRend
 		this.loadedShaders = new HashSet<>();
 
 
-		this.shaderMap = new ShaderMap(key -> {
+		Function<ShaderKey, ShaderInstance> shaderFactory = key -> {
 			try {
 				if (key.isShadow()) {
 					if (shadowRenderTargets != null) {
@@ -393,16 +443,22 @@ public class IrisRenderingPipeline implements WorldRenderingPipeline, ShaderRend
 					return createShader(key.getName(), resolver.resolve(key.getProgram()), key);
 				}
 			} catch (FakeChainedJsonException e) {
-				destroyShaders();
 				throw e.getTrueException();
 			} catch (IOException e) {
-				destroyShaders();
 				throw new RuntimeException(e);
+			}
+		};
+
+		if (Iris.getIrisConfig().shouldCreateShadersLazily()) {
+			this.shaderMap = ShaderMap.lazy(shaderFactory, initialShaderKeys);
+		} else {
+			try {
+				this.shaderMap = new ShaderMap(shaderFactory);
 			} catch (RuntimeException e) {
 				destroyShaders();
 				throw e;
 			}
-		});
+		}
 
 		initializedBlockIds = false;
 
@@ -448,7 +504,10 @@ public class IrisRenderingPipeline implements WorldRenderingPipeline, ShaderRend
 		this.setup = createSetupComputes(programSet.getSetup(), programSet, TextureStage.SETUP);
 
 		// first optimization pass
-		this.customUniforms.optimise();
+		// Shaders that are created lazily can reference any custom uniform, so unused ones can't be removed then.
+		if (!shaderMap.isLazy()) {
+			this.customUniforms.optimise();
+		}
 		boolean hasRun = false;
 
 		this.clearPassesFull = ClearPassCreator.createClearPasses(renderTargets, true,
@@ -632,8 +691,7 @@ public class IrisRenderingPipeline implements WorldRenderingPipeline, ShaderRend
 			return createFallbackShader(name, key);
 		}
 
-		return createShader(name, source.get(), key.getProgram(), key.getAlphaTest(), key.getVertexFormat(), key.getFogMode(),
-			key.isIntensity(), key.shouldIgnoreLightmap(), key.isGlint(), key.isText(), key == ShaderKey.IE_COMPAT);
+		return createShader(source.get(), key);
 	}
 
 	@Override
@@ -641,22 +699,16 @@ public class IrisRenderingPipeline implements WorldRenderingPipeline, ShaderRend
 		return customTextureMap;
 	}
 
-	private ShaderInstance createShader(String name, ProgramSource source, ProgramId programId, AlphaTest fallbackAlpha,
-										VertexFormat vertexFormat, FogMode fogMode,
-										boolean isIntensity, boolean isFullbright, boolean isGlint, boolean isText, boolean isIE) throws IOException {
+	private ShaderInstance createShader(ProgramSource source, ShaderKey key) throws IOException {
 		GlFramebuffer beforeTranslucent = renderTargets.createGbufferFramebuffer(flippedAfterPrepare, source.getDirectives().getDrawBuffers());
 		GlFramebuffer afterTranslucent = renderTargets.createGbufferFramebuffer(flippedAfterTranslucent, source.getDirectives().getDrawBuffers());
-		boolean isLines = programId == ProgramId.Line && resolver.has(ProgramId.Line);
-
-
-		ShaderAttributeInputs inputs = new ShaderAttributeInputs(vertexFormat, isFullbright, isLines, isGlint, isText, isIE);
 
 		Supplier<ImmutableSet<Integer>> flipped =
 			() -> isBeforeTranslucent ? flippedAfterPrepare : flippedAfterTranslucent;
 
-
-		ExtendedShader extendedShader = ShaderCreator.create(this, name, source, programId, beforeTranslucent, afterTranslucent,
-			fallbackAlpha, vertexFormat, inputs, updateNotifier, this, flipped, fogMode, isIntensity, isFullbright, false, isLines, customUniforms);
+		ExtendedShader extendedShader = ShaderCreator.create(this, GbufferPatch.of(key, source, resolver.has(ProgramId.Line)),
+			key.getProgram(), beforeTranslucent, afterTranslucent, key.getVertexFormat(), updateNotifier, this, flipped,
+			key.getFogMode(), key.isIntensity(), key.shouldIgnoreLightmap(), false, customUniforms);
 
 		loadedShaders.add(extendedShader);
 
@@ -681,7 +733,7 @@ public class IrisRenderingPipeline implements WorldRenderingPipeline, ShaderRend
 			return createFallbackShadowShader(name, key);
 		}
 
-		return createShadowShader(name, source.get(), key.getProgram(), key.getAlphaTest(), key.getVertexFormat(),
+		return createShadowShader(source.get(), key);
 			key.isIntensity(), key.shouldIgnoreLightmap(), key.isText(), key == ShaderKey.IE_COMPAT_SHADOW);
 	}
 
@@ -697,17 +749,14 @@ public class IrisRenderingPipeline implements WorldRenderingPipeline, ShaderRend
 		return shader;
 	}
 
-	private ShaderInstance createShadowShader(String name, ProgramSource source, ProgramId programId, AlphaTest fallbackAlpha,
-											  VertexFormat vertexFormat, boolean isIntensity, boolean isFullbright, boolean isText, boolean isIE) throws IOException {
+	private ShaderInstance createShadowShader(ProgramSource source, ShaderKey key) throws IOException {
 		GlFramebuffer framebuffer = shadowRenderTargets.createShadowFramebuffer(ImmutableSet.of(), source.getDirectives().hasUnknownDrawBuffers() ? new int[]{0, 1} : source.getDirectives().getDrawBuffers());
-		boolean isLines = programId == ProgramId.Line && resolver.has(ProgramId.Line);
-
-		ShaderAttributeInputs inputs = new ShaderAttributeInputs(vertexFormat, isFullbright, isLines, false, isText, isIE);
 
 		Supplier<ImmutableSet<Integer>> flipped = () -> flippedBeforeShadow;
 
-		ExtendedShader extendedShader = ShaderCreator.create(this, name, source, programId, framebuffer, framebuffer,
-			fallbackAlpha, vertexFormat, inputs, updateNotifier, this, flipped, FogMode.PER_VERTEX, isIntensity, isFullbright, true, isLines, customUniforms);
+		ExtendedShader extendedShader = ShaderCreator.create(this, GbufferPatch.of(key, source, resolver.has(ProgramId.Line)),
+			key.getProgram(), framebuffer, framebuffer, key.getVertexFormat(), updateNotifier, this, flipped,
+			FogMode.PER_VERTEX, key.isIntensity(), key.shouldIgnoreLightmap(), true, customUniforms);
 
 		loadedShaders.add(extendedShader);
 
@@ -799,6 +848,12 @@ public class IrisRenderingPipeline implements WorldRenderingPipeline, ShaderRend
 	@Override
 	public void beginLevelRendering() {
 		isRenderingWorld = true;
+		GlStateTracker.INSTANCE.beginScope();
+
+		// The shared per-frame uniforms have to be up to date before the first program of this frame runs.
+		if (frameUniformBuffer != null) {
+			frameUniformBuffer.update();
+		}
 
 		if (!initializedBlockIds) {
 			WorldRenderingSettings.INSTANCE.setBlockStateIds(
@@ -984,6 +1039,9 @@ public class IrisRenderingPipeline implements WorldRenderingPipeline, ShaderRend
 			messages.add("");
 			messages.add("[Iris] Shadow Maps: not used by shader pack");
 		}
+
+		GlStateTracker tracker = GlStateTracker.INSTANCE;
+		messages.add("[Iris] GL state changes: " + tracker.getLastFrameIssued() + " issued, " + tracker.getLastFrameSkipped() + " redundant skipped");
 	}
 
 	@Override
@@ -1032,8 +1090,17 @@ public class IrisRenderingPipeline implements WorldRenderingPipeline, ShaderRend
 	@Override
 	public void finalizeLevelRendering() {
 		isRenderingWorld = false;
+		GlStateTracker.INSTANCE.endScope();
 		compositeRenderer.renderAll();
 		finalPassRenderer.renderFinalPass();
+
+		GlStateTracker.INSTANCE.endFrame();
+
+		// Create some of the shaders used in the last session, now that nothing else is being drawn. Waiting until the
+		// workers are done means the sources are already patched and only the compile is left on the render thread.
+		if (ParallelTransformStage.isIdle()) {
+			shaderMap.prewarm(PREWARM_BUDGET_NANOS);
+		}
 	}
 
 	@Override
@@ -1134,6 +1201,10 @@ public class IrisRenderingPipeline implements WorldRenderingPipeline, ShaderRend
 	public void destroy() {
 		destroyed = true;
 
+		if (shaderKeyUsage != null) {
+			shaderKeyUsage.save(shaderMap.getUsedKeys());
+		}
+
 		destroyShaders();
 
 		// Unbind all textures
@@ -1191,6 +1262,10 @@ public class IrisRenderingPipeline implements WorldRenderingPipeline, ShaderRend
 		if (shaderStorageBufferHolder != null) {
 			shaderStorageBufferHolder.destroyBuffers();
 		}
+
+		if (frameUniformBuffer != null) {
+			frameUniformBuffer.destroy();
+		}
 	}
 
 	@Override
@@ -2,10 +2,11 @@ package net.irisshaders.iris.pipeline.programs;
 
 import com.mojang.blaze3d.preprocessor.GlslPreprocessor;
 import com.mojang.blaze3d.shaders.Program;
-import com.mojang.blaze3d.shaders.ProgramManager;
 import com.mojang.blaze3d.shaders.Uniform;
 import com.mojang.blaze3d.systems.RenderSystem;
 import com.mojang.blaze3d.vertex.VertexFormat;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.ints.IntSet;
 import net.irisshaders.iris.Iris;
 import net.irisshaders.iris.gl.GLDebug;
 import net.irisshaders.iris.gl.IrisRenderSystem;
@@ -19,6 +20,9 @@ import net.irisshaders.iris.gl.program.ProgramImages;
 import net.irisshaders.iris.gl.program.ProgramSamplers;
 import net.irisshaders.iris.gl.program.ProgramUniforms;
 import net.irisshaders.iris.gl.sampler.SamplerHolder;
+import net.irisshaders.iris.gl.shader.ProgramBinaryCache;
+import net.irisshaders.iris.gl.shader.ProgramCreator;
+import net.irisshaders.iris.gl.state.GlStateTracker;
 import net.irisshaders.iris.gl.texture.TextureType;
 import net.irisshaders.iris.gl.uniform.DynamicLocationalUniformHolder;
 import net.irisshaders.iris.mixinterface.ShaderInstanceInterface;
@@ -40,6 +44,8 @@ import org.lwjgl.opengl.GL30C;
 import org.lwjgl.opengl.KHRDebug;
 
 import java.io.IOException;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
@@ -47,6 +53,12 @@ import java.util.function.Consumer;
 public class ExtendedShader extends ShaderInstance implements ShaderInstanceInterface {
 	private static final Matrix4f IDENTITY = new Matrix4f().identity();
 	private static final Uniform FAKE_UNIFORM = new Uniform("", 1, 2, null);
+	private static final int[] INTENSITY_SWIZZLE = new int[]{GL30C.GL_RED, GL30C.GL_RED, GL30C.GL_RED, GL30C.GL_RED};
+	/**
+	 * The textures that already have the intensity swizzle set. Texture parameters stick to the texture, so they only
+	 * need to be set again once the texture ID is reused for a new texture.
+	 */
+	private static final IntSet SWIZZLED_TEXTURES = new IntOpenHashSet();
 
 	private final boolean intensitySwizzle;
 	private final List<BufferBlendOverride> bufferBlendOverrides;
@@ -68,6 +80,12 @@ public class ExtendedShader extends ShaderInstance implements ShaderInstanceInte
 	private final Matrix3f tempMatrix3f = new Matrix3f();
 	private final float[] tempFloats = new float[16];
 	private final float[] tempFloats2 = new float[9];
+	// The matrices that the inverse and normal matrices were last derived from
+	private final float[] lastProjection = new float[16];
+	private final float[] lastModelView = new float[16];
+	private boolean hasLastProjection;
+	private boolean projectionInverseIsIdentity;
+	private boolean hasLastModelView;
 	private Program geometry, tessControl, tessEval;
 
 	public ExtendedShader(ResourceProvider resourceFactory, String name, VertexFormat vertexFormat,
@@ -131,7 +149,7 @@ public class ExtendedShader extends ShaderInstance implements ShaderInstanceInte
 	public void apply() {
 		CapturedRenderingState.INSTANCE.setCurrentAlphaTest(alphaTest);
 
-		ProgramManager.glUseProgram(this.getId());
+		GlStateTracker.INSTANCE.useProgram(this.getId());
 
 		setupTextures();
 		updateMatrices();
@@ -140,10 +158,36 @@ public class ExtendedShader extends ShaderInstance implements ShaderInstanceInte
 		bindFramebuffer();
 	}
 
+	public static void onDeleteTexture(int id) {
+		SWIZZLED_TEXTURES.remove(id);
+	}
+
+	/**
+	 * Copies the matrix into the given array, and returns whether it was different from what was there.
+	 */
+	private static boolean copyIfChanged(FloatBuffer matrix, float[] last, boolean hasLast) {
+		boolean changed = !hasLast;
+
+		for (int i = 0; i < 16; i++) {
+			float value = matrix.get(i);
+
+			if (last[i] != value) {
+				last[i] = value;
+				changed = true;
+			}
+		}
+
+		return changed;
+	}
+
 	private void setupTextures() {
 		if (intensitySwizzle) {
-			IrisRenderSystem.texParameteriv(RenderSystem.getShaderTexture(0), TextureType.TEXTURE_2D.getGlType(),
-				ARBTextureSwizzle.GL_TEXTURE_SWIZZLE_RGBA, new int[]{GL30C.GL_RED, GL30C.GL_RED, GL30C.GL_RED, GL30C.GL_RED});
+			int texture = RenderSystem.getShaderTexture(0);
+
+			if (SWIZZLED_TEXTURES.add(texture)) {
+				IrisRenderSystem.texParameteriv(texture, TextureType.TEXTURE_2D.getGlType(),
+					ARBTextureSwizzle.GL_TEXTURE_SWIZZLE_RGBA, INTENSITY_SWIZZLE);
+			}
 		}
 
 		IrisRenderSystem.bindTextureToUnit(TextureType.TEXTURE_2D.getGlType(), IrisSamplers.ALBEDO_TEXTURE_UNIT, RenderSystem.getShaderTexture(0));
@@ -153,20 +197,35 @@ public class ExtendedShader extends ShaderInstance implements ShaderInstanceInte
 		ImmediateState.usingTessellation = usesTessellation;
 	}
 
+	/**
+	 * Derives the inverse and normal matrices, but only when the matrices they're derived from actually changed since
+	 * the last draw with this shader. Most consecutive draws use the same matrices, and skipping the set also skips
+	 * the upload.
+	 */
 	private void updateMatrices() {
 		if (PROJECTION_MATRIX != null && projectionInverse != null) {
-			projectionInverse.set(tempMatrix4f.set(PROJECTION_MATRIX.getFloatBuffer()).invert().get(tempFloats));
-		} else if (projectionInverse != null) {
+			if (copyIfChanged(PROJECTION_MATRIX.getFloatBuffer(), lastProjection, hasLastProjection)) {
+				hasLastProjection = true;
+				projectionInverseIsIdentity = false;
+				projectionInverse.set(tempMatrix4f.set(lastProjection).invert().get(tempFloats));
+			}
+		} else if (projectionInverse != null && !projectionInverseIsIdentity) {
+			hasLastProjection = false;
+			projectionInverseIsIdentity = true;
 			projectionInverse.set(IDENTITY);
 		}
 
-		if (MODEL_VIEW_MATRIX != null) {
-			if (modelViewInverse != null) {
-				modelViewInverse.set(tempMatrix4f.set(MODEL_VIEW_MATRIX.getFloatBuffer()).invert().get(tempFloats));
-			}
+		if (MODEL_VIEW_MATRIX != null && (modelViewInverse != null || normalMatrix != null)
+			&& copyIfChanged(MODEL_VIEW_MATRIX.getFloatBuffer(), lastModelView, hasLastModelView)) {
+			hasLastModelView = true;
+			tempMatrix4f.set(lastModelView);
 
 			if (normalMatrix != null) {
-				normalMatrix.set(tempMatrix3f.set(tempMatrix4f.set(MODEL_VIEW_MATRIX.getFloatBuffer())).invert().transpose().get(tempFloats2));
+				normalMatrix.set(tempMatrix3f.set(tempMatrix4f).invert().transpose().get(tempFloats2));
+			}
+
+			if (modelViewInverse != null) {
+				modelViewInverse.set(tempMatrix4f.invert().get(tempFloats));
 			}
 		}
 	}
@@ -245,6 +304,24 @@ public class ExtendedShader extends ShaderInstance implements ShaderInstanceInte
 		createTessEvalShader(factory, name);
 	}
 
+	@Override
+	public void iris$linkProgram(ResourceProvider factory, Runnable link) {
+		if (!(factory instanceof ShaderCreator.IrisProgramResourceFactory programFactory)) {
+			link.run();
+			return;
+		}
+
+		// matches the bindings of the ShaderInstance constructor, which binds the attributes in format order
+		List<String> attributeNames = this.getVertexFormat().getElementAttributeNames();
+		List<ProgramBinaryCache.AttributeBinding> attributeBindings = new ArrayList<>(attributeNames.size());
+
+		for (int i = 0; i < attributeNames.size(); i++) {
+			attributeBindings.add(new ProgramBinaryCache.AttributeBinding(i, attributeNames.get(i)));
+		}
+
+		ProgramCreator.linkCached(this.getId(), programFactory.sources(), attributeBindings, link);
+	}
+
 	private void createGeometryShader(ResourceProvider factory, String name) {
 		createShader(factory, name, "_geometry.gsh", IrisProgramTypes.GEOMETRY,
 			program -> this.geometry = program);
@@ -0,0 +1,47 @@
+package net.irisshaders.iris.pipeline.programs;
+
+import it.unimi.dsi.fastutil.objects.Object2ObjectMap;
+import net.irisshaders.iris.gl.blending.AlphaTest;
+import net.irisshaders.iris.gl.state.ShaderAttributeInputs;
+import net.irisshaders.iris.gl.texture.TextureType;
+import net.irisshaders.iris.helpers.Tri;
+import net.irisshaders.iris.pipeline.transform.PatchShaderType;
+import net.irisshaders.iris.pipeline.transform.TransformPatcher;
+import net.irisshaders.iris.shaderpack.loading.ProgramId;
+import net.irisshaders.iris.shaderpack.programs.ProgramSource;
+import net.irisshaders.iris.shaderpack.texture.TextureStage;
+
+import java.util.Map;
+
+/**
+ * Everything that decides how the program of a {@link ShaderKey} is patched. The pipeline and the workers that patch
+ * programs ahead of time both derive it through {@link #of}, so that they always arrive at the same transform cache
+ * entry.
+ */
+public record GbufferPatch(String name, ProgramSource source, AlphaTest alpha, boolean isLines, ShaderAttributeInputs inputs) {
+	/**
+	 * @param hasLineProgram whether the pack has its own gbuffers_line program, rather than a fallback
+	 */
+	public static GbufferPatch of(ShaderKey key, ProgramSource source, boolean hasLineProgram) {
+		AlphaTest alpha = source.getDirectives().getAlphaTestOverride().orElse(key.getAlphaTest());
+		boolean isLines = key.getProgram() == ProgramId.Line && hasLineProgram;
+		// Glint is drawn without shadows, so the shadow version never needs the glint inputs.
+		boolean isGlint = !key.isShadow() && key.isGlint();
+		boolean isIE = key == ShaderKey.IE_COMPAT || key == ShaderKey.IE_COMPAT_SHADOW;
+		ShaderAttributeInputs inputs = new ShaderAttributeInputs(key.getVertexFormat(), key.shouldIgnoreLightmap(), isLines,
+			isGlint, key.isText(), isIE);
+
+		return new GbufferPatch(key.getName(), source, alpha, isLines, inputs);
+	}
+
+	public Map<PatchShaderType, String> transform(Object2ObjectMap<Tri<String, TextureType, TextureStage>, String> textureMap) {
+		return TransformPatcher.patchVanilla(
+			name,
+			source.getVertexSource().orElseThrow(RuntimeException::new),
+			source.getGeometrySource().orElse(null),
+			source.getTessControlSource().orElse(null),
+			source.getTessEvalSource().orElse(null),
+			source.getFragmentSource().orElseThrow(RuntimeException::new),
+			alpha, isLines, true, inputs, textureMap);
+	}
+}
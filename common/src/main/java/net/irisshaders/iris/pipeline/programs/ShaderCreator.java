@@ -8,6 +8,7 @@ import net.irisshaders.iris.gl.blending.AlphaTest;
 import net.irisshaders.iris.gl.blending.BlendModeOverride;
 import net.irisshaders.iris.gl.blending.BufferBlendOverride;
 import net.irisshaders.iris.gl.framebuffer.GlFramebuffer;
+import net.irisshaders.iris.gl.shader.ShaderType;
 import net.irisshaders.iris.gl.state.FogMode;
 import net.irisshaders.iris.gl.state.ShaderAttributeInputs;
 import net.irisshaders.iris.pipeline.IrisRenderingPipeline;
@@ -15,7 +16,6 @@ import net.irisshaders.iris.pipeline.WorldRenderingPipeline;
 import net.irisshaders.iris.pipeline.fallback.ShaderSynthesizer;
 import net.irisshaders.iris.pipeline.transform.PatchShaderType;
 import net.irisshaders.iris.pipeline.transform.ShaderPrinter;
-import net.irisshaders.iris.pipeline.transform.TransformPatcher;
 import net.irisshaders.iris.platform.IrisPlatformHelpers;
 import net.irisshaders.iris.shaderpack.loading.ProgramId;
 import net.irisshaders.iris.shaderpack.programs.ProgramSource;
@@ -39,28 +39,24 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.function.Supplier;
 
 public class ShaderCreator {
-	public static ExtendedShader create(WorldRenderingPipeline pipeline, String name, ProgramSource source, ProgramId programId, GlFramebuffer writingToBeforeTranslucent,
-										GlFramebuffer writingToAfterTranslucent, AlphaTest fallbackAlpha,
-										VertexFormat vertexFormat, ShaderAttributeInputs inputs, FrameUpdateNotifier updateNotifier,
+	public static ExtendedShader create(WorldRenderingPipeline pipeline, GbufferPatch patch, ProgramId programId, GlFramebuffer writingToBeforeTranslucent,
+										GlFramebuffer writingToAfterTranslucent, VertexFormat vertexFormat, FrameUpdateNotifier updateNotifier,
 										IrisRenderingPipeline parent, Supplier<ImmutableSet<Integer>> flipped, FogMode fogMode, boolean isIntensity,
-										boolean isFullbright, boolean isShadowPass, boolean isLines, CustomUniforms customUniforms) throws IOException {
-		AlphaTest alpha = source.getDirectives().getAlphaTestOverride().orElse(fallbackAlpha);
+										boolean isFullbright, boolean isShadowPass, CustomUniforms customUniforms) throws IOException {
+		String name = patch.name();
+		ProgramSource source = patch.source();
+		AlphaTest alpha = patch.alpha();
+		ShaderAttributeInputs inputs = patch.inputs();
 		BlendModeOverride blendModeOverride = source.getDirectives().getBlendModeOverride().orElse(programId.getBlendModeOverride());
 
-		Map<PatchShaderType, String> transformed = TransformPatcher.patchVanilla(
-			name,
-			source.getVertexSource().orElseThrow(RuntimeException::new),
-			source.getGeometrySource().orElse(null),
-			source.getTessControlSource().orElse(null),
-			source.getTessEvalSource().orElse(null),
-			source.getFragmentSource().orElseThrow(RuntimeException::new),
-			alpha, isLines, true, inputs, pipeline.getTextureMap());
+		Map<PatchShaderType, String> transformed = patch.transform(pipeline.getTextureMap());
 		String vertex = transformed.get(PatchShaderType.VERTEX);
 		String geometry = transformed.get(PatchShaderType.GEOMETRY);
 		String tessControl = transformed.get(PatchShaderType.TESS_CONTROL);
@@ -199,8 +195,22 @@ public class ShaderCreator {
 			writingToAfterTranslucent, blendModeOverride, alpha.reference(), parent);
 	}
 
-	private record IrisProgramResourceFactory(String json, String vertex, String geometry, String tessControl,
-											  String tessEval, String fragment) implements ResourceProvider {
+	record IrisProgramResourceFactory(String json, String vertex, String geometry, String tessControl,
+									  String tessEval, String fragment) implements ResourceProvider {
+		/**
+		 * The sources of every shader of the program, in attachment order.
+		 */
+		Map<ShaderType, String> sources() {
+			Map<ShaderType, String> sources = new LinkedHashMap<>();
+			sources.put(ShaderType.VERTEX, vertex);
+			sources.put(ShaderType.FRAGMENT, fragment);
+
+			if (geometry != null) sources.put(ShaderType.GEOMETRY, geometry);
+			if (tessControl != null) sources.put(ShaderType.TESSELATION_CONTROL, tessControl);
+			if (tessEval != null) sources.put(ShaderType.TESSELATION_EVAL, tessEval);
+
+			return sources;
+		}
 
 		@Override
 		public Optional<Resource> getResource(ResourceLocation id) {
@@ -0,0 +1,87 @@
+package net.irisshaders.iris.pipeline.programs;
+
+import net.irisshaders.iris.Iris;
+import net.irisshaders.iris.helpers.BoundedFileCache;
+import net.irisshaders.iris.platform.IrisPlatformHelpers;
+import net.irisshaders.iris.shaderpack.materialmap.NamespacedId;
+import net.irisshaders.iris.shaderpack.option.values.MutableOptionValues;
+import net.irisshaders.iris.shaderpack.option.values.OptionValues;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Remembers which {@link ShaderKey}s were used by a lazy {@link ShaderMap}, so that the next session can prewarm
+ * exactly those shaders.
+ * <p>
+ * Packs use very different sets of shaders depending on their options and the dimension, so the keys are stored
+ * separately for every combination of pack, option values and dimension.
+ */
+public class ShaderKeyUsage {
+	private static final Path USAGE_DIRECTORY = IrisPlatformHelpers.getInstance().getGameDir().resolve("iris_cache").resolve("used_shader_keys");
+
+	private final Path usageFile;
+
+	public ShaderKeyUsage(String packName, OptionValues optionValues, NamespacedId dimension) {
+		MessageDigest digest = BoundedFileCache.createDigest();
+		MutableOptionValues values = optionValues.mutableCopy();
+
+		BoundedFileCache.update(digest, String.valueOf(packName));
+		BoundedFileCache.update(digest, String.valueOf(dimension));
+
+		// Sorted, so that the same values always give the same file.
+		for (Map.Entry<String, Boolean> entry : new TreeMap<>(values.getBooleanValues()).entrySet()) {
+			BoundedFileCache.update(digest, entry.getKey());
+			BoundedFileCache.update(digest, entry.getValue().toString());
+		}
+
+		for (Map.Entry<String, String> entry : new TreeMap<>(values.getStringValues()).entrySet()) {
+			BoundedFileCache.update(digest, entry.getKey());
+			BoundedFileCache.update(digest, entry.getValue());
+		}
+
+		this.usageFile = USAGE_DIRECTORY.resolve(BoundedFileCache.toKey(digest) + ".txt");
+	}
+
+	public Set<ShaderKey> load() {
+		Set<ShaderKey> keys = EnumSet.noneOf(ShaderKey.class);
+
+		if (!Files.exists(usageFile)) {
+			return keys;
+		}
+
+		try {
+			for (String line : Files.readAllLines(usageFile)) {
+				try {
+					keys.add(ShaderKey.valueOf(line.trim()));
+				} catch (IllegalArgumentException ignored) {
+					// The key was removed or renamed in a later version.
+				}
+			}
+		} catch (IOException e) {
+			Iris.logger.warn("Failed to read the list of used shaders", e);
+		}
+
+		return keys;
+	}
+
+	public void save(Set<ShaderKey> keys) {
+		if (keys.isEmpty()) {
+			// Nothing was rendered, keep the previous list.
+			return;
+		}
+
+		try {
+			Files.createDirectories(usageFile.getParent());
+			Files.write(usageFile, keys.stream().map(ShaderKey::name).toList());
+		} catch (IOException e) {
+			Iris.logger.warn("Failed to write the list of used shaders", e);
+		}
+	}
+}
@@ -1,28 +1,133 @@
 package net.irisshaders.iris.pipeline.programs;
 
+import net.irisshaders.iris.Iris;
 import net.minecraft.client.renderer.ShaderInstance;
 
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Queue;
+import java.util.Set;
 import java.util.function.Function;
 
 /**
  * A specialized map mapping {@link ShaderKey} to {@link ShaderInstance}.
  * Avoids much of the complexity / overhead of an EnumMap while ultimately
  * fulfilling the same function.
+ * <p>
+ * In lazy mode, a shader is only created the first time it is requested. Keys
+ * that are expected to be needed (for example the ones used in the previous
+ * session) can be queued up with {@link #prewarm(long)} so that they are
+ * created a few at a time instead of stalling the frame that first uses them.
  */
 public class ShaderMap {
 	private final ShaderInstance[] shaders;
+	private final Function<ShaderKey, ShaderInstance> factory;
+	private final boolean[] created;
+	private final boolean[] used;
+	private final Queue<ShaderKey> prewarmQueue;
 
 	public ShaderMap(Function<ShaderKey, ShaderInstance> factory) {
 		ShaderKey[] ids = ShaderKey.values();
 
 		this.shaders = new ShaderInstance[ids.length];
+		this.factory = null;
+		this.created = null;
+		this.used = null;
+		this.prewarmQueue = null;
 
 		for (int i = 0; i < ids.length; i++) {
 			this.shaders[i] = factory.apply(ids[i]);
 		}
 	}
 
+	private ShaderMap(Function<ShaderKey, ShaderInstance> factory, Collection<ShaderKey> prewarmKeys) {
+		int count = ShaderKey.values().length;
+
+		this.shaders = new ShaderInstance[count];
+		this.factory = factory;
+		this.created = new boolean[count];
+		this.used = new boolean[count];
+		this.prewarmQueue = new ArrayDeque<>(prewarmKeys);
+	}
+
+	/**
+	 * Creates a map that calls the factory the first time each shader is requested.
+	 *
+	 * @param prewarmKeys keys to create ahead of time through {@link #prewarm(long)}
+	 */
+	public static ShaderMap lazy(Function<ShaderKey, ShaderInstance> factory, Collection<ShaderKey> prewarmKeys) {
+		return new ShaderMap(factory, prewarmKeys);
+	}
+
 	public ShaderInstance getShader(ShaderKey id) {
-		return shaders[id.ordinal()];
+		int index = id.ordinal();
+
+		if (factory != null) {
+			used[index] = true;
+
+			if (!created[index]) {
+				create(id);
+			}
+		}
+
+		return shaders[index];
+	}
+
+	/**
+	 * Creates queued shaders that have not been requested yet until the given time has passed. At least one shader is
+	 * created if any are left, so a slow shader doesn't hold up the queue. Does nothing if this map isn't lazy.
+	 */
+	public void prewarm(long budgetNanos) {
+		if (factory == null) {
+			return;
+		}
+
+		long deadline = System.nanoTime() + budgetNanos;
+
+		while (!prewarmQueue.isEmpty() && System.nanoTime() - deadline < 0) {
+			ShaderKey key = prewarmQueue.poll();
+
+			if (!created[key.ordinal()]) {
+				create(key);
+			}
+		}
+	}
+
+	private void create(ShaderKey key) {
+		int index = key.ordinal();
+
+		// Mark the shader as created up front, so that a failing shader isn't attempted again every frame.
+		created[index] = true;
+
+		try {
+			shaders[index] = factory.apply(key);
+		} catch (RuntimeException e) {
+			// The pipeline is already in use at this point, so fall back to the vanilla shader instead of
+			// taking the whole pipeline down.
+			Iris.logger.error("Failed to lazily create shader " + key.getName() + ", falling back to the vanilla shader", e);
+			shaders[index] = null;
+		}
+	}
+
+	/**
+	 * @return the keys that were requested through {@link #getShader(ShaderKey)}, or an empty set if this map isn't lazy
+	 */
+	public Set<ShaderKey> getUsedKeys() {
+		Set<ShaderKey> keys = EnumSet.noneOf(ShaderKey.class);
+
+		if (used != null) {
+			for (ShaderKey key : ShaderKey.values()) {
+				if (used[key.ordinal()]) {
+					keys.add(key);
+				}
+			}
+		}
+
+		return keys;
+	}
+
+	public boolean isLazy() {
+		return factory != null;
 	}
 }
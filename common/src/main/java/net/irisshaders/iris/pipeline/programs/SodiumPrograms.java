@@ -2,19 +2,20 @@ package net.irisshaders.iris.pipeline.programs;
 
 import com.google.common.collect.ImmutableSet;
 import com.google.common.primitives.Ints;
-import net.caffeinemc.mods.sodium.client.gl.GlObject;
 import net.caffeinemc.mods.sodium.client.gl.shader.GlProgram;
-import net.caffeinemc.mods.sodium.client.gl.shader.GlShader;
-import net.caffeinemc.mods.sodium.client.gl.shader.ShaderType;
 import net.caffeinemc.mods.sodium.client.render.chunk.shader.ChunkShaderBindingPoints;
 import net.caffeinemc.mods.sodium.client.render.chunk.shader.ChunkShaderInterface;
 import net.caffeinemc.mods.sodium.client.render.chunk.terrain.DefaultTerrainRenderPasses;
 import net.caffeinemc.mods.sodium.client.render.chunk.terrain.TerrainRenderPass;
-import net.irisshaders.iris.gl.GLDebug;
 import net.irisshaders.iris.gl.blending.AlphaTest;
 import net.irisshaders.iris.gl.blending.AlphaTests;
 import net.irisshaders.iris.gl.blending.BufferBlendOverride;
+import net.irisshaders.iris.compat.sodium.mixin.GlProgramAccessor;
 import net.irisshaders.iris.gl.framebuffer.GlFramebuffer;
+import net.irisshaders.iris.gl.shader.GlShader;
+import net.irisshaders.iris.gl.shader.ProgramBinaryCache.AttributeBinding;
+import net.irisshaders.iris.gl.shader.ProgramCreator;
+import net.irisshaders.iris.gl.shader.ShaderType;
 import net.irisshaders.iris.pipeline.IrisRenderingPipeline;
 import net.irisshaders.iris.pipeline.transform.PatchShaderType;
 import net.irisshaders.iris.pipeline.transform.ShaderPrinter;
@@ -29,17 +30,29 @@ import net.irisshaders.iris.shadows.ShadowRenderingState;
 import net.irisshaders.iris.targets.RenderTargets;
 import net.irisshaders.iris.uniforms.custom.CustomUniforms;
 import net.irisshaders.iris.vertices.sodium.terrain.FormatAnalyzer;
-import net.minecraft.resources.ResourceLocation;
 import org.lwjgl.opengl.GL43C;
 
 import java.util.ArrayList;
 import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.function.Supplier;
 
 public class SodiumPrograms {
+	private static final List<AttributeBinding> ATTRIBUTE_BINDINGS = List.of(
+		new AttributeBinding(ChunkShaderBindingPoints.ATTRIBUTE_POSITION, "a_Position"),
+		new AttributeBinding(ChunkShaderBindingPoints.ATTRIBUTE_COLOR, "a_Color"),
+		new AttributeBinding(ChunkShaderBindingPoints.ATTRIBUTE_TEXTURE, "a_TexCoord"),
+		new AttributeBinding(ChunkShaderBindingPoints.ATTRIBUTE_LIGHT_MATERIAL_INDEX, "a_LightAndData"),
+		new AttributeBinding(11, "mc_Entity"),
+		new AttributeBinding(12, "mc_midTexCoord"),
+		new AttributeBinding(13, "at_tangent"),
+		new AttributeBinding(10, "iris_Normal"),
+		new AttributeBinding(14, "at_midBlock")
+	);
+
 	private final EnumMap<Pass, GlFramebuffer> framebuffers = new EnumMap<>(Pass.class);
 	private final EnumMap<Pass, GlProgram<ChunkShaderInterface>> shaders = new EnumMap<>(Pass.class);
 
@@ -63,7 +76,7 @@ public class SodiumPrograms {
 
 			AlphaTest alphaTest = getAlphaTest(pass, source);
 			Map<PatchShaderType, String> transformed = transformShaders(source, alphaTest, programSet);
-			GlProgram<ChunkShaderInterface> shader = createShader(pipeline, pass, source, alphaTest, customUniforms, flipState, createGlShaders(pass.name().toLowerCase(Locale.ROOT), transformed));
+			GlProgram<ChunkShaderInterface> shader = createShader(pipeline, pass, source, alphaTest, customUniforms, flipState, transformed);
 			shaders.put(pass, shader);
 		}
 
@@ -91,16 +104,6 @@ public class SodiumPrograms {
 		return transformed;
 	}
 
-	private Map<PatchShaderType, GlShader> createGlShaders(String passName, Map<PatchShaderType, String> transformed) {
-		Map<PatchShaderType, GlShader> newMap = new EnumMap<>(PatchShaderType.class);
-		for (Map.Entry<PatchShaderType, String> entry : transformed.entrySet()) {
-			if (entry.getValue() == null) continue;
-			newMap.put(entry.getKey(), new GlShader(ShaderType.fromGlShaderType(entry.getKey().glShaderType.id),
-				ResourceLocation.fromNamespaceAndPath("iris", "sodium-shader-" + passName), entry.getValue()));
-		}
-		return newMap;
-	}
-
 	private Supplier<ImmutableSet<Integer>> getFlipState(IrisRenderingPipeline pipeline, Pass pass, boolean isShadowPass) {
 		if (isShadowPass) {
 			return pipeline::getFlippedBeforeShadow;
@@ -111,20 +114,32 @@ public class SodiumPrograms {
 	private GlProgram<ChunkShaderInterface> createShader(IrisRenderingPipeline pipeline, Pass pass, ProgramSource source,
 														 AlphaTest alphaTest,
 														 CustomUniforms customUniforms, Supplier<ImmutableSet<Integer>> flipState,
-														 Map<PatchShaderType, GlShader> transformed) {
-		GlProgram.Builder builder = GlProgram.builder(ResourceLocation.fromNamespaceAndPath("sodium", "chunk_shader_for_" + pass.name().toLowerCase(Locale.ROOT)));
+														 Map<PatchShaderType, String> transformed) {
+		String name = "sodium-terrain-" + pass.toString().toLowerCase(Locale.ROOT);
+		Map<ShaderType, String> sources = new LinkedHashMap<>();
 
-		for (GlShader shader : transformed.values()) {
-			builder.attachShader(shader);
+		for (Map.Entry<PatchShaderType, String> entry : transformed.entrySet()) {
+			if (entry.getValue() == null) continue;
+			sources.put(entry.getKey().glShaderType, entry.getValue());
 		}
 
+		// Sodium's program builder always compiles and links, so the program is created the same way as Iris' own
+		// programs, which lets it come from the program binary cache, and only then handed to Sodium.
+		int handle = ProgramCreator.create(name, sources, ATTRIBUTE_BINDINGS,
+			(type, shaderSource) -> new GlShader(type, name + PatchShaderType.fromGlShaderType(type)[0].extension, shaderSource));
+
 		boolean containsTessellation = source.getTessEvalSource().isPresent();
 
-		try {
-			return buildProgram(builder, pipeline, pass, source, alphaTest, customUniforms, flipState, containsTessellation);
-		} finally {
-			transformed.values().forEach(GlShader::delete);
-		}
+		return GlProgramAccessor.iris$create(handle, shader -> {
+			if (!hasNormal) hasNormal = GL43C.glGetAttribLocation(handle, "iris_Normal") != -1;
+			if (!hasMidBlock) hasMidBlock = GL43C.glGetAttribLocation(handle, "at_midBlock") != -1;
+			if (!hasBlockId) hasBlockId = GL43C.glGetAttribLocation(handle, "mc_Entity") != -1;
+			if (!hasMidUv) hasMidUv = GL43C.glGetAttribLocation(handle, "mc_midTexCoord") != -1;
+
+			return new SodiumShader(pipeline, pass, shader, handle, source.getDirectives().getBlendModeOverride().orElse(null),
+				createBufferBlendOverrides(source), customUniforms, flipState,
+				alphaTest.reference(), containsTessellation);
+		});
 	}
 
 	private GlFramebuffer createFramebuffer(Pass pass, ProgramSource source,
@@ -150,35 +165,6 @@ public class SodiumPrograms {
 		return overrides;
 	}
 
-	private GlProgram<ChunkShaderInterface> buildProgram(GlProgram.Builder builder, IrisRenderingPipeline pipeline,
-														 Pass pass, ProgramSource source, AlphaTest alphaTest, CustomUniforms customUniforms,
-														 Supplier<ImmutableSet<Integer>> flipState,
-														 boolean containsTessellation) {
-		return builder
-			.bindAttribute("a_Position", ChunkShaderBindingPoints.ATTRIBUTE_POSITION)
-			.bindAttribute("a_Color", ChunkShaderBindingPoints.ATTRIBUTE_COLOR)
-			.bindAttribute("a_TexCoord", ChunkShaderBindingPoints.ATTRIBUTE_TEXTURE)
-			.bindAttribute("a_LightAndData", ChunkShaderBindingPoints.ATTRIBUTE_LIGHT_MATERIAL_INDEX)
-			.bindAttribute("mc_Entity", 11)
-			.bindAttribute("mc_midTexCoord", 12)
-			.bindAttribute("at_tangent", 13)
-			.bindAttribute("iris_Normal", 10)
-			.bindAttribute("at_midBlock", 14)
-			.link((shader) -> {
-				int handle = ((GlObject) shader).handle();
-				GLDebug.nameObject(GL43C.GL_PROGRAM, handle, "sodium-terrain-" + pass.toString().toLowerCase(Locale.ROOT));
-
-				if (!hasNormal) hasNormal = GL43C.glGetAttribLocation(handle, "iris_Normal") != -1;
-				if (!hasMidBlock) hasMidBlock = GL43C.glGetAttribLocation(handle, "at_midBlock") != -1;
-				if (!hasBlockId) hasBlockId = GL43C.glGetAttribLocation(handle, "mc_Entity") != -1;
-				if (!hasMidUv) hasMidUv = GL43C.glGetAttribLocation(handle, "mc_midTexCoord") != -1;
-
-				return new SodiumShader(pipeline, pass, shader, handle, source.getDirectives().getBlendModeOverride().orElse(null),
-					createBufferBlendOverrides(source), customUniforms, flipState,
-					alphaTest.reference(), containsTessellation);
-			});
-	}
-
 	public GlProgram<ChunkShaderInterface> getProgram(TerrainRenderPass pass) {
 		Pass pass2 = mapTerrainRenderPass(pass);
 		return this.shaders.get(pass2);
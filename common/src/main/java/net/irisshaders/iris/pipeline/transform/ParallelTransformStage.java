@@ -0,0 +1,178 @@
+package net.irisshaders.iris.pipeline.transform;
+
+import it.unimi.dsi.fastutil.objects.Object2ObjectMap;
+import net.irisshaders.iris.gl.blending.AlphaTest;
+import net.irisshaders.iris.gl.blending.AlphaTests;
+import net.irisshaders.iris.gl.texture.TextureType;
+import net.irisshaders.iris.helpers.OptionalBoolean;
+import net.irisshaders.iris.helpers.Tri;
+import net.irisshaders.iris.pipeline.programs.GbufferPatch;
+import net.irisshaders.iris.pipeline.programs.ShaderKey;
+import net.irisshaders.iris.pipeline.programs.SodiumPrograms;
+import net.irisshaders.iris.shaderpack.loading.ProgramArrayId;
+import net.irisshaders.iris.shaderpack.loading.ProgramId;
+import net.irisshaders.iris.shaderpack.programs.ComputeSource;
+import net.irisshaders.iris.shaderpack.programs.ProgramFallbackResolver;
+import net.irisshaders.iris.shaderpack.programs.ProgramSet;
+import net.irisshaders.iris.shaderpack.programs.ProgramSource;
+import net.irisshaders.iris.shaderpack.texture.TextureStage;
+
+import java.util.Collection;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Patches the programs of a {@link ProgramSet} on worker threads ahead of time.
+ * <p>
+ * The jobs call {@link TransformPatcher} with exactly the same arguments the renderers use later, so that by the
+ * time the render thread gets to a program its transformed source is either already in the cache or being
+ * produced, and the render thread only has to compile and link. Failures are ignored here, the render thread will
+ * run into them again and report them as usual.
+ */
+public final class ParallelTransformStage {
+	private static final ExecutorService EXECUTOR;
+	private static final AtomicInteger PENDING = new AtomicInteger();
+
+	static {
+		int threads = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors() - 1, 4));
+		AtomicInteger threadCount = new AtomicInteger();
+
+		EXECUTOR = Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, "Iris Shader Transformer #" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	private ParallelTransformStage() {
+	}
+
+	/**
+	 * Queues the composite, final, compute, gbuffer, shadowcomp and terrain programs of the given program set for
+	 * patching. The jobs are submitted in the order that the pipeline creates the programs in.
+	 *
+	 * @param gbufferKeys the shaders the pipeline is going to create up front
+	 */
+	public static void prepatch(ProgramSet programSet, Collection<ShaderKey> gbufferKeys) {
+		Object2ObjectMap<Tri<String, TextureType, TextureStage>, String> textureMap = programSet.getPackDirectives().getTextureMap();
+		// the resolver caches its results in a plain map, so the jobs can't share the one of the pipeline
+		ProgramFallbackResolver resolver = new ProgramFallbackResolver(programSet);
+
+		submitComputes(programSet.getShadowCompute(), TextureStage.GBUFFERS_AND_SHADOW, textureMap);
+
+		submitComposites(programSet, ProgramArrayId.Begin, TextureStage.BEGIN, textureMap);
+		submitComposites(programSet, ProgramArrayId.Prepare, TextureStage.PREPARE, textureMap);
+		submitComposites(programSet, ProgramArrayId.Deferred, TextureStage.DEFERRED, textureMap);
+		submitComposites(programSet, ProgramArrayId.Composite, TextureStage.COMPOSITE_AND_FINAL, textureMap);
+
+		programSet.get(ProgramId.Final).ifPresent(source -> {
+			submitComposite(source, TextureStage.COMPOSITE_AND_FINAL, textureMap);
+			submitComputes(programSet.getFinalCompute(), TextureStage.COMPOSITE_AND_FINAL, textureMap);
+		});
+
+		// shadow shaders are only created when there are shadow render targets, which can't be known this early
+		boolean mayHaveShadows = programSet.getPackDirectives().getShadowDirectives().isShadowEnabled() != OptionalBoolean.FALSE;
+
+		for (ShaderKey key : gbufferKeys) {
+			if (!key.isShadow() || mayHaveShadows) {
+				resolver.resolve(key.getProgram()).ifPresent(source -> submitGbuffer(key, source, resolver.has(ProgramId.Line), textureMap));
+			}
+		}
+
+		submitComposites(programSet, ProgramArrayId.ShadowComposite, TextureStage.SHADOWCOMP, textureMap);
+
+		for (SodiumPrograms.Pass pass : SodiumPrograms.Pass.values()) {
+			ProgramSource source = resolver.resolveNullable(pass.getOriginalId());
+
+			if (source != null) {
+				submitTerrain(pass, source, textureMap);
+			}
+		}
+
+		submitComputes(programSet.getSetup(), TextureStage.SETUP, textureMap);
+	}
+
+	private static void submitGbuffer(ShaderKey key, ProgramSource source, boolean hasLineProgram,
+									  Object2ObjectMap<Tri<String, TextureType, TextureStage>, String> textureMap) {
+		GbufferPatch patch = GbufferPatch.of(key, source, hasLineProgram);
+
+		submit(() -> patch.transform(textureMap));
+	}
+
+	private static void submitTerrain(SodiumPrograms.Pass pass, ProgramSource source,
+									  Object2ObjectMap<Tri<String, TextureType, TextureStage>, String> textureMap) {
+		// mirrors SodiumPrograms#getAlphaTest
+		AlphaTest alpha = source.getDirectives().getAlphaTestOverride().orElse(
+			pass == SodiumPrograms.Pass.TERRAIN_CUTOUT || pass == SodiumPrograms.Pass.SHADOW_CUTOUT ? AlphaTests.ONE_TENTH_ALPHA : AlphaTest.ALWAYS);
+
+		submit(() -> TransformPatcher.patchSodium(source.getName(),
+			source.getVertexSource().orElse(null),
+			source.getGeometrySource().orElse(null),
+			source.getTessControlSource().orElse(null),
+			source.getTessEvalSource().orElse(null),
+			source.getFragmentSource().orElse(null),
+			alpha, textureMap));
+	}
+
+	private static void submitComposites(ProgramSet programSet, ProgramArrayId id, TextureStage stage,
+										 Object2ObjectMap<Tri<String, TextureType, TextureStage>, String> textureMap) {
+		ProgramSource[] sources = programSet.getComposite(id);
+		ComputeSource[][] computes = programSet.getCompute(id);
+
+		for (int i = 0; i < sources.length; i++) {
+			ProgramSource source = sources[i];
+
+			if (source != null && source.isValid()) {
+				submitComposite(source, stage, textureMap);
+			}
+
+			if (i < computes.length) {
+				submitComputes(computes[i], stage, textureMap);
+			}
+		}
+	}
+
+	private static void submitComposite(ProgramSource source, TextureStage stage,
+										Object2ObjectMap<Tri<String, TextureType, TextureStage>, String> textureMap) {
+		submit(() -> TransformPatcher.patchComposite(source.getName(),
+			source.getVertexSource().orElseThrow(NullPointerException::new),
+			source.getGeometrySource().orElse(null),
+			source.getFragmentSource().orElseThrow(NullPointerException::new), stage, textureMap));
+	}
+
+	private static void submitComputes(ComputeSource[] sources, TextureStage stage,
+									   Object2ObjectMap<Tri<String, TextureType, TextureStage>, String> textureMap) {
+		if (sources == null) {
+			return;
+		}
+
+		for (ComputeSource source : sources) {
+			if (source != null && source.isValid()) {
+				submit(() -> TransformPatcher.patchCompute(source.getName(), source.getSource().orElse(null), stage, textureMap));
+			}
+		}
+	}
+
+	/**
+	 * Returns whether every submitted job has finished, so that the render thread won't have to wait for a worker
+	 * when it patches a program.
+	 */
+	public static boolean isIdle() {
+		return PENDING.get() == 0;
+	}
+
+	private static void submit(Runnable job) {
+		PENDING.incrementAndGet();
+
+		EXECUTOR.execute(() -> {
+			try {
+				job.run();
+			} catch (RuntimeException ignored) {
+				// the render thread will hit the same error and report it
+			} finally {
+				PENDING.decrementAndGet();
+			}
+		});
+	}
+}
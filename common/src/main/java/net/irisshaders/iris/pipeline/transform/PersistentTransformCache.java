@@ -0,0 +1,148 @@
+package net.irisshaders.iris.pipeline.transform;
+
+import net.irisshaders.iris.Iris;
+import net.irisshaders.iris.helpers.BoundedFileCache;
+import net.irisshaders.iris.platform.IrisPlatformHelpers;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * A content-addressed on-disk cache for the output of {@link TransformPatcher}, so that the transformed sources
+ * survive game restarts.
+ * <p>
+ * Entries are keyed on a SHA-256 hash of the input sources, the stable key of the transform
+ * {@link net.irisshaders.iris.pipeline.transform.parameter.Parameters} and a salt containing the transformer
+ * version. Changing anything that affects the patcher output therefore just results in new entries, and the old
+ * ones are eventually evicted by the underlying {@link BoundedFileCache}.
+ * <p>
+ * All methods are safe to call from multiple threads. Any I/O error is treated as a cache miss.
+ */
+public class PersistentTransformCache {
+	private static final int MAGIC = 0x49545243; // "ITRC"
+	private static final int FORMAT_VERSION = 1;
+	private static final long MAX_CACHE_SIZE = 64L * 1024 * 1024;
+
+	private final BoundedFileCache storage;
+	private final String salt;
+
+	public PersistentTransformCache(BoundedFileCache storage, String salt) {
+		this.storage = storage;
+		this.salt = salt;
+	}
+
+	public static PersistentTransformCache createDefault(String transformerVersion) {
+		return new PersistentTransformCache(new BoundedFileCache(IrisPlatformHelpers.getInstance().getGameDir().resolve("iris_cache").resolve("transform"), MAX_CACHE_SIZE),
+			transformerVersion + ";" + Iris.getVersion());
+	}
+
+	/**
+	 * Computes the content address for the given sources and stable parameter key.
+	 *
+	 * @param stableKey the stable key of the transform parameters, also including any global state that affects the output
+	 * @param sources   the input sources by shader type, null values are allowed
+	 */
+	public String computeKey(String stableKey, Map<PatchShaderType, String> sources) {
+		MessageDigest digest = BoundedFileCache.createDigest();
+
+		BoundedFileCache.update(digest, salt);
+		BoundedFileCache.update(digest, stableKey);
+
+		for (PatchShaderType type : PatchShaderType.values()) {
+			String source = sources.get(type);
+
+			if (source != null) {
+				BoundedFileCache.update(digest, type.name());
+				BoundedFileCache.update(digest, source);
+			}
+		}
+
+		return BoundedFileCache.toKey(digest);
+	}
+
+	/**
+	 * Returns the cached transform result for the given key, or null if there is none.
+	 */
+	public Map<PatchShaderType, String> get(String key) {
+		byte[] data = storage.read(key);
+
+		if (data == null) {
+			return null;
+		}
+
+		try (DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(data)))) {
+			if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+				storage.remove(key);
+				return null;
+			}
+
+			Map<PatchShaderType, String> result = new EnumMap<>(PatchShaderType.class);
+			PatchShaderType[] types = PatchShaderType.values();
+			int count = in.readInt();
+
+			for (int i = 0; i < count; i++) {
+				PatchShaderType type = types[in.readInt()];
+				byte[] bytes = new byte[in.readInt()];
+				in.readFully(bytes);
+				result.put(type, new String(bytes, StandardCharsets.UTF_8));
+			}
+
+			return result;
+		} catch (IOException | RuntimeException e) {
+			Iris.logger.warn("Failed to read shader transform cache entry " + key + ", ignoring it", e);
+			storage.remove(key);
+			return null;
+		}
+	}
+
+	/**
+	 * Stores a transform result under the given key.
+	 */
+	public void put(String key, Map<PatchShaderType, String> result) {
+		try {
+			storage.write(key, serialize(result));
+		} catch (IOException e) {
+			Iris.logger.warn("Failed to serialize shader transform cache entry", e);
+		}
+	}
+
+	private static byte[] serialize(Map<PatchShaderType, String> result) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+			out.writeInt(MAGIC);
+			out.writeInt(FORMAT_VERSION);
+
+			int count = 0;
+			for (String source : result.values()) {
+				if (source != null) {
+					count++;
+				}
+			}
+
+			out.writeInt(count);
+
+			for (Map.Entry<PatchShaderType, String> entry : result.entrySet()) {
+				if (entry.getValue() == null) {
+					continue;
+				}
+
+				byte[] source = entry.getValue().getBytes(StandardCharsets.UTF_8);
+				out.writeInt(entry.getKey().ordinal());
+				out.writeInt(source.length);
+				out.write(source);
+			}
+		}
+
+		return bytes.toByteArray();
+	}
+}
@@ -10,6 +10,7 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 
 /**
@@ -17,15 +18,15 @@ import java.util.stream.Stream;
  */
 public class ShaderPrinter {
 	private static final Path debugOutDir = IrisPlatformHelpers.getInstance().getGameDir().resolve("patched_shaders");
-	private static boolean outputLocationCleared = false;
-	private static int programCounter = 0;
+	private static final AtomicInteger programCounter = new AtomicInteger();
+	private static volatile boolean outputLocationCleared = false;
 
 	public static void resetPrintState() {
 		outputLocationCleared = false;
-		programCounter = 0;
+		programCounter.set(0);
 	}
 
-	public static void deleteIfClearing() {
+	public static synchronized void deleteIfClearing() {
 		if (!outputLocationCleared) {
 			try {
 				if (Files.exists(debugOutDir)) {
@@ -59,7 +60,7 @@ public class ShaderPrinter {
 
 		// the prefix is created at instantiation time so that all sources attached to
 		// this builder use the same counter prefix
-		private final String prefix = isActive ? String.format("%03d_", ++programCounter) : null;
+		private final String prefix = isActive ? String.format("%03d_", programCounter.incrementAndGet()) : null;
 
 		// the prefix and the sources list aren't created if debug is disabled
 		private final List<String> sources = isActive ? new ArrayList<>(PatchShaderType.values().length * 2) : null;
@@ -115,6 +116,21 @@ public class ShaderPrinter {
 			}
 			done = true;
 			if (isActive) {
+				clearOutputLocation();
+
+				try {
+					for (int i = 0; i < sources.size(); i += 2) {
+						Files.writeString(debugOutDir.resolve(sources.get(i)), sources.get(i + 1));
+					}
+				} catch (IOException e) {
+					Iris.logger.warn("Failed to write debug patched shader source", e);
+				}
+			}
+		}
+
+		// programs may be printed from the transform worker threads, so only one of them should clear the folder
+		private static void clearOutputLocation() {
+			synchronized (ShaderPrinter.class) {
 				if (!outputLocationCleared) {
 					try {
 						if (Files.exists(debugOutDir)) {
@@ -135,14 +151,6 @@ public class ShaderPrinter {
 					}
 					outputLocationCleared = true;
 				}
-
-				try {
-					for (int i = 0; i < sources.size(); i += 2) {
-						Files.writeString(debugOutDir.resolve(sources.get(i)), sources.get(i + 1));
-					}
-				} catch (IOException e) {
-					Iris.logger.warn("Failed to write debug patched shader source", e);
-				}
 			}
 		}
 	}
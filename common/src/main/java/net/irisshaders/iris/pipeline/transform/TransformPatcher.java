@@ -21,6 +21,7 @@ import net.irisshaders.iris.gl.blending.AlphaTest;
 import net.irisshaders.iris.gl.shader.ShaderCompileException;
 import net.irisshaders.iris.gl.state.ShaderAttributeInputs;
 import net.irisshaders.iris.gl.texture.TextureType;
+import net.irisshaders.iris.gl.uniform.FrameUniformBuffer;
 import net.irisshaders.iris.helpers.Tri;
 import net.irisshaders.iris.pipeline.transform.parameter.ComputeParameters;
 import net.irisshaders.iris.pipeline.transform.parameter.DHParameters;
@@ -34,21 +35,27 @@ import net.irisshaders.iris.pipeline.transform.transformer.CompositeCoreTransfor
 import net.irisshaders.iris.pipeline.transform.transformer.CompositeTransformer;
 import net.irisshaders.iris.pipeline.transform.transformer.DHGenericTransformer;
 import net.irisshaders.iris.pipeline.transform.transformer.DHTerrainTransformer;
+import net.irisshaders.iris.pipeline.transform.transformer.FrameUniformBlockTransformer;
 import net.irisshaders.iris.pipeline.transform.transformer.LayoutTransformer;
 import net.irisshaders.iris.pipeline.transform.transformer.SodiumCoreTransformer;
 import net.irisshaders.iris.pipeline.transform.transformer.SodiumTransformer;
 import net.irisshaders.iris.pipeline.transform.transformer.TextureTransformer;
 import net.irisshaders.iris.pipeline.transform.transformer.VanillaCoreTransformer;
 import net.irisshaders.iris.pipeline.transform.transformer.VanillaTransformer;
+import net.irisshaders.iris.platform.IrisPlatformHelpers;
 import net.irisshaders.iris.shaderpack.texture.TextureStage;
 import org.antlr.v4.runtime.Token;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.util.Collections;
 import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -63,6 +70,20 @@ import java.util.regex.Pattern;
  * be disabled when developing shaderpacks. However, when changes are made to
  * the patcher, the cache should be disabled with {@link #useCache}.
  * <p>
+ * In addition to the in-memory cache, results are stored in a
+ * {@link PersistentTransformCache} so that they survive game restarts. Its
+ * entries are keyed on {@link #TRANSFORMER_VERSION}, which must be bumped when
+ * the output of the patcher changes for the same input. The persistent cache is
+ * disabled in development environments.
+ * <p>
+ * All patch methods may be called from any thread. The caches are shared, and
+ * a program that is already being transformed by another thread is waited on
+ * instead of being transformed twice. Each thread has its own glsl-transformer
+ * instance, and the transformer classes keep their matchers per thread, so
+ * transformations run concurrently. This lets {@link ParallelTransformStage}
+ * overlap them with the GL compile step on the render thread. A program that
+ * failed is remembered, so its errored sources are only printed once.
+ * <p>
  * NOTE: This patcher expects (and ensures) that the string doesn't contain any
  * (!) preprocessor directives. The only allowed ones are #extension and #pragma
  * as they are considered "parsed" directives. If any other directive appears in
@@ -71,25 +92,35 @@ import java.util.regex.Pattern;
 public class TransformPatcher {
 	// TODO: Only do the NewLines patches if the source code isn't from
 	// gbuffers_lines (what does this mean?)
-	static final TokenFilter<Parameters> parseTokenFilter = new ChannelFilter<>(TokenChannel.PREPROCESSOR) {
-		@Override
-		public boolean isTokenAllowed(Token token) {
-			if (!super.isTokenAllowed(token)) {
-				throw new IllegalArgumentException("Unparsed preprocessor directives such as '" + token.getText()
-					+ "' may not be present at this stage of shader processing!");
-			}
-			return true;
-		}
-	};
 	private static final boolean useCache = true;
-	private static final Map<CacheKey, Map<PatchShaderType, String>> cache = new LRUCache<>(400);
+	// bump this whenever a change to the patcher changes its output for the same input
+	private static final String TRANSFORMER_VERSION = "1";
+	private static final Map<CacheKey, Map<PatchShaderType, String>> cache = Collections.synchronizedMap(new LRUCache<>(400));
+	private static final Map<CacheKey, CompletableFuture<Map<PatchShaderType, String>>> inFlight = new ConcurrentHashMap<>();
+	// programs that failed to transform, so that the error is reported once instead of once per thread that asks.
+	// Cleared on every pack reload, so that a reload always reports the errors of the pack again.
+	private static final Map<CacheKey, RuntimeException> failures = Collections.synchronizedMap(new LRUCache<>(50));
 	private static final List<String> internalPrefixes = List.of("iris_", "irisMain", "moj_import");
 	private static final Pattern versionPattern = Pattern.compile("#version\\s+(\\d+)", Pattern.DOTALL);
-	private static final EnumASTTransformer<Parameters, PatchShaderType> transformer;
+	// glsl-transformer's parser and the active build root aren't thread safe, so each thread gets its own transformer
+	private static final ThreadLocal<EnumASTTransformer<Parameters, PatchShaderType>> transformer = ThreadLocal.withInitial(TransformPatcher::createTransformer);
 	static Logger LOGGER = LogManager.getLogger(TransformPatcher.class);
 
-	static {
-		transformer = new EnumASTTransformer<>(PatchShaderType.class) {
+	private static TokenFilter<Parameters> createParseTokenFilter() {
+		return new ChannelFilter<>(TokenChannel.PREPROCESSOR) {
+			@Override
+			public boolean isTokenAllowed(Token token) {
+				if (!super.isTokenAllowed(token)) {
+					throw new IllegalArgumentException("Unparsed preprocessor directives such as '" + token.getText()
+						+ "' may not be present at this stage of shader processing!");
+				}
+				return true;
+			}
+		};
+	}
+
+	private static EnumASTTransformer<Parameters, PatchShaderType> createTransformer() {
+		EnumASTTransformer<Parameters, PatchShaderType> transformer = new EnumASTTransformer<>(PatchShaderType.class) {
 			{
 				setRootSupplier(RootSupplier.PREFIX_UNORDERED_ED_EXACT);
 			}
@@ -103,7 +134,7 @@ public class TransformPatcher {
 					throw new IllegalArgumentException(
 						"No #version directive found in source code! See debugging.md for more information.");
 				}
-				transformer.getLexer().version = Version.fromNumber(Integer.parseInt(matcher.group(1)));
+				getLexer().version = Version.fromNumber(Integer.parseInt(matcher.group(1)));
 
 				return super.parseTranslationUnit(rootInstance, input);
 			}
@@ -198,6 +229,10 @@ public class TransformPatcher {
 					TextureTransformer.transform(transformer, tree, root,
 						parameters.getTextureStage(), parameters.getTextureMap());
 					CompatibilityTransformer.transformEach(transformer, tree, root, parameters);
+
+					if (FrameUniformBuffer.isEnabled()) {
+						FrameUniformBlockTransformer.transform(transformer, tree, root);
+					}
 				});
 			}
 
@@ -208,16 +243,22 @@ public class TransformPatcher {
 				LayoutTransformer.transformGrouped(transformer, trees, parameters);
 			}
 		});
-		transformer.setTokenFilter(parseTokenFilter);
+		transformer.setTokenFilter(createParseTokenFilter());
+
+		return transformer;
 	}
 
 	private static Map<PatchShaderType, String> transformInternal(
 		String name,
 		Map<PatchShaderType, String> inputs,
-		Parameters parameters) {
+		Parameters parameters,
+		PrintType printType) {
 		try {
 			// set shader name
 			parameters.name = name;
+
+			EnumASTTransformer<Parameters, PatchShaderType> transformer = TransformPatcher.transformer.get();
+			transformer.setPrintType(printType);
 			return transformer.transform(inputs, parameters);
 		} catch (TransformationException | ParsingException | IllegalStateException | IllegalArgumentException e) {
 			// print the offending programs and rethrow to stop the loading process
@@ -226,69 +267,140 @@ public class TransformPatcher {
 		}
 	}
 
-	private static Map<PatchShaderType, String> transform(String name, String vertex, String geometry, String tessControl, String tessEval, String fragment,
-														  Parameters parameters) {
-		// stop if all are null
-		if (vertex == null && geometry == null && tessControl == null && tessEval == null && fragment == null) {
+	private static PersistentTransformCache getPersistentCache() {
+		if (Iris.getIrisConfig() == null || !Iris.getIrisConfig().isShaderCacheEnabled()
+			|| IrisPlatformHelpers.getInstance().isDevelopmentEnvironment()) {
 			return null;
 		}
 
-		// check if this has been cached
-		CacheKey key;
-		Map<PatchShaderType, String> result = null;
-		if (useCache) {
-			key = new CacheKey(parameters, vertex, geometry, tessControl, tessEval, fragment);
-			if (cache.containsKey(key)) {
-				result = cache.get(key);
-			}
+		return PersistentCacheHolder.INSTANCE;
+	}
+
+	private static Map<PatchShaderType, String> transformPersistent(
+		String name,
+		Map<PatchShaderType, String> inputs,
+		Parameters parameters,
+		PrintType printType) {
+		PersistentTransformCache diskCache = getPersistentCache();
+
+		if (diskCache == null) {
+			return transformInternal(name, inputs, parameters, printType);
 		}
 
-		// if there is no cache result, transform the shaders
+		// global state that affects the output of the transformation also has to be part of the key
+		StringBuilder stableKey = new StringBuilder();
+		parameters.appendStableKey(stableKey);
+		stableKey.append(printType).append(';')
+			.append(IrisLimits.VK_CONFORMANCE).append(';')
+			.append(FrameUniformBuffer.isEnabled()).append(';')
+			.append(Iris.getIrisConfig().areDebugOptionsEnabled());
+
+		String key = diskCache.computeKey(stableKey.toString(), inputs);
+		Map<PatchShaderType, String> result = diskCache.get(key);
+
 		if (result == null) {
-			transformer.setPrintType(Iris.getIrisConfig().areDebugOptionsEnabled() ? PrintType.INDENTED : PrintType.SIMPLE);
-			EnumMap<PatchShaderType, String> inputs = new EnumMap<>(PatchShaderType.class);
-			inputs.put(PatchShaderType.VERTEX, vertex);
-			inputs.put(PatchShaderType.GEOMETRY, geometry);
-			inputs.put(PatchShaderType.TESS_CONTROL, tessControl);
-			inputs.put(PatchShaderType.TESS_EVAL, tessEval);
-			inputs.put(PatchShaderType.FRAGMENT, fragment);
-
-			result = transformInternal(name, inputs, parameters);
-			if (useCache) {
-				cache.put(key, result);
-			}
+			result = transformInternal(name, inputs, parameters, printType);
+			diskCache.put(key, result);
 		}
+
 		return result;
 	}
 
+	private static Map<PatchShaderType, String> transform(String name, String vertex, String geometry, String tessControl, String tessEval, String fragment,
+														  Parameters parameters) {
+		// stop if all are null
+		if (vertex == null && geometry == null && tessControl == null && tessEval == null && fragment == null) {
+			return null;
+		}
+
+		EnumMap<PatchShaderType, String> inputs = new EnumMap<>(PatchShaderType.class);
+		inputs.put(PatchShaderType.VERTEX, vertex);
+		inputs.put(PatchShaderType.GEOMETRY, geometry);
+		inputs.put(PatchShaderType.TESS_CONTROL, tessControl);
+		inputs.put(PatchShaderType.TESS_EVAL, tessEval);
+		inputs.put(PatchShaderType.FRAGMENT, fragment);
+
+		return transformCached(name, new CacheKey(parameters, vertex, geometry, tessControl, tessEval, fragment), inputs, parameters);
+	}
+
 	private static Map<PatchShaderType, String> transformCompute(String name, String compute, Parameters parameters) {
 		// stop if all are null
 		if (compute == null) {
 			return null;
 		}
 
+		EnumMap<PatchShaderType, String> inputs = new EnumMap<>(PatchShaderType.class);
+		inputs.put(PatchShaderType.COMPUTE, compute);
+
+		return transformCached(name, new CacheKey(parameters, compute), inputs, parameters);
+	}
+
+	/**
+	 * Forgets every program that failed to transform. The successful results are kept, they only depend on the
+	 * source and the parameters and stay valid across reloads.
+	 */
+	public static void clearFailures() {
+		failures.clear();
+	}
+
+	private static Map<PatchShaderType, String> transformCached(String name, CacheKey key, Map<PatchShaderType, String> inputs,
+																Parameters parameters) {
+		PrintType printType = Iris.getIrisConfig().areDebugOptionsEnabled() ? PrintType.INDENTED : PrintType.SIMPLE;
+
+		if (!useCache) {
+			return transformPersistent(name, inputs, parameters, printType);
+		}
+
 		// check if this has been cached
-		CacheKey key;
-		Map<PatchShaderType, String> result = null;
-		if (useCache) {
-			key = new CacheKey(parameters, compute);
-			if (cache.containsKey(key)) {
-				result = cache.get(key);
-			}
+		Map<PatchShaderType, String> result = cache.get(key);
+		if (result != null) {
+			return result;
 		}
 
-		// if there is no cache result, transform the shaders
-		if (result == null) {
-			transformer.setPrintType(Iris.getIrisConfig().areDebugOptionsEnabled() ? PrintType.INDENTED : PrintType.SIMPLE);
-			EnumMap<PatchShaderType, String> inputs = new EnumMap<>(PatchShaderType.class);
-			inputs.put(PatchShaderType.COMPUTE, compute);
+		// don't transform a program again after it failed, rethrow the reported error instead
+		RuntimeException failure = failures.get(key);
+		if (failure != null) {
+			throw failure;
+		}
 
-			result = transformInternal(name, inputs, parameters);
-			if (useCache) {
+		// check if another thread is already transforming the same program
+		CompletableFuture<Map<PatchShaderType, String>> future = new CompletableFuture<>();
+		CompletableFuture<Map<PatchShaderType, String>> existing = inFlight.putIfAbsent(key, future);
+		if (existing != null) {
+			return awaitInFlight(existing);
+		}
+
+		try {
+			// the other thread might have finished between the two checks
+			result = cache.get(key);
+
+			// if there is no cache result, transform the shaders
+			if (result == null) {
+				result = transformPersistent(name, inputs, parameters, printType);
 				cache.put(key, result);
 			}
+
+			future.complete(result);
+			return result;
+		} catch (RuntimeException e) {
+			failures.put(key, e);
+			future.completeExceptionally(e);
+			throw e;
+		} finally {
+			inFlight.remove(key);
+		}
+	}
+
+	private static Map<PatchShaderType, String> awaitInFlight(CompletableFuture<Map<PatchShaderType, String>> future) {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+
+			throw e;
 		}
-		return result;
 	}
 
 	public static Map<PatchShaderType, String> patchVanilla(
@@ -340,6 +452,11 @@ public class TransformPatcher {
 			.getOrDefault(PatchShaderType.COMPUTE, null);
 	}
 
+	private static class PersistentCacheHolder {
+		// created on first use by whichever thread gets there first, class initialization makes this safe
+		static final PersistentTransformCache INSTANCE = PersistentTransformCache.createDefault(TRANSFORMER_VERSION);
+	}
+
 	private static class CacheKey {
 		final Parameters parameters;
 		final String vertex;
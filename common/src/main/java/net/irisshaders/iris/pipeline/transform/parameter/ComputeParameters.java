@@ -7,7 +7,7 @@ import net.irisshaders.iris.pipeline.transform.Patch;
 import net.irisshaders.iris.shaderpack.texture.TextureStage;
 
 public class ComputeParameters extends TextureStageParameters {
-	// WARNING: adding new fields requires updating hashCode and equals methods!
+	// WARNING: adding new fields requires updating hashCode, equals and appendStableKey methods!
 
 	public ComputeParameters(Patch patch, TextureStage stage,
 							 Object2ObjectMap<Tri<String, TextureType, TextureStage>, String> textureMap) {
@@ -9,7 +9,7 @@ import net.irisshaders.iris.shaderpack.texture.TextureStage;
 public abstract class GeometryInfoParameters extends Parameters {
 	public final boolean hasGeometry;
 	public final boolean hasTesselation;
-	// WARNING: adding new fields requires updating hashCode and equals methods!
+	// WARNING: adding new fields requires updating hashCode, equals and appendStableKey methods!
 
 	public GeometryInfoParameters(Patch patch,
 								  Object2ObjectMap<Tri<String, TextureType, TextureStage>, String> textureMap, boolean hasGeometry, boolean hasTesselation) {
@@ -18,6 +18,12 @@ public abstract class GeometryInfoParameters extends Parameters {
 		this.hasTesselation = hasTesselation;
 	}
 
+	@Override
+	public void appendStableKey(StringBuilder builder) {
+		super.appendStableKey(builder);
+		builder.append(hasGeometry).append(';').append(hasTesselation).append(';');
+	}
+
 	@Override
 	public int hashCode() {
 		final int prime = 31;
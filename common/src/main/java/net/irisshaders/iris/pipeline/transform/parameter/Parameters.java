@@ -9,11 +9,15 @@ import net.irisshaders.iris.pipeline.transform.Patch;
 import net.irisshaders.iris.pipeline.transform.PatchShaderType;
 import net.irisshaders.iris.shaderpack.texture.TextureStage;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 public abstract class Parameters implements JobParameters {
 	public final Patch patch;
 	private final Object2ObjectMap<Tri<String, TextureType, TextureStage>, String> textureMap;
 	public PatchShaderType type; // may only be set by TransformPatcher
-	// WARNING: adding new fields requires updating hashCode and equals methods!
+	// WARNING: adding new fields requires updating hashCode, equals and appendStableKey methods!
 
 	// name of the shader, this should not be part of hash/equals
 	public String name; // set by TransformPatcher
@@ -33,6 +37,28 @@ public abstract class Parameters implements JobParameters {
 		return textureMap;
 	}
 
+	/**
+	 * Appends a description of this object's fields that stays the same across game launches, unlike
+	 * {@link #hashCode()}. This is used to key the persistent transform cache.
+	 */
+	public void appendStableKey(StringBuilder builder) {
+		builder.append(getClass().getSimpleName()).append(';').append(patch).append(';');
+
+		if (textureMap == null) {
+			builder.append("null;");
+			return;
+		}
+
+		// the iteration order of the texture map is not stable, so sort the entries first
+		List<String> entries = new ArrayList<>(textureMap.size());
+		textureMap.forEach((key, value) -> entries.add(key.first() + "," + key.second() + "," + key.third() + "=" + value));
+		Collections.sort(entries);
+
+		for (String entry : entries) {
+			builder.append(entry).append(';');
+		}
+	}
+
 	@Override
 	public int hashCode() {
 		final int prime = 31;
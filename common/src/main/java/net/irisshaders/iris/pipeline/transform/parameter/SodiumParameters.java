@@ -8,7 +8,7 @@ import net.irisshaders.iris.pipeline.transform.Patch;
 import net.irisshaders.iris.shaderpack.texture.TextureStage;
 
 public class SodiumParameters extends Parameters {
-	// WARNING: adding new fields requires updating hashCode and equals methods!
+	// WARNING: adding new fields requires updating hashCode, equals and appendStableKey methods!
 
 	// DO NOT include this field in hashCode or equals, it's mutable!
 	// (See use of setAlphaFor in TransformPatcher)
@@ -33,6 +33,12 @@ public class SodiumParameters extends Parameters {
 	}
 
 
+	@Override
+	public void appendStableKey(StringBuilder builder) {
+		super.appendStableKey(builder);
+		builder.append(alpha).append(';');
+	}
+
 	@Override
 	public int hashCode() {
 		final int prime = 31;
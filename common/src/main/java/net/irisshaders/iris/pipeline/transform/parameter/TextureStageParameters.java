@@ -8,7 +8,7 @@ import net.irisshaders.iris.shaderpack.texture.TextureStage;
 
 public class TextureStageParameters extends Parameters {
 	private final TextureStage stage;
-	// WARNING: adding new fields requires updating hashCode and equals methods!
+	// WARNING: adding new fields requires updating hashCode, equals and appendStableKey methods!
 
 	public TextureStageParameters(Patch patch, TextureStage stage,
 								  Object2ObjectMap<Tri<String, TextureType, TextureStage>, String> textureMap) {
@@ -21,6 +21,12 @@ public class TextureStageParameters extends Parameters {
 		return stage;
 	}
 
+	@Override
+	public void appendStableKey(StringBuilder builder) {
+		super.appendStableKey(builder);
+		builder.append(stage).append(';');
+	}
+
 	@Override
 	public int hashCode() {
 		final int prime = 31;
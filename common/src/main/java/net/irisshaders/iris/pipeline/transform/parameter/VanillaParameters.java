@@ -13,7 +13,7 @@ public class VanillaParameters extends GeometryInfoParameters {
 	public final ShaderAttributeInputs inputs;
 	public final boolean hasChunkOffset;
 	private final boolean isLines;
-	// WARNING: adding new fields requires updating hashCode and equals methods!
+	// WARNING: adding new fields requires updating hashCode, equals and appendStableKey methods!
 
 	public VanillaParameters(
 		Patch patch,
@@ -41,6 +41,14 @@ public class VanillaParameters extends GeometryInfoParameters {
 		return TextureStage.GBUFFERS_AND_SHADOW;
 	}
 
+	@Override
+	public void appendStableKey(StringBuilder builder) {
+		super.appendStableKey(builder);
+		builder.append(alpha).append(';');
+		builder.append(inputs == null ? null : inputs.toStableKey()).append(';');
+		builder.append(hasChunkOffset).append(';').append(isLines).append(';');
+	}
+
 	@Override
 	public int hashCode() {
 		final int prime = 31;
@@ -36,13 +36,13 @@ import java.util.Set;
 import java.util.stream.Stream;
 
 public class CommonTransformer {
-	public static final AutoHintedMatcher<Expression> glTextureMatrix0 = new AutoHintedMatcher<>(
-		"gl_TextureMatrix[0]", ParseShape.EXPRESSION);
-	public static final AutoHintedMatcher<Expression> glTextureMatrix1 = new AutoHintedMatcher<>(
-		"gl_TextureMatrix[1]", ParseShape.EXPRESSION);
-	public static final AutoHintedMatcher<Expression> glTextureMatrix2 = new AutoHintedMatcher<>(
-		"gl_TextureMatrix[2]", ParseShape.EXPRESSION);
-	public static final Matcher<ExternalDeclaration> sampler = new Matcher<>(
+	public static final PerThread<AutoHintedMatcher<Expression>> glTextureMatrix0 = new PerThread<>(() -> new AutoHintedMatcher<>(
+		"gl_TextureMatrix[0]", ParseShape.EXPRESSION));
+	public static final PerThread<AutoHintedMatcher<Expression>> glTextureMatrix1 = new PerThread<>(() -> new AutoHintedMatcher<>(
+		"gl_TextureMatrix[1]", ParseShape.EXPRESSION));
+	public static final PerThread<AutoHintedMatcher<Expression>> glTextureMatrix2 = new PerThread<>(() -> new AutoHintedMatcher<>(
+		"gl_TextureMatrix[2]", ParseShape.EXPRESSION));
+	public static final PerThread<Matcher<ExternalDeclaration>> sampler = new PerThread<>(() -> new Matcher<ExternalDeclaration>(
 		"uniform Type name;", ParseShape.EXTERNAL_DECLARATION) {
 		{
 			markClassedPredicateWildcard("type",
@@ -52,9 +52,9 @@ public class CommonTransformer {
 			markClassWildcard("name*",
 				pattern.getRoot().identifierIndex.getUnique("name").getAncestor(DeclarationMember.class));
 		}
-	};
+	});
 
-	private static final AutoHintedMatcher<Expression> glFragDataI = new AutoHintedMatcher<>(
+	private static final PerThread<AutoHintedMatcher<Expression>> glFragDataI = new PerThread<>(() -> new AutoHintedMatcher<Expression>(
 		"gl_FragData[index]", ParseShape.EXPRESSION) {
 		{
 			markClassedPredicateWildcard("index",
@@ -62,12 +62,10 @@ public class CommonTransformer {
 				LiteralExpression.class,
 				literalExpression -> literalExpression.isInteger() && literalExpression.getInteger() >= 0);
 		}
-	};
+	});
 
 	private static final Template<ExternalDeclaration> fragDataDeclaration = Template
 		.withExternalDeclaration("layout (location = __index) out vec4 __name;");
-	private static final List<Expression> replaceExpressions = new ArrayList<>();
-	private static final List<Long> replaceIndexes = new ArrayList<>();
 	private static final Template<ExternalDeclaration> inputDeclarationTemplate = Template.withExternalDeclaration(
 		"uniform int __name;");
 	private static final Template<ExternalDeclaration> inputDeclarationTemplateLayout = Template.withExternalDeclaration(
@@ -196,9 +194,10 @@ public class CommonTransformer {
 			}
 
 			// change gl_FragData[i] to iris_FragDatai
-			replaceExpressions.clear();
-			replaceIndexes.clear();
+			List<Expression> replaceExpressions = new ArrayList<>();
+			List<Long> replaceIndexes = new ArrayList<>();
 			Set<Long> replaceIndexesSet = new HashSet<>();
+			AutoHintedMatcher<Expression> glFragDataI = CommonTransformer.glFragDataI.get();
 			for (Identifier id : root.identifierIndex.get("gl_FragData")) {
 				ArrayAccessExpression accessExpression = id.getAncestor(ArrayAccessExpression.class);
 				if (accessExpression == null || !glFragDataI.matchesExtract(accessExpression)) {
@@ -219,8 +218,6 @@ public class CommonTransformer {
 						new LiteralExpression(Type.INT32, index),
 						new Identifier("iris_FragData" + index)));
 			}
-			replaceExpressions.clear();
-			replaceIndexes.clear();
 
 			// insert alpha test for iris_FragData0 in the fragment shader
 			if ((parameters.getAlphaTest() != AlphaTest.ALWAYS && !core) && replaceIndexesSet.contains(0L)) {
@@ -318,6 +315,7 @@ public class CommonTransformer {
 			if (externalDeclaration == null) {
 				continue;
 			}
+			Matcher<ExternalDeclaration> sampler = CommonTransformer.sampler.get();
 			if (sampler.matchesExtract(externalDeclaration)) {
 				// check that any of the members match the name
 				boolean foundNameMatch = false;
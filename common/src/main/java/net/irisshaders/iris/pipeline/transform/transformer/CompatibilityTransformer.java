@@ -58,13 +58,13 @@ import java.util.stream.Stream;
 public class CompatibilityTransformer {
 	private static final Logger LOGGER = LogManager.getLogger(CompatibilityTransformer.class);
 
-	private static final AutoHintedMatcher<Expression> sildursWaterFract = new AutoHintedMatcher<>(
-		"fract(worldpos.y + 0.001)", ParseShape.EXPRESSION);
+	private static final PerThread<AutoHintedMatcher<Expression>> sildursWaterFract = new PerThread<>(() -> new AutoHintedMatcher<Expression>(
+		"fract(worldpos.y + 0.001)", ParseShape.EXPRESSION));
 	private static final ShaderType[] pipeline = {ShaderType.VERTEX, ShaderType.TESSELATION_CONTROL, ShaderType.TESSELATION_EVAL, ShaderType.GEOMETRY, ShaderType.FRAGMENT};
-	private static final Matcher<ExternalDeclaration> outDeclarationMatcher = new DeclarationMatcher(
-		StorageType.OUT);
-	private static final Matcher<ExternalDeclaration> inDeclarationMatcher = new DeclarationMatcher(
-		StorageType.IN);
+	private static final PerThread<Matcher<ExternalDeclaration>> outDeclarationMatcher = new PerThread<>(() -> new DeclarationMatcher(
+		StorageType.OUT));
+	private static final PerThread<Matcher<ExternalDeclaration>> inDeclarationMatcher = new PerThread<>(() -> new DeclarationMatcher(
+		StorageType.IN));
 	private static final String tagPrefix = "iris_template_";
 	private static final Template<ExternalDeclaration> declarationTemplate = Template
 		.withExternalDeclaration("out __type __name;");
@@ -75,7 +75,7 @@ public class CompatibilityTransformer {
 		.withStatement("__oldDecl = vec3(__internalDecl);");
 	private static final Template<Statement> statementTemplateVector = Template
 		.withStatement("__oldDecl = vec3(__internalDecl, vec4(0));");
-	private static final Matcher<ExternalDeclaration> nonLayoutOutDeclarationMatcher = new Matcher<>(
+	private static final PerThread<Matcher<ExternalDeclaration>> nonLayoutOutDeclarationMatcher = new PerThread<>(() -> new Matcher<ExternalDeclaration>(
 		"out float name;",
 		ParseShape.EXTERNAL_DECLARATION) {
 		{
@@ -106,7 +106,7 @@ public class CompatibilityTransformer {
 			}
 			return hasOutQualifier;
 		}
-	};
+	});
 	private static final Template<ExternalDeclaration> layoutedOutDeclarationTemplate = Template
 		.withExternalDeclaration("out __type __name;");
 	private static final String attachTargetPrefix = "outColor";
@@ -156,7 +156,7 @@ public class CompatibilityTransformer {
 
 	public static void transformEach(ASTParser t, TranslationUnit tree, Root root, Parameters parameters) {
 		if (parameters.type == PatchShaderType.VERTEX) {
-			if (root.replaceExpressionMatches(t, sildursWaterFract, "fract(worldpos.y + 0.01)")) {
+			if (root.replaceExpressionMatches(t, sildursWaterFract.get(), "fract(worldpos.y + 0.01)")) {
 				Iris.logger.warn("Patched fract(worldpos.y + 0.001) to fract(worldpos.y + 0.01) to fix " +
 					"waving water disconnecting from other water blocks; See https://github.com/IrisShaders/Iris/issues/509");
 			}
@@ -424,10 +424,10 @@ public class CompatibilityTransformer {
 			// find out declarations
 			Map<String, BuiltinNumericTypeSpecifier> outDeclarations = new HashMap<>();
 			for (DeclarationExternalDeclaration declaration : prevRoot.nodeIndex.get(DeclarationExternalDeclaration.class)) {
-				if (outDeclarationMatcher.matchesExtract(declaration)) {
-					BuiltinNumericTypeSpecifier extractedType = outDeclarationMatcher.getNodeMatch("type",
+				if (outDeclarationMatcher.get().matchesExtract(declaration)) {
+					BuiltinNumericTypeSpecifier extractedType = outDeclarationMatcher.get().getNodeMatch("type",
 						BuiltinNumericTypeSpecifier.class);
-					for (DeclarationMember member : outDeclarationMatcher
+					for (DeclarationMember member : outDeclarationMatcher.get()
 						.getNodeMatch("name*", DeclarationMember.class)
 						.getAncestor(TypeAndInitDeclaration.class)
 						.getMembers()) {
@@ -448,13 +448,13 @@ public class CompatibilityTransformer {
 				Root currentRoot = currentTree.getRoot();
 
 				for (ExternalDeclaration declaration : currentRoot.nodeIndex.get(DeclarationExternalDeclaration.class)) {
-					if (!inDeclarationMatcher.matchesExtract(declaration)) {
+					if (!inDeclarationMatcher.get().matchesExtract(declaration)) {
 						continue;
 					}
 
-					BuiltinNumericTypeSpecifier inTypeSpecifier = inDeclarationMatcher.getNodeMatch("type",
+					BuiltinNumericTypeSpecifier inTypeSpecifier = inDeclarationMatcher.get().getNodeMatch("type",
 						BuiltinNumericTypeSpecifier.class);
-					for (DeclarationMember inDeclarationMember : inDeclarationMatcher
+					for (DeclarationMember inDeclarationMember : inDeclarationMatcher.get()
 						.getNodeMatch("name*", DeclarationMember.class)
 						.getAncestor(TypeAndInitDeclaration.class)
 						.getMembers()) {
@@ -482,7 +482,7 @@ public class CompatibilityTransformer {
 
 							// insert the new out declaration but copy over the type qualifiers, except for
 							// the in/out qualifier
-							TypeQualifier outQualifier = (TypeQualifier) inDeclarationMatcher
+							TypeQualifier outQualifier = (TypeQualifier) inDeclarationMatcher.get()
 								.getNodeMatch("qualifier").cloneInto(prevRoot);
 							makeQualifierOut(outQualifier);
 							prevTree.injectNode(ASTInjectionPoint.BEFORE_DECLARATIONS, declarationTemplate.getInstanceFor(prevRoot,
@@ -641,17 +641,17 @@ public class CompatibilityTransformer {
 		ArrayList<NewDeclarationData> newDeclarationData = new ArrayList<>();
 		ArrayList<ExternalDeclaration> declarationsToRemove = new ArrayList<>();
 		for (DeclarationExternalDeclaration declaration : root.nodeIndex.get(DeclarationExternalDeclaration.class)) {
-			if (!nonLayoutOutDeclarationMatcher.matchesExtract(declaration)) {
+			if (!nonLayoutOutDeclarationMatcher.get().matchesExtract(declaration)) {
 				continue;
 			}
 
 			// find the matching outColor members
-			List<DeclarationMember> members = nonLayoutOutDeclarationMatcher
+			List<DeclarationMember> members = nonLayoutOutDeclarationMatcher.get()
 				.getNodeMatch("name*", DeclarationMember.class)
 				.getAncestor(TypeAndInitDeclaration.class)
 				.getMembers();
-			TypeQualifier typeQualifier = nonLayoutOutDeclarationMatcher.getNodeMatch("qualifier", TypeQualifier.class);
-			BuiltinNumericTypeSpecifier typeSpecifier = nonLayoutOutDeclarationMatcher.getNodeMatch("type",
+			TypeQualifier typeQualifier = nonLayoutOutDeclarationMatcher.get().getNodeMatch("qualifier", TypeQualifier.class);
+			BuiltinNumericTypeSpecifier typeSpecifier = nonLayoutOutDeclarationMatcher.get().getNodeMatch("type",
 				BuiltinNumericTypeSpecifier.class);
 			int addedDeclarations = 0;
 			for (DeclarationMember member : members) {
@@ -12,20 +12,20 @@ import io.github.douira.glsl_transformer.ast.transform.ASTParser;
 import io.github.douira.glsl_transformer.parser.ParseShape;
 
 class CompositeDepthTransformer {
-	private static final HintedMatcher<ExternalDeclaration> uniformFloatCenterDepthSmooth = new HintedMatcher<>(
+	private static final PerThread<HintedMatcher<ExternalDeclaration>> uniformFloatCenterDepthSmooth = new PerThread<>(() -> new HintedMatcher<ExternalDeclaration>(
 		"uniform float name;", ParseShape.EXTERNAL_DECLARATION, "centerDepthSmooth") {
 		{
 			markClassWildcard("name*",
 				pattern.getRoot().identifierIndex.getUnique("name").getAncestor(DeclarationMember.class));
 		}
-	};
+	});
 
 	public static void transform(
 		ASTParser t,
 		TranslationUnit tree,
 		Root root) {
 		// replace original declaration
-		if (root.processMatches(t, uniformFloatCenterDepthSmooth, (match) -> {
+		if (root.processMatches(t, uniformFloatCenterDepthSmooth.get(), (match) -> {
 			TypeAndInitDeclaration declaration = ((TypeAndInitDeclaration) ((DeclarationExternalDeclaration) match)
 				.getDeclaration());
 			DeclarationMember memberToDelete = null;
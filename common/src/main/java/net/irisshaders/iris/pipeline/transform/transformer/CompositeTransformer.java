@@ -13,7 +13,7 @@ import net.irisshaders.iris.gl.shader.ShaderType;
 import net.irisshaders.iris.pipeline.transform.parameter.Parameters;
 
 public class CompositeTransformer {
-	private static final AutoHintedMatcher<Expression> glTextureMatrix0To7 = new AutoHintedMatcher<>(
+	private static final PerThread<AutoHintedMatcher<Expression>> glTextureMatrix0To7 = new PerThread<>(() -> new AutoHintedMatcher<Expression>(
 		"gl_TextureMatrix[index]", ParseShape.EXPRESSION) {
 		{
 			markClassedPredicateWildcard("index",
@@ -27,7 +27,7 @@ public class CompositeTransformer {
 					return index >= 0 && index < 8;
 				});
 		}
-	};
+	});
 
 	public static void transform(
 		ASTParser t,
@@ -40,7 +40,7 @@ public class CompositeTransformer {
 		// TODO: More solid way to handle texture matrices
 		// TODO: Provide these values with uniforms
 
-		root.replaceExpressionMatches(t, glTextureMatrix0To7, "mat4(1.0)");
+		root.replaceExpressionMatches(t, glTextureMatrix0To7.get(), "mat4(1.0)");
 
 		// TODO: Other fog things
 
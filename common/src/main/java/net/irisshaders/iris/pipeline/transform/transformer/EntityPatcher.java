@@ -12,17 +12,17 @@ import net.irisshaders.iris.gl.shader.ShaderType;
 import net.irisshaders.iris.pipeline.transform.parameter.VanillaParameters;
 
 public class EntityPatcher {
-	private static final AutoHintedMatcher<ExternalDeclaration> uniformVec4EntityColor = new AutoHintedMatcher<>(
-		"uniform vec4 entityColor;", ParseShape.EXTERNAL_DECLARATION);
+	private static final PerThread<AutoHintedMatcher<ExternalDeclaration>> uniformVec4EntityColor = new PerThread<>(() -> new AutoHintedMatcher<ExternalDeclaration>(
+		"uniform vec4 entityColor;", ParseShape.EXTERNAL_DECLARATION));
 
-	private static final AutoHintedMatcher<ExternalDeclaration> uniformIntEntityId = new AutoHintedMatcher<>(
-		"uniform int entityId;", ParseShape.EXTERNAL_DECLARATION);
+	private static final PerThread<AutoHintedMatcher<ExternalDeclaration>> uniformIntEntityId = new PerThread<>(() -> new AutoHintedMatcher<ExternalDeclaration>(
+		"uniform int entityId;", ParseShape.EXTERNAL_DECLARATION));
 
-	private static final AutoHintedMatcher<ExternalDeclaration> uniformIntBlockEntityId = new AutoHintedMatcher<>(
-		"uniform int blockEntityId;", ParseShape.EXTERNAL_DECLARATION);
+	private static final PerThread<AutoHintedMatcher<ExternalDeclaration>> uniformIntBlockEntityId = new PerThread<>(() -> new AutoHintedMatcher<ExternalDeclaration>(
+		"uniform int blockEntityId;", ParseShape.EXTERNAL_DECLARATION));
 
-	private static final AutoHintedMatcher<ExternalDeclaration> uniformIntCurrentRenderedItemId = new AutoHintedMatcher<>(
-		"uniform int currentRenderedItemId;", ParseShape.EXTERNAL_DECLARATION);
+	private static final PerThread<AutoHintedMatcher<ExternalDeclaration>> uniformIntCurrentRenderedItemId = new PerThread<>(() -> new AutoHintedMatcher<ExternalDeclaration>(
+		"uniform int currentRenderedItemId;", ParseShape.EXTERNAL_DECLARATION));
 
 	// Add entity color -> overlay color attribute support.
 	public static void patchOverlayColor(
@@ -31,7 +31,7 @@ public class EntityPatcher {
 		Root root,
 		VanillaParameters parameters) {
 		// delete original declaration
-		root.processMatches(t, uniformVec4EntityColor, ASTNode::detachAndDelete);
+		root.processMatches(t, uniformVec4EntityColor.get(), ASTNode::detachAndDelete);
 
 		if (parameters.type.glShaderType == ShaderType.VERTEX) {
 			// add our own declarations
@@ -122,9 +122,9 @@ public class EntityPatcher {
 		Root root,
 		VanillaParameters parameters) {
 		// delete original declaration
-		root.processMatches(t, uniformIntEntityId, ASTNode::detachAndDelete);
-		root.processMatches(t, uniformIntBlockEntityId, ASTNode::detachAndDelete);
-		root.processMatches(t, uniformIntCurrentRenderedItemId, ASTNode::detachAndDelete);
+		root.processMatches(t, uniformIntEntityId.get(), ASTNode::detachAndDelete);
+		root.processMatches(t, uniformIntBlockEntityId.get(), ASTNode::detachAndDelete);
+		root.processMatches(t, uniformIntCurrentRenderedItemId.get(), ASTNode::detachAndDelete);
 
 
 		if (parameters.type.glShaderType == ShaderType.GEOMETRY) {
@@ -0,0 +1,49 @@
+package net.irisshaders.iris.pipeline.transform.transformer;
+
+import io.github.douira.glsl_transformer.ast.node.TranslationUnit;
+import io.github.douira.glsl_transformer.ast.node.abstract_node.ASTNode;
+import io.github.douira.glsl_transformer.ast.node.external_declaration.ExternalDeclaration;
+import io.github.douira.glsl_transformer.ast.query.Root;
+import io.github.douira.glsl_transformer.ast.query.match.AutoHintedMatcher;
+import io.github.douira.glsl_transformer.ast.transform.ASTInjectionPoint;
+import io.github.douira.glsl_transformer.ast.transform.ASTParser;
+import io.github.douira.glsl_transformer.parser.ParseShape;
+import net.irisshaders.iris.gl.uniform.FrameUniformBuffer;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Moves the declarations of built-in per-frame uniforms into the shared {@link FrameUniformBuffer} block.
+ * <p>
+ * Only declarations of a single uniform with exactly the type the block uses are moved, anything else is left alone
+ * and keeps being set per program.
+ */
+public class FrameUniformBlockTransformer {
+	private static final PerThread<Map<String, AutoHintedMatcher<ExternalDeclaration>>> declarations = new PerThread<>(() -> {
+		Map<String, AutoHintedMatcher<ExternalDeclaration>> declarations = new LinkedHashMap<>();
+
+		FrameUniformBuffer.getMembers().forEach((name, type) -> declarations.put(name, new AutoHintedMatcher<>(
+			"uniform " + FrameUniformBuffer.getGlslType(type) + " " + name + ";", ParseShape.EXTERNAL_DECLARATION)));
+
+		return declarations;
+	});
+
+	public static void transform(
+		ASTParser t,
+		TranslationUnit tree,
+		Root root) {
+		boolean found = false;
+
+		for (Map.Entry<String, AutoHintedMatcher<ExternalDeclaration>> entry : declarations.get().entrySet()) {
+			if (root.processMatches(t, entry.getValue(), ASTNode::detachAndDelete)) {
+				root.rename(entry.getKey(), FrameUniformBuffer.MEMBER_PREFIX + entry.getKey());
+				found = true;
+			}
+		}
+
+		if (found) {
+			tree.parseAndInjectNode(t, ASTInjectionPoint.BEFORE_DECLARATIONS, FrameUniformBuffer.getBlockDeclaration());
+		}
+	}
+}
@@ -41,11 +41,11 @@ public class LayoutTransformer {
 	private static final Logger LOGGER = LogManager.getLogger(LayoutTransformer.class);
 
 	private static final ShaderType[] pipeline = {ShaderType.VERTEX, ShaderType.TESSELATION_CONTROL, ShaderType.TESSELATION_EVAL, ShaderType.GEOMETRY, ShaderType.FRAGMENT};
-	private static final Matcher<ExternalDeclaration> outDeclarationMatcher = new DeclarationMatcher(
-		StorageType.OUT);
-	private static final Matcher<ExternalDeclaration> inDeclarationMatcher = new DeclarationMatcher(
-		StorageType.IN);
-	private static final Matcher<ExternalDeclaration> nonLayoutOutDeclarationMatcher = new Matcher<>(
+	private static final PerThread<Matcher<ExternalDeclaration>> outDeclarationMatcher = new PerThread<>(() -> new DeclarationMatcher(
+		StorageType.OUT));
+	private static final PerThread<Matcher<ExternalDeclaration>> inDeclarationMatcher = new PerThread<>(() -> new DeclarationMatcher(
+		StorageType.IN));
+	private static final PerThread<Matcher<ExternalDeclaration>> nonLayoutOutDeclarationMatcher = new PerThread<>(() -> new Matcher<ExternalDeclaration>(
 		"out float name;",
 		ParseShape.EXTERNAL_DECLARATION) {
 		{
@@ -76,8 +76,8 @@ public class LayoutTransformer {
 			}
 			return hasOutQualifier;
 		}
-	};
-	private static final Matcher<ExternalDeclaration> nonLayoutInDeclarationMatcher = new Matcher<>(
+	});
+	private static final PerThread<Matcher<ExternalDeclaration>> nonLayoutInDeclarationMatcher = new PerThread<>(() -> new Matcher<ExternalDeclaration>(
 		"in float name;",
 		ParseShape.EXTERNAL_DECLARATION) {
 		{
@@ -108,7 +108,7 @@ public class LayoutTransformer {
 			}
 			return hasOutQualifier;
 		}
-	};
+	});
 	private static final Template<ExternalDeclaration> layoutedOutDeclarationTemplate = Template
 		.withExternalDeclaration("out __type __name;");
 	private static final Template<ExternalDeclaration> layoutedInDeclarationTemplate = Template
@@ -221,17 +221,17 @@ public class LayoutTransformer {
 		Object2IntMap<String> map = new Object2IntArrayMap<>();
 		ArrayList<ExternalDeclaration> declarationsToRemove = new ArrayList<>();
 		for (DeclarationExternalDeclaration declaration : root.nodeIndex.get(DeclarationExternalDeclaration.class)) {
-			if (!nonLayoutOutDeclarationMatcher.matchesExtract(declaration)) {
+			if (!nonLayoutOutDeclarationMatcher.get().matchesExtract(declaration)) {
 				continue;
 			}
 
 			// find the matching outColor members
-			List<DeclarationMember> members = nonLayoutOutDeclarationMatcher
+			List<DeclarationMember> members = nonLayoutOutDeclarationMatcher.get()
 				.getNodeMatch("name*", DeclarationMember.class)
 				.getAncestor(TypeAndInitDeclaration.class)
 				.getMembers();
-			TypeQualifier typeQualifier = nonLayoutOutDeclarationMatcher.getNodeMatch("qualifier", TypeQualifier.class);
-			BuiltinNumericTypeSpecifier typeSpecifier = nonLayoutOutDeclarationMatcher.getNodeMatch("type",
+			TypeQualifier typeQualifier = nonLayoutOutDeclarationMatcher.get().getNodeMatch("qualifier", TypeQualifier.class);
+			BuiltinNumericTypeSpecifier typeSpecifier = nonLayoutOutDeclarationMatcher.get().getNodeMatch("type",
 				BuiltinNumericTypeSpecifier.class);
 			int addedDeclarations = 0;
 			for (DeclarationMember member : members) {
@@ -287,17 +287,17 @@ public class LayoutTransformer {
 
 		ArrayList<ExternalDeclaration> declarationsToRemove = new ArrayList<>();
 		for (DeclarationExternalDeclaration declaration : root.nodeIndex.get(DeclarationExternalDeclaration.class)) {
-			if (!nonLayoutInDeclarationMatcher.matchesExtract(declaration)) {
+			if (!nonLayoutInDeclarationMatcher.get().matchesExtract(declaration)) {
 				continue;
 			}
 
 			// find the matching outColor members
-			List<DeclarationMember> members = nonLayoutInDeclarationMatcher
+			List<DeclarationMember> members = nonLayoutInDeclarationMatcher.get()
 				.getNodeMatch("name*", DeclarationMember.class)
 				.getAncestor(TypeAndInitDeclaration.class)
 				.getMembers();
-			TypeQualifier typeQualifier = nonLayoutInDeclarationMatcher.getNodeMatch("qualifier", TypeQualifier.class);
-			BuiltinNumericTypeSpecifier typeSpecifier = nonLayoutInDeclarationMatcher.getNodeMatch("type",
+			TypeQualifier typeQualifier = nonLayoutInDeclarationMatcher.get().getNodeMatch("qualifier", TypeQualifier.class);
+			BuiltinNumericTypeSpecifier typeSpecifier = nonLayoutInDeclarationMatcher.get().getNodeMatch("type",
 				BuiltinNumericTypeSpecifier.class);
 			int addedDeclarations = 0;
 			for (DeclarationMember member : members) {
@@ -0,0 +1,26 @@
+package net.irisshaders.iris.pipeline.transform.transformer;
+
+import java.util.function.Supplier;
+
+/**
+ * Holds a separate instance of a matcher for every thread that patches shaders. Matchers remember the nodes of their
+ * last match, so a single instance can't be shared between threads.
+ */
+public final class PerThread<T> {
+	private static final Object CREATION_LOCK = new Object();
+
+	private final ThreadLocal<T> instances;
+
+	public PerThread(Supplier<T> factory) {
+		// glsl-transformer parses the patterns of matchers with a shared parser, so only one is created at a time.
+		this.instances = ThreadLocal.withInitial(() -> {
+			synchronized (CREATION_LOCK) {
+				return factory.get();
+			}
+		});
+	}
+
+	public T get() {
+		return instances.get();
+	}
+}
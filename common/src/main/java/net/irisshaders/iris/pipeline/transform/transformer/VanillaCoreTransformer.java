@@ -36,10 +36,10 @@ public class VanillaCoreTransformer {
 		root.rename("gl_ProjectionMatrixInverse", "iris_ProjMatInverse");
 		root.rename("textureMatrix", "iris_TextureMat");
 
-		root.replaceExpressionMatches(t, CommonTransformer.glTextureMatrix0, "iris_TextureMat");
-		root.replaceExpressionMatches(t, CommonTransformer.glTextureMatrix1,
+		root.replaceExpressionMatches(t, CommonTransformer.glTextureMatrix0.get(), "iris_TextureMat");
+		root.replaceExpressionMatches(t, CommonTransformer.glTextureMatrix1.get(),
 			"mat4(vec4(0.00390625, 0.0, 0.0, 0.0), vec4(0.0, 0.00390625, 0.0, 0.0), vec4(0.0, 0.0, 0.00390625, 0.0), vec4(0.03125, 0.03125, 0.03125, 1.0))");
-		root.replaceExpressionMatches(t, CommonTransformer.glTextureMatrix2,
+		root.replaceExpressionMatches(t, CommonTransformer.glTextureMatrix2.get(),
 			"mat4(vec4(0.00390625, 0.0, 0.0, 0.0), vec4(0.0, 0.00390625, 0.0, 0.0), vec4(0.0, 0.0, 0.00390625, 0.0), vec4(0.03125, 0.03125, 0.03125, 1.0))");
 		addIfNotExists(root, t, tree, "iris_TextureMat", Type.F32MAT4X4, StorageType.UNIFORM);
 		addIfNotExists(root, t, tree, "iris_ProjMat", Type.F32MAT4X4, StorageType.UNIFORM);
@@ -116,8 +116,8 @@ public class VanillaTransformer {
 			"uniform mat4 iris_ModelViewMat;");
 
 		// TODO: More solid way to handle texture matrices
-		root.replaceExpressionMatches(t, CommonTransformer.glTextureMatrix0, "iris_TextureMat");
-		root.replaceExpressionMatches(t, CommonTransformer.glTextureMatrix1, "iris_LightmapTextureMatrix");
+		root.replaceExpressionMatches(t, CommonTransformer.glTextureMatrix0.get(), "iris_TextureMat");
+		root.replaceExpressionMatches(t, CommonTransformer.glTextureMatrix1.get(), "iris_LightmapTextureMatrix");
 
 		// TODO: Should probably add the normal matrix as a proper uniform that's
 		// computed on the CPU-side of things
@@ -33,12 +33,12 @@ import net.irisshaders.iris.shaderpack.option.menu.OptionMenuContainer;
 import net.irisshaders.iris.shaderpack.option.values.MutableOptionValues;
 import net.irisshaders.iris.shaderpack.option.values.OptionValues;
 import net.irisshaders.iris.shaderpack.parsing.BooleanParser;
-import net.irisshaders.iris.shaderpack.preprocessor.JcppProcessor;
 import net.irisshaders.iris.shaderpack.preprocessor.PropertiesPreprocessor;
 import net.irisshaders.iris.shaderpack.programs.ProgramSet;
 import net.irisshaders.iris.shaderpack.programs.ProgramSetInterface;
 import net.irisshaders.iris.shaderpack.properties.ShaderProperties;
 import net.irisshaders.iris.shaderpack.texture.CustomTextureData;
+import net.irisshaders.iris.shaderpack.texture.TextureContents;
 import net.irisshaders.iris.shaderpack.texture.TextureFilteringData;
 import net.irisshaders.iris.shaderpack.texture.TextureStage;
 import net.irisshaders.iris.uniforms.custom.CustomUniforms;
@@ -52,6 +52,7 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.StringReader;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
@@ -90,6 +91,11 @@ public class ShaderPack {
 	private final ShaderProperties shaderProperties;
 	private final List<String> dimensionIds;
 	private final Int2ObjectArrayMap<BuiltShaderStorageInfo> bufferObjects;
+	/**
+	 * The contents of every texture file read while loading the pack, so that a file used by several texture stages
+	 * is only read once.
+	 */
+	private final Map<Path, ByteBuffer> textureContents = new HashMap<>();
 	private Map<NamespacedId, String> dimensionMap;
 
 	public ShaderPack(Path root, ImmutableList<StringPair> environmentDefines, boolean isZip) throws IOException, IllegalStateException {
@@ -154,8 +160,9 @@ public class ShaderPack {
 			}
 		}
 
-		// Read all files and included files recursively
-		IncludeGraph graph = new IncludeGraph(root, starts.build(), isZip);
+		// Read all files and included files recursively, unless they haven't changed since the last time this pack was loaded
+		ShaderPackSourceCache sources = ShaderPackSourceCache.load(root, starts.build(), isZip);
+		IncludeGraph graph = sources.getGraph();
 
 		if (!graph.getFailures().isEmpty()) {
 			throw new IOException(String.join("\n", graph.getFailures().values().stream().map(RusticError::toString).toArray(String[]::new)));
@@ -164,7 +171,7 @@ public class ShaderPack {
 		this.languageMap = new LanguageMap(root.resolve("lang"));
 
 		// Discover, merge, and apply shader pack options
-		this.shaderPackOptions = new ShaderPackOptions(graph, changedConfigs);
+		this.shaderPackOptions = new ShaderPackOptions(graph, sources.getOptionDiscovery(), changedConfigs);
 		graph = this.shaderPackOptions.getIncludes();
 
 		List<StringPair> finalEnvironmentDefines = new ArrayList<>(List.copyOf(environmentDefines));
@@ -282,7 +289,7 @@ public class ShaderPack {
 		IncludeProcessor includeProcessor = new IncludeProcessor(graph);
 
 		// Set up our source provider for creating ProgramSets
-		Iterable<StringPair> finalEnvironmentDefines1 = environmentDefines;
+		List<StringPair> finalEnvironmentDefines1 = environmentDefines;
 		this.sourceProvider = (path) -> {
 			String pathString = path.getPathString();
 			// Removes the first "/" in the path if present, and the file
@@ -294,27 +301,22 @@ public class ShaderPack {
 				return null;
 			}
 
-			ImmutableList<String> lines = includeProcessor.getIncludedFile(path);
+			String source = includeProcessor.getIncludedSource(path);
 
-			if (lines == null) {
+			if (source == null) {
 				return null;
 			}
 
-			StringBuilder builder = new StringBuilder();
-
-			for (String line : lines) {
-				builder.append(line);
-				builder.append('\n');
-			}
-
 			// Apply GLSL preprocessor to source, while making environment defines available.
 			//
 			// This uses similar techniques to the *.properties preprocessor to avoid actually putting
 			// #define statements in the actual source - instead, we tell the preprocessor about them
 			// directly. This removes one obstacle to accurate reporting of line numbers for errors,
 			// though there exist many more (such as relocating all #extension directives and similar things)
-			String source = builder.toString();
-			source = JcppProcessor.glslPreprocessSource(source, finalEnvironmentDefines1);
+			//
+			// If only option values changed since the last load, programs that aren't affected by them reuse their
+			// previous output instead.
+			source = sources.preprocess(path, source, finalEnvironmentDefines1);
 
 			return source;
 		};
@@ -359,6 +361,9 @@ public class ShaderPack {
 				Iris.logger.error("Unable to read the custom texture at " + texture.getName(), e);
 			}
 		});
+
+		// The texture data keeps its own reference to the contents.
+		textureContents.clear();
 	}
 
 	// TODO: Copy-paste from IdMap, find a way to deduplicate this
@@ -524,7 +529,7 @@ public class ShaderPack {
 				}
 			}
 
-			byte[] content = Files.readAllBytes(root.resolve(path));
+			ByteBuffer content = readTextureContents(root.resolve(path).normalize());
 
 			if (definition instanceof TextureDefinition.PNGDefinition) {
 				customTextureData = new CustomTextureData.PngData(new TextureFilteringData(blur, clamp), content);
@@ -546,6 +551,17 @@ public class ShaderPack {
 		return customTextureData;
 	}
 
+	private ByteBuffer readTextureContents(Path path) throws IOException {
+		ByteBuffer content = textureContents.get(path);
+
+		if (content == null) {
+			content = TextureContents.read(path);
+			textureContents.put(path, content);
+		}
+
+		return content;
+	}
+
 	private JsonObject loadMcMeta(Path mcMetaPath) throws IOException, JsonParseException {
 		try (BufferedReader reader = new BufferedReader(new InputStreamReader(Files.newInputStream(mcMetaPath), StandardCharsets.UTF_8))) {
 			JsonReader jsonReader = new JsonReader(reader);
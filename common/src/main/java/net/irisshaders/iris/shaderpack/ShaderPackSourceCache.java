@@ -0,0 +1,263 @@
+package net.irisshaders.iris.shaderpack;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import net.irisshaders.iris.Iris;
+import net.irisshaders.iris.helpers.StringPair;
+import net.irisshaders.iris.shaderpack.include.AbsolutePackPath;
+import net.irisshaders.iris.shaderpack.include.IncludeGraph;
+import net.irisshaders.iris.shaderpack.option.ShaderPackOptions;
+import net.irisshaders.iris.shaderpack.preprocessor.JcppProcessor;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the parsed sources of the most recently loaded shader pack around, so that reloading the same pack with
+ * different option values doesn't have to read, parse, and preprocess every file again.
+ * <p>
+ * The include graph and the discovered options are reused for as long as none of the files they were read from have
+ * changed on disk. Programs are only run through the GLSL preprocessor again if a changed option can actually affect
+ * them; a program that never refers to a define whose value changed keeps its previously preprocessed source.
+ */
+public final class ShaderPackSourceCache {
+	private static ShaderPackSourceCache last;
+
+	private final String key;
+	private final ImmutableList<AbsolutePackPath> starts;
+	private final IncludeGraph graph;
+	@Nullable
+	private final ShaderPackOptions.Discovery discovery;
+	private final ImmutableMap<AbsolutePackPath, FileStamp> stamps;
+	private Map<AbsolutePackPath, PreprocessedSource> previous;
+	private Map<AbsolutePackPath, PreprocessedSource> preprocessed;
+
+	private ShaderPackSourceCache(String key, ImmutableList<AbsolutePackPath> starts, IncludeGraph graph,
+								  ImmutableMap<AbsolutePackPath, FileStamp> stamps) {
+		this.key = key;
+		this.starts = starts;
+		this.graph = graph;
+		this.discovery = graph.getFailures().isEmpty() ? ShaderPackOptions.Discovery.discover(graph) : null;
+		this.stamps = stamps;
+		this.previous = Map.of();
+		this.preprocessed = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * Returns the sources of the shader pack at the given root, reusing the ones from the previous load if the pack
+	 * hasn't changed since then.
+	 */
+	public static synchronized ShaderPackSourceCache load(Path root, ImmutableList<AbsolutePackPath> starts, boolean isZip) {
+		String key = root.toUri().toString();
+		ShaderPackSourceCache cache = last;
+
+		if (cache != null && cache.key.equals(key) && cache.starts.equals(starts) && cache.isUpToDate(root)) {
+			Iris.logger.info("Reusing the parsed sources of the shader pack, since none of its files have changed");
+
+			cache.previous = cache.preprocessed;
+			cache.preprocessed = new ConcurrentHashMap<>();
+
+			return cache;
+		}
+
+		IncludeGraph graph = new IncludeGraph(root, starts, isZip);
+		cache = new ShaderPackSourceCache(key, starts, graph, readStamps(root, graph));
+
+		// Don't hold on to a pack that failed to load, it will need to be read again once it has been fixed anyway.
+		last = cache.discovery != null ? cache : null;
+
+		return cache;
+	}
+
+	/**
+	 * Forgets the sources of the previously loaded shader pack, for example because shaders have been disabled.
+	 */
+	public static synchronized void clear() {
+		last = null;
+	}
+
+	private static ImmutableMap<AbsolutePackPath, FileStamp> readStamps(Path root, IncludeGraph graph) {
+		ImmutableMap.Builder<AbsolutePackPath, FileStamp> stamps = ImmutableMap.builder();
+
+		for (AbsolutePackPath path : graph.getNodes().keySet()) {
+			FileStamp stamp = FileStamp.read(path.resolved(root));
+
+			if (stamp != null) {
+				stamps.put(path, stamp);
+			}
+		}
+
+		return stamps.build();
+	}
+
+	private boolean isUpToDate(Path root) {
+		if (stamps.size() != graph.getNodes().size()) {
+			return false;
+		}
+
+		for (Map.Entry<AbsolutePackPath, FileStamp> entry : stamps.entrySet()) {
+			if (!entry.getValue().equals(FileStamp.read(entry.getKey().resolved(root)))) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	public IncludeGraph getGraph() {
+		return graph;
+	}
+
+	/**
+	 * Returns the options discovered in the include graph. Only valid if the graph has no failures.
+	 */
+	public ShaderPackOptions.Discovery getOptionDiscovery() {
+		if (discovery == null) {
+			throw new IllegalStateException("Options can't be discovered in an include graph that failed to load");
+		}
+
+		return discovery;
+	}
+
+	/**
+	 * Runs the GLSL preprocessor on the expanded source of a program, or returns the result of the previous load if
+	 * the differences can't affect the output. Safe to call from multiple threads.
+	 */
+	public String preprocess(AbsolutePackPath path, String source, List<StringPair> environmentDefines) {
+		PreprocessedSource before = previous.get(path);
+		String result;
+
+		if (before != null && before.environmentDefines().equals(environmentDefines)
+			&& onlyUnusedDefinesDiffer(before.source(), source)) {
+			result = before.result();
+		} else {
+			result = JcppProcessor.glslPreprocessSource(source, environmentDefines);
+		}
+
+		preprocessed.put(path, new PreprocessedSource(source, List.copyOf(environmentDefines), result));
+
+		return result;
+	}
+
+	/**
+	 * Checks whether two versions of a source only differ in {@code #define} lines (including commented out ones)
+	 * of macros that are never referenced anywhere else, which means that preprocessing them gives equivalent code.
+	 * Changing an option only ever rewrites single lines, so the line count stays the same.
+	 */
+	private static boolean onlyUnusedDefinesDiffer(String before, String after) {
+		if (before.equals(after)) {
+			return true;
+		}
+
+		String[] beforeLines = before.split("\n", -1);
+		String[] afterLines = after.split("\n", -1);
+
+		if (beforeLines.length != afterLines.length) {
+			return false;
+		}
+
+		Set<String> changedMacros = new HashSet<>();
+		BitSet changedLines = new BitSet(afterLines.length);
+
+		for (int i = 0; i < afterLines.length; i++) {
+			if (beforeLines[i].equals(afterLines[i])) {
+				continue;
+			}
+
+			String macro = getDefinedMacro(afterLines[i]);
+
+			// Options that aren't defines (such as const options) end up in the preprocessed source as-is.
+			if (macro == null || !macro.equals(getDefinedMacro(beforeLines[i]))) {
+				return false;
+			}
+
+			changedMacros.add(macro);
+			changedLines.set(i);
+		}
+
+		for (int i = changedLines.nextClearBit(0); i < afterLines.length; i = changedLines.nextClearBit(i + 1)) {
+			for (String macro : changedMacros) {
+				if (containsIdentifier(afterLines[i], macro)) {
+					return false;
+				}
+			}
+		}
+
+		return true;
+	}
+
+	@Nullable
+	private static String getDefinedMacro(String line) {
+		String trimmed = line.strip();
+
+		if (trimmed.startsWith("//")) {
+			trimmed = trimmed.substring(2).stripLeading();
+		}
+
+		if (!trimmed.startsWith("#")) {
+			return null;
+		}
+
+		trimmed = trimmed.substring(1).stripLeading();
+
+		if (!trimmed.startsWith("define") || trimmed.length() == 6 || !Character.isWhitespace(trimmed.charAt(6))) {
+			return null;
+		}
+
+		trimmed = trimmed.substring(6).stripLeading();
+
+		int end = 0;
+
+		while (end < trimmed.length() && isIdentifierPart(trimmed.charAt(end))) {
+			end++;
+		}
+
+		return end == 0 ? null : trimmed.substring(0, end);
+	}
+
+	private static boolean containsIdentifier(String line, String identifier) {
+		int index = line.indexOf(identifier);
+
+		while (index != -1) {
+			int end = index + identifier.length();
+
+			if ((index == 0 || !isIdentifierPart(line.charAt(index - 1)))
+				&& (end == line.length() || !isIdentifierPart(line.charAt(end)))) {
+				return true;
+			}
+
+			index = line.indexOf(identifier, index + 1);
+		}
+
+		return false;
+	}
+
+	private static boolean isIdentifierPart(char c) {
+		return c == '_' || Character.isLetterOrDigit(c);
+	}
+
+	private record PreprocessedSource(String source, List<StringPair> environmentDefines, String result) {
+	}
+
+	private record FileStamp(FileTime lastModified, long size) {
+		@Nullable
+		static FileStamp read(Path path) {
+			try {
+				BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+				return new FileStamp(attributes.lastModifiedTime(), attributes.size());
+			} catch (IOException e) {
+				return null;
+			}
+		}
+	}
+}
@@ -3,57 +3,106 @@ package net.irisshaders.iris.shaderpack.include;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+/**
+ * Expands the includes of the files in an {@link IncludeGraph} into complete sources.
+ * <p>
+ * Every file is only expanded once, and the result is shared between everything that includes it. This class is
+ * safe to use from multiple threads: if several threads ask for the same file at once, one of them expands it and
+ * the others wait for that result.
+ */
 // TODO: Write tests for this code
 public class IncludeProcessor {
 	private final IncludeGraph graph;
-	private final Map<AbsolutePackPath, ImmutableList<String>> cache;
+	private final ConcurrentMap<AbsolutePackPath, CompletableFuture<String>> cache;
 
 	public IncludeProcessor(IncludeGraph graph) {
 		this.graph = graph;
-		this.cache = new HashMap<>();
+		this.cache = new ConcurrentHashMap<>();
 	}
 
 	// TODO: Actual error handling
 
-	public ImmutableList<String> getIncludedFile(AbsolutePackPath path) {
-		ImmutableList<String> lines = cache.get(path);
+	/**
+	 * Returns the source of the file with all of its includes expanded, with every line terminated by a newline.
+	 *
+	 * @return the expanded source, or null if the file isn't part of the include graph
+	 */
+	public String getIncludedSource(AbsolutePackPath path) {
+		CompletableFuture<String> future = cache.get(path);
 
-		if (lines == null) {
-			lines = process(path);
-			cache.put(path, lines);
+		if (future == null) {
+			CompletableFuture<String> created = new CompletableFuture<>();
+			future = cache.putIfAbsent(path, created);
+
+			if (future == null) {
+				try {
+					String source = process(path);
+					created.complete(source);
+					return source;
+				} catch (RuntimeException e) {
+					created.completeExceptionally(e);
+					throw e;
+				}
+			}
 		}
 
-		return lines;
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+
+			throw e;
+		}
 	}
 
-	private ImmutableList<String> process(AbsolutePackPath path) {
+	private String process(AbsolutePackPath path) {
 		FileNode fileNode = graph.getNodes().get(path);
 
 		if (fileNode == null) {
 			return null;
 		}
 
-		ImmutableList.Builder<String> builder = ImmutableList.builder();
-
 		ImmutableList<String> lines = fileNode.getLines();
 		ImmutableMap<Integer, AbsolutePackPath> includes = fileNode.getIncludes();
 
+		// Resolve the includes first so that the final size is known, and the source can be written into a single
+		// buffer of exactly the right size.
+		String[] parts = new String[lines.size()];
+		int length = 0;
+
 		for (int i = 0; i < lines.size(); i++) {
 			AbsolutePackPath include = includes.get(i);
 
 			if (include != null) {
-				// TODO: Don't recurse like this, and check for cycles
+				// Recursing can't loop forever, since the include graph rejects cycles before we get here. It also
+				// can't deadlock between threads for the same reason.
 				// TODO: Better diagnostics
-				builder.addAll(Objects.requireNonNull(getIncludedFile(include)));
+				parts[i] = Objects.requireNonNull(getIncludedSource(include));
+				length += parts[i].length();
 			} else {
-				builder.add(lines.get(i));
+				parts[i] = lines.get(i);
+				length += parts[i].length() + 1;
+			}
+		}
+
+		StringBuilder builder = new StringBuilder(length);
+
+		for (int i = 0; i < parts.length; i++) {
+			builder.append(parts[i]);
+
+			if (!includes.containsKey(i)) {
+				builder.append('\n');
 			}
 		}
 
-		return builder.build();
+		return builder.toString();
 	}
 }
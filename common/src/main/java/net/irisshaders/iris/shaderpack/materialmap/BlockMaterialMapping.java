@@ -15,7 +15,10 @@ import net.minecraft.world.level.block.Blocks;
 import net.minecraft.world.level.block.state.BlockState;
 import net.minecraft.world.level.block.state.StateDefinition;
 import net.minecraft.world.level.block.state.properties.Property;
+import net.minecraft.world.level.material.Fluid;
+import net.minecraft.world.level.material.FluidState;
 
+import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -39,6 +42,56 @@ public class BlockMaterialMapping {
 		return blockStateIds;
 	}
 
+	/**
+	 * Flattens a block state ID map into a table indexed by the registry index of each state, with -1 for states that
+	 * aren't mapped.
+	 */
+	public static int[] createBlockStateIdTable(Object2IntMap<BlockState> blockStateIds) {
+		int[] table = new int[Block.BLOCK_STATE_REGISTRY.size()];
+		Arrays.fill(table, blockStateIds.defaultReturnValue());
+
+		for (Object2IntMap.Entry<BlockState> entry : blockStateIds.object2IntEntrySet()) {
+			int index = Block.getId(entry.getKey());
+
+			if (index >= 0 && index < table.length) {
+				table[index] = entry.getIntValue();
+			}
+		}
+
+		return table;
+	}
+
+	/**
+	 * Creates a table from the registry index of each fluid state to the ID of the block state it is rendered as.
+	 */
+	public static int[] createFluidStateIdTable(Object2IntMap<BlockState> blockStateIds) {
+		int[] table = new int[Fluid.FLUID_STATE_REGISTRY.size()];
+
+		for (FluidState state : Fluid.FLUID_STATE_REGISTRY) {
+			table[Fluid.FLUID_STATE_REGISTRY.getId(state)] = blockStateIds.getInt(state.createLegacyBlock());
+		}
+
+		return table;
+	}
+
+	/**
+	 * Flattens a block render type map into a table indexed by the registry index of each state, or returns null if
+	 * there are no overrides at all.
+	 */
+	public static BlockRenderType[] createBlockTypeTable(Map<Block, BlockRenderType> blockTypeIds) {
+		if (blockTypeIds.isEmpty()) {
+			return null;
+		}
+
+		BlockRenderType[] table = new BlockRenderType[Block.BLOCK_STATE_REGISTRY.size()];
+
+		for (BlockState state : Block.BLOCK_STATE_REGISTRY) {
+			table[Block.getId(state)] = blockTypeIds.get(state.getBlock());
+		}
+
+		return table;
+	}
+
 	private static void addTag(TagEntry tagEntry, Object2IntMap<BlockState> idMap, int intId) {
 		List<TagKey<Block>> compatibleTags = BuiltInRegistries.BLOCK.getTagNames().filter(t -> t.location().getNamespace().equalsIgnoreCase(tagEntry.id().getNamespace()) &&
 			t.location().getPath().equalsIgnoreCase(tagEntry.id().getName())).toList();
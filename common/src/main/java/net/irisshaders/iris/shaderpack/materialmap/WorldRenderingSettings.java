@@ -2,10 +2,20 @@ package net.irisshaders.iris.shaderpack.materialmap;
 
 import it.unimi.dsi.fastutil.objects.Object2IntFunction;
 import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
 import net.caffeinemc.mods.sodium.client.render.chunk.vertex.format.ChunkMeshFormats;
 import net.caffeinemc.mods.sodium.client.render.chunk.vertex.format.ChunkVertexType;
+import net.irisshaders.iris.mixinterface.BlockStateInterface;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.entity.EntityType;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.armortrim.TrimMaterial;
 import net.minecraft.world.level.block.Block;
 import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.material.Fluid;
+import net.minecraft.world.level.material.FluidState;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.Map;
@@ -16,8 +26,14 @@ public class WorldRenderingSettings {
 	private boolean reloadRequired;
 	private Object2IntMap<BlockState> blockStateIds;
 	private Map<Block, BlockRenderType> blockTypeIds;
+	private volatile int[] blockStateIdTable;
+	private volatile int[] fluidStateIdTable;
+	private volatile BlockRenderType[] blockTypeTable;
 	private Object2IntFunction<NamespacedId> entityIds;
 	private Object2IntFunction<NamespacedId> itemIds;
+	private final Reference2IntMap<EntityType<?>> entityTypeIds;
+	private final Reference2IntMap<Item> itemTypeIds;
+	private final Reference2IntMap<TrimMaterial> trimMaterialIds;
 	private float ambientOcclusionLevel;
 	private boolean disableDirectionalShading;
 	private boolean hasVillagerConversionId;
@@ -37,6 +53,13 @@ public class WorldRenderingSettings {
 		separateEntityDraws = false;
 		voxelizeLightBlocks = false;
 		hasVillagerConversionId = false;
+		entityTypeIds = new Reference2IntOpenHashMap<>();
+		itemTypeIds = new Reference2IntOpenHashMap<>();
+		trimMaterialIds = new Reference2IntOpenHashMap<>();
+	}
+
+	private static NamespacedId toNamespacedId(ResourceLocation location) {
+		return new NamespacedId(location.getNamespace(), location.getPath());
 	}
 
 	public boolean isReloadRequired() {
@@ -58,9 +81,43 @@ public class WorldRenderingSettings {
 		}
 
 		this.reloadRequired = true;
+		this.blockStateIdTable = BlockMaterialMapping.createBlockStateIdTable(blockStateIds);
+		this.fluidStateIdTable = BlockMaterialMapping.createFluidStateIdTable(blockStateIds);
 		this.blockStateIds = blockStateIds;
 	}
 
+	/**
+	 * Returns the ID of the given block state, or -1 if it isn't mapped. This only does an array lookup, so it's
+	 * meant for the chunk meshing threads. Only valid when {@link #getBlockStateIds()} is not null.
+	 */
+	public int getBlockStateId(BlockState state) {
+		int[] table = blockStateIdTable;
+
+		if (table == null) {
+			return -1;
+		}
+
+		int index = ((BlockStateInterface) state).iris$getStateIndex();
+
+		return index >= 0 && index < table.length ? table[index] : -1;
+	}
+
+	/**
+	 * Returns the ID of the block state that the given fluid state is rendered as, or -1 if it isn't mapped. Only
+	 * valid when {@link #getBlockStateIds()} is not null.
+	 */
+	public int getFluidStateId(FluidState state) {
+		int[] table = fluidStateIdTable;
+
+		if (table == null) {
+			return -1;
+		}
+
+		int index = Fluid.FLUID_STATE_REGISTRY.getId(state);
+
+		return index >= 0 && index < table.length ? table[index] : -1;
+	}
+
 	public Map<Block, BlockRenderType> getBlockTypeIds() {
 		return blockTypeIds;
 	}
@@ -71,9 +128,26 @@ public class WorldRenderingSettings {
 		}
 
 		this.reloadRequired = true;
+		this.blockTypeTable = BlockMaterialMapping.createBlockTypeTable(blockTypeIds);
 		this.blockTypeIds = blockTypeIds;
 	}
 
+	/**
+	 * Returns the render type override for the block of the given state, or null if there is none.
+	 */
+	@Nullable
+	public BlockRenderType getBlockType(BlockState state) {
+		BlockRenderType[] table = blockTypeTable;
+
+		if (table == null) {
+			return null;
+		}
+
+		int index = ((BlockStateInterface) state).iris$getStateIndex();
+
+		return index >= 0 && index < table.length ? table[index] : null;
+	}
+
 	@Nullable
 	public Object2IntFunction<NamespacedId> getEntityIds() {
 		return entityIds;
@@ -83,6 +157,22 @@ public class WorldRenderingSettings {
 		// note: no reload needed, entities are rebuilt every frame.
 		this.entityIds = entityIds;
 		this.hasVillagerConversionId = entityIds.containsKey(new NamespacedId("minecraft", "zombie_villager_converting"));
+
+		// Resolve every entity type up front, so that looking up the ID of an entity doesn't allocate or hash strings.
+		entityTypeIds.clear();
+		entityTypeIds.defaultReturnValue(entityIds.defaultReturnValue());
+
+		for (EntityType<?> type : BuiltInRegistries.ENTITY_TYPE) {
+			entityTypeIds.put(type, entityIds.applyAsInt(toNamespacedId(BuiltInRegistries.ENTITY_TYPE.getKey(type))));
+		}
+	}
+
+	/**
+	 * Returns the ID of the given entity type, as mapped by the shader pack's entity.properties. Only valid when
+	 * {@link #getEntityIds()} is not null.
+	 */
+	public int getEntityTypeId(EntityType<?> type) {
+		return entityTypeIds.getInt(type);
 	}
 
 	@Nullable
@@ -93,6 +183,39 @@ public class WorldRenderingSettings {
 	public void setItemIds(Object2IntFunction<NamespacedId> itemIds) {
 		// note: no reload needed, entities are rebuilt every frame.
 		this.itemIds = itemIds;
+
+		// Same as for entities, items are resolved up front. Trim materials come from the level's registries, so
+		// those are only resolved once they are first rendered.
+		itemTypeIds.clear();
+		itemTypeIds.defaultReturnValue(itemIds.defaultReturnValue());
+		trimMaterialIds.clear();
+
+		for (Item item : BuiltInRegistries.ITEM) {
+			itemTypeIds.put(item, itemIds.applyAsInt(toNamespacedId(BuiltInRegistries.ITEM.getKey(item))));
+		}
+	}
+
+	/**
+	 * Returns the ID of the given item, as mapped by the shader pack's item.properties. Only valid when
+	 * {@link #getItemIds()} is not null.
+	 */
+	public int getItemId(Item item) {
+		return itemTypeIds.getInt(item);
+	}
+
+	/**
+	 * Returns the ID of the given armor trim material, which packs map as {@code minecraft:trim_<asset name>}. Only
+	 * valid when {@link #getItemIds()} is not null.
+	 */
+	public int getTrimMaterialId(TrimMaterial material) {
+		if (trimMaterialIds.containsKey(material)) {
+			return trimMaterialIds.getInt(material);
+		}
+
+		int id = itemIds.applyAsInt(new NamespacedId("minecraft", "trim_" + material.assetName()));
+		trimMaterialIds.put(material, id);
+
+		return id;
 	}
 
 	public float getAmbientOcclusionLevel() {
@@ -7,7 +7,6 @@ import net.irisshaders.iris.shaderpack.option.values.MutableOptionValues;
 import net.irisshaders.iris.shaderpack.option.values.OptionValues;
 
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
@@ -22,34 +21,17 @@ public class ShaderPackOptions {
 	private final IncludeGraph includes;
 
 	public ShaderPackOptions(IncludeGraph graph, Map<String, String> changedConfigs) {
-		Map<AbsolutePackPath, OptionAnnotatedSource> allAnnotations = new HashMap<>();
-		OptionSet.Builder setBuilder = OptionSet.builder();
-
-		graph.computeWeaklyConnectedComponents().forEach(subgraph -> {
-			ImmutableMap.Builder<AbsolutePackPath, OptionAnnotatedSource> annotationBuilder = ImmutableMap.builder();
-			Set<String> referencedBooleanDefines = new HashSet<>();
-
-			subgraph.getNodes().forEach((path, node) -> {
-				OptionAnnotatedSource annotatedSource = new OptionAnnotatedSource(node.getLines());
-				annotationBuilder.put(path, annotatedSource);
-				referencedBooleanDefines.addAll(annotatedSource.getBooleanDefineReferences().keySet());
-			});
-
-			ImmutableMap<AbsolutePackPath, OptionAnnotatedSource> annotations = annotationBuilder.build();
-			Set<String> referencedBooleanDefinesU = Collections.unmodifiableSet(referencedBooleanDefines);
-
-			annotations.forEach((path, annotatedSource) -> {
-				OptionSet set = annotatedSource.getOptionSet(path, referencedBooleanDefinesU);
-				setBuilder.addAll(set);
-			});
-
-			allAnnotations.putAll(annotations);
-		});
+		this(graph, Discovery.discover(graph), changedConfigs);
+	}
 
-		this.optionSet = setBuilder.build();
+	/**
+	 * Applies options that were already discovered in the given graph, skipping the expensive discovery step.
+	 */
+	public ShaderPackOptions(IncludeGraph graph, Discovery discovery, Map<String, String> changedConfigs) {
+		this.optionSet = discovery.optionSet();
 		this.optionValues = new MutableOptionValues(optionSet, changedConfigs);
 
-		this.includes = graph.map(path -> allAnnotations.get(path).asTransform(optionValues));
+		this.includes = graph.map(path -> discovery.annotations().get(path).asTransform(optionValues));
 	}
 
 	public OptionSet getOptionSet() {
@@ -63,4 +45,38 @@ public class ShaderPackOptions {
 	public IncludeGraph getIncludes() {
 		return includes;
 	}
+
+	/**
+	 * The options found in an include graph, along with the annotated sources they were found in. This does not
+	 * depend on the values the options are set to, so it can be reused when only the values change.
+	 */
+	public record Discovery(OptionSet optionSet, ImmutableMap<AbsolutePackPath, OptionAnnotatedSource> annotations) {
+		public static Discovery discover(IncludeGraph graph) {
+			ImmutableMap.Builder<AbsolutePackPath, OptionAnnotatedSource> allAnnotations = ImmutableMap.builder();
+			OptionSet.Builder setBuilder = OptionSet.builder();
+
+			graph.computeWeaklyConnectedComponents().forEach(subgraph -> {
+				ImmutableMap.Builder<AbsolutePackPath, OptionAnnotatedSource> annotationBuilder = ImmutableMap.builder();
+				Set<String> referencedBooleanDefines = new HashSet<>();
+
+				subgraph.getNodes().forEach((path, node) -> {
+					OptionAnnotatedSource annotatedSource = new OptionAnnotatedSource(node.getLines());
+					annotationBuilder.put(path, annotatedSource);
+					referencedBooleanDefines.addAll(annotatedSource.getBooleanDefineReferences().keySet());
+				});
+
+				ImmutableMap<AbsolutePackPath, OptionAnnotatedSource> annotations = annotationBuilder.build();
+				Set<String> referencedBooleanDefinesU = Collections.unmodifiableSet(referencedBooleanDefines);
+
+				annotations.forEach((path, annotatedSource) -> {
+					OptionSet set = annotatedSource.getOptionSet(path, referencedBooleanDefinesU);
+					setBuilder.addAll(set);
+				});
+
+				allAnnotations.putAll(annotations);
+			});
+
+			return new Discovery(setBuilder.build(), allAnnotations.build());
+		}
+	}
 }
@@ -5,6 +5,8 @@ import net.irisshaders.iris.gl.texture.InternalTextureFormat;
 import net.irisshaders.iris.gl.texture.PixelFormat;
 import net.irisshaders.iris.gl.texture.PixelType;
 
+import java.nio.ByteBuffer;
+
 public abstract class CustomTextureData {
 	private CustomTextureData() {
 
@@ -12,19 +14,30 @@ public abstract class CustomTextureData {
 
 	public static final class PngData extends CustomTextureData {
 		private final TextureFilteringData filteringData;
-		private final byte[] content;
+		private final ByteBuffer content;
 
-		public PngData(TextureFilteringData filteringData, byte[] content) {
+		/**
+		 * @param content The PNG file, in a direct buffer. The buffer may be shared with other textures, so it must
+		 *                not be modified.
+		 */
+		public PngData(TextureFilteringData filteringData, ByteBuffer content) {
 			this.filteringData = filteringData;
 			this.content = content;
 		}
 
+		public PngData(TextureFilteringData filteringData, byte[] content) {
+			this(filteringData, ByteBuffer.allocateDirect(content.length).put(content).flip());
+		}
+
 		public TextureFilteringData getFilteringData() {
 			return filteringData;
 		}
 
-		public byte[] getContent() {
-			return content;
+		/**
+		 * @return A view of the PNG file with its own position and limit.
+		 */
+		public ByteBuffer getContent() {
+			return content.duplicate();
 		}
 	}
 
@@ -67,13 +80,13 @@ public abstract class CustomTextureData {
 	}
 
 	public abstract static class RawData extends CustomTextureData {
-		private final byte[] content;
+		private final ByteBuffer content;
 		private final InternalTextureFormat internalFormat;
 		private final PixelFormat pixelFormat;
 		private final PixelType pixelType;
 		private final TextureFilteringData filteringData;
 
-		private RawData(byte[] content, TextureFilteringData filteringData, InternalTextureFormat internalFormat,
+		private RawData(ByteBuffer content, TextureFilteringData filteringData, InternalTextureFormat internalFormat,
 						PixelFormat pixelFormat, PixelType pixelType) {
 			this.content = content;
 			this.filteringData = filteringData;
@@ -82,8 +95,12 @@ public abstract class CustomTextureData {
 			this.pixelType = pixelType;
 		}
 
-		public final byte[] getContent() {
-			return content;
+		/**
+		 * @return A view of the pixel data in a direct buffer, with its own position and limit. The data may be
+		 * shared with other textures, so it must not be modified.
+		 */
+		public final ByteBuffer getContent() {
+			return content.duplicate();
 		}
 
 		public TextureFilteringData getFilteringData() {
@@ -106,15 +123,15 @@ public abstract class CustomTextureData {
 	public static final class RawData1D extends RawData {
 		private final int sizeX;
 
-		public RawData1D(byte[] content, TextureFilteringData filteringData, InternalTextureFormat internalFormat,
+		public RawData1D(ByteBuffer content, TextureFilteringData filteringData, InternalTextureFormat internalFormat,
 						 PixelFormat pixelFormat, PixelType pixelType, int sizeX) {
 			super(content, filteringData, internalFormat, pixelFormat, pixelType);
 			int expectedSize = sizeX * pixelFormat.getComponentCount() * pixelType.getByteSize();
 
-			if (content.length < expectedSize) {
-				throw new IllegalStateException("1D Custom texture was " + content.length + " bytes; expected " + expectedSize);
-			} else if (content.length > expectedSize) {
-				Iris.logger.warn("1D Custom texture was " + content.length + " bytes; expected " + expectedSize + ". This is allowed, but you probably don't want this.");
+			if (content.remaining() < expectedSize) {
+				throw new IllegalStateException("1D Custom texture was " + content.remaining() + " bytes; expected " + expectedSize);
+			} else if (content.remaining() > expectedSize) {
+				Iris.logger.warn("1D Custom texture was " + content.remaining() + " bytes; expected " + expectedSize + ". This is allowed, but you probably don't want this.");
 			}
 
 			this.sizeX = sizeX;
@@ -129,16 +146,16 @@ public abstract class CustomTextureData {
 		final int sizeX;
 		final int sizeY;
 
-		public RawData2D(byte[] content, TextureFilteringData filteringData, InternalTextureFormat internalFormat,
+		public RawData2D(ByteBuffer content, TextureFilteringData filteringData, InternalTextureFormat internalFormat,
 						 PixelFormat pixelFormat, PixelType pixelType, int sizeX, int sizeY) {
 			super(content, filteringData, internalFormat, pixelFormat, pixelType);
 
 			int expectedSize = sizeX * sizeY * pixelFormat.getComponentCount() * pixelType.getByteSize();
 
-			if (content.length < expectedSize) {
-				throw new IllegalStateException("2D Custom texture was " + content.length + " bytes; expected " + expectedSize);
-			} else if (content.length > expectedSize) {
-				Iris.logger.warn("2D Custom texture was " + content.length + " bytes; expected " + expectedSize + ". This is allowed, but you probably don't want this.");
+			if (content.remaining() < expectedSize) {
+				throw new IllegalStateException("2D Custom texture was " + content.remaining() + " bytes; expected " + expectedSize);
+			} else if (content.remaining() > expectedSize) {
+				Iris.logger.warn("2D Custom texture was " + content.remaining() + " bytes; expected " + expectedSize + ". This is allowed, but you probably don't want this.");
 			}
 
 			this.sizeX = sizeX;
@@ -159,16 +176,16 @@ public abstract class CustomTextureData {
 		final int sizeY;
 		final int sizeZ;
 
-		public RawData3D(byte[] content, TextureFilteringData filteringData, InternalTextureFormat internalFormat,
+		public RawData3D(ByteBuffer content, TextureFilteringData filteringData, InternalTextureFormat internalFormat,
 						 PixelFormat pixelFormat, PixelType pixelType, int sizeX, int sizeY, int sizeZ) {
 			super(content, filteringData, internalFormat, pixelFormat, pixelType);
 
 			int expectedSize = sizeX * sizeY * sizeZ * pixelFormat.getComponentCount() * pixelType.getByteSize();
 
-			if (content.length < expectedSize) {
-				throw new IllegalStateException("3D Custom texture was " + content.length + " bytes; expected " + expectedSize);
-			} else if (content.length > expectedSize) {
-				Iris.logger.warn("3D Custom texture was " + content.length + " bytes; expected " + expectedSize + ". This is allowed, but you probably don't want this.");
+			if (content.remaining() < expectedSize) {
+				throw new IllegalStateException("3D Custom texture was " + content.remaining() + " bytes; expected " + expectedSize);
+			} else if (content.remaining() > expectedSize) {
+				Iris.logger.warn("3D Custom texture was " + content.remaining() + " bytes; expected " + expectedSize + ". This is allowed, but you probably don't want this.");
 			}
 
 			this.sizeX = sizeX;
@@ -190,7 +207,7 @@ public abstract class CustomTextureData {
 	}
 
 	public static class RawDataRect extends RawData2D {
-		public RawDataRect(byte[] content, TextureFilteringData filteringData, InternalTextureFormat internalFormat, PixelFormat pixelFormat, PixelType pixelType, int sizeX, int sizeY) {
+		public RawDataRect(ByteBuffer content, TextureFilteringData filteringData, InternalTextureFormat internalFormat, PixelFormat pixelFormat, PixelType pixelType, int sizeX, int sizeY) {
 			super(content, filteringData, internalFormat, pixelFormat, pixelType, sizeX, sizeY);
 		}
 	}
@@ -0,0 +1,48 @@
+package net.irisshaders.iris.shaderpack.texture;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Reads custom texture files straight into direct buffers, so that large textures never have to pass through the heap
+ * and can be uploaded to OpenGL without another copy.
+ * <p>
+ * Files are never memory mapped. The buffers live as long as the loaded pack, and a mapping would keep the file locked
+ * on Windows for that long, so pack authors couldn't replace a texture while the pack is loaded.
+ */
+public final class TextureContents {
+	private TextureContents() {
+	}
+
+	/**
+	 * Returns the contents of the file as a read-only direct buffer of the exact size of the file.
+	 */
+	public static ByteBuffer read(Path path) throws IOException {
+		try (SeekableByteChannel channel = Files.newByteChannel(path)) {
+			return readFully(path, channel, channel.size());
+		}
+	}
+
+	private static ByteBuffer readFully(Path path, SeekableByteChannel channel, long size) throws IOException {
+		checkSize(path, size);
+
+		ByteBuffer buffer = ByteBuffer.allocateDirect((int) size);
+
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer) < 0) {
+				throw new IOException("Unexpected end of file while reading " + path + " (" + buffer.position() + " of " + size + " bytes)");
+			}
+		}
+
+		return buffer.flip().asReadOnlyBuffer();
+	}
+
+	private static void checkSize(Path path, long size) throws IOException {
+		if (size > Integer.MAX_VALUE) {
+			throw new IOException("The texture at " + path + " is too large (" + size + " bytes)");
+		}
+	}
+}
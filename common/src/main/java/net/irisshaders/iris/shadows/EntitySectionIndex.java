@@ -0,0 +1,203 @@
+package net.irisshaders.iris.shadows;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import it.unimi.dsi.fastutil.objects.Reference2BooleanMap;
+import it.unimi.dsi.fastutil.objects.Reference2BooleanOpenHashMap;
+import net.minecraft.client.renderer.culling.Frustum;
+import net.minecraft.client.renderer.entity.EntityRenderDispatcher;
+import net.minecraft.client.renderer.entity.EntityRenderer;
+import net.irisshaders.iris.shadows.frustum.advanced.AdvancedShadowCullingFrustum;
+import net.minecraft.core.SectionPos;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.Leashable;
+import net.minecraft.world.phys.AABB;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Groups the renderable entities of a frame by the section they're in, along with a box around the culling boxes of
+ * every entity in each section. A section whose box is outside the frustum can then be skipped as a whole, without
+ * testing each of its entities.
+ * <p>
+ * Only entities that are culled by the default {@link EntityRenderer#shouldRender} are put in a section, since that
+ * only looks at the culling box. Entities that are never culled, leashed entities and entities whose renderer has its
+ * own culling (guardian and end crystal beams, and whatever mods add) always have to be tested on their own.
+ */
+public class EntitySectionIndex {
+	private final Long2ObjectMap<Section> sections = new Long2ObjectOpenHashMap<>();
+	private final ObjectArrayList<Section> unusedSections = new ObjectArrayList<>();
+	private final List<Entity> unindexedEntities = new ObjectArrayList<>();
+	private final List<Section> batchedSections = new ObjectArrayList<>();
+	private final List<AABB> batchedBounds = new ObjectArrayList<>();
+	private boolean[] batchedVisibility = new boolean[0];
+	private int testedSections;
+	private int culledSections;
+	/**
+	 * Whether each renderer class overrides {@link EntityRenderer#shouldRender}.
+	 */
+	private final Reference2BooleanMap<Class<?>> customCulling = new Reference2BooleanOpenHashMap<>();
+
+	private static boolean overridesShouldRender(Class<?> rendererClass) {
+		// Looked up by signature rather than by name, since the name depends on the mappings at runtime.
+		Class<?>[] parameters = {Entity.class, Frustum.class, double.class, double.class, double.class};
+
+		for (Class<?> c = rendererClass; c != EntityRenderer.class && c != null; c = c.getSuperclass()) {
+			for (Method method : c.getDeclaredMethods()) {
+				if (!Modifier.isStatic(method.getModifiers()) && method.getReturnType() == boolean.class
+					&& Arrays.equals(method.getParameterTypes(), parameters)) {
+					return true;
+				}
+			}
+		}
+
+		return false;
+	}
+
+	private boolean isAlwaysTested(Entity entity, EntityRenderDispatcher dispatcher) {
+		if (entity.noCulling || entity instanceof Leashable leashable && leashable.getLeashHolder() != null) {
+			return true;
+		}
+
+		return customCulling.computeIfAbsent(dispatcher.getRenderer(entity).getClass(), EntitySectionIndex::overridesShouldRender);
+	}
+
+	public void build(Iterable<Entity> entities, EntityRenderDispatcher dispatcher) {
+		clear();
+
+		for (Entity entity : entities) {
+			if (isAlwaysTested(entity, dispatcher)) {
+				unindexedEntities.add(entity);
+				continue;
+			}
+
+			AABB box = entity.getBoundingBoxForCulling();
+
+			if (box.hasNaN() || box.getSize() == 0.0) {
+				// The renderer swaps in its own box around the entity for these.
+				unindexedEntities.add(entity);
+				continue;
+			}
+
+			long key = SectionPos.asLong(SectionPos.blockToSectionCoord(entity.getX()),
+				SectionPos.blockToSectionCoord(entity.getY()), SectionPos.blockToSectionCoord(entity.getZ()));
+
+			Section section = sections.get(key);
+
+			if (section == null) {
+				section = unusedSections.isEmpty() ? new Section() : unusedSections.pop();
+				sections.put(key, section);
+			}
+
+			// The renderer inflates the culling box by half a block before testing it.
+			section.add(entity, box.inflate(0.5));
+		}
+	}
+
+	/**
+	 * Adds every entity that might be visible in the frustum to the list. The caller still has to test each entity,
+	 * this only skips the sections that are entirely outside the frustum.
+	 */
+	public void collectCandidates(Frustum frustum, List<Entity> candidates) {
+		testedSections = sections.size();
+		culledSections = 0;
+
+		if (frustum instanceof AdvancedShadowCullingFrustum advancedFrustum) {
+			collectCandidatesBatched(advancedFrustum, candidates);
+			return;
+		}
+
+		for (Section section : sections.values()) {
+			if (!frustum.isVisible(section.getBounds())) {
+				culledSections++;
+				continue;
+			}
+
+			candidates.addAll(section.entities);
+		}
+
+		candidates.addAll(unindexedEntities);
+	}
+
+	private void collectCandidatesBatched(AdvancedShadowCullingFrustum frustum, List<Entity> candidates) {
+		for (Section section : sections.values()) {
+			batchedSections.add(section);
+			batchedBounds.add(section.getBounds());
+		}
+
+		if (batchedVisibility.length < batchedSections.size()) {
+			batchedVisibility = new boolean[Math.max(batchedSections.size(), batchedVisibility.length * 2)];
+		}
+
+		frustum.isVisible(batchedBounds, batchedVisibility);
+
+		for (int i = 0; i < batchedSections.size(); i++) {
+			if (!batchedVisibility[i]) {
+				culledSections++;
+				continue;
+			}
+
+			candidates.addAll(batchedSections.get(i).entities);
+		}
+
+		candidates.addAll(unindexedEntities);
+
+		batchedSections.clear();
+		batchedBounds.clear();
+	}
+
+	/**
+	 * Drops every reference to the entities, keeping the sections around for the next frame.
+	 */
+	public void clear() {
+		for (Section section : sections.values()) {
+			section.reset();
+			unusedSections.add(section);
+		}
+
+		sections.clear();
+		unindexedEntities.clear();
+	}
+
+	public String getDebugString() {
+		return culledSections + "/" + testedSections + " sections culled";
+	}
+
+	private static class Section {
+		private final List<Entity> entities = new ObjectArrayList<>();
+		private double minX, minY, minZ;
+		private double maxX, maxY, maxZ;
+
+		private void add(Entity entity, AABB box) {
+			if (entities.isEmpty()) {
+				minX = box.minX;
+				minY = box.minY;
+				minZ = box.minZ;
+				maxX = box.maxX;
+				maxY = box.maxY;
+				maxZ = box.maxZ;
+			} else {
+				minX = Math.min(minX, box.minX);
+				minY = Math.min(minY, box.minY);
+				minZ = Math.min(minZ, box.minZ);
+				maxX = Math.max(maxX, box.maxX);
+				maxY = Math.max(maxY, box.maxY);
+				maxZ = Math.max(maxZ, box.maxZ);
+			}
+
+			entities.add(entity);
+		}
+
+		private AABB getBounds() {
+			return new AABB(minX, minY, minZ, maxX, maxY, maxZ);
+		}
+
+		private void reset() {
+			entities.clear();
+		}
+	}
+}
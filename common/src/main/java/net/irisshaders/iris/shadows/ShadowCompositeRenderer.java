@@ -18,6 +18,7 @@ import net.irisshaders.iris.gl.program.ProgramBuilder;
 import net.irisshaders.iris.gl.program.ProgramSamplers;
 import net.irisshaders.iris.gl.program.ProgramUniforms;
 import net.irisshaders.iris.gl.state.FogMode;
+import net.irisshaders.iris.gl.state.GlStateTracker;
 import net.irisshaders.iris.gl.texture.TextureAccess;
 import net.irisshaders.iris.pathways.FullScreenQuadRenderer;
 import net.irisshaders.iris.pipeline.WorldRenderingPipeline;
@@ -183,6 +184,9 @@ public class ShadowCompositeRenderer {
 
 		FullScreenQuadRenderer.INSTANCE.begin();
 
+		// Nothing else runs between the passes, so framebuffer, program, and viewport changes can be tracked.
+		GlStateTracker.INSTANCE.beginScope();
+
 		for (Pass renderPass : passes) {
 			boolean ranCompute = false;
 			for (ComputeProgram computeProgram : renderPass.computes) {
@@ -217,7 +221,7 @@ public class ShadowCompositeRenderer {
 			float scaledHeight = renderTargets.getResolution() * renderPass.viewportScale.scale();
 			int beginWidth = (int) (renderTargets.getResolution() * renderPass.viewportScale.viewportX());
 			int beginHeight = (int) (renderTargets.getResolution() * renderPass.viewportScale.viewportY());
-			RenderSystem.viewport(beginWidth, beginHeight, (int) scaledWidth, (int) scaledHeight);
+			GlStateTracker.INSTANCE.viewport(beginWidth, beginHeight, (int) scaledWidth, (int) scaledHeight);
 
 			renderPass.framebuffer.bind();
 			renderPass.program.use();
@@ -228,6 +232,7 @@ public class ShadowCompositeRenderer {
 		}
 
 		FullScreenQuadRenderer.INSTANCE.end();
+		GlStateTracker.INSTANCE.endScope();
 
 		// Make sure to reset the viewport to how it was before... Otherwise weird issues could occur.
 		ProgramUniforms.clearActiveUniforms();
@@ -12,6 +12,7 @@ import net.irisshaders.batchedentityrendering.impl.RenderBuffersExt;
 import net.irisshaders.iris.Iris;
 import net.irisshaders.iris.compat.dh.DHCompat;
 import net.irisshaders.iris.gl.IrisRenderSystem;
+import net.irisshaders.iris.gl.state.GlStateTracker;
 import net.irisshaders.iris.gui.option.IrisVideoSettings;
 import net.irisshaders.iris.mixin.LevelRendererAccessor;
 import net.irisshaders.iris.shaderpack.programs.ProgramSource;
@@ -36,11 +37,15 @@ import net.minecraft.client.renderer.LevelRenderer;
 import net.minecraft.client.renderer.MultiBufferSource;
 import net.minecraft.client.renderer.RenderBuffers;
 import net.minecraft.client.renderer.RenderType;
+import net.minecraft.client.renderer.ViewArea;
+import net.minecraft.client.renderer.chunk.SectionRenderDispatcher;
 import net.minecraft.client.renderer.culling.Frustum;
 import net.minecraft.client.renderer.entity.EntityRenderDispatcher;
 import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
 import net.minecraft.world.entity.Entity;
 import net.minecraft.world.level.block.entity.BlockEntity;
+import org.jetbrains.annotations.Nullable;
 import org.joml.Matrix4f;
 import org.joml.Vector3d;
 import org.joml.Vector3f;
@@ -61,6 +66,10 @@ public class ShadowRenderer {
 	public static Matrix4f MODELVIEW;
 	public static Matrix4f PROJECTION;
 	public static Frustum FRUSTUM;
+	/**
+	 * At 60 FPS, this picks up newly loaded sections within a third of a second even if the camera stands still.
+	 */
+	private static final int MAX_REUSED_SETUP_FRAMES = 20;
 	private final float halfPlaneLength;
 	private final float nearPlane, farPlane;
 	private final float voxelDistance;
@@ -85,10 +94,30 @@ public class ShadowRenderer {
 	private final String debugStringOverall;
 	private final boolean separateHardwareSamplers;
 	private final boolean shouldRenderLightBlockEntities;
+	@Nullable
+	private final ShadowTerrainCache terrainCache;
+	private final EntitySectionIndex entityIndex = new EntitySectionIndex();
+	private final List<Entity> renderedEntities = new ArrayList<>();
+	private final BoxCuller blockEntityCuller;
 	private boolean packHasVoxelization;
 	private FrustumHolder terrainFrustumHolder;
 	private FrustumHolder entityFrustumHolder;
 	private String debugStringTerrain = "(unavailable)";
+	/**
+	 * The inputs of the last shadow terrain setup, used to tell whether its visible sections can be reused.
+	 */
+	private final Matrix4f lastSetupModelView = new Matrix4f();
+	private final Matrix4f lastSetupProjection = new Matrix4f();
+	private final Matrix4f lastSetupPlayerView = new Matrix4f();
+	private long lastSetupCameraSection;
+	private int lastSetupRenderDistance;
+	private int lastSetupEffectiveRenderDistance;
+	private ViewArea lastSetupViewArea;
+	private Class<?> lastSetupFrustumType;
+	private int reusedSetupFrames;
+	private boolean hasTerrainSetup;
+	private int terrainSetups;
+	private int reusedTerrainSetups;
 	private int renderedShadowEntities = 0;
 	private int renderedShadowBlockEntities = 0;
 
@@ -117,6 +146,7 @@ public class ShadowRenderer {
 		this.shouldRenderDH = shadowDirectives.isDhShadowEnabled().orElse(false);
 
 		this.compositeRenderer = compositeRenderer;
+		this.blockEntityCuller = new BoxCuller(halfPlaneLength * (renderDistanceMultiplier * entityShadowDistanceMultiplier));
 
 		debugStringOverall = "half plane = " + halfPlaneLength + " meters @ " + resolution + "x" + resolution;
 
@@ -147,6 +177,17 @@ public class ShadowRenderer {
 			this.renderBuffersExt = null;
 		}
 
+		if (Iris.getIrisConfig().shouldCacheShadowTerrain() && shouldRenderTerrain && !shouldRenderDH) {
+			if (ShadowTerrainCache.isSupported()) {
+				this.terrainCache = new ShadowTerrainCache(shadowRenderTargets);
+			} else {
+				Iris.logger.warn("Shadow terrain caching requires glCopyImageSubData, which isn't available; not caching shadow terrain.");
+				this.terrainCache = null;
+			}
+		} else {
+			this.terrainCache = null;
+		}
+
 		configureSamplingSettings(shadowDirectives);
 	}
 
@@ -362,6 +403,7 @@ public class ShadowRenderer {
 
 		levelRenderer.getLevel().getProfiler().popPush("shadows");
 		ACTIVE = true;
+		GlStateTracker.INSTANCE.beginScope();
 
 		renderDistance = (int) ((halfPlaneLength * renderDistanceMultiplier) / 16);
 
@@ -427,16 +469,29 @@ public class ShadowRenderer {
 		boolean wasChunkCullingEnabled = client.smartCull;
 		client.smartCull = false;
 
-		// Always schedule a terrain update
-		// TODO: Only schedule a terrain update if the sun / moon is moving, or the shadow map camera moved.
-		// We have to ensure that we don't regenerate clouds every frame, since that's what needsUpdate ends up doing.
-		// This took up to 10% of the frame time before we applied this fix! That's really bad!
-		boolean regenerateClouds = levelRenderer.shouldRegenerateClouds();
-		((LevelRenderer) levelRenderer).needsUpdate();
-		levelRenderer.setShouldRegenerateClouds(regenerateClouds);
+		if (canReuseTerrainSetup(levelRenderer, cameraX, cameraY, cameraZ)) {
+			// Nothing that decides which sections are visible changed, so the sections that were visible in the last
+			// shadow pass (swapped back in by saveState) are still the right ones. Their block entities may have
+			// changed since then, though.
+			reusedSetupFrames++;
+			reusedTerrainSetups++;
 
-		// Execute the vanilla terrain setup / culling routines using our shadow frustum.
-		levelRenderer.invokeSetupRender(playerCamera, terrainFrustumHolder.getFrustum(), false, false);
+			for (SectionRenderDispatcher.RenderSection section : levelRenderer.getVisibleSections()) {
+				visibleBlockEntities.addAll(section.getCompiled().getRenderableBlockEntities());
+			}
+		} else {
+			reusedSetupFrames = 0;
+			terrainSetups++;
+
+			// We have to ensure that we don't regenerate clouds every frame, since that's what needsUpdate ends up doing.
+			// This took up to 10% of the frame time before we applied this fix! That's really bad!
+			boolean regenerateClouds = levelRenderer.shouldRegenerateClouds();
+			((LevelRenderer) levelRenderer).needsUpdate();
+			levelRenderer.setShouldRegenerateClouds(regenerateClouds);
+
+			// Execute the vanilla terrain setup / culling routines using our shadow frustum.
+			levelRenderer.invokeSetupRender(playerCamera, terrainFrustumHolder.getFrustum(), false, false);
+		}
 
 		// Don't forget to increment the frame counter! This variable is arbitrary and only used in terrain setup,
 		// and if it's not incremented, the vanilla culling code will get confused and think that it's already seen
@@ -458,9 +513,21 @@ public class ShadowRenderer {
 
 		// Render all opaque terrain unless pack requests not to
 		if (shouldRenderTerrain) {
-			levelRenderer.invokeRenderSectionLayer(RenderType.solid(), cameraX, cameraY, cameraZ, MODELVIEW, shadowProjection);
-			levelRenderer.invokeRenderSectionLayer(RenderType.cutout(), cameraX, cameraY, cameraZ, MODELVIEW, shadowProjection);
-			levelRenderer.invokeRenderSectionLayer(RenderType.cutoutMipped(), cameraX, cameraY, cameraZ, MODELVIEW, shadowProjection);
+			boolean cacheUsable = canUseTerrainCache();
+
+			if (cacheUsable && terrainCache.canRestore(MODELVIEW, shadowProjection, cameraX, cameraY, cameraZ)) {
+				terrainCache.restore();
+			} else {
+				levelRenderer.invokeRenderSectionLayer(RenderType.solid(), cameraX, cameraY, cameraZ, MODELVIEW, shadowProjection);
+				levelRenderer.invokeRenderSectionLayer(RenderType.cutout(), cameraX, cameraY, cameraZ, MODELVIEW, shadowProjection);
+				levelRenderer.invokeRenderSectionLayer(RenderType.cutoutMipped(), cameraX, cameraY, cameraZ, MODELVIEW, shadowProjection);
+
+				if (cacheUsable) {
+					terrainCache.capture(MODELVIEW, shadowProjection, cameraX, cameraY, cameraZ);
+				} else if (terrainCache != null) {
+					terrainCache.invalidate();
+				}
+			}
 		}
 
 		// Reset our viewport in case Sodium overrode it
@@ -571,21 +638,95 @@ public class ShadowRenderer {
 
 		visibleBlockEntities = null;
 		ACTIVE = false;
+		GlStateTracker.INSTANCE.endScope();
 
 		levelRenderer.getLevel().getProfiler().pop();
 		levelRenderer.getLevel().getProfiler().popPush("updatechunks");
 	}
 
+	/**
+	 * Whether a copy of the shadow map can stand in for drawing the opaque terrain. Packs that write to images or use
+	 * geometry shaders may do more than draw when terrain is rendered, and shadow color buffers that aren't cleared
+	 * every frame would lose what was drawn into them over the previous frames.
+	 */
+	private boolean canUseTerrainCache() {
+		if (terrainCache == null || packHasVoxelization) {
+			return false;
+		}
+
+		for (int i = 0; i < targets.getRenderTargetCount(); i++) {
+			if (targets.get(i) != null && !targets.getBuffersToBeCleared().contains(i)) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Checks whether the shadow camera, the shadow projection, the player camera section and everything else that
+	 * affects which sections are in the shadow frustum are the same as in the last terrain setup, and records the
+	 * current values for the next check otherwise.
+	 * <p>
+	 * Sections that get loaded while the camera stands still are only picked up by a new setup, so the result of a
+	 * setup is never reused for more than {@link #MAX_REUSED_SETUP_FRAMES} frames in a row.
+	 */
+	private boolean canReuseTerrainSetup(LevelRendererAccessor levelRenderer, double cameraX, double cameraY, double cameraZ) {
+		Frustum frustum = terrainFrustumHolder.getFrustum();
+		long cameraSection = SectionPos.asLong(SectionPos.posToSectionCoord(cameraX), SectionPos.posToSectionCoord(cameraY), SectionPos.posToSectionCoord(cameraZ));
+		int effectiveRenderDistance = Minecraft.getInstance().options.getEffectiveRenderDistance();
+		ViewArea viewArea = levelRenderer.getViewArea();
+
+		// The advanced frustum also culls against the player's view, so it changes whenever the player looks around.
+		Matrix4f playerView = new Matrix4f();
+
+		if (frustum instanceof AdvancedShadowCullingFrustum) {
+			CapturedRenderingState.INSTANCE.getGbufferProjection().mul(CapturedRenderingState.INSTANCE.getGbufferModelView(), playerView);
+		}
+
+		// Without the culling data cache, the visible sections of the last shadow pass aren't kept around.
+		boolean unchanged = hasTerrainSetup
+			&& levelRenderer instanceof CullingDataCache
+			&& reusedSetupFrames < MAX_REUSED_SETUP_FRAMES
+			&& viewArea == lastSetupViewArea
+			&& frustum.getClass() == lastSetupFrustumType
+			&& cameraSection == lastSetupCameraSection
+			&& renderDistance == lastSetupRenderDistance
+			&& effectiveRenderDistance == lastSetupEffectiveRenderDistance
+			&& MODELVIEW.equals(lastSetupModelView)
+			&& PROJECTION.equals(lastSetupProjection)
+			&& playerView.equals(lastSetupPlayerView);
+
+		if (!unchanged) {
+			hasTerrainSetup = true;
+			lastSetupViewArea = viewArea;
+			lastSetupFrustumType = frustum.getClass();
+			lastSetupCameraSection = cameraSection;
+			lastSetupRenderDistance = renderDistance;
+			lastSetupEffectiveRenderDistance = effectiveRenderDistance;
+			lastSetupModelView.set(MODELVIEW);
+			lastSetupProjection.set(PROJECTION);
+			lastSetupPlayerView.set(playerView);
+		}
+
+		return unchanged;
+	}
+
 	public int renderBlockEntities(RenderBuffers bufferSource, PoseStack modelView, Camera camera, double cameraX, double cameraY, double cameraZ, float tickDelta, boolean hasEntityFrustum, boolean lightsOnly) {
 		getLevel().getProfiler().push("build blockentities");
 
 		int shadowBlockEntities = 0;
-		BoxCuller culler = null;
+		BoxCuller culler = blockEntityCuller;
 		if (hasEntityFrustum) {
-			culler = new BoxCuller(halfPlaneLength * (renderDistanceMultiplier * entityShadowDistanceMultiplier));
 			culler.setPosition(cameraX, cameraY, cameraZ);
 		}
 
+		// Block entities are added one visible section at a time, so the box culler only has to look at each section
+		// once. Sections that are entirely inside or outside of it decide for all of their block entities.
+		long lastSection = Long.MAX_VALUE;
+		boolean sectionCulled = false;
+		boolean sectionContained = false;
+
 		for (BlockEntity entity : visibleBlockEntities) {
 			if (lightsOnly && entity.getBlockState().getLightEmission() == 0) {
 				continue;
@@ -593,7 +734,23 @@ public class ShadowRenderer {
 
 			BlockPos pos = entity.getBlockPos();
 			if (hasEntityFrustum) {
-				if (culler.isCulled(pos.getX() - 1, pos.getY() - 1, pos.getZ() - 1, pos.getX() + 1, pos.getY() + 1, pos.getZ() + 1)) {
+				long section = SectionPos.asLong(pos);
+
+				if (section != lastSection) {
+					lastSection = section;
+
+					// Every block entity in the section is tested with a box reaching one block out of its position.
+					double minX = SectionPos.sectionToBlockCoord(SectionPos.x(section)) - 1;
+					double minY = SectionPos.sectionToBlockCoord(SectionPos.y(section)) - 1;
+					double minZ = SectionPos.sectionToBlockCoord(SectionPos.z(section)) - 1;
+
+					sectionCulled = culler.isCulled(minX, minY, minZ, minX + 17, minY + 17, minZ + 17);
+					sectionContained = !sectionCulled && !culler.isCulled(minX, minY, minZ, minX, minY, minZ)
+						&& !culler.isCulled(minX + 17, minY + 17, minZ + 17, minX + 17, minY + 17, minZ + 17);
+				}
+
+				if (sectionCulled || (!sectionContained
+					&& culler.isCulled(pos.getX() - 1, pos.getY() - 1, pos.getZ() - 1, pos.getX() + 1, pos.getY() + 1, pos.getZ() + 1))) {
 					continue;
 				}
 			}
@@ -611,18 +768,18 @@ public class ShadowRenderer {
 	}
 
 	private int renderEntities(LevelRendererAccessor levelRenderer, EntityRenderDispatcher dispatcher, MultiBufferSource.BufferSource bufferSource, PoseStack modelView, float tickDelta, Frustum frustum, double cameraX, double cameraY, double cameraZ) {
-		levelRenderer.getLevel().getProfiler().push("cull");
+		levelRenderer.getLevel().getProfiler().push("index");
 
-		List<Entity> renderedEntities = new ArrayList<>(32);
+		entityIndex.build(getLevel().entitiesForRendering(), dispatcher);
 
-		// TODO: I'm sure that this can be improved / optimized.
-		for (Entity entity : getLevel().entitiesForRendering()) {
-			if (!dispatcher.shouldRender(entity, frustum, cameraX, cameraY, cameraZ) || entity.isSpectator()) {
-				continue;
-			}
+		levelRenderer.getLevel().getProfiler().popPush("cull");
 
-			renderedEntities.add(entity);
-		}
+		// Sections outside of the shadow frustum are skipped as a whole, the entities in the remaining ones are still
+		// tested on their own.
+		entityIndex.collectCandidates(frustum, renderedEntities);
+		entityIndex.clear();
+
+		renderedEntities.removeIf(entity -> !dispatcher.shouldRender(entity, frustum, cameraX, cameraY, cameraZ) || entity.isSpectator());
 
 		levelRenderer.getLevel().getProfiler().popPush("sort");
 
@@ -638,7 +795,10 @@ public class ShadowRenderer {
 
 		levelRenderer.getLevel().getProfiler().pop();
 
-		return renderedEntities.size();
+		int rendered = renderedEntities.size();
+		renderedEntities.clear();
+
+		return rendered;
 	}
 
 	private int renderPlayerEntity(LevelRendererAccessor levelRenderer, EntityRenderDispatcher dispatcher, MultiBufferSource.BufferSource bufferSource, PoseStack modelView, float tickDelta, Frustum frustum, double cameraX, double cameraY, double cameraZ) {
@@ -697,6 +857,11 @@ public class ShadowRenderer {
 			messages.add("[" + Iris.MODNAME + "] Shadow Culling Terrain: " + terrainFrustumHolder.getCullingInfo() + " Entity: " + entityFrustumHolder.getCullingInfo());
 			messages.add("[" + Iris.MODNAME + "] Shadow Terrain: " + debugStringTerrain
 				+ (shouldRenderTerrain ? "" : " (no terrain) ") + (shouldRenderTranslucent ? "" : "(no translucent)"));
+			messages.add("[" + Iris.MODNAME + "] Shadow Terrain Setup: " + terrainSetups + " full, " + reusedTerrainSetups + " reused");
+
+			if (terrainCache != null) {
+				messages.add("[" + Iris.MODNAME + "] Shadow Terrain Cache: " + (canUseTerrainCache() ? terrainCache.getDebugString() : "not usable with this pack"));
+			}
 			messages.add("[" + Iris.MODNAME + "] Shadow Entities: " + getEntitiesDebugString());
 			messages.add("[" + Iris.MODNAME + "] Shadow Block Entities: " + getBlockEntitiesDebugString());
 
@@ -711,7 +876,11 @@ public class ShadowRenderer {
 	}
 
 	private String getEntitiesDebugString() {
-		return (shouldRenderEntities || shouldRenderPlayer) ? (renderedShadowEntities + "/" + Minecraft.getInstance().level.getEntityCount()) : "disabled by pack";
+		if (shouldRenderEntities) {
+			return renderedShadowEntities + "/" + Minecraft.getInstance().level.getEntityCount() + ", " + entityIndex.getDebugString();
+		}
+
+		return shouldRenderPlayer ? (renderedShadowEntities + "/" + Minecraft.getInstance().level.getEntityCount()) : "disabled by pack";
 	}
 
 	private String getBlockEntitiesDebugString() {
@@ -719,6 +888,10 @@ public class ShadowRenderer {
 	}
 
 	public void destroy() {
+		if (terrainCache != null) {
+			terrainCache.destroy();
+		}
+
 		targets.destroy();
 		((MemoryTrackingRenderBuffers) buffers).freeAndDeleteBuffers();
 	}
@@ -0,0 +1,162 @@
+package net.irisshaders.iris.shadows;
+
+import com.mojang.blaze3d.platform.GlStateManager;
+import net.irisshaders.iris.gl.GLDebug;
+import net.irisshaders.iris.gl.IrisRenderSystem;
+import net.irisshaders.iris.gl.texture.DepthBufferFormat;
+import net.irisshaders.iris.gl.texture.InternalTextureFormat;
+import net.irisshaders.iris.gl.texture.PixelType;
+import net.irisshaders.iris.targets.DepthTexture;
+import net.irisshaders.iris.targets.RenderTarget;
+import org.joml.Matrix4f;
+import org.lwjgl.opengl.GL;
+import org.lwjgl.opengl.GL11C;
+import org.lwjgl.opengl.GL43C;
+import org.lwjgl.system.MemoryUtil;
+
+/**
+ * Keeps a copy of the shadow map right after the opaque terrain was drawn, so that frames where the terrain in the
+ * shadow volume didn't change can copy it back instead of drawing the terrain again. Entities, block entities and
+ * translucent terrain are still drawn every frame on top of the copy.
+ * <p>
+ * The copy is only valid for the exact shadow model-view, projection and camera position it was taken with. Sodium
+ * owns the terrain, so it reports every section it uploads or removes through {@link #markTerrainChanged()}, and any
+ * such change throws the copy away.
+ */
+public class ShadowTerrainCache {
+	private static int terrainVersion;
+
+	private final ShadowRenderTargets targets;
+	private final int resolution;
+	private final DepthTexture depth;
+	private final int[] colors;
+	private final Matrix4f modelView = new Matrix4f();
+	private final Matrix4f projection = new Matrix4f();
+	private double cameraX;
+	private double cameraY;
+	private double cameraZ;
+	private int capturedVersion;
+	private boolean valid;
+	private int captures;
+	private int restores;
+
+	public ShadowTerrainCache(ShadowRenderTargets targets) {
+		this.targets = targets;
+		this.resolution = targets.getResolution();
+		this.depth = new DepthTexture("shadowtex0 terrain cache", resolution, resolution, DepthBufferFormat.DEPTH);
+		this.colors = new int[targets.getRenderTargetCount()];
+	}
+
+	/**
+	 * The cache copies textures with glCopyImageSubData, since blitting every shadow color buffer through framebuffers
+	 * would cost about as much as drawing the terrain in the first place.
+	 */
+	public static boolean isSupported() {
+		return GL.getCapabilities().glCopyImageSubData != MemoryUtil.NULL;
+	}
+
+	/**
+	 * Called whenever the meshes of a terrain section change, including sections being unloaded.
+	 */
+	public static void markTerrainChanged() {
+		terrainVersion++;
+	}
+
+	private static void copy(int source, int dest, int size) {
+		GL43C.glCopyImageSubData(source, GL43C.GL_TEXTURE_2D, 0, 0, 0, 0, dest, GL43C.GL_TEXTURE_2D, 0, 0, 0, 0, size, size, 1);
+	}
+
+	public boolean canRestore(Matrix4f modelView, Matrix4f projection, double cameraX, double cameraY, double cameraZ) {
+		if (!valid || capturedVersion != terrainVersion || !this.modelView.equals(modelView) || !this.projection.equals(projection)
+			|| this.cameraX != cameraX || this.cameraY != cameraY || this.cameraZ != cameraZ) {
+			return false;
+		}
+
+		for (int i = 0; i < colors.length; i++) {
+			// A color buffer that was created after the copy was taken isn't in it.
+			if (colors[i] == 0 && targets.get(i) != null) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Copies the cached terrain into the main textures of the shadow map, which is what the shadow gbuffer programs
+	 * draw to.
+	 */
+	public void restore() {
+		copy(depth.getTextureId(), targets.getDepthTexture().getTextureId(), resolution);
+
+		for (int i = 0; i < colors.length; i++) {
+			if (colors[i] != 0) {
+				copy(colors[i], targets.get(i).getMainTexture(), resolution);
+			}
+		}
+
+		restores++;
+	}
+
+	public void capture(Matrix4f modelView, Matrix4f projection, double cameraX, double cameraY, double cameraZ) {
+		copy(targets.getDepthTexture().getTextureId(), depth.getTextureId(), resolution);
+
+		for (int i = 0; i < colors.length; i++) {
+			RenderTarget target = targets.get(i);
+
+			if (target == null) {
+				continue;
+			}
+
+			if (colors[i] == 0) {
+				colors[i] = createColorTexture(i, targets.getColorTextureFormat(i));
+			}
+
+			copy(target.getMainTexture(), colors[i], resolution);
+		}
+
+		this.modelView.set(modelView);
+		this.projection.set(projection);
+		this.cameraX = cameraX;
+		this.cameraY = cameraY;
+		this.cameraZ = cameraZ;
+		capturedVersion = terrainVersion;
+		valid = true;
+		captures++;
+	}
+
+	private int createColorTexture(int index, InternalTextureFormat format) {
+		int texture = IrisRenderSystem.createTexture(GL11C.GL_TEXTURE_2D);
+
+		IrisRenderSystem.texImage2D(texture, GL11C.GL_TEXTURE_2D, 0, format.getGlFormat(), resolution, resolution, 0,
+			format.getPixelFormat().getGlFormat(), PixelType.UNSIGNED_BYTE.getGlFormat(), null);
+		// glCopyImageSubData needs a complete texture, and this one never has mipmaps.
+		IrisRenderSystem.texParameteri(texture, GL11C.GL_TEXTURE_2D, GL11C.GL_TEXTURE_MIN_FILTER, GL11C.GL_NEAREST);
+		IrisRenderSystem.texParameteri(texture, GL11C.GL_TEXTURE_2D, GL11C.GL_TEXTURE_MAG_FILTER, GL11C.GL_NEAREST);
+		GLDebug.nameObject(GL43C.GL_TEXTURE, texture, "shadowcolor" + index + " terrain cache");
+
+		GlStateManager._bindTexture(0);
+
+		return texture;
+	}
+
+	public void invalidate() {
+		valid = false;
+	}
+
+	public String getDebugString() {
+		return captures + " captures, " + restores + " restores";
+	}
+
+	public void destroy() {
+		invalidate();
+		depth.destroy();
+
+		for (int i = 0; i < colors.length; i++) {
+			if (colors[i] != 0) {
+				GlStateManager._deleteTexture(colors[i]);
+				colors[i] = 0;
+			}
+		}
+	}
+}
@@ -13,6 +13,8 @@ import org.joml.Vector3f;
 import org.joml.Vector4f;
 
 import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * A Frustum implementation that derives a tightly-fitted shadow pass frustum based on the player's camera frustum and
@@ -66,6 +68,15 @@ public class AdvancedShadowCullingFrustum extends Frustum implements net.caffein
 	 * </p>
 	 */
 	private final float[][] planes = new float[MAX_CLIPPING_PLANES][4];
+	/**
+	 * The same plane equations, split up into one array per component once all planes are known. Both the single and
+	 * the batched tests read these, which saves an indirection per plane and keeps the batch loops free of anything
+	 * that would stop the JIT from vectorizing them.
+	 */
+	private float[] planeXs;
+	private float[] planeYs;
+	private float[] planeZs;
+	private float[] planeWs;
 	private final Vector3f shadowLightVectorFromOrigin;
 	private final Vector3d position = new Vector3d();
 	// The center coordinates of this frustum.
@@ -73,6 +84,14 @@ public class AdvancedShadowCullingFrustum extends Frustum implements net.caffein
 	public double y;
 	public double z;
 	private int planeCount = 0;
+	// Scratch space for the batched visibility test, grown as needed.
+	private float[] batchMinX = new float[0];
+	private float[] batchMinY = new float[0];
+	private float[] batchMinZ = new float[0];
+	private float[] batchMaxX = new float[0];
+	private float[] batchMaxY = new float[0];
+	private float[] batchMaxZ = new float[0];
+	private byte[] batchResults = new byte[0];
 
 	public AdvancedShadowCullingFrustum(Matrix4fc modelViewProjection, Matrix4fc shadowProjection, Vector3f shadowLightVectorFromOrigin,
 										BoxCuller boxCuller) {
@@ -91,10 +110,25 @@ public class AdvancedShadowCullingFrustum extends Frustum implements net.caffein
 
 		boolean[] isBack = addBackPlanes(baseClippingPlanes);
 		addEdgePlanes(baseClippingPlanes, isBack);
+		splitPlanes();
 
 		this.boxCuller = boxCuller;
 	}
 
+	private void splitPlanes() {
+		planeXs = new float[planeCount];
+		planeYs = new float[planeCount];
+		planeZs = new float[planeCount];
+		planeWs = new float[planeCount];
+
+		for (int i = 0; i < planeCount; i++) {
+			planeXs[i] = planes[i][0];
+			planeYs[i] = planes[i][1];
+			planeZs[i] = planes[i][2];
+			planeWs[i] = planes[i][3];
+		}
+	}
+
 	private void addPlane(float[] plane) {
 		planes[planeCount] = plane;
 		planeCount += 1;
@@ -298,6 +332,55 @@ public class AdvancedShadowCullingFrustum extends Frustum implements net.caffein
 		return this.isVisible(aabb.minX, aabb.minY, aabb.minZ, aabb.maxX, aabb.maxY, aabb.maxZ) != 0;
 	}
 
+	/**
+	 * Tests every box like {@link #isVisible(AABB)} would, but checks the corners of all boxes against one plane at a
+	 * time through the batched corner test.
+	 *
+	 * @param visible Receives whether each box is visible, at the same index as the box.
+	 */
+	public void isVisible(List<AABB> boxes, boolean[] visible) {
+		int count = boxes.size();
+
+		if (batchResults.length < count) {
+			int capacity = Math.max(count, batchResults.length * 2);
+			batchMinX = new float[capacity];
+			batchMinY = new float[capacity];
+			batchMinZ = new float[capacity];
+			batchMaxX = new float[capacity];
+			batchMaxY = new float[capacity];
+			batchMaxZ = new float[capacity];
+			batchResults = new byte[capacity];
+		}
+
+		for (int i = 0; i < count; i++) {
+			AABB box = boxes.get(i);
+			batchMinX[i] = (float) (box.minX - this.x);
+			batchMinY[i] = (float) (box.minY - this.y);
+			batchMinZ[i] = (float) (box.minZ - this.z);
+			batchMaxX[i] = (float) (box.maxX - this.x);
+			batchMaxY[i] = (float) (box.maxY - this.y);
+			batchMaxZ[i] = (float) (box.maxZ - this.z);
+		}
+
+		checkCornerVisibility(batchMinX, batchMinY, batchMinZ, batchMaxX, batchMaxY, batchMaxZ, count, batchResults);
+
+		for (int i = 0; i < count; i++) {
+			visible[i] = applyCullers(boxes.get(i), batchResults[i]);
+		}
+	}
+
+	/**
+	 * Combines the box culler with the already computed corner visibility of a box, giving the same result as
+	 * {@link #isVisible(AABB)}.
+	 */
+	protected boolean applyCullers(AABB aabb, int cornerVisibility) {
+		if (boxCuller != null && boxCuller.isCulled(aabb)) {
+			return false;
+		}
+
+		return cornerVisibility != 0;
+	}
+
 	// For Sodium
 	public int fastAabbTest(float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
 		if (boxCuller != null && boxCuller.isCulled(minX, minY, minZ, maxX, maxY, maxZ)) {
@@ -357,29 +440,32 @@ public class AdvancedShadowCullingFrustum extends Frustum implements net.caffein
 		boolean inside = true;
 
 		for (int i = 0; i < planeCount; ++i) {
-			float[] plane = this.planes[i];
+			float planeX = planeXs[i];
+			float planeY = planeYs[i];
+			float planeZ = planeZs[i];
+			float planeW = planeWs[i];
 
 			// Check if plane is inside or intersecting.
 			// This is ported from JOML's FrustumIntersection.
 
-			float outsideBoundX = (plane[0] < 0) ? minX : maxX;
-			float outsideBoundY = (plane[1] < 0) ? minY : maxY;
-			float outsideBoundZ = (plane[2] < 0) ? minZ : maxZ;
+			float outsideBoundX = (planeX < 0) ? minX : maxX;
+			float outsideBoundY = (planeY < 0) ? minY : maxY;
+			float outsideBoundZ = (planeZ < 0) ? minZ : maxZ;
 
 			// Use Math.fma for the dot product calculation to get vectorization (sorry old Intel users)
 			if (FMA_SUPPORT) {
-				if (Math.fma(plane[0], outsideBoundX, Math.fma(plane[1], outsideBoundY, plane[2] * outsideBoundZ)) >= -plane[3]) {
-					inside &= Math.fma(plane[0], (plane[0] < 0 ? maxX : minX),
-						Math.fma(plane[1], (plane[1] < 0 ? maxY : minY),
-							Math.fma(plane[2], (plane[2] < 0 ? maxZ : minZ), plane[3]))) >= 0;
+				if (Math.fma(planeX, outsideBoundX, Math.fma(planeY, outsideBoundY, planeZ * outsideBoundZ)) >= -planeW) {
+					inside &= Math.fma(planeX, (planeX < 0 ? maxX : minX),
+						Math.fma(planeY, (planeY < 0 ? maxY : minY),
+							Math.fma(planeZ, (planeZ < 0 ? maxZ : minZ), planeW))) >= 0;
 				} else {
 					return 0;
 				}
 			} else {
-				if (safeFMA(plane[0], outsideBoundX, safeFMA(plane[1], outsideBoundY, plane[2] * outsideBoundZ)) >= -plane[3]) {
-					inside &= safeFMA(plane[0], (plane[0] < 0 ? maxX : minX),
-						safeFMA(plane[1], (plane[1] < 0 ? maxY : minY),
-							safeFMA(plane[2], (plane[2] < 0 ? maxZ : minZ), plane[3]))) >= 0;
+				if (safeFMA(planeX, outsideBoundX, safeFMA(planeY, outsideBoundY, planeZ * outsideBoundZ)) >= -planeW) {
+					inside &= safeFMA(planeX, (planeX < 0 ? maxX : minX),
+						safeFMA(planeY, (planeY < 0 ? maxY : minY),
+							safeFMA(planeZ, (planeZ < 0 ? maxZ : minZ), planeW))) >= 0;
 				} else {
 					return 0;
 				}
@@ -389,6 +475,64 @@ public class AdvancedShadowCullingFrustum extends Frustum implements net.caffein
 		return inside ? 1 : 2;
 	}
 
+	/**
+	 * Checks the corner visibility of many boxes at once. The boxes are passed as one array per bound, and the
+	 * result for each box is the same as {@link #checkCornerVisibility(float, float, float, float, float, float)}
+	 * would return for it. Like that method, the coordinates are relative to the camera and the box culler isn't
+	 * applied.
+	 *
+	 * <p>Instead of walking the planes for each box, this walks the boxes for each plane. Which bound of a box is
+	 * the outermost one only depends on the signs of the plane normal, so the bound arrays can be picked once per
+	 * plane, and the loop over the boxes is a plain branch-free loop over arrays that the JIT can vectorize.</p>
+	 *
+	 * @param count   How many boxes to check, starting at index 0 of every array.
+	 * @param results Receives 0 for boxes that aren't visible, 1 for boxes that are entirely visible, and 2 for boxes
+	 *                that are only partially visible.
+	 */
+	public void checkCornerVisibility(float[] minX, float[] minY, float[] minZ, float[] maxX, float[] maxY, float[] maxZ,
+									  int count, byte[] results) {
+		Arrays.fill(results, 0, count, (byte) 1);
+
+		for (int i = 0; i < planeCount; ++i) {
+			float planeX = planeXs[i];
+			float planeY = planeYs[i];
+			float planeZ = planeZs[i];
+			float planeW = planeWs[i];
+
+			float[] outsideX = planeX < 0 ? minX : maxX;
+			float[] outsideY = planeY < 0 ? minY : maxY;
+			float[] outsideZ = planeZ < 0 ? minZ : maxZ;
+			float[] insideX = planeX < 0 ? maxX : minX;
+			float[] insideY = planeY < 0 ? maxY : minY;
+			float[] insideZ = planeZ < 0 ? maxZ : minZ;
+
+			if (FMA_SUPPORT) {
+				for (int box = 0; box < count; ++box) {
+					boolean intersecting = Math.fma(planeX, outsideX[box], Math.fma(planeY, outsideY[box], planeZ * outsideZ[box])) >= -planeW;
+					boolean inside = Math.fma(planeX, insideX[box], Math.fma(planeY, insideY[box], Math.fma(planeZ, insideZ[box], planeW))) >= 0;
+
+					results[box] = mergeResult(results[box], intersecting, inside);
+				}
+			} else {
+				for (int box = 0; box < count; ++box) {
+					boolean intersecting = safeFMA(planeX, outsideX[box], safeFMA(planeY, outsideY[box], planeZ * outsideZ[box])) >= -planeW;
+					boolean inside = safeFMA(planeX, insideX[box], safeFMA(planeY, insideY[box], safeFMA(planeZ, insideZ[box], planeW))) >= 0;
+
+					results[box] = mergeResult(results[box], intersecting, inside);
+				}
+			}
+		}
+	}
+
+	private static byte mergeResult(byte previous, boolean intersecting, boolean inside) {
+		// once a box is outside of one plane it stays culled, and once it's cut by one plane it stays partial
+		if (!intersecting) {
+			return 0;
+		}
+
+		return (previous == 1 && !inside) ? 2 : previous;
+	}
+
 	/**
 	 * Checks corner visibility.
 	 *
@@ -402,13 +546,15 @@ public class AdvancedShadowCullingFrustum extends Frustum implements net.caffein
 	 */
 	public boolean checkCornerVisibilityBool(float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
 		for (int i = 0; i < planeCount; ++i) {
-			float[] plane = planes[i];
+			float planeX = planeXs[i];
+			float planeY = planeYs[i];
+			float planeZ = planeZs[i];
 
-			float outsideBoundX = (plane[0] < 0) ? minX : maxX;
-			float outsideBoundY = (plane[1] < 0) ? minY : maxY;
-			float outsideBoundZ = (plane[2] < 0) ? minZ : maxZ;
+			float outsideBoundX = (planeX < 0) ? minX : maxX;
+			float outsideBoundY = (planeY < 0) ? minY : maxY;
+			float outsideBoundZ = (planeZ < 0) ? minZ : maxZ;
 
-			if (Math.fma(plane[0], outsideBoundX, Math.fma(plane[1], outsideBoundY, plane[2] * outsideBoundZ)) < -plane[3]) {
+			if (Math.fma(planeX, outsideBoundX, Math.fma(planeY, outsideBoundY, planeZ * outsideBoundZ)) < -planeWs[i]) {
 				return false;
 			}
 		}
@@ -35,6 +35,19 @@ public class ReversedAdvancedShadowCullingFrustum extends AdvancedShadowCullingF
 		return this.isVisible(aabb.minX, aabb.minY, aabb.minZ, aabb.maxX, aabb.maxY, aabb.maxZ) != 0;
 	}
 
+	@Override
+	protected boolean applyCullers(AABB aabb, int cornerVisibility) {
+		if (distanceCuller != null && distanceCuller.isCulled(aabb)) {
+			return false;
+		}
+
+		if (boxCuller != null && !boxCuller.isCulled(aabb)) {
+			return true;
+		}
+
+		return cornerVisibility != 0;
+	}
+
 	@Override
 	public int fastAabbTest(float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
 		if (distanceCuller != null && distanceCuller.isCulled(minX, minY, minZ, maxX, maxY, maxZ)) {
@@ -31,12 +31,8 @@ public class NativeImageBackedCustomTexture extends DynamicTexture implements Te
 		}
 	}
 
-	private static NativeImage create(byte[] content) throws IOException {
-		ByteBuffer buffer = ByteBuffer.allocateDirect(content.length);
-		buffer.put(content);
-		buffer.flip();
-
-		return NativeImage.read(buffer);
+	private static NativeImage create(ByteBuffer content) throws IOException {
+		return NativeImage.read(content);
 	}
 
 	@Override
@@ -2,20 +2,13 @@ package net.irisshaders.iris.uniforms;
 
 import it.unimi.dsi.fastutil.objects.Object2IntMap;
 import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
-import net.irisshaders.iris.gl.uniform.FloatSupplier;
 import net.irisshaders.iris.gl.uniform.UniformHolder;
-import net.irisshaders.iris.mixinterface.ExtendedBiome;
 import net.irisshaders.iris.parsing.BiomeCategories;
-import net.minecraft.client.Minecraft;
-import net.minecraft.client.player.LocalPlayer;
 import net.minecraft.core.Holder;
 import net.minecraft.resources.ResourceKey;
 import net.minecraft.tags.BiomeTags;
 import net.minecraft.world.level.biome.Biome;
 
-import java.util.function.IntSupplier;
-import java.util.function.ToIntFunction;
-
 import static net.irisshaders.iris.gl.uniform.UniformUpdateFrequency.PER_TICK;
 
 public class BiomeUniforms {
@@ -26,34 +19,17 @@ public class BiomeUniforms {
 	}
 
 	public static void addBiomeUniforms(UniformHolder uniforms) {
+		WorldStateSnapshot snapshot = WorldStateSnapshot.INSTANCE;
+
 		uniforms
-			.uniform1i(PER_TICK, "biome", playerI(player ->
-				biomeMap.getInt(player.level().getBiome(player.blockPosition()).unwrapKey().orElse(null))))
-			.uniform1i(PER_TICK, "biome_category", playerI(player -> {
-				Holder<Biome> holder = player.level().getBiome(player.blockPosition());
-				ExtendedBiome extendedBiome = ((ExtendedBiome) (Object) holder.value());
-				if (extendedBiome.getBiomeCategory() == -1) {
-					extendedBiome.setBiomeCategory(getBiomeCategory(holder).ordinal());
-					return extendedBiome.getBiomeCategory();
-				} else {
-					return extendedBiome.getBiomeCategory();
-				}
-			}))
-			.uniform1i(PER_TICK, "biome_precipitation", playerI(player -> {
-				Biome.Precipitation precipitation = player.level().getBiome(player.blockPosition()).value().getPrecipitationAt(player.blockPosition());
-				return switch (precipitation) {
-					case NONE -> 0;
-					case RAIN -> 1;
-					case SNOW -> 2;
-				};
-			}))
-			.uniform1f(PER_TICK, "rainfall", playerF(player ->
-				((ExtendedBiome) (Object) player.level().getBiome(player.blockPosition()).value()).getDownfall()))
-			.uniform1f(PER_TICK, "temperature", playerF(player ->
-				player.level().getBiome(player.blockPosition()).value().getBaseTemperature()));
+			.uniform1i(PER_TICK, "biome", snapshot::getBiomeId)
+			.uniform1i(PER_TICK, "biome_category", snapshot::getBiomeCategory)
+			.uniform1i(PER_TICK, "biome_precipitation", snapshot::getBiomePrecipitation)
+			.uniform1f(PER_TICK, "rainfall", snapshot::getRainfall)
+			.uniform1f(PER_TICK, "temperature", snapshot::getTemperature);
 	}
 
-	private static BiomeCategories getBiomeCategory(Holder<Biome> holder) {
+	static BiomeCategories getBiomeCategory(Holder<Biome> holder) {
 		if (holder.is(BiomeTags.WITHOUT_WANDERING_TRADER_SPAWNS)) {
 			// Literally only the void has this...
 			return BiomeCategories.NONE;
@@ -93,37 +69,4 @@ public class BiomeUniforms {
 			return BiomeCategories.PLAINS;
 		}
 	}
-
-	static IntSupplier playerI(ToIntFunction<LocalPlayer> function) {
-		return () -> {
-			LocalPlayer player = Minecraft.getInstance().player;
-			if (player == null) {
-				return 0; // TODO: I'm not sure what I'm supposed to do here?
-			} else {
-				return function.applyAsInt(player);
-			}
-		};
-	}
-
-	static FloatSupplier playerF(ToFloatFunction<LocalPlayer> function) {
-		return () -> {
-			LocalPlayer player = Minecraft.getInstance().player;
-			if (player == null) {
-				return 0.0f; // TODO: I'm not sure what I'm supposed to do here?
-			} else {
-				return function.applyAsFloat(player);
-			}
-		};
-	}
-
-	@FunctionalInterface
-	public interface ToFloatFunction<T> {
-		/**
-		 * Applies this function to the given argument.
-		 *
-		 * @param value the function argument
-		 * @return the function result
-		 */
-		float applyAsFloat(T value);
-	}
 }
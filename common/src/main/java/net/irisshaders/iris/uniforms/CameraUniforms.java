@@ -3,6 +3,7 @@ package net.irisshaders.iris.uniforms;
 import net.irisshaders.iris.gl.uniform.UniformHolder;
 import net.irisshaders.iris.helpers.JomlConversions;
 import net.minecraft.client.Minecraft;
+import net.minecraft.world.phys.Vec3;
 import org.joml.Vector3d;
 import org.joml.Vector3f;
 import org.joml.Vector3i;
@@ -28,10 +29,10 @@ public class CameraUniforms {
 			.uniform3d(PER_FRAME, "cameraPosition", tracker::getCurrentCameraPosition)
 			.uniform1f(PER_FRAME, "eyeAltitude", tracker::getCurrentCameraPositionY)
 			.uniform3d(PER_FRAME, "previousCameraPosition", tracker::getPreviousCameraPosition)
-			.uniform3i(PER_FRAME, "cameraPositionInt", () -> getCameraPositionInt(getUnshiftedCameraPosition()))
-			.uniform3f(PER_FRAME, "cameraPositionFract", () -> getCameraPositionFract(getUnshiftedCameraPosition()))
-			.uniform3i(PER_FRAME, "previousCameraPositionInt", () -> getCameraPositionInt(tracker.getPreviousCameraPositionUnshifted()))
-			.uniform3f(PER_FRAME, "previousCameraPositionFract", () -> getCameraPositionFract(tracker.getPreviousCameraPositionUnshifted()));
+			.uniform3i(PER_FRAME, "cameraPositionInt", dest -> writeCameraPositionInt(client.gameRenderer.getMainCamera().getPosition(), dest))
+			.uniform3f(PER_FRAME, "cameraPositionFract", dest -> writeCameraPositionFract(client.gameRenderer.getMainCamera().getPosition(), dest))
+			.uniform3i(PER_FRAME, "previousCameraPositionInt", dest -> writeCameraPositionInt(tracker.getPreviousCameraPositionUnshifted(), dest))
+			.uniform3f(PER_FRAME, "previousCameraPositionFract", dest -> writeCameraPositionFract(tracker.getPreviousCameraPositionUnshifted(), dest));
 	}
 
 	private static int getRenderDistanceInBlocks() {
@@ -43,22 +44,38 @@ public class CameraUniforms {
 		return JomlConversions.fromVec3(client.gameRenderer.getMainCamera().getPosition());
 	}
 
-	public static Vector3f getCameraPositionFract(Vector3d originalPos) {
-		return new Vector3f(
-			(float) (originalPos.x - Math.floor(originalPos.x)),
-			(float) (originalPos.y - Math.floor(originalPos.y)),
-			(float) (originalPos.z - Math.floor(originalPos.z))
+	private static void writeCameraPositionFract(double x, double y, double z, Vector3f dest) {
+		dest.set(
+			(float) (x - Math.floor(x)),
+			(float) (y - Math.floor(y)),
+			(float) (z - Math.floor(z))
 		);
 	}
 
-	public static Vector3i getCameraPositionInt(Vector3d originalPos) {
-		return new Vector3i(
-			(int) Math.floor(originalPos.x),
-			(int) Math.floor(originalPos.y),
-			(int) Math.floor(originalPos.z)
+	private static void writeCameraPositionFract(Vec3 originalPos, Vector3f dest) {
+		writeCameraPositionFract(originalPos.x, originalPos.y, originalPos.z, dest);
+	}
+
+	private static void writeCameraPositionFract(Vector3d originalPos, Vector3f dest) {
+		writeCameraPositionFract(originalPos.x, originalPos.y, originalPos.z, dest);
+	}
+
+	private static void writeCameraPositionInt(double x, double y, double z, Vector3i dest) {
+		dest.set(
+			(int) Math.floor(x),
+			(int) Math.floor(y),
+			(int) Math.floor(z)
 		);
 	}
 
+	private static void writeCameraPositionInt(Vec3 originalPos, Vector3i dest) {
+		writeCameraPositionInt(originalPos.x, originalPos.y, originalPos.z, dest);
+	}
+
+	private static void writeCameraPositionInt(Vector3d originalPos, Vector3i dest) {
+		writeCameraPositionInt(originalPos.x, originalPos.y, originalPos.z, dest);
+	}
+
 	static class CameraPositionTracker {
 		/**
 		 * Value range of cameraPosition. We want this to be small enough that precision is maintained when we convert
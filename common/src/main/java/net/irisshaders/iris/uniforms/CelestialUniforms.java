@@ -4,7 +4,9 @@ import com.mojang.math.Axis;
 import net.irisshaders.iris.gl.uniform.UniformHolder;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.multiplayer.ClientLevel;
+import org.joml.Math;
 import org.joml.Matrix4f;
+import org.joml.Vector3f;
 import org.joml.Vector4f;
 
 import java.util.Objects;
@@ -16,6 +18,9 @@ import static net.irisshaders.iris.gl.uniform.UniformUpdateFrequency.PER_FRAME;
  */
 public final class CelestialUniforms {
 	private final float sunPathRotation;
+	// Only used while evaluating uniforms on the render thread, to avoid allocating for every update.
+	private final Matrix4f scratchMatrix = new Matrix4f();
+	private final Vector4f scratchPosition = new Vector4f();
 
 	public CelestialUniforms(float sunPathRotation) {
 		this.sunPathRotation = sunPathRotation;
@@ -41,22 +46,6 @@ public final class CelestialUniforms {
 		return shadowAngle;
 	}
 
-	private static Vector4f getUpPosition() {
-		Vector4f upVector = new Vector4f(0.0F, 100.0F, 0.0F, 0.0F);
-
-		// Get the current GBuffer model view matrix, since that is the basis of the celestial model view matrix
-		Matrix4f preCelestial = new Matrix4f(CapturedRenderingState.INSTANCE.getGbufferModelView());
-
-		// Apply the fixed -90.0F degrees rotation to mirror the same transformation in renderSky.
-		// But, notably, skip the rotation by the skyAngle.
-		preCelestial.rotate(Axis.YP.rotationDegrees(-90.0F));
-
-		// Use this matrix to transform the vector.
-		upVector = preCelestial.transform(upVector);
-
-		return upVector;
-	}
-
 	public static boolean isDay() {
 		// Determine whether it is day or night based on the sky angle.
 		//
@@ -75,51 +64,63 @@ public final class CelestialUniforms {
 	public void addCelestialUniforms(UniformHolder uniforms) {
 		uniforms
 			.uniform1f(PER_FRAME, "sunAngle", CelestialUniforms::getSunAngle)
-			.uniformTruncated3f(PER_FRAME, "sunPosition", this::getSunPosition)
-			.uniformTruncated3f(PER_FRAME, "moonPosition", this::getMoonPosition)
+			.uniform3f(PER_FRAME, "sunPosition", this::writeSunPosition)
+			.uniform3f(PER_FRAME, "moonPosition", this::writeMoonPosition)
 			.uniform1f(PER_FRAME, "shadowAngle", CelestialUniforms::getShadowAngle)
-			.uniformTruncated3f(PER_FRAME, "shadowLightPosition", this::getShadowLightPosition)
-			.uniformTruncated3f(PER_FRAME, "upPosition", CelestialUniforms::getUpPosition);
+			.uniform3f(PER_FRAME, "shadowLightPosition", this::writeShadowLightPosition)
+			.uniform3f(PER_FRAME, "upPosition", this::writeUpPosition);
 	}
 
-	private Vector4f getSunPosition() {
-		return getCelestialPosition(100.0F);
+	private void writeSunPosition(Vector3f dest) {
+		writeCelestialPosition(100.0F, dest);
 	}
 
-	private Vector4f getMoonPosition() {
-		return getCelestialPosition(-100.0F);
+	private void writeMoonPosition(Vector3f dest) {
+		writeCelestialPosition(-100.0F, dest);
 	}
 
-	public Vector4f getShadowLightPosition() {
-		return isDay() ? getSunPosition() : getMoonPosition();
+	private void writeShadowLightPosition(Vector3f dest) {
+		writeCelestialPosition(isDay() ? 100.0F : -100.0F, dest);
 	}
 
-	public Vector4f getShadowLightPositionInWorldSpace() {
-		return isDay() ? getCelestialPositionInWorldSpace(100.0F) : getCelestialPositionInWorldSpace(-100.0F);
-	}
+	private void writeUpPosition(Vector3f dest) {
+		// Get the current GBuffer model view matrix, since that is the basis of the celestial model view matrix
+		scratchMatrix.set(CapturedRenderingState.INSTANCE.getGbufferModelView());
 
-	private Vector4f getCelestialPositionInWorldSpace(float y) {
-		Vector4f position = new Vector4f(0.0F, y, 0.0F, 0.0F);
+		// Apply the fixed -90.0F degrees rotation to mirror the same transformation in renderSky.
+		// But, notably, skip the rotation by the skyAngle.
+		scratchMatrix.rotateY(Math.toRadians(-90.0F));
 
-		// TODO: Deduplicate / remove this function.
-		Matrix4f celestial = new Matrix4f();
-		celestial.identity();
+		// Use this matrix to transform the vector.
+		scratchMatrix.transform(scratchPosition.set(0.0F, 100.0F, 0.0F, 0.0F));
+
+		dest.set(scratchPosition.x, scratchPosition.y, scratchPosition.z);
+	}
+
+	private void writeCelestialPosition(float y, Vector3f dest) {
+		scratchMatrix.set(CapturedRenderingState.INSTANCE.getGbufferModelView());
 
 		// This is the same transformation applied by renderSky, however, it's been moved to here.
 		// This is because we need the result of it before it's actually performed in vanilla.
-		celestial.rotate(Axis.YP.rotationDegrees(-90.0F));
-		celestial.rotate(Axis.ZP.rotationDegrees(sunPathRotation));
-		celestial.rotate(Axis.XP.rotationDegrees(getSkyAngle() * 360.0F));
+		scratchMatrix.rotateY(Math.toRadians(-90.0F));
+		scratchMatrix.rotateZ(Math.toRadians(sunPathRotation));
+		scratchMatrix.rotateX(Math.toRadians(getSkyAngle() * 360.0F));
 
-		celestial.transform(position);
+		scratchMatrix.transform(scratchPosition.set(0.0F, y, 0.0F, 0.0F));
 
-		return position;
+		dest.set(scratchPosition.x, scratchPosition.y, scratchPosition.z);
 	}
 
-	private Vector4f getCelestialPosition(float y) {
+	public Vector4f getShadowLightPositionInWorldSpace() {
+		return isDay() ? getCelestialPositionInWorldSpace(100.0F) : getCelestialPositionInWorldSpace(-100.0F);
+	}
+
+	private Vector4f getCelestialPositionInWorldSpace(float y) {
 		Vector4f position = new Vector4f(0.0F, y, 0.0F, 0.0F);
 
-		Matrix4f celestial = new Matrix4f(CapturedRenderingState.INSTANCE.getGbufferModelView());
+		// TODO: Deduplicate / remove this function.
+		Matrix4f celestial = new Matrix4f();
+		celestial.identity();
 
 		// This is the same transformation applied by renderSky, however, it's been moved to here.
 		// This is because we need the result of it before it's actually performed in vanilla.
@@ -127,7 +128,7 @@ public final class CelestialUniforms {
 		celestial.rotate(Axis.ZP.rotationDegrees(sunPathRotation));
 		celestial.rotate(Axis.XP.rotationDegrees(getSkyAngle() * 360.0F));
 
-		position = celestial.transform(position);
+		celestial.transform(position);
 
 		return position;
 	}
@@ -7,7 +7,6 @@ import net.irisshaders.iris.gl.state.FogMode;
 import net.irisshaders.iris.gl.state.StateUpdateNotifiers;
 import net.irisshaders.iris.gl.uniform.DynamicUniformHolder;
 import net.irisshaders.iris.gl.uniform.UniformHolder;
-import net.irisshaders.iris.helpers.JomlConversions;
 import net.irisshaders.iris.layer.GbufferPrograms;
 import net.irisshaders.iris.mixin.GlStateManagerAccessor;
 import net.irisshaders.iris.mixin.statelisteners.BooleanStateAccessor;
@@ -22,22 +21,12 @@ import net.irisshaders.iris.uniforms.transforms.SmoothedFloat;
 import net.irisshaders.iris.uniforms.transforms.SmoothedVec2f;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.player.LocalPlayer;
-import net.minecraft.client.renderer.GameRenderer;
 import net.minecraft.client.renderer.texture.AbstractTexture;
 import net.minecraft.client.renderer.texture.TextureAtlas;
-import net.minecraft.core.BlockPos;
-import net.minecraft.world.effect.MobEffectInstance;
-import net.minecraft.world.effect.MobEffects;
-import net.minecraft.world.entity.Entity;
 import net.minecraft.world.entity.HumanoidArm;
-import net.minecraft.world.entity.LivingEntity;
-import net.minecraft.world.level.LightLayer;
-import net.minecraft.world.level.material.FogType;
-import net.minecraft.world.phys.Vec3;
 import org.joml.Math;
 import org.joml.Vector2f;
 import org.joml.Vector2i;
-import org.joml.Vector3d;
 import org.joml.Vector4f;
 import org.joml.Vector4i;
 
@@ -47,9 +36,6 @@ import static net.irisshaders.iris.gl.uniform.UniformUpdateFrequency.PER_TICK;
 
 public final class CommonUniforms {
 	private static final Minecraft client = Minecraft.getInstance();
-	private static final Vector2i ZERO_VECTOR_2i = new Vector2i();
-	private static final Vector4i ZERO_VECTOR_4i = new Vector4i(0, 0, 0, 0);
-	private static final Vector3d ZERO_VECTOR_3d = new Vector3d();
 
 	static {
 		GbufferPrograms.init();
@@ -74,34 +60,33 @@ public final class CommonUniforms {
 		// Note: on 1.17+ we don't need to reset this when textures are bound, since
 		// the shader will always be setup (and therefore uniforms will be re-uploaded)
 		// after the texture is changed and before rendering starts.
-		uniforms.uniform2i("atlasSize", () -> {
+		uniforms.uniform2i("atlasSize", (Vector2i dest) -> {
 			int glId = RenderSystem.getShaderTexture(0);
 
 			AbstractTexture texture = TextureTracker.INSTANCE.getTexture(glId);
 			if (texture instanceof TextureAtlas atlas) {
 				TextureAtlasAccessor atlasAccessor = (TextureAtlasAccessor) atlas;
-				return new Vector2i(atlasAccessor.callGetWidth(), atlasAccessor.callGetHeight());
+				dest.set(atlasAccessor.callGetWidth(), atlasAccessor.callGetHeight());
+			} else {
+				dest.zero();
 			}
-
-			return ZERO_VECTOR_2i;
 		}, listener -> {
 		});
 
-		uniforms.uniform2i("gtextureSize", () -> {
+		uniforms.uniform2i("gtextureSize", (Vector2i dest) -> {
 			int glId = GlStateManagerAccessor.getTEXTURES()[0].binding;
 
 			TextureInfo info = TextureInfoCache.INSTANCE.getInfo(glId);
-			return new Vector2i(info.getWidth(), info.getHeight());
-
+			dest.set(info.getWidth(), info.getHeight());
 		}, StateUpdateNotifiers.bindTextureNotifier);
 
-		uniforms.uniform4i("blendFunc", () -> {
+		uniforms.uniform4i("blendFunc", (Vector4i dest) -> {
 			GlStateManager.BlendState blend = GlStateManagerAccessor.getBLEND();
 
 			if (((BooleanStateAccessor) blend.mode).isEnabled()) {
-				return new Vector4i(blend.srcRgb, blend.dstRgb, blend.srcAlpha, blend.dstAlpha);
+				dest.set(blend.srcRgb, blend.dstRgb, blend.srcAlpha, blend.dstAlpha);
 			} else {
-				return ZERO_VECTOR_4i;
+				dest.zero();
 			}
 		}, StateUpdateNotifiers.blendFuncNotifier);
 
@@ -130,22 +115,23 @@ public final class CommonUniforms {
 	public static void generalCommonUniforms(UniformHolder uniforms, FrameUpdateNotifier updateNotifier, PackDirectives directives) {
 		ExternallyManagedUniforms.addExternallyManagedUniforms117(uniforms);
 
-		SmoothedVec2f eyeBrightnessSmooth = new SmoothedVec2f(directives.getEyeBrightnessHalfLife(), directives.getEyeBrightnessHalfLife(), CommonUniforms::getEyeBrightness, updateNotifier);
+		WorldStateSnapshot snapshot = WorldStateSnapshot.INSTANCE;
+		SmoothedVec2f eyeBrightnessSmooth = new SmoothedVec2f(directives.getEyeBrightnessHalfLife(), directives.getEyeBrightnessHalfLife(), snapshot::getEyeBrightness, updateNotifier);
 
 		uniforms
 			.uniform1b(PER_FRAME, "hideGUI", () -> client.options.hideGui)
 			.uniform1b(PER_FRAME, "isRightHanded", () -> client.options.mainHand().get() == HumanoidArm.RIGHT)
-			.uniform1i(PER_FRAME, "isEyeInWater", CommonUniforms::isEyeInWater)
-			.uniform1f(PER_FRAME, "blindness", CommonUniforms::getBlindness)
-			.uniform1f(PER_FRAME, "darknessFactor", CommonUniforms::getDarknessFactor)
+			.uniform1i(PER_FRAME, "isEyeInWater", snapshot::getEyeInWater)
+			.uniform1f(PER_FRAME, "blindness", snapshot::getBlindness)
+			.uniform1f(PER_FRAME, "darknessFactor", snapshot::getDarknessFactor)
 			.uniform1f(PER_FRAME, "darknessLightFactor", CapturedRenderingState.INSTANCE::getDarknessLightFactor)
-			.uniform1f(PER_FRAME, "nightVision", CommonUniforms::getNightVision)
-			.uniform1b(PER_FRAME, "is_sneaking", CommonUniforms::isSneaking)
-			.uniform1b(PER_FRAME, "is_sprinting", CommonUniforms::isSprinting)
-			.uniform1b(PER_FRAME, "is_hurt", CommonUniforms::isHurt)
-			.uniform1b(PER_FRAME, "is_invisible", CommonUniforms::isInvisible)
-			.uniform1b(PER_FRAME, "is_burning", CommonUniforms::isBurning)
-			.uniform1b(PER_FRAME, "is_on_ground", CommonUniforms::isOnGround)
+			.uniform1f(PER_FRAME, "nightVision", snapshot::getNightVision)
+			.uniform1b(PER_FRAME, "is_sneaking", snapshot::isSneaking)
+			.uniform1b(PER_FRAME, "is_sprinting", snapshot::isSprinting)
+			.uniform1b(PER_FRAME, "is_hurt", snapshot::isHurt)
+			.uniform1b(PER_FRAME, "is_invisible", snapshot::isInvisible)
+			.uniform1b(PER_FRAME, "is_burning", snapshot::isBurning)
+			.uniform1b(PER_FRAME, "is_on_ground", snapshot::isOnGround)
 			// TODO: Do we need to clamp this to avoid fullbright breaking shaders? Or should shaders be able to detect
 			//       that the player is trying to turn on fullbright?
 			.uniform1f(PER_FRAME, "screenBrightness", () -> client.options.gamma().get())
@@ -157,106 +143,19 @@ public final class CommonUniforms {
 			.uniform1f(ONCE, "pi", () -> Math.PI)
 			.uniform1f(PER_TICK, "playerMood", CommonUniforms::getPlayerMood)
 			.uniform1f(PER_TICK, "constantMood", CommonUniforms::getConstantMood)
-			.uniform2i(PER_FRAME, "eyeBrightness", CommonUniforms::getEyeBrightness)
-			.uniform2i(PER_FRAME, "eyeBrightnessSmooth", () -> {
+			.uniform2i(PER_FRAME, "eyeBrightness", snapshot::writeEyeBrightness)
+			.uniform2i(PER_FRAME, "eyeBrightnessSmooth", dest -> {
 				Vector2f smoothed = eyeBrightnessSmooth.get();
-				return new Vector2i((int) smoothed.x(), (int) smoothed.y());
+				dest.set((int) smoothed.x(), (int) smoothed.y());
 			})
-			.uniform1f(PER_TICK, "rainStrength", CommonUniforms::getRainStrength)
-			.uniform1f(PER_TICK, "wetness", new SmoothedFloat(directives.getWetnessHalfLife(), directives.getDrynessHalfLife(), CommonUniforms::getRainStrength, updateNotifier))
-			.uniform3d(PER_FRAME, "skyColor", CommonUniforms::getSkyColor)
+			.uniform1f(PER_TICK, "rainStrength", snapshot::getRainStrength)
+			.uniform1f(PER_TICK, "wetness", new SmoothedFloat(directives.getWetnessHalfLife(), directives.getDrynessHalfLife(), snapshot::getRainStrength, updateNotifier))
+			.uniform3d(PER_FRAME, "skyColor", snapshot::getSkyColor)
 			.uniform1f(PER_FRAME, "dhFarPlane", DHCompat::getFarPlane)
 			.uniform1f(PER_FRAME, "dhNearPlane", DHCompat::getNearPlane)
 			.uniform1i(PER_FRAME, "dhRenderDistance", DHCompat::getRenderDistance);
 	}
 
-	private static boolean isOnGround() {
-		return client.player != null && client.player.onGround();
-	}
-
-	private static boolean isHurt() {
-		if (client.player != null) {
-			return client.player.hurtTime > 0; // Do not use isHurt, that's not what we want!
-		} else {
-			return false;
-		}
-	}
-
-	private static boolean isInvisible() {
-		if (client.player != null) {
-			return client.player.isInvisible();
-		} else {
-			return false;
-		}
-	}
-
-	private static boolean isBurning() {
-		if (client.player != null) {
-			return client.player.isOnFire();
-		} else {
-			return false;
-		}
-	}
-
-	private static boolean isSneaking() {
-		if (client.player != null) {
-			return client.player.isCrouching();
-		} else {
-			return false;
-		}
-	}
-
-	private static boolean isSprinting() {
-		if (client.player != null) {
-			return client.player.isSprinting();
-		} else {
-			return false;
-		}
-	}
-
-	private static Vector3d getSkyColor() {
-		if (client.level == null || client.cameraEntity == null) {
-			return ZERO_VECTOR_3d;
-		}
-
-		return JomlConversions.fromVec3(client.level.getSkyColor(client.cameraEntity.position(),
-			CapturedRenderingState.INSTANCE.getTickDelta()));
-	}
-
-	static float getBlindness() {
-		Entity cameraEntity = client.getCameraEntity();
-
-		if (cameraEntity instanceof LivingEntity) {
-			MobEffectInstance blindness = ((LivingEntity) cameraEntity).getEffect(MobEffects.BLINDNESS);
-
-			if (blindness != null) {
-				// Guessing that this is what OF uses, based on how vanilla calculates the fog value in FogRenderer
-				// TODO: Add this to ShaderDoc
-				if (blindness.isInfiniteDuration()) {
-					return 1.0f;
-				} else {
-					return Math.clamp(0.0F, 1.0F, blindness.getDuration() / 20.0F);
-				}
-			}
-		}
-
-		return 0.0F;
-	}
-
-	static float getDarknessFactor() {
-		Entity cameraEntity = client.getCameraEntity();
-
-		if (cameraEntity instanceof LivingEntity) {
-			MobEffectInstance darkness = ((LivingEntity) cameraEntity).getEffect(MobEffects.DARKNESS);
-
-			if (darkness != null) {
-				return darkness.getBlendFactor((LivingEntity) cameraEntity, CapturedRenderingState.INSTANCE.getTickDelta());
-			}
-		}
-
-		return 0.0F;
-	}
-
 	private static float getPlayerMood() {
 		if (!(client.cameraEntity instanceof LocalPlayer)) {
 			return 0.0F;
@@ -274,92 +173,4 @@ public final class CommonUniforms {
 		// This should always be 0 to 1 anyways but just making sure
 		return Math.clamp(0.0F, 1.0F, ((LocalPlayerInterface) client.cameraEntity).getCurrentConstantMood());
 	}
-
-	static float getRainStrength() {
-		if (client.level == null) {
-			return 0f;
-		}
-
-		// Note: Ensure this is in the range of 0 to 1 - some custom servers send out of range values.
-		return Math.clamp(0.0F, 1.0F,
-			client.level.getRainLevel(CapturedRenderingState.INSTANCE.getTickDelta()));
-	}
-
-	private static Vector2i getEyeBrightness() {
-		if (client.cameraEntity == null || client.level == null) {
-			return ZERO_VECTOR_2i;
-		}
-
-		Vec3 feet = client.cameraEntity.position();
-		Vec3 eyes = new Vec3(feet.x, client.cameraEntity.getEyeY(), feet.z);
-		BlockPos eyeBlockPos = BlockPos.containing(eyes);
-
-		int blockLight = client.level.getBrightness(LightLayer.BLOCK, eyeBlockPos);
-		int skyLight = client.level.getBrightness(LightLayer.SKY, eyeBlockPos);
-
-		return new Vector2i(blockLight * 16, skyLight * 16);
-	}
-
-	private static float getNightVision() {
-		Entity cameraEntity = client.getCameraEntity();
-
-		if (cameraEntity instanceof LivingEntity livingEntity) {
-
-			try {
-				// See MixinGameRenderer#iris$safecheckNightvisionStrength.
-				//
-				// We modify the behavior of getNightVisionScale so that it's safe for us to call it even on entities
-				// that don't have the effect, allowing us to pick up modified night vision strength values from mods
-				// like Origins.
-				//
-				// See: https://github.com/apace100/apoli/blob/320b0ef547fbbf703de7154f60909d30366f6500/src/main/java/io/github/apace100/apoli/mixin/GameRendererMixin.java#L153
-				float nightVisionStrength =
-					GameRenderer.getNightVisionScale(livingEntity, CapturedRenderingState.INSTANCE.getTickDelta());
-
-				if (nightVisionStrength > 0) {
-					// Just protecting against potential weird mod behavior
-					return Math.clamp(0.0F, 1.0F, nightVisionStrength);
-				}
-			} catch (NullPointerException e) {
-				// If our injection didn't get applied, a NullPointerException will occur from calling that method if
-				// the entity doesn't currently have night vision. This isn't pretty but it's functional.
-				return 0.0F;
-			}
-		}
-
-		// Conduit power gives the player a sort-of night vision effect when underwater.
-		// This lets existing shaderpacks be compatible with conduit power automatically.
-		//
-		// Yes, this should be the player entity, to match LightTexture.
-		if (client.player != null && client.player.hasEffect(MobEffects.CONDUIT_POWER)) {
-			float underwaterVisibility = client.player.getWaterVision();
-
-			if (underwaterVisibility > 0.0f) {
-				// Just protecting against potential weird mod behavior
-				return Math.clamp(0.0F, 1.0F, underwaterVisibility);
-			}
-		}
-
-		return 0.0F;
-	}
-
-	static int isEyeInWater() {
-		// Note: With certain utility / cheat mods, this method will return air even when the player is submerged when
-		// the "No Overlay" feature is enabled.
-		//
-		// I'm not sure what the best way to deal with this is, but the current approach seems to be an acceptable one -
-		// after all, disabling the overlay results in the intended effect of it not really looking like you're
-		// underwater on most shaderpacks. For now, I will leave this as-is, but it is something to keep in mind.
-		FogType submersionType = client.gameRenderer.getMainCamera().getFluidInCamera();
-
-		if (submersionType == FogType.WATER) {
-			return 1;
-		} else if (submersionType == FogType.LAVA) {
-			return 2;
-		} else if (submersionType == FogType.POWDER_SNOW) {
-			return 3;
-		} else {
-			return 0;
-		}
-	}
 }
@@ -6,7 +6,6 @@ import net.irisshaders.iris.gl.state.FogMode;
 import net.irisshaders.iris.gl.state.StateUpdateNotifiers;
 import net.irisshaders.iris.gl.uniform.DynamicUniformHolder;
 import net.irisshaders.iris.gl.uniform.UniformUpdateFrequency;
-import org.joml.Vector3f;
 import org.lwjgl.opengl.GL11;
 
 import static net.irisshaders.iris.gl.uniform.UniformUpdateFrequency.PER_FRAME;
@@ -48,9 +47,9 @@ public class FogUniforms {
 
 		uniforms
 			// TODO: Update frequency of continuous?
-			.uniform3f(PER_FRAME, "fogColor", () -> {
+			.uniform3f(PER_FRAME, "fogColor", dest -> {
 				float[] fogColor = RenderSystem.getShaderFogColor();
-				return new Vector3f(fogColor[0], fogColor[1], fogColor[2]);
+				dest.set(fogColor[0], fogColor[1], fogColor[2]);
 			});
 	}
 }
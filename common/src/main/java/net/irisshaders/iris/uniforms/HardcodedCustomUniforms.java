@@ -4,14 +4,11 @@ import net.irisshaders.iris.gl.uniform.UniformHolder;
 import net.irisshaders.iris.gl.uniform.UniformUpdateFrequency;
 import net.irisshaders.iris.uniforms.transforms.SmoothedFloat;
 import net.minecraft.client.Minecraft;
-import net.minecraft.core.BlockPos;
 import net.minecraft.core.Holder;
 import net.minecraft.tags.BiomeTags;
 import net.minecraft.world.entity.player.Player;
 import net.minecraft.world.level.Level;
-import net.minecraft.world.level.LightLayer;
 import net.minecraft.world.level.biome.Biome;
-import net.minecraft.world.phys.Vec3;
 import org.joml.Math;
 
 // These expressions are copied directly from BSL and Complementary.
@@ -50,7 +47,7 @@ public class HardcodedCustomUniforms {
 		holder.uniform1f(UniformUpdateFrequency.PER_FRAME, "isDry", new SmoothedFloat(20, 10, () -> getRawPrecipitation() == 0 ? 1 : 0, updateNotifier));
 		holder.uniform1f(UniformUpdateFrequency.PER_FRAME, "isRainy", new SmoothedFloat(20, 10, () -> getRawPrecipitation() == 1 ? 1 : 0, updateNotifier));
 		holder.uniform1f(UniformUpdateFrequency.PER_FRAME, "isSnowy", new SmoothedFloat(20, 10, () -> getRawPrecipitation() == 2 ? 1 : 0, updateNotifier));
-		holder.uniform1f(UniformUpdateFrequency.PER_FRAME, "isEyeInCave", () -> CommonUniforms.isEyeInWater() == 0 ? eyeInCave.getAsFloat() : 0);
+		holder.uniform1f(UniformUpdateFrequency.PER_FRAME, "isEyeInCave", () -> WorldStateSnapshot.INSTANCE.getEyeInWater() == 0 ? eyeInCave.getAsFloat() : 0);
 		holder.uniform1f(UniformUpdateFrequency.PER_FRAME, "velocity", () -> getVelocity(tracker));
 		holder.uniform1f(UniformUpdateFrequency.PER_FRAME, "starter", getStarter(tracker, updateNotifier));
 		// The following uniforms are Project Reimagined specific.
@@ -119,17 +116,7 @@ public class HardcodedCustomUniforms {
 	}
 
 	private static float getEyeSkyBrightness() {
-		if (client.cameraEntity == null || client.level == null) {
-			return 0;
-		}
-
-		Vec3 feet = client.cameraEntity.position();
-		Vec3 eyes = new Vec3(feet.x, client.cameraEntity.getEyeY(), feet.z);
-		BlockPos eyeBlockPos = BlockPos.containing(eyes);
-
-		int skyLight = client.level.getBrightness(LightLayer.SKY, eyeBlockPos);
-
-		return skyLight * 16;
+		return WorldStateSnapshot.INSTANCE.getEyeSkyBrightness();
 	}
 
 	private static float getVelocity(CameraUniforms.CameraPositionTracker tracker) {
@@ -176,7 +163,7 @@ public class HardcodedCustomUniforms {
 	}
 
 	private static SmoothedFloat rainStrengthS(FrameUpdateNotifier updateNotifier, float halfLifeUp, float halfLifeDown) {
-		return new SmoothedFloat(halfLifeUp, halfLifeDown, CommonUniforms::getRainStrength, updateNotifier);
+		return new SmoothedFloat(halfLifeUp, halfLifeDown, WorldStateSnapshot.INSTANCE::getRainStrength, updateNotifier);
 	}
 
 	private static float getRawPrecipitation() {
@@ -192,7 +179,7 @@ public class HardcodedCustomUniforms {
 	}
 
 	private static float getBlindFactor() {
-		float blindFactorSqrt = (float) Math.clamp(0.0, 1.0, CommonUniforms.getBlindness() * 2.0 - 1.0);
+		float blindFactorSqrt = (float) Math.clamp(0.0, 1.0, WorldStateSnapshot.INSTANCE.getBlindness() * 2.0 - 1.0);
 		return blindFactorSqrt * blindFactorSqrt;
 	}
 
@@ -3,12 +3,12 @@ package net.irisshaders.iris.uniforms;
 import net.irisshaders.iris.gl.uniform.UniformHolder;
 import net.irisshaders.iris.gl.uniform.UniformUpdateFrequency;
 import net.irisshaders.iris.gui.option.IrisVideoSettings;
-import net.irisshaders.iris.helpers.JomlConversions;
 import net.irisshaders.iris.mixin.GameRendererAccessor;
 import net.irisshaders.iris.shaderpack.materialmap.WorldRenderingSettings;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.multiplayer.ClientLevel;
 import net.minecraft.core.BlockPos;
+import net.minecraft.world.entity.Entity;
 import net.minecraft.world.entity.LightningBolt;
 import net.minecraft.world.entity.LivingEntity;
 import net.minecraft.world.level.GameType;
@@ -22,13 +22,10 @@ import org.joml.Vector3f;
 import org.joml.Vector4f;
 
 import java.util.Objects;
-import java.util.stream.StreamSupport;
 
 import static net.irisshaders.iris.gl.uniform.UniformUpdateFrequency.PER_FRAME;
 
 public class IrisExclusiveUniforms {
-	private static final Vector3d ZERO = new Vector3d(0);
-
 	public static void addIrisExclusiveUniforms(UniformHolder uniforms) {
 		WorldInfoUniforms.addWorldInfoUniforms(uniforms);
 
@@ -47,30 +44,42 @@ public class IrisExclusiveUniforms {
 		uniforms.uniform1b(UniformUpdateFrequency.PER_FRAME, "firstPersonCamera", IrisExclusiveUniforms::isFirstPersonCamera);
 		uniforms.uniform1b(UniformUpdateFrequency.PER_TICK, "isSpectator", IrisExclusiveUniforms::isSpectator);
 		uniforms.uniform1i(PER_FRAME, "currentSelectedBlockId", IrisExclusiveUniforms::getCurrentSelectedBlockId);
-		uniforms.uniform3f(PER_FRAME, "currentSelectedBlockPos", IrisExclusiveUniforms::getCurrentSelectedBlockPos);
-		uniforms.uniform3d(UniformUpdateFrequency.PER_FRAME, "eyePosition", IrisExclusiveUniforms::getEyePosition);
+		uniforms.uniform3f(PER_FRAME, "currentSelectedBlockPos", IrisExclusiveUniforms::writeCurrentSelectedBlockPos);
+		uniforms.uniform3d(UniformUpdateFrequency.PER_FRAME, "eyePosition", IrisExclusiveUniforms::writeEyePosition);
 		uniforms.uniform1f(UniformUpdateFrequency.PER_TICK, "cloudTime", CapturedRenderingState.INSTANCE::getCloudTime);
-		uniforms.uniform3d(UniformUpdateFrequency.PER_FRAME, "relativeEyePosition", () -> CameraUniforms.getUnshiftedCameraPosition().sub(getEyePosition()));
-		uniforms.uniform3d(UniformUpdateFrequency.PER_FRAME, "playerLookVector", () -> {
+		uniforms.uniform3d(UniformUpdateFrequency.PER_FRAME, "relativeEyePosition", dest -> {
+			Vec3 camera = Minecraft.getInstance().gameRenderer.getMainCamera().getPosition();
+			writeEyePosition(dest);
+			dest.set(camera.x - dest.x, camera.y - dest.y, camera.z - dest.z);
+		});
+		uniforms.uniform3d(UniformUpdateFrequency.PER_FRAME, "playerLookVector", dest -> {
 			if (Minecraft.getInstance().cameraEntity instanceof LivingEntity livingEntity) {
-				return JomlConversions.fromVec3(livingEntity.getViewVector(CapturedRenderingState.INSTANCE.getTickDelta()));
+				Vec3 view = livingEntity.getViewVector(CapturedRenderingState.INSTANCE.getTickDelta());
+				dest.set(view.x, view.y, view.z);
 			} else {
-				return ZERO;
+				dest.zero();
 			}
 		});
-		uniforms.uniform3d(UniformUpdateFrequency.PER_FRAME, "playerBodyVector", () -> JomlConversions.fromVec3(Minecraft.getInstance().getCameraEntity().getForward()));
-		Vector4f zero = new Vector4f(0, 0, 0, 0);
-		uniforms.uniform4f(UniformUpdateFrequency.PER_TICK, "lightningBoltPosition", () -> {
-			if (Minecraft.getInstance().level != null) {
-				return StreamSupport.stream(Minecraft.getInstance().level.entitiesForRendering().spliterator(), false).filter(bolt -> bolt instanceof LightningBolt).findAny().map(bolt -> {
-					Vector3d unshiftedCameraPosition = CameraUniforms.getUnshiftedCameraPosition();
+		uniforms.uniform3d(UniformUpdateFrequency.PER_FRAME, "playerBodyVector", dest -> {
+			Vec3 forward = Minecraft.getInstance().getCameraEntity().getForward();
+			dest.set(forward.x, forward.y, forward.z);
+		});
+		uniforms.uniform4f(UniformUpdateFrequency.PER_TICK, "lightningBoltPosition", IrisExclusiveUniforms::writeLightningBoltPosition);
+	}
+
+	private static void writeLightningBoltPosition(Vector4f dest) {
+		if (Minecraft.getInstance().level != null) {
+			for (Entity entity : Minecraft.getInstance().level.entitiesForRendering()) {
+				if (entity instanceof LightningBolt bolt) {
+					Vec3 camera = Minecraft.getInstance().gameRenderer.getMainCamera().getPosition();
 					Vec3 vec3 = bolt.getPosition(Minecraft.getInstance().getTimer().getGameTimeDeltaPartialTick(true));
-					return new Vector4f((float) (vec3.x - unshiftedCameraPosition.x), (float) (vec3.y - unshiftedCameraPosition.y), (float) (vec3.z - unshiftedCameraPosition.z), 1);
-				}).orElse(zero);
-			} else {
-				return zero;
+					dest.set((float) (vec3.x - camera.x), (float) (vec3.y - camera.y), (float) (vec3.z - camera.z), 1);
+					return;
+				}
 			}
-		});
+		}
+
+		dest.zero();
 	}
 
 	private static int getCurrentSelectedBlockId() {
@@ -86,14 +95,16 @@ public class IrisExclusiveUniforms {
 		return 0;
 	}
 
-	private static Vector3f getCurrentSelectedBlockPos() {
+	private static void writeCurrentSelectedBlockPos(Vector3f dest) {
 		HitResult hitResult = Minecraft.getInstance().hitResult;
 		if (Minecraft.getInstance().level != null && ((GameRendererAccessor) Minecraft.getInstance().gameRenderer).shouldRenderBlockOutlineA() && hitResult != null && hitResult.getType() == HitResult.Type.BLOCK) {
 			BlockPos blockPos4 = ((BlockHitResult) hitResult).getBlockPos();
-			return blockPos4.getCenter().subtract(Minecraft.getInstance().gameRenderer.getMainCamera().getPosition()).toVector3f();
+			Vec3 camera = Minecraft.getInstance().gameRenderer.getMainCamera().getPosition();
+			dest.set((float) (blockPos4.getX() + 0.5 - camera.x), (float) (blockPos4.getY() + 0.5 - camera.y), (float) (blockPos4.getZ() + 0.5 - camera.z));
+			return;
 		}
 
-		return new Vector3f(-256.0f);
+		dest.set(-256.0f);
 	}
 
 	private static float getThunderStrength() {
@@ -163,10 +174,10 @@ public class IrisExclusiveUniforms {
 		return Minecraft.getInstance().gameMode.getPlayerMode() == GameType.SPECTATOR;
 	}
 
-	private static Vector3d getEyePosition() {
+	private static void writeEyePosition(Vector3d dest) {
 		Objects.requireNonNull(Minecraft.getInstance().getCameraEntity());
 		Vec3 pos = Minecraft.getInstance().getCameraEntity().getEyePosition(CapturedRenderingState.INSTANCE.getTickDelta());
-		return new Vector3d(pos.x, pos.y, pos.z);
+		dest.set(pos.x, pos.y, pos.z);
 	}
 
 	public static class WorldInfoUniforms {
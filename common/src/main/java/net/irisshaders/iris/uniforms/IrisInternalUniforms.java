@@ -3,7 +3,6 @@ package net.irisshaders.iris.uniforms;
 import com.mojang.blaze3d.systems.RenderSystem;
 import net.irisshaders.iris.gl.state.FogMode;
 import net.irisshaders.iris.gl.uniform.DynamicUniformHolder;
-import org.joml.Vector4f;
 
 import static net.irisshaders.iris.gl.uniform.UniformUpdateFrequency.PER_FRAME;
 
@@ -17,9 +16,9 @@ public class IrisInternalUniforms {
 
 	public static void addFogUniforms(DynamicUniformHolder uniforms, FogMode fogMode) {
 		uniforms
-			.uniform4f(PER_FRAME, "iris_FogColor", () -> {
+			.uniform4f(PER_FRAME, "iris_FogColor", dest -> {
 				float[] fogColor = RenderSystem.getShaderFogColor();
-				return new Vector4f(fogColor[0], fogColor[1], fogColor[2], fogColor[3]);
+				dest.set(fogColor[0], fogColor[1], fogColor[2], fogColor[3]);
 			});
 
 		uniforms.uniform1f(PER_FRAME, "iris_FogStart", RenderSystem::getShaderFogStart)
@@ -0,0 +1,355 @@
+package net.irisshaders.iris.uniforms;
+
+import net.irisshaders.iris.mixinterface.ExtendedBiome;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.multiplayer.ClientLevel;
+import net.minecraft.client.player.LocalPlayer;
+import net.minecraft.client.renderer.GameRenderer;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Holder;
+import net.minecraft.world.effect.MobEffectInstance;
+import net.minecraft.world.effect.MobEffects;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.LivingEntity;
+import net.minecraft.world.level.LightLayer;
+import net.minecraft.world.level.biome.Biome;
+import net.minecraft.world.level.material.FogType;
+import net.minecraft.world.phys.Vec3;
+import org.joml.Math;
+import org.joml.Vector2i;
+import org.joml.Vector3d;
+
+/**
+ * The state of the world around the player and the camera that the built-in uniforms are derived from.
+ * <p>
+ * Uniform suppliers are instantiated once for every program, so having each of them query the level for biomes, light
+ * levels, and status effects multiplies the cost of those queries by the number of programs. Instead, the state is
+ * sampled the first time it is needed in a tick (for biome information) or frame (for everything else), and shared
+ * by all suppliers.
+ */
+public final class WorldStateSnapshot {
+	public static final WorldStateSnapshot INSTANCE = new WorldStateSnapshot();
+
+	private static final Minecraft client = Minecraft.getInstance();
+
+	// Sampled once per tick
+	private ClientLevel lastLevel;
+	private long lastTick = -1;
+	private int biomeId;
+	private int biomeCategory;
+	private int biomePrecipitation;
+	private float rainfall;
+	private float temperature;
+
+	// Sampled once per frame
+	private int lastFrame = -1;
+	private final Vector3d skyColor = new Vector3d();
+	private int eyeBlockLight;
+	private int eyeSkyLight;
+	private int eyeInWater;
+	private float rainStrength;
+	private float blindness;
+	private float darknessFactor;
+	private float nightVision;
+	private boolean sneaking;
+	private boolean sprinting;
+	private boolean hurt;
+	private boolean invisible;
+	private boolean burning;
+	private boolean onGround;
+
+	private WorldStateSnapshot() {
+	}
+
+	private void sampleTick() {
+		ClientLevel level = client.level;
+		long currentTick = level == null ? 0L : level.getGameTime();
+
+		if (level == lastLevel && currentTick == lastTick) {
+			return;
+		}
+
+		lastLevel = level;
+		lastTick = currentTick;
+
+		LocalPlayer player = client.player;
+
+		if (player == null) {
+			biomeId = 0;
+			biomeCategory = 0;
+			biomePrecipitation = 0;
+			rainfall = 0.0f;
+			temperature = 0.0f;
+			return;
+		}
+
+		BlockPos position = player.blockPosition();
+		Holder<Biome> holder = player.level().getBiome(position);
+		ExtendedBiome extendedBiome = (ExtendedBiome) (Object) holder.value();
+
+		if (extendedBiome.getBiomeCategory() == -1) {
+			extendedBiome.setBiomeCategory(BiomeUniforms.getBiomeCategory(holder).ordinal());
+		}
+
+		biomeId = BiomeUniforms.getBiomeMap().getInt(holder.unwrapKey().orElse(null));
+		biomeCategory = extendedBiome.getBiomeCategory();
+		biomePrecipitation = switch (holder.value().getPrecipitationAt(position)) {
+			case NONE -> 0;
+			case RAIN -> 1;
+			case SNOW -> 2;
+		};
+		rainfall = extendedBiome.getDownfall();
+		temperature = holder.value().getBaseTemperature();
+	}
+
+	private void sampleFrame() {
+		int currentFrame = SystemTimeUniforms.COUNTER.getAsInt();
+
+		if (currentFrame == lastFrame) {
+			return;
+		}
+
+		lastFrame = currentFrame;
+
+		float tickDelta = CapturedRenderingState.INSTANCE.getTickDelta();
+		Entity cameraEntity = client.getCameraEntity();
+		LocalPlayer player = client.player;
+
+		if (client.level != null && cameraEntity != null) {
+			Vec3 sky = client.level.getSkyColor(cameraEntity.position(), tickDelta);
+			skyColor.set(sky.x, sky.y, sky.z);
+
+			Vec3 feet = cameraEntity.position();
+			BlockPos eyeBlockPos = BlockPos.containing(feet.x, cameraEntity.getEyeY(), feet.z);
+
+			eyeBlockLight = client.level.getBrightness(LightLayer.BLOCK, eyeBlockPos);
+			eyeSkyLight = client.level.getBrightness(LightLayer.SKY, eyeBlockPos);
+		} else {
+			skyColor.zero();
+			eyeBlockLight = 0;
+			eyeSkyLight = 0;
+		}
+
+		// Note: Ensure this is in the range of 0 to 1 - some custom servers send out of range values.
+		rainStrength = client.level == null ? 0.0f : Math.clamp(0.0F, 1.0F, client.level.getRainLevel(tickDelta));
+		eyeInWater = sampleEyeInWater();
+		blindness = sampleBlindness(cameraEntity);
+		darknessFactor = sampleDarknessFactor(cameraEntity, tickDelta);
+		nightVision = sampleNightVision(cameraEntity, player, tickDelta);
+
+		if (player != null) {
+			sneaking = player.isCrouching();
+			sprinting = player.isSprinting();
+			// Do not use isHurt, that's not what we want!
+			hurt = player.hurtTime > 0;
+			invisible = player.isInvisible();
+			burning = player.isOnFire();
+			onGround = player.onGround();
+		} else {
+			sneaking = false;
+			sprinting = false;
+			hurt = false;
+			invisible = false;
+			burning = false;
+			onGround = false;
+		}
+	}
+
+	private static int sampleEyeInWater() {
+		// Note: With certain utility / cheat mods, this method will return air even when the player is submerged when
+		// the "No Overlay" feature is enabled.
+		//
+		// I'm not sure what the best way to deal with this is, but the current approach seems to be an acceptable one -
+		// after all, disabling the overlay results in the intended effect of it not really looking like you're
+		// underwater on most shaderpacks. For now, I will leave this as-is, but it is something to keep in mind.
+		FogType submersionType = client.gameRenderer.getMainCamera().getFluidInCamera();
+
+		if (submersionType == FogType.WATER) {
+			return 1;
+		} else if (submersionType == FogType.LAVA) {
+			return 2;
+		} else if (submersionType == FogType.POWDER_SNOW) {
+			return 3;
+		} else {
+			return 0;
+		}
+	}
+
+	private static float sampleBlindness(Entity cameraEntity) {
+		if (cameraEntity instanceof LivingEntity livingEntity) {
+			MobEffectInstance blindness = livingEntity.getEffect(MobEffects.BLINDNESS);
+
+			if (blindness != null) {
+				// Guessing that this is what OF uses, based on how vanilla calculates the fog value in FogRenderer
+				// TODO: Add this to ShaderDoc
+				if (blindness.isInfiniteDuration()) {
+					return 1.0f;
+				} else {
+					return Math.clamp(0.0F, 1.0F, blindness.getDuration() / 20.0F);
+				}
+			}
+		}
+
+		return 0.0F;
+	}
+
+	private static float sampleDarknessFactor(Entity cameraEntity, float tickDelta) {
+		if (cameraEntity instanceof LivingEntity livingEntity) {
+			MobEffectInstance darkness = livingEntity.getEffect(MobEffects.DARKNESS);
+
+			if (darkness != null) {
+				return darkness.getBlendFactor(livingEntity, tickDelta);
+			}
+		}
+
+		return 0.0F;
+	}
+
+	private static float sampleNightVision(Entity cameraEntity, LocalPlayer player, float tickDelta) {
+		if (cameraEntity instanceof LivingEntity livingEntity) {
+			try {
+				// See MixinGameRenderer#iris$safecheckNightvisionStrength.
+				//
+				// We modify the behavior of getNightVisionScale so that it's safe for us to call it even on entities
+				// that don't have the effect, allowing us to pick up modified night vision strength values from mods
+				// like Origins.
+				//
+				// See: https://github.com/apace100/apoli/blob/320b0ef547fbbf703de7154f60909d30366f6500/src/main/java/io/github/apace100/apoli/mixin/GameRendererMixin.java#L153
+				float nightVisionStrength = GameRenderer.getNightVisionScale(livingEntity, tickDelta);
+
+				if (nightVisionStrength > 0) {
+					// Just protecting against potential weird mod behavior
+					return Math.clamp(0.0F, 1.0F, nightVisionStrength);
+				}
+			} catch (NullPointerException e) {
+				// If our injection didn't get applied, a NullPointerException will occur from calling that method if
+				// the entity doesn't currently have night vision. This isn't pretty but it's functional.
+				return 0.0F;
+			}
+		}
+
+		// Conduit power gives the player a sort-of night vision effect when underwater.
+		// This lets existing shaderpacks be compatible with conduit power automatically.
+		//
+		// Yes, this should be the player entity, to match LightTexture.
+		if (player != null && player.hasEffect(MobEffects.CONDUIT_POWER)) {
+			float underwaterVisibility = player.getWaterVision();
+
+			if (underwaterVisibility > 0.0f) {
+				// Just protecting against potential weird mod behavior
+				return Math.clamp(0.0F, 1.0F, underwaterVisibility);
+			}
+		}
+
+		return 0.0F;
+	}
+
+	public int getBiomeId() {
+		sampleTick();
+		return biomeId;
+	}
+
+	public int getBiomeCategory() {
+		sampleTick();
+		return biomeCategory;
+	}
+
+	/**
+	 * The precipitation at the position of the player: 0 for none, 1 for rain, and 2 for snow.
+	 */
+	public int getBiomePrecipitation() {
+		sampleTick();
+		return biomePrecipitation;
+	}
+
+	public float getRainfall() {
+		sampleTick();
+		return rainfall;
+	}
+
+	public float getTemperature() {
+		sampleTick();
+		return temperature;
+	}
+
+	/**
+	 * The sky color at the camera. The returned vector is shared and must not be modified.
+	 */
+	public Vector3d getSkyColor() {
+		sampleFrame();
+		return skyColor;
+	}
+
+	/**
+	 * The block and sky light levels at the eyes of the camera entity, multiplied by 16.
+	 */
+	public Vector2i getEyeBrightness() {
+		sampleFrame();
+		return new Vector2i(eyeBlockLight * 16, eyeSkyLight * 16);
+	}
+
+	public void writeEyeBrightness(Vector2i dest) {
+		sampleFrame();
+		dest.set(eyeBlockLight * 16, eyeSkyLight * 16);
+	}
+
+	public int getEyeSkyBrightness() {
+		sampleFrame();
+		return eyeSkyLight * 16;
+	}
+
+	public int getEyeInWater() {
+		sampleFrame();
+		return eyeInWater;
+	}
+
+	public float getRainStrength() {
+		sampleFrame();
+		return rainStrength;
+	}
+
+	public float getBlindness() {
+		sampleFrame();
+		return blindness;
+	}
+
+	public float getDarknessFactor() {
+		sampleFrame();
+		return darknessFactor;
+	}
+
+	public float getNightVision() {
+		sampleFrame();
+		return nightVision;
+	}
+
+	public boolean isSneaking() {
+		sampleFrame();
+		return sneaking;
+	}
+
+	public boolean isSprinting() {
+		sampleFrame();
+		return sprinting;
+	}
+
+	public boolean isHurt() {
+		sampleFrame();
+		return hurt;
+	}
+
+	public boolean isInvisible() {
+		sampleFrame();
+		return invisible;
+	}
+
+	public boolean isBurning() {
+		sampleFrame();
+		return burning;
+	}
+
+	public boolean isOnGround() {
+		sampleFrame();
+		return onGround;
+	}
+}
@@ -1,6 +1,8 @@
 package net.irisshaders.iris.uniforms.custom;
 
 import com.google.common.collect.ImmutableMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
 import it.unimi.dsi.fastutil.objects.Object2IntMap;
 import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
 import it.unimi.dsi.fastutil.objects.Object2ObjectLinkedOpenHashMap;
@@ -8,11 +10,14 @@ import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.objects.ObjectArrayList;
 import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
 import kroppeb.stareval.element.ExpressionElement;
+import kroppeb.stareval.expression.CallExpression;
+import kroppeb.stareval.expression.ConstantExpression;
 import kroppeb.stareval.expression.Expression;
 import kroppeb.stareval.expression.VariableExpression;
 import kroppeb.stareval.function.FunctionContext;
 import kroppeb.stareval.function.FunctionReturn;
 import kroppeb.stareval.function.Type;
+import kroppeb.stareval.function.TypedFunction;
 import kroppeb.stareval.parser.Parser;
 import kroppeb.stareval.resolver.ExpressionResolver;
 import net.irisshaders.iris.Iris;
@@ -24,6 +29,8 @@ import net.irisshaders.iris.parsing.VectorType;
 import net.irisshaders.iris.uniforms.custom.cached.CachedUniform;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Map;
 import java.util.OptionalInt;
@@ -37,8 +44,15 @@ public class CustomUniforms implements FunctionContext {
 	private final Map<String, Expression> variablesExpressions = new Object2ObjectLinkedOpenHashMap<>();
 	private final CustomUniformFixedInputUniformsHolder inputHolder;
 	private final List<CachedUniform> uniformOrder;
-	private final Map<Object, Object2IntMap<CachedUniform>> locationMap = new Object2ObjectOpenHashMap<>();
+	private final Map<Object, PassUniforms> locationMap = new Object2ObjectOpenHashMap<>();
 	private final Map<CachedUniform, List<CachedUniform>> dependsOn;
+	private final Set<CachedUniform> alwaysUpdated = new ObjectOpenHashSet<>();
+	// Flattened form of uniformOrder used by update(), rebuilt whenever the order changes
+	private CachedUniform[] updateOrder;
+	private int[][] updateDependencies;
+	private boolean[] updateAlways;
+	private final BitSet changed = new BitSet();
+	private boolean firstUpdate = true;
 
 	private CustomUniforms(CustomUniformFixedInputUniformsHolder inputHolder, Map<String, Builder.Variable> variables) {
 		this.inputHolder = inputHolder;
@@ -173,6 +187,66 @@ public class CustomUniforms implements FunctionContext {
 
 			this.uniformOrder = ordered;
 		}
+
+		for (CachedUniform input : this.inputHolder.getAll()) {
+			// built-in uniforms read from the game state, so they always have to be updated
+			this.alwaysUpdated.add(input);
+		}
+
+		for (Map.Entry<String, Expression> entry : this.variablesExpressions.entrySet()) {
+			if (!isDeterministic(entry.getValue())) {
+				this.alwaysUpdated.add(this.variables.get(entry.getKey()));
+			}
+		}
+
+		this.buildUpdateOrder();
+	}
+
+	/**
+	 * Returns whether the expression always evaluates to the same value as long as the variables it refers to stay
+	 * the same. Impure functions (like {@code smooth}), random functions and functions that aren't known to be
+	 * deterministic aren't.
+	 */
+	private static boolean isDeterministic(Expression expression) {
+		if (expression instanceof CallExpression call) {
+			TypedFunction function = call.getFunction();
+
+			if (!function.isPure() || !IrisFunctions.isDeterministic(function)) {
+				return false;
+			}
+
+			for (Expression argument : call.getArguments()) {
+				if (!isDeterministic(argument)) {
+					return false;
+				}
+			}
+
+			return true;
+		}
+
+		return expression instanceof ConstantExpression || expression instanceof VariableExpression;
+	}
+
+	private void buildUpdateOrder() {
+		Object2IntMap<CachedUniform> indices = new Object2IntOpenHashMap<>();
+		indices.defaultReturnValue(-1);
+
+		this.updateOrder = this.uniformOrder.toArray(new CachedUniform[0]);
+		this.updateDependencies = new int[this.updateOrder.length][];
+		this.updateAlways = new boolean[this.updateOrder.length];
+
+		for (int i = 0; i < this.updateOrder.length; i++) {
+			CachedUniform uniform = this.updateOrder[i];
+			List<CachedUniform> dependencies = this.dependsOn.getOrDefault(uniform, List.of());
+
+			// dependencies always come earlier in the order, so they already have an index
+			this.updateDependencies[i] = dependencies.stream().mapToInt(indices::getInt).filter(index -> index >= 0).toArray();
+			this.updateAlways[i] = this.alwaysUpdated.contains(uniform);
+			indices.put(uniform, i);
+		}
+
+		this.changed.clear();
+		this.firstUpdate = true;
 	}
 
 	private void addVariable(Expression expression, CachedUniform uniform) throws Exception {
@@ -187,35 +261,59 @@ public class CustomUniforms implements FunctionContext {
 	}
 
 	public void assignTo(LocationalUniformHolder targetHolder) {
-		Object2IntMap<CachedUniform> locations = new Object2IntOpenHashMap<>();
+		List<CachedUniform> uniforms = new ArrayList<>();
+		IntList locations = new IntArrayList();
+
 		for (CachedUniform uniform : this.uniformOrder) {
 			try {
 				OptionalInt location = targetHolder.location(uniform.getName(), Type.convert(uniform.getType()));
 				if (location.isPresent()) {
-					locations.put(uniform, location.getAsInt());
+					uniforms.add(uniform);
+					locations.add(location.getAsInt());
 				}
 			} catch (Exception e) {
 				throw new RuntimeException(uniform.getName(), e);
 			}
 		}
-		this.locationMap.put(targetHolder, locations);
+		this.locationMap.put(targetHolder, new PassUniforms(uniforms.toArray(new CachedUniform[0]), locations.toIntArray()));
 	}
 
 	public void mapholderToPass(LocationalUniformHolder holder, Object pass) {
 		locationMap.put(pass, locationMap.remove(holder));
 	}
 
-
+	/**
+	 * Updates all custom uniforms in dependency order. A uniform is only evaluated if it isn't deterministic, or if
+	 * one of the uniforms it depends on changed this frame.
+	 */
 	public void update() {
-		for (CachedUniform value : this.uniformOrder) {
-			value.update();
+		CachedUniform[] order = this.updateOrder;
+
+		for (int i = 0; i < order.length; i++) {
+			boolean dirty = this.firstUpdate || this.updateAlways[i];
+
+			if (!dirty) {
+				for (int dependency : this.updateDependencies[i]) {
+					if (this.changed.get(dependency)) {
+						dirty = true;
+						break;
+					}
+				}
+			}
+
+			this.changed.set(i, dirty && order[i].update());
 		}
+
+		this.firstUpdate = false;
 	}
 
+	/**
+	 * Uploads the custom uniforms used by the given pass that changed since they were last uploaded to it.
+	 */
 	public void push(Object pass) {
-		Object2IntMap<CachedUniform> uniforms = this.locationMap.get(pass);
+		PassUniforms uniforms = this.locationMap.get(pass);
 		if (uniforms != null) {
-			uniforms.forEach(CachedUniform::pushIfChanged);
+			uniforms.push();
 		}
 	}
 
@@ -226,9 +324,6 @@ public class CustomUniforms implements FunctionContext {
 	 *         Remove unused uniforms
 	 *     </li>
 	 *     <li>
-	 *         TODO: Create separate push lists for each renderpass
-	 *     </li>
-	 *     <li>
 	 *         TODO: Sort the others in the correct execution line <p/>
 	 *               note: that if a `EVERY_FRAME` depends on a `EVERY_TICK`, it has to correctly now that it's
 	 *               dependency hasn't updated <br/>
@@ -251,8 +346,8 @@ public class CustomUniforms implements FunctionContext {
 
 		// Count the times a pass depends on a uniform
 		// ensures they wont ever be removed
-		for (Object2IntMap<CachedUniform> map : this.locationMap.values()) {
-			for (CachedUniform cachedUniform : map.keySet()) {
+		for (PassUniforms pass : this.locationMap.values()) {
+			for (CachedUniform cachedUniform : pass.uniforms) {
 				dependedByCount.mergeInt(cachedUniform, 1, Integer::sum);
 			}
 		}
@@ -276,6 +371,7 @@ public class CustomUniforms implements FunctionContext {
 		}
 
 		this.uniformOrder.removeAll(unused);
+		this.buildUpdateOrder();
 	}
 
 	@Override
@@ -295,6 +391,34 @@ public class CustomUniforms implements FunctionContext {
 		throw new RuntimeException("Unknown variable: " + name);
 	}
 
+	/**
+	 * The custom uniforms used by a single pass, along with the version of each one that was last uploaded to it.
+	 */
+	private static final class PassUniforms {
+		private final CachedUniform[] uniforms;
+		private final int[] locations;
+		private final int[] pushedVersions;
+
+		private PassUniforms(CachedUniform[] uniforms, int[] locations) {
+			this.uniforms = uniforms;
+			this.locations = locations;
+			this.pushedVersions = new int[uniforms.length];
+			// nothing has been uploaded yet
+			Arrays.fill(this.pushedVersions, -1);
+		}
+
+		private void push() {
+			for (int i = 0; i < uniforms.length; i++) {
+				int version = uniforms[i].getVersion();
+
+				if (pushedVersions[i] != version) {
+					uniforms[i].push(locations[i]);
+					pushedVersions[i] = version;
+				}
+			}
+		}
+	}
+
 	public static class Builder {
 		final private static Map<String, Type> types = new ImmutableMap.Builder<String, Type>()
 			.put("bool", Type.Boolean)
@@ -14,7 +14,7 @@ import org.joml.Vector4f;
 public abstract class CachedUniform implements VariableExpression {
 	private final String name;
 	private final UniformUpdateFrequency updateFrequency;
-	private boolean changed = true;
+	private int version;
 
 	public CachedUniform(String name, UniformUpdateFrequency updateFrequency) {
 		this.name = name;
@@ -25,20 +25,11 @@ public abstract class CachedUniform implements VariableExpression {
 		final FunctionReturn held = new FunctionReturn();
 		final UniformUpdateFrequency frequency = UniformUpdateFrequency.CUSTOM;
 		if (type.equals(Type.Boolean)) {
-			return new BooleanCachedUniform(name, frequency, () -> {
-				expression.evaluateTo(context, held);
-				return held.booleanReturn;
-			});
+			return new BooleanCachedUniform(name, frequency, new CompiledExpressionSupplier(name, type, expression, context));
 		} else if (type.equals(Type.Int)) {
-			return new IntCachedUniform(name, frequency, () -> {
-				expression.evaluateTo(context, held);
-				return held.intReturn;
-			});
+			return new IntCachedUniform(name, frequency, new CompiledExpressionSupplier(name, type, expression, context));
 		} else if (type.equals(Type.Float)) {
-			return new FloatCachedUniform(name, frequency, () -> {
-				expression.evaluateTo(context, held);
-				return held.floatReturn;
-			});
+			return new FloatCachedUniform(name, frequency, new CompiledExpressionSupplier(name, type, expression, context));
 		} else if (type.equals(VectorType.VEC2)) {
 			return new Float2VectorCachedUniform(name, frequency, () -> {
 				expression.evaluateTo(context, held);
@@ -59,25 +50,31 @@ public abstract class CachedUniform implements VariableExpression {
 		}
 	}
 
-	public void markUnchanged() {
-		this.changed = false;
-	}
+	/**
+	 * Re-evaluates this uniform.
+	 *
+	 * @return whether the value changed
+	 */
+	public boolean update() {
+		boolean changed = doUpdate();
+
+		if (changed) {
+			this.version++;
+		}
 
-	public void update() {
-		doUpdate();
-		// TODO: Works around a logic error / architectural flaw - there's no way to
-		//       know when a uniform has been uploaded to all programs, so we can never
-		//       safely change this to false with the current design.
-		this.changed = true;
+		return changed;
 	}
 
 	protected abstract boolean doUpdate();
 
 	public abstract void push(int location);
 
-	public void pushIfChanged(int location) {
-		if (this.changed)
-			push(location);
+	/**
+	 * Returns a counter that is incremented every time the value changes, so that each program can tell whether it
+	 * has already received the current value.
+	 */
+	public int getVersion() {
+		return version;
 	}
 
 	@Override
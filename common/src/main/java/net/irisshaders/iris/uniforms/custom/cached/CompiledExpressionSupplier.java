@@ -0,0 +1,105 @@
+package net.irisshaders.iris.uniforms.custom.cached;
+
+import kroppeb.stareval.expression.Expression;
+import kroppeb.stareval.expression.ExpressionCompiler;
+import kroppeb.stareval.function.FunctionContext;
+import kroppeb.stareval.function.FunctionReturn;
+import kroppeb.stareval.function.Type;
+import net.irisshaders.iris.Iris;
+import net.irisshaders.iris.gl.uniform.FloatSupplier;
+
+import java.lang.invoke.MethodHandle;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntSupplier;
+
+/**
+ * Evaluates a primitive custom uniform expression through {@link ExpressionCompiler}, falling back to the
+ * interpreter if the expression can't be compiled.
+ * <p>
+ * Compilation is deferred to the first evaluation, because the expression may refer to custom uniforms that are
+ * defined after it and therefore don't exist yet when this supplier is created.
+ */
+class CompiledExpressionSupplier implements BooleanSupplier, IntSupplier, FloatSupplier {
+	private final String name;
+	private final Type type;
+	private final Expression expression;
+	private final FunctionContext context;
+	private final FunctionReturn held = new FunctionReturn();
+	private MethodHandle compiled;
+	private boolean compileAttempted;
+
+	CompiledExpressionSupplier(String name, Type type, Expression expression, FunctionContext context) {
+		this.name = name;
+		this.type = type;
+		this.expression = expression;
+		this.context = context;
+	}
+
+	private MethodHandle getCompiled() {
+		if (!compileAttempted) {
+			compileAttempted = true;
+
+			try {
+				compiled = ExpressionCompiler.compile(expression, type, context);
+			} catch (RuntimeException e) {
+				Iris.logger.warn("Failed to compile custom uniform " + name + ", falling back to the interpreter", e);
+			}
+		}
+
+		return compiled;
+	}
+
+	@Override
+	public boolean getAsBoolean() {
+		MethodHandle handle = getCompiled();
+
+		if (handle == null) {
+			expression.evaluateTo(context, held);
+			return held.booleanReturn;
+		}
+
+		try {
+			return (boolean) handle.invokeExact();
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable t) {
+			throw new IllegalStateException(t);
+		}
+	}
+
+	@Override
+	public int getAsInt() {
+		MethodHandle handle = getCompiled();
+
+		if (handle == null) {
+			expression.evaluateTo(context, held);
+			return held.intReturn;
+		}
+
+		try {
+			return (int) handle.invokeExact();
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable t) {
+			throw new IllegalStateException(t);
+		}
+	}
+
+	@Override
+	public float getAsFloat() {
+		MethodHandle handle = getCompiled();
+
+		if (handle == null) {
+			expression.evaluateTo(context, held);
+			return held.floatReturn;
+		}
+
+		try {
+			return (float) handle.invokeExact();
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable t) {
+			throw new IllegalStateException(t);
+		}
+	}
+}